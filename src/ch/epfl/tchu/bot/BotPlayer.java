@@ -0,0 +1,168 @@
+package ch.epfl.tchu.bot;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.*;
+
+/**
+ * Player taking its decisions on its own, always within the rules. A random bot picks among the legal moves with a
+ * seeded random generator, a scripted bot always picks the first legal move, so that its games are reproducible.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class BotPlayer implements Player {
+    //A random bot draws tickets once in this many turns (when it could claim a route or draw cards instead)
+    private static final int DRAW_TICKETS_ODDS = 12;
+    //A random bot draws cards once in this many turns when it could claim a route
+    private static final int DRAW_CARDS_ODDS = 3;
+    //A random bot abandons a tunnel once in this many claims
+    private static final int ABANDON_TUNNEL_ODDS = 10;
+
+    private final Random random;
+
+    private PublicGameState gameState;
+    private PlayerState ownState;
+    private SortedBag<Ticket> initialTickets;
+
+    private Route routeToClaim;
+    private SortedBag<Card> claimCards;
+
+    private BotPlayer(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Creates a bot choosing randomly among the legal moves
+     *
+     * @param seed : the seed of the random generator
+     * @return a random bot
+     */
+    public static BotPlayer random(long seed) {
+        return new BotPlayer(new Random(seed));
+    }
+
+    /**
+     * Creates a bot always choosing the first legal move
+     *
+     * @return a scripted bot
+     */
+    public static BotPlayer scripted() {
+        return new BotPlayer(null);
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames) {
+    }
+
+    @Override
+    public void receiveInfo(String info) {
+    }
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        this.gameState = newState;
+        this.ownState = ownState;
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        this.initialTickets = tickets;
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        int minimum = Constants.INITIAL_TICKETS_COUNT - Constants.DISCARDABLE_TICKETS_COUNT;
+        return someOf(initialTickets, minimum + choose(Constants.DISCARDABLE_TICKETS_COUNT + 1));
+    }
+
+    @Override
+    public TurnKind nextTurn() {
+        List<Route> claimableRoutes = claimableRoutes();
+        boolean canDrawTickets = gameState.ticketsCount() >= Constants.IN_GAME_TICKETS_COUNT;
+
+        if (canDrawTickets && (chance(DRAW_TICKETS_ODDS) || claimableRoutes.isEmpty() && !gameState.canDrawCards())) {
+            return TurnKind.DRAW_TICKETS;
+        }
+        if (claimableRoutes.isEmpty() || chance(DRAW_CARDS_ODDS)) {
+            return TurnKind.DRAW_CARDS;
+        }
+        routeToClaim = claimableRoutes.get(choose(claimableRoutes.size()));
+        List<SortedBag<Card>> possibleClaimCards = ownState.possibleClaimCards(routeToClaim);
+        claimCards = possibleClaimCards.get(choose(possibleClaimCards.size()));
+
+        return TurnKind.CLAIM_ROUTE;
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        return someOf(options, 1 + choose(options.size()));
+    }
+
+    @Override
+    public int drawSlot() {
+        if (!gameState.canDrawCards()) {
+            return Constants.FACE_UP_CARD_SLOTS.get(choose(Constants.FACE_UP_CARDS_COUNT));
+        }
+        int slot = choose(Constants.FACE_UP_CARDS_COUNT + 1);
+        return slot == Constants.FACE_UP_CARDS_COUNT ? Constants.DECK_SLOT : slot;
+    }
+
+    @Override
+    public Route claimedRoute() {
+        return routeToClaim;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return claimCards;
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        if (options.isEmpty() || chance(ABANDON_TUNNEL_ODDS)) {
+            return SortedBag.of();
+        }
+        return options.get(choose(options.size()));
+    }
+
+    /**
+     * Determines the routes the bot can claim: neither claimed, nor the neighbour of a claimed double route
+     */
+    private List<Route> claimableRoutes() {
+        Set<List<Station>> claimedStations = new HashSet<>();
+        for (Route route : gameState.claimedRoutes()) {
+            claimedStations.add(route.stations());
+        }
+
+        List<Route> claimableRoutes = new ArrayList<>();
+        for (Route route : ChMap.routes()) {
+            if (!claimedStations.contains(route.stations()) && ownState.canClaimRoute(route)) {
+                claimableRoutes.add(route);
+            }
+        }
+        return claimableRoutes;
+    }
+
+    private <T extends Comparable<T>> SortedBag<T> someOf(SortedBag<T> options, int count) {
+        List<T> shuffled = new ArrayList<>(options.toList());
+        if (random != null) {
+            Collections.shuffle(shuffled, random);
+        }
+        return SortedBag.of(shuffled.subList(0, count));
+    }
+
+    /**
+     * Chooses one of the given number of options: always the first one for a scripted bot
+     */
+    private int choose(int optionCount) {
+        return random == null ? 0 : random.nextInt(optionCount);
+    }
+
+    /**
+     * Determines whether an event with the given odds happens: never for a scripted bot
+     */
+    private boolean chance(int odds) {
+        return random != null && random.nextInt(odds) == 0;
+    }
+}
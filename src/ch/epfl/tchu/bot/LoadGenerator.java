@@ -0,0 +1,223 @@
+package ch.epfl.tchu.bot;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.net.LatencyHistogram;
+import ch.epfl.tchu.net.MessageId;
+import ch.epfl.tchu.net.ProtocolMetrics;
+import ch.epfl.tchu.net.RemotePlayerClient;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Headless load generator: runs many remote player clients in a single JVM, each one played by a bot, against a server
+ * hosting the games (on localhost by default). It reports the time taken to connect, the number of games completed per
+ * second and the percentiles of the latency of the server, measured by each client as the time between its answer and
+ * the next message of the server.
+ *
+ * Every client runs on its own thread, whose stack is kept small so that thousands of clients fit in a single JVM.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class LoadGenerator {
+    private static final int DEFAULT_CLIENTS = 100;
+    //Same default port as the server
+    private static final int DEFAULT_PORT = 5108;
+    private static final long CLIENT_STACK_SIZE = 256 * 1024;
+    private static final long PROGRESS_PERIOD_MILLIS = 5_000;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final String host;
+    private final int port;
+    private final boolean scripted;
+
+    private final LatencyHistogram connectionSetup = new LatencyHistogram();
+    private final Map<MessageId, LatencyHistogram> latencies = new EnumMap<>(MessageId.class);
+    private final AtomicInteger completedClients = new AtomicInteger();
+    private final AtomicInteger failedClients = new AtomicInteger();
+
+    /**
+     * Constructs a load generator targeting the given server
+     *
+     * @param host     : the host name of the server
+     * @param port     : the port of the server
+     * @param scripted : true if the clients are played by scripted bots, false for random bots
+     */
+    public LoadGenerator(String host, int port, boolean scripted) {
+        Preconditions.checkArgument(host != null);
+
+        this.host = host;
+        this.port = port;
+        this.scripted = scripted;
+        for (MessageId messageId : MessageId.values()) {
+            latencies.put(messageId, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Runs the load generator: [clients [host [port [scripted]]]], by default 100 random bots on localhost:5108
+     *
+     * @param args : the number of clients, the host, the port and "scripted" for scripted bots
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        String host = args.length > 1 ? args[1] : "localhost";
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PORT;
+        boolean scripted = args.length > 3 && args[3].equals("scripted");
+
+        LoadGenerator generator = new LoadGenerator(host, port, scripted);
+        long elapsedNanos = generator.run(clients, System.nanoTime(),
+                done -> System.out.printf("%d/%d clients done%n", done, clients));
+        generator.printReport(System.out, elapsedNanos);
+    }
+
+    /**
+     * Starts the given number of clients, and waits until all of them are done
+     *
+     * @param clients : the number of clients
+     * @param seed    : the seed of the random bots (client i uses seed + i)
+     * @return the time (in nanoseconds) the clients took
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public long run(int clients, long seed) throws InterruptedException {
+        return run(clients, seed, done -> { });
+    }
+
+    /**
+     * Starts the given number of clients, and waits until all of them are done, reporting the progress periodically
+     *
+     * @param clients  : the number of clients
+     * @param seed     : the seed of the random bots (client i uses seed + i)
+     * @param progress : called every few seconds, while clients are still running, with the number of clients done
+     * @return the time (in nanoseconds) the clients took
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public long run(int clients, long seed, IntConsumer progress) throws InterruptedException {
+        Preconditions.checkArgument(clients > 0);
+
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            Player bot = scripted ? BotPlayer.scripted() : BotPlayer.random(seed + i);
+            RemotePlayerClient client = new RemotePlayerClient(bot, host, port,
+                    RemotePlayerClient.DEFAULT_RESUME_TIMEOUT_MILLIS, new ClientRecorder());
+
+            Thread thread = new Thread(null, () -> runClient(client), "load-client-" + i, CLIENT_STACK_SIZE);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                thread.join(PROGRESS_PERIOD_MILLIS);
+                if (thread.isAlive()) {
+                    progress.accept(completedClients.get() + failedClients.get());
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void runClient(RemotePlayerClient client) {
+        try {
+            client.run();
+            completedClients.incrementAndGet();
+        } catch (RuntimeException failure) {
+            failedClients.incrementAndGet();
+        }
+    }
+
+    /**
+     * Getter for the number of clients whose game ran until its end
+     *
+     * @return the number of completed clients
+     */
+    public int completedClients() {
+        return completedClients.get();
+    }
+
+    /**
+     * Getter for the number of clients that failed
+     *
+     * @return the number of failed clients
+     */
+    public int failedClients() {
+        return failedClients.get();
+    }
+
+    /**
+     * Getter for the histogram of the latencies of the server before sending the given message
+     *
+     * @param messageId : the id of the message
+     * @return the histogram of its latencies (in nanoseconds)
+     */
+    public LatencyHistogram latencies(MessageId messageId) {
+        return latencies.get(messageId);
+    }
+
+    /**
+     * Prints the report of a run
+     *
+     * @param output       : where the report is printed
+     * @param elapsedNanos : the duration of the run
+     */
+    public void printReport(PrintStream output, long elapsedNanos) {
+        double seconds = elapsedNanos / NANOS_PER_SECOND;
+        double games = (double) completedClients.get() / PlayerId.COUNT;
+
+        output.printf("%d clients completed, %d failed in %.1f s: %.1f games/s%n",
+                completedClients.get(), failedClients.get(), seconds, games / seconds);
+        output.printf("%-24s %8s %8s %8s %8s %10s%n", "(ms)", "p50", "p90", "p99", "p99.9", "count");
+        printLatencies(output, "connection setup", connectionSetup);
+        latencies.forEach((messageId, histogram) -> printLatencies(output, messageId.name(), histogram));
+    }
+
+    private static void printLatencies(PrintStream output, String name, LatencyHistogram histogram) {
+        long count = histogram.count();
+        if (count == 0) {
+            return;
+        }
+        output.printf("%-24s", name);
+        for (double percentile : PERCENTILES) {
+            output.printf(" %8.2f", histogram.percentile(percentile) / NANOS_PER_MILLI);
+        }
+        output.printf(" %10d%n", count);
+    }
+
+    /**
+     * Metrics of a single client, recording the latency of the server into the shared histograms
+     */
+    private final class ClientRecorder implements ProtocolMetrics {
+        //Time of the last answer of the client, 0 once the next message of the server was received
+        private long lastAnswerAt;
+
+        @Override
+        public void connectionEstablished(long setupNanos) {
+            connectionSetup.record(setupNanos);
+        }
+
+        @Override
+        public void messageSent(MessageId messageId, int bytes, long serializationNanos) {
+            lastAnswerAt = System.nanoTime();
+        }
+
+        @Override
+        public void messageReceived(MessageId messageId, int bytes) {
+            if (lastAnswerAt != 0) {
+                latencies.get(messageId).record(System.nanoTime() - lastAnswerAt);
+                lastAnswerAt = 0;
+            }
+        }
+    }
+}
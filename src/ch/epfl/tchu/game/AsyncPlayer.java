@@ -0,0 +1,254 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.SortedBag;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Represents a player whose decisions are asynchronous: instead of blocking the game until they are made, the decision
+ * methods return futures completed once the player decided. A game of such players doesn't hold any thread while it
+ * waits for them (see Game.playAsync).
+ *
+ * The game never asks for a decision, nor sends any notification, before the previous decision was completed.
+ *
+ * @author Anne-Marie Rusu (296098)
+ */
+public interface AsyncPlayer {
+    /**
+     * Communicates to the player their id, and all the player names
+     *
+     * @param ownID       : the id of the player
+     * @param playerNames : all the names of the players in the game
+     */
+    void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames);
+
+    /**
+     * Communicates information about the game to the player throughout the game
+     *
+     * @param info : the information to be communicated to the player
+     */
+    void receiveInfo(String info);
+
+    /**
+     * Informs the player of the new state of the game (version that can be viewed by everyone)
+     *
+     * @param newState : the new state of the game (visible to everyone)
+     * @param ownState : the player's own state
+     */
+    void updateState(PublicGameState newState, PlayerState ownState);
+
+    /**
+     * Informs the player of the 5 tickets they were distributed at the beginning of the game
+     *
+     * @param tickets : the tickets the player received
+     */
+    void setInitialTicketChoice(SortedBag<Ticket> tickets);
+
+    /**
+     * Asks the player which of the 5 tickets they were distributed, they will keep
+     *
+     * @return the future tickets to be kept
+     */
+    CompletableFuture<SortedBag<Ticket>> chooseInitialTickets();
+
+    /**
+     * Asks the player which action they would like to take during their turn
+     *
+     * @return the future action they will take in the player's turn
+     */
+    CompletableFuture<Player.TurnKind> nextTurn();
+
+    /**
+     * Asks the player what tickets they will keep after drawing extra tickets from the ticket draw pile
+     *
+     * @param options : the tickets the player has picked from the ticket draw pile
+     * @return the future tickets the player will keep
+     */
+    CompletableFuture<SortedBag<Ticket>> chooseTickets(SortedBag<Ticket> options);
+
+    /**
+     * Asks the player from which pile (draw pile or face up cards) they will draw a card from
+     *
+     * @return the future slot: -1 if its from the draw pile, and an integer between 0 and 4 (corresponding to the
+     * position of the card) if its from the face up cards
+     */
+    CompletableFuture<Integer> drawSlot();
+
+    /**
+     * Asks the player the route they will attempt to claim
+     *
+     * @return the future route to be claimed
+     */
+    CompletableFuture<Route> claimedRoute();
+
+    /**
+     * Asks the player what cards they will use to claim a route
+     *
+     * @return the future cards the player will use to claim a route
+     */
+    CompletableFuture<SortedBag<Card>> initialClaimCards();
+
+    /**
+     * Asks the player what cards they will use to claim a tunnel
+     *
+     * @param options : the possible cards the player can use
+     * @return the future cards the player will use to claim a tunnel
+     */
+    CompletableFuture<SortedBag<Card>> chooseAdditionalCards(List<SortedBag<Card>> options);
+
+    /**
+     * Returns the asynchronous view of the given player: its decisions are made in the calling thread, and returned
+     * as completed futures
+     *
+     * @param player : the synchronous player
+     * @return the asynchronous player delegating to the given one
+     */
+    static AsyncPlayer of(Player player) {
+        Objects.requireNonNull(player);
+
+        return new AsyncPlayer() {
+            @Override
+            public void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames) {
+                player.initPlayers(ownID, playerNames);
+            }
+
+            @Override
+            public void receiveInfo(String info) {
+                player.receiveInfo(info);
+            }
+
+            @Override
+            public void updateState(PublicGameState newState, PlayerState ownState) {
+                player.updateState(newState, ownState);
+            }
+
+            @Override
+            public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+                player.setInitialTicketChoice(tickets);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseInitialTickets() {
+                return CompletableFuture.completedFuture(player.chooseInitialTickets());
+            }
+
+            @Override
+            public CompletableFuture<Player.TurnKind> nextTurn() {
+                return CompletableFuture.completedFuture(player.nextTurn());
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseTickets(SortedBag<Ticket> options) {
+                return CompletableFuture.completedFuture(player.chooseTickets(options));
+            }
+
+            @Override
+            public CompletableFuture<Integer> drawSlot() {
+                return CompletableFuture.completedFuture(player.drawSlot());
+            }
+
+            @Override
+            public CompletableFuture<Route> claimedRoute() {
+                return CompletableFuture.completedFuture(player.claimedRoute());
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Card>> initialClaimCards() {
+                return CompletableFuture.completedFuture(player.initialClaimCards());
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Card>> chooseAdditionalCards(List<SortedBag<Card>> options) {
+                return CompletableFuture.completedFuture(player.chooseAdditionalCards(options));
+            }
+        };
+    }
+
+    /**
+     * Returns the synchronous view of the given asynchronous player: each decision blocks the calling thread until its
+     * future is completed
+     *
+     * @param player : the asynchronous player
+     * @return the synchronous player delegating to the given one
+     * @throws CompletionException (from the decision methods) if a decision completed exceptionally with a checked exception
+     */
+    static Player blocking(AsyncPlayer player) {
+        Objects.requireNonNull(player);
+
+        return new Player() {
+            @Override
+            public void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames) {
+                player.initPlayers(ownID, playerNames);
+            }
+
+            @Override
+            public void receiveInfo(String info) {
+                player.receiveInfo(info);
+            }
+
+            @Override
+            public void updateState(PublicGameState newState, PlayerState ownState) {
+                player.updateState(newState, ownState);
+            }
+
+            @Override
+            public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+                player.setInitialTicketChoice(tickets);
+            }
+
+            @Override
+            public SortedBag<Ticket> chooseInitialTickets() {
+                return await(player.chooseInitialTickets());
+            }
+
+            @Override
+            public TurnKind nextTurn() {
+                return await(player.nextTurn());
+            }
+
+            @Override
+            public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+                return await(player.chooseTickets(options));
+            }
+
+            @Override
+            public int drawSlot() {
+                return await(player.drawSlot());
+            }
+
+            @Override
+            public Route claimedRoute() {
+                return await(player.claimedRoute());
+            }
+
+            @Override
+            public SortedBag<Card> initialClaimCards() {
+                return await(player.initialClaimCards());
+            }
+
+            @Override
+            public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+                return await(player.chooseAdditionalCards(options));
+            }
+        };
+    }
+
+    /**
+     * Waits for the given future, and rethrows the unchecked exception it completed with, if any
+     *
+     * @param future : the future
+     * @param <T>    : the type of the value of the future
+     * @return the value of the future
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException completionException) {
+            throw Game.unwrap(completionException);
+        }
+    }
+}
@@ -158,59 +158,69 @@ public final class ChMap {
             new Route("WIN_ZUR_2", WIN, ZUR, 1, Level.OVERGROUND, Color.VIOLET),
             new Route("ZOU_ZUR_1", ZOU, ZUR, 1, Level.OVERGROUND, Color.GREEN),
             new Route("ZOU_ZUR_2", ZOU, ZUR, 1, Level.OVERGROUND, Color.RED));
-    // Tickets
-    private static final Ticket deToNeighbors = ticketToNeighbors(DE, 0, 5, 13, 5);
-    private static final Ticket atToNeighbors = ticketToNeighbors(AT, 5, 0, 6, 14);
-    private static final Ticket itToNeighbors = ticketToNeighbors(IT, 13, 6, 0, 11);
-    private static final Ticket frToNeighbors = ticketToNeighbors(FR, 5, 14, 11, 0);
-    private static final List<Ticket> ALL_TICKETS = List.of(
-            // City-to-city tickets
-            new Ticket(BAL, BER, 5),
-            new Ticket(BAL, BRI, 10),
-            new Ticket(BAL, STG, 8),
-            new Ticket(BER, COI, 10),
-            new Ticket(BER, LUG, 12),
-            new Ticket(BER, SCZ, 5),
-            new Ticket(BER, ZUR, 6),
-            new Ticket(FRI, LUC, 5),
-            new Ticket(GEN, BAL, 13),
-            new Ticket(GEN, BER, 8),
-            new Ticket(GEN, SIO, 10),
-            new Ticket(GEN, ZUR, 14),
-            new Ticket(INT, WIN, 7),
-            new Ticket(KRE, ZUR, 3),
-            new Ticket(LAU, INT, 7),
-            new Ticket(LAU, LUC, 8),
-            new Ticket(LAU, STG, 13),
-            new Ticket(LCF, BER, 3),
-            new Ticket(LCF, LUC, 7),
-            new Ticket(LCF, ZUR, 8),
-            new Ticket(LUC, VAD, 6),
-            new Ticket(LUC, ZUR, 2),
-            new Ticket(LUG, COI, 10),
-            new Ticket(NEU, WIN, 9),
-            new Ticket(OLT, SCE, 5),
-            new Ticket(SCE, MAR, 15),
-            new Ticket(SCE, STG, 4),
-            new Ticket(SCE, ZOU, 3),
-            new Ticket(STG, BRU, 9),
-            new Ticket(WIN, SCZ, 3),
-            new Ticket(ZUR, BAL, 4),
-            new Ticket(ZUR, BRU, 11),
-            new Ticket(ZUR, LUG, 9),
-            new Ticket(ZUR, VAD, 6),
+    // Dense ids
+    private static final DenseIndex<Route> ROUTE_INDEX = DenseIndex.of(ALL_ROUTES);
 
-            // City to country tickets
-            ticketToNeighbors(List.of(BER), 6, 11, 8, 5),
-            ticketToNeighbors(List.of(COI), 6, 3, 5, 12),
-            ticketToNeighbors(List.of(LUG), 12, 13, 2, 14),
-            ticketToNeighbors(List.of(ZUR), 3, 7, 11, 7),
+    /**
+     * Holder of the tickets, only built when they are first needed: the users of the routes only (such as the view of
+     * the map) don't pay for the computation of the trips of the tickets
+     */
+    private static final class Tickets {
+        private static final Ticket deToNeighbors = ticketToNeighbors(DE, 0, 5, 13, 5);
+        private static final Ticket atToNeighbors = ticketToNeighbors(AT, 5, 0, 6, 14);
+        private static final Ticket itToNeighbors = ticketToNeighbors(IT, 13, 6, 0, 11);
+        private static final Ticket frToNeighbors = ticketToNeighbors(FR, 5, 14, 11, 0);
+        private static final List<Ticket> ALL_TICKETS = List.of(
+                // City-to-city tickets
+                new Ticket(BAL, BER, 5),
+                new Ticket(BAL, BRI, 10),
+                new Ticket(BAL, STG, 8),
+                new Ticket(BER, COI, 10),
+                new Ticket(BER, LUG, 12),
+                new Ticket(BER, SCZ, 5),
+                new Ticket(BER, ZUR, 6),
+                new Ticket(FRI, LUC, 5),
+                new Ticket(GEN, BAL, 13),
+                new Ticket(GEN, BER, 8),
+                new Ticket(GEN, SIO, 10),
+                new Ticket(GEN, ZUR, 14),
+                new Ticket(INT, WIN, 7),
+                new Ticket(KRE, ZUR, 3),
+                new Ticket(LAU, INT, 7),
+                new Ticket(LAU, LUC, 8),
+                new Ticket(LAU, STG, 13),
+                new Ticket(LCF, BER, 3),
+                new Ticket(LCF, LUC, 7),
+                new Ticket(LCF, ZUR, 8),
+                new Ticket(LUC, VAD, 6),
+                new Ticket(LUC, ZUR, 2),
+                new Ticket(LUG, COI, 10),
+                new Ticket(NEU, WIN, 9),
+                new Ticket(OLT, SCE, 5),
+                new Ticket(SCE, MAR, 15),
+                new Ticket(SCE, STG, 4),
+                new Ticket(SCE, ZOU, 3),
+                new Ticket(STG, BRU, 9),
+                new Ticket(WIN, SCZ, 3),
+                new Ticket(ZUR, BAL, 4),
+                new Ticket(ZUR, BRU, 11),
+                new Ticket(ZUR, LUG, 9),
+                new Ticket(ZUR, VAD, 6),
+
+                // City to country tickets
+                ticketToNeighbors(List.of(BER), 6, 11, 8, 5),
+                ticketToNeighbors(List.of(COI), 6, 3, 5, 12),
+                ticketToNeighbors(List.of(LUG), 12, 13, 2, 14),
+                ticketToNeighbors(List.of(ZUR), 3, 7, 11, 7),
+
+                // Country to country tickets (two of each)
+                deToNeighbors, deToNeighbors,
+                atToNeighbors, atToNeighbors,
+                itToNeighbors, itToNeighbors,
+                frToNeighbors, frToNeighbors);
+        private static final DenseIndex<Ticket> TICKET_INDEX = DenseIndex.of(ALL_TICKETS);
+    }
 
-            // Country to country tickets (two of each)
-            deToNeighbors, deToNeighbors,
-            atToNeighbors, atToNeighbors,
-            itToNeighbors, itToNeighbors,
-            frToNeighbors, frToNeighbors);
     private ChMap() {
     }
 
@@ -223,7 +233,25 @@ public final class ChMap {
     }
 
     public static List<Ticket> tickets() {
-        return ALL_TICKETS;
+        return Tickets.ALL_TICKETS;
+    }
+
+    /**
+     * Getter for the index of the routes of the map, the id of a route being its position in routes()
+     *
+     * @return the dense index of the routes
+     */
+    public static DenseIndex<Route> routeIndex() {
+        return ROUTE_INDEX;
+    }
+
+    /**
+     * Getter for the index of the tickets of the map, the id of a ticket being its first position in tickets()
+     *
+     * @return the dense index of the tickets
+     */
+    public static DenseIndex<Ticket> ticketIndex() {
+        return Tickets.TICKET_INDEX;
     }
 
     private static Ticket ticketToNeighbors(List<Station> from, int de, int at, int it, int fr) {
@@ -0,0 +1,84 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns a dense id (from 0 to size - 1) to each value of a fixed universe of values, such as the routes or the tickets of the map.
+ * The id of a value is its index in the universe; finding it costs a single identity hash lookup instead of a linear scan.
+ * The values are found by identity only: a value equal to a value of the universe, but not identical, isn't part of it.
+ *
+ * @param <T> the type of the values of the universe
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class DenseIndex<T> {
+    private final List<T> values;
+    private final Map<T, Integer> ids;
+
+    private DenseIndex(List<T> values) {
+        this.values = values;
+        this.ids = new IdentityHashMap<>(values.size());
+
+        for (int id = 0; id < values.size(); id++) {
+            //When a value appears twice, it keeps the id of its first occurrence (like List.indexOf)
+            ids.putIfAbsent(values.get(id), id);
+        }
+    }
+
+    /**
+     * Builds the index of the given universe of values
+     *
+     * @param values : all the values of the universe, the position of each value being its id
+     * @param <T>    : the type of the values
+     * @return the index of the given values
+     * @throws NullPointerException if the list is, or contains, null
+     */
+    public static <T> DenseIndex<T> of(List<T> values) {
+        return new DenseIndex<>(List.copyOf(values));
+    }
+
+    /**
+     * Getter for the id of the given value
+     *
+     * @param value : a value of the universe
+     * @return the id of the value
+     * @throws IllegalArgumentException if the value isn't part of the universe, or is only equal to one of its values
+     */
+    public int idOf(T value) {
+        Integer id = ids.get(value);
+        Preconditions.checkArgument(id != null);
+        return id;
+    }
+
+    /**
+     * Getter for the value with the given id
+     *
+     * @param id : the id of the value
+     * @return the value corresponding to the id
+     * @throws IndexOutOfBoundsException if the id isn't between 0 (included) and size (excluded)
+     */
+    public T valueOf(int id) {
+        return values.get(id);
+    }
+
+    /**
+     * Getter for the number of values of the universe
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Getter for all the values of the universe, ordered by id
+     *
+     * @return the (unmodifiable) list of values
+     */
+    public List<T> values() {
+        return values;
+    }
+}
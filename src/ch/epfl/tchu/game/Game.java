@@ -4,7 +4,10 @@ import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.gui.Info;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Represents a game of tCHu
@@ -18,7 +21,8 @@ public final class Game {
     }
 
     /**
-     * Runs a game of tCHu
+     * Runs a game of tCHu, recorded if the system property tchu.record gives the directory of the records (see
+     * GameRecorder)
      *
      * @param players     : the players playing the game
      * @param playerNames : the names of the corresponding players
@@ -27,28 +31,156 @@ public final class Game {
      * @throws IllegalArgumentException if one of the maps (playerNames or players) doesn't have exactly two pairs as there as two players in the game.
      */
     public static void play(Map<PlayerId, Player> players, Map<PlayerId, String> playerNames, SortedBag<Ticket> tickets, Random rng) {
+        play(players, playerNames, tickets, rng, GameRecorder.fromSystemProperty());
+    }
+
+    /**
+     * Runs a game of tCHu, recording it with the given recorder
+     *
+     * @param players     : the players playing the game
+     * @param playerNames : the names of the corresponding players
+     * @param tickets     : the tickets to be used in the game
+     * @param rng         : an instance of a random number generator
+     * @param recorder    : the recorder of the game, closed at the end of the game, or null not to record it
+     * @throws IllegalArgumentException if one of the maps (playerNames or players) doesn't have exactly two pairs as there as two players in the game.
+     */
+    public static void play(Map<PlayerId, Player> players, Map<PlayerId, String> playerNames, SortedBag<Ticket> tickets, Random rng, GameRecorder recorder) {
+        Preconditions.checkArgument(players.size() == PlayerId.COUNT);
+
+        //Keeps the iteration order of the given map, which determines the order the players are asked to decide in
+        Map<PlayerId, AsyncPlayer> asyncPlayers = new LinkedHashMap<>();
+        players.forEach((playerId, player) -> asyncPlayers.put(playerId, AsyncPlayer.of(player)));
+
+        //The decisions of synchronous players are already made when they are returned: the game ends before playAsync returns
+        try {
+            playAsync(asyncPlayers, playerNames, tickets, rng, recorder).join();
+        } catch (CompletionException completionException) {
+            throw unwrap(completionException);
+        }
+    }
+
+    /**
+     * Runs a game of tCHu between asynchronous players. The game is a state machine which goes on in the thread completing
+     * each decision: it doesn't hold any thread while it waits for a player.
+     * The game is recorded if the system property tchu.record gives the directory of the records (see GameRecorder).
+     *
+     * @param players     : the players playing the game
+     * @param playerNames : the names of the corresponding players
+     * @param tickets     : the tickets to be used in the game
+     * @param rng         : an instance of a random number generator
+     * @return the future completed at the end of the game, or exceptionally if a player failed
+     * @throws IllegalArgumentException if one of the maps (playerNames or players) doesn't have exactly two pairs as there as two players in the game.
+     */
+    public static CompletableFuture<Void> playAsync(Map<PlayerId, AsyncPlayer> players, Map<PlayerId, String> playerNames, SortedBag<Ticket> tickets, Random rng) {
+        return playAsync(players, playerNames, tickets, rng, GameRecorder.fromSystemProperty());
+    }
+
+    /**
+     * Runs a game of tCHu between asynchronous players, recording it with the given recorder
+     *
+     * @param players     : the players playing the game
+     * @param playerNames : the names of the corresponding players
+     * @param tickets     : the tickets to be used in the game
+     * @param rng         : an instance of a random number generator
+     * @param recorder    : the recorder of the game, closed at the end of the game, or null not to record it
+     * @return the future completed at the end of the game, or exceptionally if a player failed
+     * @throws IllegalArgumentException if one of the maps (playerNames or players) doesn't have exactly two pairs as there as two players in the game.
+     */
+    public static CompletableFuture<Void> playAsync(Map<PlayerId, AsyncPlayer> players, Map<PlayerId, String> playerNames, SortedBag<Ticket> tickets, Random rng, GameRecorder recorder) {
         Preconditions.checkArgument(players.size() == PlayerId.COUNT);
         Preconditions.checkArgument(playerNames.size() == PlayerId.COUNT);
 
-        //before the game starts
+        CompletableFuture<Void> endOfGame = new CompletableFuture<>();
+        if (recorder != null) {
+            recorder.start(playerNames, players.keySet(), tickets);
+            rng = recorder.recording(rng);
+            Map<PlayerId, AsyncPlayer> recordedPlayers = new LinkedHashMap<>();
+            players.forEach((playerId, player) -> recordedPlayers.put(playerId, recorder.recording(playerId, player)));
+            players = recordedPlayers;
+            endOfGame.whenComplete((nothing, failure) -> closeQuietly(recorder));
+        }
+        try {
+            //before the game starts
+
+            Map<PlayerId, Info> infoGenerators = initializeInfoGenerators(players, playerNames);
+            GameState gameState = GameState.initial(tickets, rng);
+
+            AllGameData allGameData = new AllGameData(gameState, players, playerNames, infoGenerators, rng);
 
-        Map<PlayerId, Info> infoGenerators = initializeInfoGenerators(players, playerNames);
-        GameState gameState = GameState.initial(tickets, rng);
+            setup(allGameData).whenComplete((setUpState, failure) -> {
+                if (failure != null) {
+                    endOfGame.completeExceptionally(causeOf(failure));
+                } else {
+                    allGameData.modifyGameState(setUpState);
+                    playTurns(allGameData, endOfGame);
+                }
+            });
+        } catch (RuntimeException | Error failure) {
+            endOfGame.completeExceptionally(failure);
+        }
+        return endOfGame;
+    }
+
+    private static void closeQuietly(GameRecorder recorder) {
+        try {
+            recorder.close();
+        } catch (IOException ioException) {
+            //The end of the record is lost, the game is over anyway
+        }
+    }
 
-        AllGameData allGameData = new AllGameData(gameState, players, playerNames, infoGenerators, rng);
+    /**
+     * Plays the turns one after the other, then the end of the game. The turns whose decisions are already made are
+     * played in a loop; when a decision is pending, the remaining turns are played by the thread completing it.
+     *
+     * @param allGameData : all of the game's information
+     * @param endOfGame   : the future to complete at the end of the game
+     */
+    private static void playTurns(AllGameData allGameData, CompletableFuture<Void> endOfGame) {
+        try {
+            while (allGameData.forNextTurnIfAny()) {
+                CompletableFuture<GameState> turn = nextTurn(allGameData);
+
+                if (!turn.isDone()) {
+                    turn.whenComplete((newState, failure) -> {
+                        if (failure != null) {
+                            endOfGame.completeExceptionally(causeOf(failure));
+                        } else {
+                            allGameData.modifyGameState(newState);
+                            playTurns(allGameData, endOfGame);
+                        }
+                    });
+                    return;
+                }
+                allGameData.modifyGameState(turn.join());
+            }
+            endOfGame(allGameData);
+            endOfGame.complete(null);
 
-        allGameData.modifyGameState(setup(allGameData));
+        } catch (CompletionException completionException) {
+            endOfGame.completeExceptionally(completionException.getCause());
+        } catch (RuntimeException | Error failure) {
+            endOfGame.completeExceptionally(failure);
+        }
+    }
 
-        //plays one round first so as to make sure the condition lastTurnBegins() is tested at the right moment
-        allGameData.modifyGameState(nextTurn(allGameData));
+    private static Throwable causeOf(Throwable failure) {
+        return failure instanceof CompletionException ? failure.getCause() : failure;
+    }
 
-        //the actual game starts
-        while (!allGameData.lastTurnBegins()) {
-            allGameData.forNextTurn();
-            allGameData.modifyGameState(nextTurn(allGameData));
+    /**
+     * Returns the exception to rethrow for the failure wrapped in the given exception
+     *
+     * @param completionException : the exception wrapping the failure of a future
+     * @return the failure if it is unchecked, the given exception otherwise
+     * @throws Error if the failure is an error
+     */
+    static RuntimeException unwrap(CompletionException completionException) {
+        Throwable cause = completionException.getCause();
+        if (cause instanceof Error) {
+            throw (Error) cause;
         }
-        //Last turn begins returned true thus the end of game is activated
-        endOfGame(allGameData);
+        return cause instanceof RuntimeException ? (RuntimeException) cause : completionException;
     }
 
     /**
@@ -57,7 +189,7 @@ public final class Game {
      * @param players       : the players in the game, associated with their playerIds
      * @param infoToReceive : the information to be communicated to the players
      */
-    private static void receiveInfoForAll(Map<PlayerId, Player> players, String infoToReceive) {
+    private static void receiveInfoForAll(Map<PlayerId, AsyncPlayer> players, String infoToReceive) {
         players.forEach((playerId, player) -> player.receiveInfo(infoToReceive));
     }
 
@@ -67,7 +199,7 @@ public final class Game {
      * @param players   : the players in the game, associated with their playerIds
      * @param gameState : the new state of the game
      */
-    private static void updateAllStates(Map<PlayerId, Player> players, GameState gameState) {
+    private static void updateAllStates(Map<PlayerId, AsyncPlayer> players, GameState gameState) {
         players.forEach((playerId, player) -> player.updateState(gameState, gameState.playerState(playerId)));
     }
 
@@ -78,7 +210,7 @@ public final class Game {
      * @param playerNames : their names
      * @return a map associating each player id to their information generator
      */
-    private static Map<PlayerId, Info> initializeInfoGenerators(Map<PlayerId, Player> players, Map<PlayerId, String> playerNames) {
+    private static Map<PlayerId, Info> initializeInfoGenerators(Map<PlayerId, AsyncPlayer> players, Map<PlayerId, String> playerNames) {
         Map<PlayerId, Info> infoGenerators = new EnumMap<>(PlayerId.class);
 
         players.forEach(((playerId, player) ->
@@ -91,10 +223,10 @@ public final class Game {
      * Runs the setup of the game: chooses the first player and distributes the initial tickets and cards
      *
      * @param allGameData : all of the game's information
-     *                    returns : a game state with the game now set up for playing
+     * @return the future game state with the game now set up for playing
      */
-    private static GameState setup(AllGameData allGameData) {
-        Map<PlayerId, Player> players = allGameData.players;
+    private static CompletableFuture<GameState> setup(AllGameData allGameData) {
+        Map<PlayerId, AsyncPlayer> players = allGameData.players;
         Map<PlayerId, String> playerNames = allGameData.playerNames;
 
         players.forEach(((playerId, player) ->
@@ -103,75 +235,80 @@ public final class Game {
         receiveInfoForAll(players, allGameData.infoGenerators
                 .get(allGameData.gameState.currentPlayerId())
                 .willPlayFirst());
-        allGameData.modifyGameState(distributeTickets(allGameData));
 
-        return allGameData.gameState;
+        return distributeTickets(allGameData);
     }
 
     /**
      * Distributes the initial tickets to the players
      *
      * @param allGameData : all of the game's information
-     * @return : a game state with the distributed and chosen tickets
+     * @return : the future game state with the distributed and chosen tickets
      */
-    private static GameState distributeTickets(AllGameData allGameData) {
+    private static CompletableFuture<GameState> distributeTickets(AllGameData allGameData) {
         Map<PlayerId, Integer> keptTicketNumber = new EnumMap<>(PlayerId.class);
-        Map<PlayerId, Player> players = allGameData.players;
+        Map<PlayerId, AsyncPlayer> players = allGameData.players;
 
-        for (Player player : players.values()) {
+        for (AsyncPlayer player : players.values()) {
             player.setInitialTicketChoice(allGameData.gameState.topTickets(Constants.INITIAL_TICKETS_COUNT));
 
             allGameData.modifyGameState(allGameData.gameState.withoutTopTickets(Constants.INITIAL_TICKETS_COUNT));
         }
         updateAllStates(players, allGameData.gameState);
 
-        for (Map.Entry<PlayerId, Player> entry : players.entrySet()) {
+        //Asks the players one after the other to choose tickets from the set of options determined in setInitialTicketChoice
+        CompletableFuture<Void> choices = CompletableFuture.completedFuture(null);
+        for (Map.Entry<PlayerId, AsyncPlayer> entry : players.entrySet()) {
             PlayerId playerId = entry.getKey();
-            Player player = entry.getValue();
+            AsyncPlayer player = entry.getValue();
 
-            //Asks the player to choose tickets from the set of options determined in setInitialTicketChoice
-            SortedBag<Ticket> chosenTickets = player.chooseInitialTickets();
-            allGameData.modifyGameState(allGameData.gameState.withInitiallyChosenTickets(playerId, chosenTickets));
+            choices = choices
+                    .thenCompose(previousChoice -> player.chooseInitialTickets())
+                    .thenAccept(chosenTickets -> {
+                        allGameData.modifyGameState(allGameData.gameState.withInitiallyChosenTickets(playerId, chosenTickets));
 
-            keptTicketNumber.put(playerId, chosenTickets.size());
+                        keptTicketNumber.put(playerId, chosenTickets.size());
+                    });
         }
-        allGameData.infoGenerators.forEach((playerId, info) -> receiveInfoForAll(players, info.keptTickets(keptTicketNumber.get(playerId))));
+        return choices.thenApply(allChosen -> {
+            allGameData.infoGenerators.forEach((playerId, info) -> receiveInfoForAll(players, info.keptTickets(keptTicketNumber.get(playerId))));
 
-        return allGameData.gameState;
+            return allGameData.gameState;
+        });
     }
 
     /**
      * Runs the next turn of the game
      *
      * @param allGameData : all of the game's information
-     * @return a game state representing the state at the end of the turn
+     * @return the future game state representing the state at the end of the turn
      */
-    private static GameState nextTurn(AllGameData allGameData) {
-        Map<PlayerId, Player> players = allGameData.players;
+    private static CompletableFuture<GameState> nextTurn(AllGameData allGameData) {
+        Map<PlayerId, AsyncPlayer> players = allGameData.players;
 
         updateAllStates(players, allGameData.gameState);
 
         PlayerId currentPlayerId = allGameData.gameState.currentPlayerId();
-        Player currentPlayer = players.get(currentPlayerId);
+        AsyncPlayer currentPlayer = players.get(currentPlayerId);
         Info currentInfo = allGameData.infoGenerators.get(currentPlayerId);
 
         receiveInfoForAll(players, currentInfo.canPlay());
 
-        Player.TurnKind playerChoice = currentPlayer.nextTurn();
+        return currentPlayer.nextTurn().thenCompose(playerChoice -> {
+            switch (playerChoice) {
+                case DRAW_TICKETS:
+                    return drawTickets(allGameData, currentPlayer, currentInfo);
 
-        switch (playerChoice) {
-            case DRAW_TICKETS:
-                allGameData.modifyGameState(drawTickets(allGameData, currentPlayer, currentInfo));
-                break;
+                case DRAW_CARDS:
+                    return drawCards(allGameData, currentPlayer, currentInfo);
 
-            case DRAW_CARDS:
-                allGameData.modifyGameState(drawCards(allGameData, currentPlayer, currentInfo));
-                break;
+                case CLAIM_ROUTE:
+                    return claimRoute(allGameData, currentPlayer, currentInfo);
 
-            case CLAIM_ROUTE:
-                allGameData.modifyGameState(claimRoute(allGameData, currentPlayer, currentInfo));
-        }
-        return allGameData.gameState;
+                default:
+                    throw new Error();
+            }
+        });
     }
 
     /**
@@ -180,19 +317,19 @@ public final class Game {
      * @param allGameData   : all of the game's information
      * @param currentPlayer : player whose turn it is currently
      * @param currentInfo   : information generator of the current player
-     * @return a gameState where the current player has drawn 1 to 3 tickets
+     * @return the future gameState where the current player has drawn 1 to 3 tickets
      */
-    private static GameState drawTickets(AllGameData allGameData, Player currentPlayer, Info currentInfo) {
-        Map<PlayerId, Player> players = allGameData.players;
+    private static CompletableFuture<GameState> drawTickets(AllGameData allGameData, AsyncPlayer currentPlayer, Info currentInfo) {
+        Map<PlayerId, AsyncPlayer> players = allGameData.players;
         receiveInfoForAll(players, currentInfo.drewTickets(Constants.IN_GAME_TICKETS_COUNT));
 
         SortedBag<Ticket> ticketOptions = allGameData.gameState.topTickets(Constants.IN_GAME_TICKETS_COUNT);
 
-        SortedBag<Ticket> keptTickets = currentPlayer.chooseTickets(ticketOptions);
-
-        receiveInfoForAll(players, currentInfo.keptTickets(keptTickets.size()));
+        return currentPlayer.chooseTickets(ticketOptions).thenApply(keptTickets -> {
+            receiveInfoForAll(players, currentInfo.keptTickets(keptTickets.size()));
 
-        return allGameData.gameState.withChosenAdditionalTickets(ticketOptions, keptTickets);
+            return allGameData.gameState.withChosenAdditionalTickets(ticketOptions, keptTickets);
+        });
     }
 
     /**
@@ -201,23 +338,34 @@ public final class Game {
      * @param allGameData   : all of the game's information
      * @param currentPlayer : player whose turn it is currently
      * @param currentInfo   : information generator of the current player
-     * @return a gameState where the player has drawn two additional cards that have been removed from the deck or the face-up cards
+     * @return the future gameState where the player has drawn two additional cards that have been removed from the deck or the face-up cards
      */
-    private static GameState drawCards(AllGameData allGameData, Player currentPlayer, Info currentInfo) {
-        Map<PlayerId, Player> players = allGameData.players;
-
-        for (int i = 0; i < 2; i++) {
-            allGameData.modifyGameState(allGameData.gameState.withCardsDeckRecreatedIfNeeded(allGameData.rng));
+    private static CompletableFuture<GameState> drawCards(AllGameData allGameData, AsyncPlayer currentPlayer, Info currentInfo) {
+        return drawCard(allGameData, currentPlayer, currentInfo, false)
+                .thenCompose(firstDrawn -> drawCard(allGameData, currentPlayer, currentInfo, true));
+    }
 
-            if (i == 1) {
-                //To update all states right before the player chooses a second card to draw
-                updateAllStates(players, allGameData.gameState);
+    /**
+     * Makes the current player draw one of their two cards
+     *
+     * @param allGameData   : all of the game's information
+     * @param currentPlayer : player whose turn it is currently
+     * @param currentInfo   : information generator of the current player
+     * @param secondCard    : true if the card is the second one of the turn
+     * @return the future gameState where the player has drawn the card
+     */
+    private static CompletableFuture<GameState> drawCard(AllGameData allGameData, AsyncPlayer currentPlayer, Info currentInfo, boolean secondCard) {
+        Map<PlayerId, AsyncPlayer> players = allGameData.players;
 
-            }
-            //-1 or from 0 to 4
-            int drawSlot = currentPlayer.drawSlot();
+        allGameData.modifyGameState(allGameData.gameState.withCardsDeckRecreatedIfNeeded(allGameData.rng));
 
+        if (secondCard) {
+            //To update all states right before the player chooses a second card to draw
+            updateAllStates(players, allGameData.gameState);
 
+        }
+        //-1 or from 0 to 4
+        return currentPlayer.drawSlot().thenApply(drawSlot -> {
             if (drawSlot == Constants.DECK_SLOT) {
                 //DeckCard
                 allGameData.modifyGameState(allGameData.gameState.withBlindlyDrawnCard());
@@ -231,8 +379,8 @@ public final class Game {
 
                 receiveInfoForAll(players, currentInfo.drewVisibleCard(chosenVisibleCard));
             }
-        }
-        return allGameData.gameState;
+            return allGameData.gameState;
+        });
     }
 
     /**
@@ -242,16 +390,16 @@ public final class Game {
      * @param allGameData   : all of the game's information
      * @param currentPlayer : player whose turn it is currently
      * @param currentInfo   : information generator of the current player
-     * @return a game state where the current player has or hasn't claimed a new route with his initial cards.
+     * @return the future game state where the current player has or hasn't claimed a new route with his initial cards.
      */
-    private static GameState claimRoute(AllGameData allGameData, Player currentPlayer, Info currentInfo) {
-        Route claimedRoute = currentPlayer.claimedRoute();
-        SortedBag<Card> initialClaimCards = currentPlayer.initialClaimCards();
-
-        if (claimedRoute.level() == Route.Level.UNDERGROUND) {
-            return claimUnderground(allGameData, currentPlayer, currentInfo, claimedRoute, initialClaimCards);
-        }
-        return claimOverground(allGameData, currentInfo, claimedRoute, initialClaimCards);
+    private static CompletableFuture<GameState> claimRoute(AllGameData allGameData, AsyncPlayer currentPlayer, Info currentInfo) {
+        return currentPlayer.claimedRoute().thenCompose(claimedRoute ->
+                currentPlayer.initialClaimCards().thenCompose(initialClaimCards -> {
+                    if (claimedRoute.level() == Route.Level.UNDERGROUND) {
+                        return claimUnderground(allGameData, currentPlayer, currentInfo, claimedRoute, initialClaimCards);
+                    }
+                    return CompletableFuture.completedFuture(claimOverground(allGameData, currentInfo, claimedRoute, initialClaimCards));
+                }));
     }
 
     /**
@@ -261,10 +409,10 @@ public final class Game {
      * @param currentInfo       : information generator of the current player
      * @param claimedRoute      : route that the player has decided to claim
      * @param initialClaimCards : initial cards the player has chosen to attempt capturing this route
-     * @return a game state where the player has claimed the route if he had the necessary cards, or where he couldn't/ didn't want to claim it.
+     * @return the future game state where the player has claimed the route if he had the necessary cards, or where he couldn't/ didn't want to claim it.
      */
-    private static GameState claimUnderground(AllGameData allGameData, Player currentPlayer, Info currentInfo, Route claimedRoute, SortedBag<Card> initialClaimCards) {
-        Map<PlayerId, Player> players = allGameData.players;
+    private static CompletableFuture<GameState> claimUnderground(AllGameData allGameData, AsyncPlayer currentPlayer, Info currentInfo, Route claimedRoute, SortedBag<Card> initialClaimCards) {
+        Map<PlayerId, AsyncPlayer> players = allGameData.players;
 
         receiveInfoForAll(players, currentInfo.attemptsTunnelClaim(claimedRoute, initialClaimCards));
 
@@ -296,30 +444,30 @@ public final class Game {
             if (possibleAdditionalCards.isEmpty()) { //Player can't play any additional cards
                 receiveInfoForAll(players, currentInfo.didNotClaimRoute(claimedRoute));
 
-                return allGameData.gameState.withMoreDiscardedCards(drawnCards);
+                return CompletableFuture.completedFuture(allGameData.gameState.withMoreDiscardedCards(drawnCards));
 
             } else {
                 //The player can play additional cards. Asks the player which set of cards he want to play.
-                SortedBag<Card> tunnelCards = currentPlayer.chooseAdditionalCards(possibleAdditionalCards);
-
-                if (tunnelCards.isEmpty()) {
-                    receiveInfoForAll(players, currentInfo.didNotClaimRoute(claimedRoute));
-                    return allGameData.gameState.withMoreDiscardedCards(drawnCards);
-
-                } else {
-                    receiveInfoForAll(players, currentInfo.claimedRoute(claimedRoute, initialClaimCards.union(tunnelCards)));
-                    return allGameData.gameState
-                            //Drawn cards are put in the discard
-                            .withMoreDiscardedCards(drawnCards)
-                            .withClaimedRoute(claimedRoute, initialClaimCards.union(tunnelCards));
-                }
+                return currentPlayer.chooseAdditionalCards(possibleAdditionalCards).thenApply(tunnelCards -> {
+                    if (tunnelCards.isEmpty()) {
+                        receiveInfoForAll(players, currentInfo.didNotClaimRoute(claimedRoute));
+                        return allGameData.gameState.withMoreDiscardedCards(drawnCards);
+
+                    } else {
+                        receiveInfoForAll(players, currentInfo.claimedRoute(claimedRoute, initialClaimCards.union(tunnelCards)));
+                        return allGameData.gameState
+                                //Drawn cards are put in the discard
+                                .withMoreDiscardedCards(drawnCards)
+                                .withClaimedRoute(claimedRoute, initialClaimCards.union(tunnelCards));
+                    }
+                });
             }
         } else {
             //No additional cost
             allGameData.modifyGameState(allGameData.gameState.withMoreDiscardedCards(drawnCards));
 
             //In this case the procedure is the same as when claiming an overground route
-            return claimOverground(allGameData, currentInfo, claimedRoute, initialClaimCards);
+            return CompletableFuture.completedFuture(claimOverground(allGameData, currentInfo, claimedRoute, initialClaimCards));
         }
     }
 
@@ -333,7 +481,7 @@ public final class Game {
      * @return a game state where the current player has claimed the route with his initial claim cards.
      */
     private static GameState claimOverground(AllGameData allGameData, Info currentInfo, Route claimedRoute, SortedBag<Card> initialClaimCards) {
-        Map<PlayerId, Player> players = allGameData.players;
+        Map<PlayerId, AsyncPlayer> players = allGameData.players;
 
         receiveInfoForAll(players, currentInfo.claimedRoute(claimedRoute, initialClaimCards));
 
@@ -341,29 +489,12 @@ public final class Game {
     }
 
     /**
-     * Runs the end of the game:
-     * Plays the last two turns of tCHu, then calculates who gets the longest trail bonus and who won
-     * in the end or if there has been a draw
+     * Runs the end of the game, once the last two turns of tCHu are played:
+     * calculates who gets the longest trail bonus and who won in the end or if there has been a draw
      *
      * @param allGameData : all of the game's information
      */
     private static void endOfGame(AllGameData allGameData) {
-        Map<PlayerId, Player> players = allGameData.players;
-        Map<PlayerId, Info> infoGenerators = allGameData.infoGenerators;
-
-        receiveInfoForAll(players, infoGenerators
-                .get(allGameData.gameState.currentPlayerId())
-                .lastTurnBegins(allGameData.gameState
-                        .currentPlayerState()
-                        .carCount()));
-        //LastTurnBegins
-
-        //One more turn for each player
-        for (int i = 0; i < PlayerId.COUNT; i++) {
-            allGameData.modifyGameState(allGameData.gameState.forNextTurn());
-            nextTurn(allGameData);
-        }
-
         //Calculate final points
         Map<PlayerId, Integer> associatedPlayerPoints = calculateFinalPoints(allGameData);
 
@@ -379,7 +510,7 @@ public final class Game {
      */
     private static Map<PlayerId, Integer> calculateFinalPoints(AllGameData allGameData) {
 
-        Map<PlayerId, Player> players = allGameData.players;
+        Map<PlayerId, AsyncPlayer> players = allGameData.players;
         Map<PlayerId, Info> infoGenerators = allGameData.infoGenerators;
         Map<PlayerId, Trail> eachPlayerAssociatedTrails = new EnumMap<>(PlayerId.class);
         Map<PlayerId, Integer> associatedPlayerPoints = new EnumMap<>(PlayerId.class);
@@ -456,11 +587,14 @@ public final class Game {
      * (this avoids the allGameData = allGameData.modifyGameState() assignment which quickly takes up space and makes the program lose in clarity).
      */
     private static class AllGameData {
-        private final Map<PlayerId, Player> players;
+        private final Map<PlayerId, AsyncPlayer> players;
         private final Map<PlayerId, String> playerNames;
         private final Map<PlayerId, Info> infoGenerators;
         private final Random rng;
         private GameState gameState;
+        private boolean firstTurnPlayed;
+        //Number of turns left once the last turn began
+        private int lastTurnsLeft = -1;
 
         /**
          * Constructs the group of information contained in the game
@@ -470,7 +604,7 @@ public final class Game {
          * @param playerNames : the names of the corresponding players
          * @param rng         : an instance of a random number generator
          */
-        private AllGameData(GameState gameState, Map<PlayerId, Player> players, Map<PlayerId, String> playerNames, Map<PlayerId, Info> infoGenerators, Random rng) {
+        private AllGameData(GameState gameState, Map<PlayerId, AsyncPlayer> players, Map<PlayerId, String> playerNames, Map<PlayerId, Info> infoGenerators, Random rng) {
             this.gameState = gameState;
             this.players = players;
             this.playerNames = playerNames;
@@ -488,19 +622,44 @@ public final class Game {
         }
 
         /**
-         * Calls gameState's nextTurn method
+         * Prepares the next turn, if the game isn't over: plays one round first so as to make sure the condition
+         * lastTurnBegins() is tested at the right moment, then goes to the next turn until the last turn begins.
+         * The players then play one more turn each.
+         *
+         * @return true if a turn must be played, false if the game is over
          */
-        private void forNextTurn() {
-            this.gameState = this.gameState.forNextTurn();
+        private boolean forNextTurnIfAny() {
+            if (!firstTurnPlayed) {
+                firstTurnPlayed = true;
+                return true;
+            }
+            if (lastTurnsLeft < 0) {
+                if (!gameState.lastTurnBegins()) {
+                    forNextTurn();
+                    return true;
+                }
+                //Last turn begins returned true thus the end of game is activated
+                receiveInfoForAll(players, infoGenerators
+                        .get(gameState.currentPlayerId())
+                        .lastTurnBegins(gameState
+                                .currentPlayerState()
+                                .carCount()));
+                lastTurnsLeft = PlayerId.COUNT;
+            }
+            if (lastTurnsLeft == 0) {
+                return false;
+            }
+            //One more turn for each player
+            lastTurnsLeft--;
+            forNextTurn();
+            return true;
         }
 
         /**
-         * Checks to see if last turn is beginning
-         *
-         * @return true if the last turn begins, else otherwise
+         * Calls gameState's nextTurn method
          */
-        private boolean lastTurnBegins() {
-            return this.gameState.lastTurnBegins();
+        private void forNextTurn() {
+            this.gameState = this.gameState.forNextTurn();
         }
     }
 }
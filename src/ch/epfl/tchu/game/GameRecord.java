@@ -0,0 +1,195 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.net.Serde;
+import ch.epfl.tchu.net.Serdes;
+
+import java.util.*;
+
+/**
+ * Game recorded by a GameRecorder, which can be played again exactly: the game is played with the recorded random
+ * draws, and each player makes the decision they recorded when the game asks for it.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class GameRecord {
+    private final Map<PlayerId, String> playerNames;
+    private final List<PlayerId> playerOrder;
+    private final SortedBag<Ticket> tickets;
+    private final List<Integer> randomDraws;
+    private final Map<PlayerId, List<String>> decisions;
+
+    /**
+     * Constructs a record
+     *
+     * @param playerNames : the names of the players
+     * @param playerOrder : the ids of the players, in the order in which they were asked to decide
+     * @param tickets     : the tickets of the game
+     * @param randomDraws : the random draws of the game, in order
+     * @param decisions   : the serialized decisions of each player, in order
+     */
+    GameRecord(Map<PlayerId, String> playerNames, List<PlayerId> playerOrder, SortedBag<Ticket> tickets, List<Integer> randomDraws, Map<PlayerId, List<String>> decisions) {
+        this.playerNames = Map.copyOf(playerNames);
+        this.playerOrder = List.copyOf(playerOrder);
+        this.tickets = Objects.requireNonNull(tickets);
+        this.randomDraws = List.copyOf(randomDraws);
+        Map<PlayerId, List<String>> decisionsCopy = new EnumMap<>(PlayerId.class);
+        decisions.forEach((id, playerDecisions) -> decisionsCopy.put(id, List.copyOf(playerDecisions)));
+        this.decisions = Collections.unmodifiableMap(decisionsCopy);
+    }
+
+    /**
+     * Getter for the names of the players
+     *
+     * @return the names of the players
+     */
+    public Map<PlayerId, String> playerNames() {
+        return playerNames;
+    }
+
+    /**
+     * Plays the recorded game again, the given spectators receiving what the corresponding players received during
+     * the game: their id and the names of the players, the information, the states of the game and the initial tickets.
+     * The decisions of the spectators are never asked for.
+     *
+     * @param spectators : the spectators, associated with the id of the player whose view they get
+     * @return true if the game was played to its end, false if the record ends before (if the game was interrupted, or
+     * if the process recording it stopped)
+     */
+    public boolean replay(Map<PlayerId, ? extends Spectator> spectators) {
+        //The players are asked to decide in the recorded order, which is the iteration order of the map of the players
+        Map<PlayerId, Player> players = new LinkedHashMap<>();
+        for (PlayerId id : playerOrder) {
+            players.put(id, new ReplayedPlayer(spectators.get(id), decisions.get(id).iterator()));
+        }
+        Iterator<Integer> draws = randomDraws.iterator();
+        Random rng = new Random() {
+            @Override
+            protected int next(int bits) {
+                return draws.next();
+            }
+        };
+
+        try {
+            Game.play(players, playerNames, tickets, rng, null);
+            return true;
+        } catch (NoSuchElementException endOfRecord) {
+            return false;
+        }
+    }
+
+    /**
+     * Spectator of a replayed game, receiving what a player received during the game (see Player)
+     */
+    public interface Spectator {
+        /**
+         * Communicates to the spectator the id of the player whose view they get, and all the player names
+         *
+         * @param ownID       : the id of the player
+         * @param playerNames : all the names of the players in the game
+         */
+        void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames);
+
+        /**
+         * Communicates information about the game, as received by the player
+         *
+         * @param info : the information received by the player
+         */
+        void receiveInfo(String info);
+
+        /**
+         * Informs the spectator of the new state of the game
+         *
+         * @param newState : the new state of the game (visible to everyone)
+         * @param ownState : the state of the player
+         */
+        void updateState(PublicGameState newState, PlayerState ownState);
+
+        /**
+         * Informs the spectator of the 5 tickets the player was distributed at the beginning of the game
+         *
+         * @param tickets : the tickets the player received
+         */
+        void setInitialTicketChoice(SortedBag<Ticket> tickets);
+    }
+
+    /**
+     * Player making the recorded decisions, and passing the rest on to its spectator (if any)
+     */
+    private static final class ReplayedPlayer implements Player {
+        private final Spectator spectator;
+        private final Iterator<String> decisions;
+
+        private ReplayedPlayer(Spectator spectator, Iterator<String> decisions) {
+            this.spectator = spectator;
+            this.decisions = decisions;
+        }
+
+        @Override
+        public void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames) {
+            if (spectator != null) {
+                spectator.initPlayers(ownID, playerNames);
+            }
+        }
+
+        @Override
+        public void receiveInfo(String info) {
+            if (spectator != null) {
+                spectator.receiveInfo(info);
+            }
+        }
+
+        @Override
+        public void updateState(PublicGameState newState, PlayerState ownState) {
+            if (spectator != null) {
+                spectator.updateState(newState, ownState);
+            }
+        }
+
+        @Override
+        public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+            if (spectator != null) {
+                spectator.setInitialTicketChoice(tickets);
+            }
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseInitialTickets() {
+            return next(Serdes.SORTED_BAG_TICKET_SERDE);
+        }
+
+        @Override
+        public TurnKind nextTurn() {
+            return next(Serdes.TURN_KIND_SERDE);
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+            return next(Serdes.SORTED_BAG_TICKET_SERDE);
+        }
+
+        @Override
+        public int drawSlot() {
+            return next(Serdes.INTEGER_SERDE);
+        }
+
+        @Override
+        public Route claimedRoute() {
+            return next(Serdes.ROUTE_SERDE);
+        }
+
+        @Override
+        public SortedBag<Card> initialClaimCards() {
+            return next(Serdes.SORTED_BAG_CARD_SERDE);
+        }
+
+        @Override
+        public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+            return next(Serdes.SORTED_BAG_CARD_SERDE);
+        }
+
+        private <T> T next(Serde<T> serde) {
+            return serde.deserialize(decisions.next());
+        }
+    }
+}
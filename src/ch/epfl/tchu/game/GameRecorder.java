@@ -0,0 +1,298 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.net.Serde;
+import ch.epfl.tchu.net.Serdes;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Record of a game, holding all that is needed to play it again exactly (see GameRecord): the names of the players,
+ * the order in which they are asked to decide, the tickets, the random draws of the game and the decisions of the
+ * players. Each of them is recorded on its own line as soon as it is made: "NAMES names", "PLAYERS ids" and
+ * "TICKETS tickets" first, then "RANDOM bits" for each random draw and "PLAYER_n decision" for each decision,
+ * serialized as in the protocol (see Serdes). The record is flushed after the first lines and after each decision, so
+ * that it can be played again up to the last decision if the process recording it stops; the random draws are only
+ * written with the decision that follows them, as they are many more.
+ *
+ * The games record themselves if the system property tchu.record gives the directory of the records (see Game.play).
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class GameRecorder implements Closeable {
+    /**
+     * Name of the system property giving the directory of the records
+     */
+    static final String PROPERTY = "tchu.record";
+
+    static final String NAMES = "NAMES";
+    static final String PLAYERS = "PLAYERS";
+    static final String TICKETS = "TICKETS";
+    static final String RANDOM = "RANDOM";
+
+    private static final AtomicInteger RECORDS = new AtomicInteger();
+    private static final char SPACE = ' ';
+    private static final char COMMA = ',';
+    private static final char LINE_RETURN = '\n';
+
+    private final Writer destination;
+
+    /**
+     * Creates a recorder writing the record into the given writer
+     *
+     * @param destination : where the game is recorded, closed with the recorder
+     */
+    public GameRecorder(Writer destination) {
+        this.destination = Objects.requireNonNull(destination);
+    }
+
+    /**
+     * Creates a recorder into a new file of the directory given by the system property, if it is set
+     *
+     * @return the recorder, or null if the system property isn't set or if the file can't be created
+     */
+    static GameRecorder fromSystemProperty() {
+        try {
+            String directory = System.getProperty(PROPERTY);
+            if (directory == null) {
+                return null;
+            }
+            Path file = Paths.get(directory).resolve(String.format("game-%d-%d.txt",
+                    ProcessHandle.current().pid(), RECORDS.getAndIncrement()));
+            return new GameRecorder(Files.newBufferedWriter(file, US_ASCII));
+        } catch (SecurityException | IOException unavailable) {
+            return null;
+        }
+    }
+
+    /**
+     * Records the names of the players, the order in which they are asked to decide and the tickets of the game,
+     * before anything else
+     *
+     * @param playerNames : the names of the players
+     * @param playerOrder : the ids of the players, in the order of the map of the players given to the game
+     * @param tickets     : the tickets of the game
+     */
+    void start(Map<PlayerId, String> playerNames, Collection<PlayerId> playerOrder, SortedBag<Ticket> tickets) {
+        List<String> names = new ArrayList<>();
+        for (PlayerId id : PlayerId.ALL) {
+            names.add(playerNames.get(id));
+        }
+        StringJoiner ids = new StringJoiner(String.valueOf(COMMA));
+        playerOrder.forEach(id -> ids.add(id.name()));
+
+        record(NAMES, Serdes.LIST_STRING_SERDE.serialize(names));
+        record(PLAYERS, ids.toString());
+        record(TICKETS, Serdes.SORTED_BAG_TICKET_SERDE.serialize(tickets));
+    }
+
+    /**
+     * Returns a random number generator drawing the same numbers as the given one, while recording them
+     *
+     * @param rng : the random number generator
+     * @return the recording random number generator
+     */
+    Random recording(Random rng) {
+        Objects.requireNonNull(rng);
+
+        return new Random() {
+            @Override
+            protected int next(int bits) {
+                //The high bits of a draw of 32 bits are the draw of fewer bits, for the generators of the JDK
+                int value = rng.nextInt() >>> (Integer.SIZE - bits);
+                record(RANDOM, Integer.toString(value));
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Returns the given player, recording the decisions it makes
+     *
+     * @param playerId : the id of the player
+     * @param player   : the player
+     * @return the recording player
+     */
+    AsyncPlayer recording(PlayerId playerId, AsyncPlayer player) {
+        Objects.requireNonNull(player);
+        String key = playerId.name();
+
+        return new AsyncPlayer() {
+            @Override
+            public void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames) {
+                player.initPlayers(ownID, playerNames);
+            }
+
+            @Override
+            public void receiveInfo(String info) {
+                player.receiveInfo(info);
+            }
+
+            @Override
+            public void updateState(PublicGameState newState, PlayerState ownState) {
+                player.updateState(newState, ownState);
+            }
+
+            @Override
+            public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+                player.setInitialTicketChoice(tickets);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseInitialTickets() {
+                return recorded(player.chooseInitialTickets(), Serdes.SORTED_BAG_TICKET_SERDE);
+            }
+
+            @Override
+            public CompletableFuture<Player.TurnKind> nextTurn() {
+                return recorded(player.nextTurn(), Serdes.TURN_KIND_SERDE);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseTickets(SortedBag<Ticket> options) {
+                return recorded(player.chooseTickets(options), Serdes.SORTED_BAG_TICKET_SERDE);
+            }
+
+            @Override
+            public CompletableFuture<Integer> drawSlot() {
+                return recorded(player.drawSlot(), Serdes.INTEGER_SERDE);
+            }
+
+            @Override
+            public CompletableFuture<Route> claimedRoute() {
+                return recorded(player.claimedRoute(), Serdes.ROUTE_SERDE);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Card>> initialClaimCards() {
+                return recorded(player.initialClaimCards(), Serdes.SORTED_BAG_CARD_SERDE);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Card>> chooseAdditionalCards(List<SortedBag<Card>> options) {
+                return recorded(player.chooseAdditionalCards(options), Serdes.SORTED_BAG_CARD_SERDE);
+            }
+
+            private <T> CompletableFuture<T> recorded(CompletableFuture<T> decision, Serde<T> serde) {
+                //Recorded before the game goes on with the decision, so that it precedes the draws it leads to
+                return decision.thenApply(value -> {
+                    record(key, serde.serialize(value));
+                    return value;
+                });
+            }
+        };
+    }
+
+    /**
+     * Ends the record, writing the lines not written yet
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        destination.close();
+    }
+
+    /**
+     * Reads a record
+     *
+     * @param record : the reader of the record
+     * @return the game recorded, possibly interrupted before its end: the last line of the record is dropped if it is
+     * cut or malformed, as when the process recording the game stopped while writing it
+     * @throws IOException              if the record can't be read
+     * @throws IllegalArgumentException if the first lines of the record, or any line but the last one, are malformed
+     */
+    public static GameRecord read(BufferedReader record) throws IOException {
+        String names = valueOf(readLine(record), NAMES);
+        String ids = valueOf(readLine(record), PLAYERS);
+        String tickets = valueOf(readLine(record), TICKETS);
+
+        Map<PlayerId, String> playerNames = new EnumMap<>(PlayerId.class);
+        List<String> nameList = Serdes.LIST_STRING_SERDE.deserialize(names);
+        Preconditions.checkArgument(nameList.size() == PlayerId.COUNT);
+        for (PlayerId id : PlayerId.ALL) {
+            playerNames.put(id, nameList.get(id.ordinal()));
+        }
+
+        List<PlayerId> playerOrder = new ArrayList<>();
+        for (String id : ids.split(String.valueOf(COMMA))) {
+            playerOrder.add(PlayerId.valueOf(id));
+        }
+        Preconditions.checkArgument(EnumSet.copyOf(playerOrder).equals(EnumSet.allOf(PlayerId.class))
+                && playerOrder.size() == PlayerId.COUNT);
+
+        List<Integer> randomDraws = new ArrayList<>();
+        Map<PlayerId, List<String>> decisions = new EnumMap<>(PlayerId.class);
+        PlayerId.ALL.forEach(id -> decisions.put(id, new ArrayList<>()));
+
+        String line = readLine(record);
+        while (line != null) {
+            String nextLine = readLine(record);
+            try {
+                int space = line.indexOf(SPACE);
+                Preconditions.checkArgument(space > 0);
+                String key = line.substring(0, space);
+                String value = line.substring(space + 1);
+
+                if (key.equals(RANDOM)) {
+                    randomDraws.add(Integer.parseInt(value));
+                } else {
+                    decisions.get(PlayerId.valueOf(key)).add(value);
+                }
+            } catch (IllegalArgumentException malformedLine) {
+                if (nextLine != null) {
+                    throw malformedLine;
+                }
+            }
+            line = nextLine;
+        }
+        return new GameRecord(playerNames, playerOrder, Serdes.SORTED_BAG_TICKET_SERDE.deserialize(tickets), randomDraws, decisions);
+    }
+
+    /**
+     * Reads a line of the record, which is whole only if it ends with a line return: a line cut by the end of the
+     * record, which may miss the end of its value, isn't returned
+     *
+     * @return the line without its line return, or null if the record ends before
+     */
+    private static String readLine(BufferedReader record) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int character;
+        while ((character = record.read()) != LINE_RETURN) {
+            if (character < 0) {
+                return null;
+            }
+            line.append((char) character);
+        }
+        return line.toString();
+    }
+
+    private static String valueOf(String line, String key) {
+        Preconditions.checkArgument(line != null && line.startsWith(key + SPACE));
+        return line.substring(key.length() + 1);
+    }
+
+    private synchronized void record(String key, String value) {
+        try {
+            destination.append(key)
+                    .append(SPACE)
+                    .append(value)
+                    .append(LINE_RETURN);
+            if (!key.equals(RANDOM)) {
+                destination.flush();
+            }
+        } catch (IOException ioException) {
+            //The record is incomplete, but the game goes on
+        }
+    }
+}
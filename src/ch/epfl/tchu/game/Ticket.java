@@ -95,6 +95,15 @@ public final class Ticket implements Comparable<Ticket> {
         return text;
     }
 
+    /**
+     * Getter for the trips of the ticket
+     *
+     * @return : the trips of the ticket, one per pair of departure and arrival stations
+     */
+    public List<Trip> trips() {
+        return trips;
+    }
+
     /**
      * Calculates the points the player receives or loses according to the stations he connected
      * Takes the max between the current amount of points and the points that can be gained
@@ -0,0 +1,290 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.Card;
+import ch.epfl.tchu.game.Color;
+import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.game.Route;
+import ch.epfl.tchu.gui.ActionHandlers.ChooseCardsHandler;
+import ch.epfl.tchu.gui.ActionHandlers.ClaimRouteHandler;
+import ch.epfl.tchu.gui.MapViewCreator.CardChooser;
+import javafx.application.Platform;
+import javafx.beans.property.ObjectProperty;
+import javafx.scene.Cursor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.StrokeLineCap;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the view of the game map painted on a canvas: the routes are drawn instead of being made of nodes, so
+ * that the whole map only takes three nodes of the scene graph (instead of about six per cell of a route with
+ * MapViewCreator). It looks and behaves like the view of MapViewCreator.
+ *
+ * The position of the cells comes from the style sheet of the map (see MapGeometry), whose spatial index finds the
+ * route under the mouse. When the owner, the claimability or the planning of a route changes, or when the mouse enters
+ * or leaves it, only the area of its cells is repainted, at most once per pulse.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class CanvasMapViewCreator {
+    private static final String NEUTRAL_CLASS = "NEUTRAL";
+    //Same stroke as the planned routes of map.css
+    private static final javafx.scene.paint.Color PLANNED_COLOR = javafx.scene.paint.Color.ORANGERED;
+    //Opacity of the disabled nodes in the default style sheet of JavaFX
+    private static final double DISABLED_OPACITY = 0.4;
+    private static final double WHEEL_CENTER_POSITION = 6;
+    private static final double WHEEL_RADIUS = 3;
+
+    private final MapGeometry geometry;
+    //Colors of colors.css
+    private final Map<Color, javafx.scene.paint.Color> trackColors = new EnumMap<>(Color.class);
+    private final javafx.scene.paint.Color neutralColor;
+    private final Map<PlayerId, javafx.scene.paint.Color> carColors = new EnumMap<>(PlayerId.class);
+    private final ObservableGameState gameState;
+    private final ObjectProperty<ClaimRouteHandler> claimRouteHP;
+    private final GraphicsContext graphics;
+
+    //Routes to repaint at the next pulse
+    private final BitSet dirtyRoutes = new BitSet();
+    private boolean repaintPending = false;
+    private int hoveredRoute = -1;
+
+    private CanvasMapViewCreator(MapGeometry geometry, StylePalette palette, ObservableGameState gameState,
+                                 ObjectProperty<ClaimRouteHandler> claimRouteHP, GraphicsContext graphics) {
+        this.geometry = geometry;
+        for (Color color : Color.ALL) {
+            trackColors.put(color, javafx.scene.paint.Color.web(palette.fill(color.name())));
+        }
+        this.neutralColor = javafx.scene.paint.Color.web(palette.fill(NEUTRAL_CLASS));
+        for (PlayerId playerId : PlayerId.ALL) {
+            carColors.put(playerId, javafx.scene.paint.Color.web(palette.fill(playerId.name())));
+        }
+        this.gameState = gameState;
+        this.claimRouteHP = claimRouteHP;
+        this.graphics = graphics;
+    }
+
+    /**
+     * Creates the map view used by both players, painted on a canvas
+     *
+     * @param gameState    : observable game state which allows the graphics to change according to the game's actual state
+     * @param claimRouteHP : property containing the event handler when a player wants to claim a route
+     * @param cardChooser  : an instance of the functional interface CardChooser used to choose some cards
+     * @return A pane containing the map background and the canvas of the claimed/unclaimed routes
+     */
+    public static Pane createMapView(ObservableGameState gameState, ObjectProperty<ClaimRouteHandler> claimRouteHP, CardChooser cardChooser) {
+        Pane map = buildMapView();
+        bindMapView(map, gameState, claimRouteHP, cardChooser);
+        return map;
+    }
+
+    /**
+     * Builds the nodes of the map view, without any link to the game: as the pane isn't part of a scene yet, it can be
+     * built on any thread
+     *
+     * @return A pane containing the map background and an empty canvas, to be bound with bindMapView
+     */
+    static Pane buildMapView() {
+        Image image = ResourcePreloader.mapImage();
+        return new Pane(new ImageView(image), new Canvas(image.getWidth(), image.getHeight()));
+    }
+
+    /**
+     * Paints the routes of a map view built by buildMapView on its canvas, and keeps them up to date.
+     * Must be called on the JavaFX thread.
+     *
+     * @param map          : the map pane
+     * @param gameState    : observable game state which allows the graphics to change according to the game's actual state
+     * @param claimRouteHP : property containing the event handler when a player wants to claim a route
+     * @param cardChooser  : an instance of the functional interface CardChooser used to choose some cards
+     */
+    static void bindMapView(Pane map, ObservableGameState gameState, ObjectProperty<ClaimRouteHandler> claimRouteHP, CardChooser cardChooser) {
+        Canvas canvas = (Canvas) map.getChildren().get(1);
+        CanvasMapViewCreator view = new CanvasMapViewCreator(ResourcePreloader.mapGeometry(),
+                StylePalette.ofStyleSheet(), gameState, claimRouteHP, canvas.getGraphicsContext2D());
+
+        view.listenToTheRoutes();
+        canvas.setOnMouseMoved(event -> view.hover(view.geometry.routeAt(event.getX(), event.getY())));
+        canvas.setOnMouseExited(event -> view.hover(-1));
+        canvas.setOnMouseClicked(event -> view.click(view.geometry.routeAt(event.getX(), event.getY()), cardChooser));
+        view.repaint(allRoutes(view.geometry));
+    }
+
+    private static BitSet allRoutes(MapGeometry geometry) {
+        BitSet routes = new BitSet();
+        routes.set(0, geometry.routes().size());
+        return routes;
+    }
+
+    private void listenToTheRoutes() {
+        for (int id = 0; id < geometry.routes().size(); id++) {
+            Route route = geometry.routes().valueOf(id);
+            int routeId = id;
+            gameState.getPlayerIdClaimingRoute(route).addListener((property, oldValue, newValue) -> markDirty(routeId));
+            gameState.claimable(route).addListener((property, oldValue, newValue) -> markDirty(routeId));
+            gameState.planned(route).addListener((property, oldValue, newValue) -> markDirty(routeId));
+        }
+        //Every route is enabled or disabled with the handler
+        claimRouteHP.addListener((property, oldValue, newValue) -> {
+            if ((oldValue == null) != (newValue == null)) {
+                dirtyRoutes.or(allRoutes(geometry));
+                scheduleRepaint();
+            }
+        });
+    }
+
+    private boolean isEnabled(Route route) {
+        return claimRouteHP.get() != null && gameState.claimable(route).get();
+    }
+
+    private void hover(int routeId) {
+        if (routeId != hoveredRoute) {
+            if (hoveredRoute >= 0) {
+                markDirty(hoveredRoute);
+            }
+            hoveredRoute = routeId;
+            if (routeId >= 0) {
+                markDirty(routeId);
+            }
+            boolean enabled = routeId >= 0 && isEnabled(geometry.routes().valueOf(routeId));
+            graphics.getCanvas().setCursor(enabled ? Cursor.HAND : Cursor.DEFAULT);
+        }
+    }
+
+    /**
+     * When a route is clicked on, checks the cards a player could use to claim this route.
+     * If he can play multiple sorted bag of cards, asks the player which one he wants to use.
+     */
+    private void click(int routeId, CardChooser cardChooser) {
+        if (routeId < 0 || !isEnabled(geometry.routes().valueOf(routeId))) {
+            return;
+        }
+        Route route = geometry.routes().valueOf(routeId);
+        List<SortedBag<Card>> possibleClaimCards = gameState.possibleClaimCards(route);
+
+        if (possibleClaimCards.size() == 1) {
+            claimRouteHP.get().onClaimRoute(route, possibleClaimCards.get(0));
+
+        } else {
+            ChooseCardsHandler chooseCardsH =
+                    chosenCards -> claimRouteHP.get().onClaimRoute(route, chosenCards);
+
+            cardChooser.chooseCards(possibleClaimCards, chooseCardsH);
+        }
+    }
+
+    private void markDirty(int routeId) {
+        dirtyRoutes.set(routeId);
+        scheduleRepaint();
+    }
+
+    private void scheduleRepaint() {
+        if (!repaintPending) {
+            repaintPending = true;
+            Platform.runLater(() -> {
+                repaintPending = false;
+                BitSet routes = (BitSet) dirtyRoutes.clone();
+                dirtyRoutes.clear();
+                repaint(routes);
+            });
+        }
+    }
+
+    /**
+     * Repaints the area of the cells of the given routes: the area is cleared, then every route that may be drawn over
+     * it is painted again, clipped to the area so that the rest of the canvas is left as is
+     */
+    private void repaint(BitSet routes) {
+        graphics.save();
+        graphics.beginPath();
+        for (int id = routes.nextSetBit(0); id >= 0; id = routes.nextSetBit(id + 1)) {
+            for (int cell = geometry.firstCell(id); cell < geometry.firstCell(id + 1); cell++) {
+                graphics.rect(geometry.centerX(cell) - geometry.halfWidth(cell),
+                        geometry.centerY(cell) - geometry.halfHeight(cell),
+                        2 * geometry.halfWidth(cell), 2 * geometry.halfHeight(cell));
+            }
+        }
+        graphics.clip();
+        graphics.clearRect(0, 0, graphics.getCanvas().getWidth(), graphics.getCanvas().getHeight());
+
+        BitSet neighbors = geometry.neighbors(routes);
+        for (int id = neighbors.nextSetBit(0); id >= 0; id = neighbors.nextSetBit(id + 1)) {
+            paintRoute(id);
+        }
+        graphics.restore();
+    }
+
+    private void paintRoute(int routeId) {
+        Route route = geometry.routes().valueOf(routeId);
+        PlayerId owner = gameState.getPlayerIdClaimingRoute(route).get();
+        boolean planned = gameState.planned(route).get();
+
+        graphics.setGlobalAlpha(isEnabled(route) ? 1 : DISABLED_OPACITY);
+        for (int cell = geometry.firstCell(routeId); cell < geometry.firstCell(routeId + 1); cell++) {
+            graphics.save();
+            graphics.translate(geometry.centerX(cell), geometry.centerY(cell));
+            graphics.rotate(geometry.angle(cell));
+
+            paintTrack(route, routeId == hoveredRoute, planned);
+            if (owner != null) {
+                paintCar(owner);
+            }
+            graphics.restore();
+        }
+    }
+
+    private void paintTrack(Route route, boolean hovered, boolean planned) {
+        final double width = MapGeometry.CELL_WIDTH;
+        final double height = MapGeometry.CELL_HEIGHT;
+
+        graphics.save();
+        if (hovered) {
+            graphics.scale(MapGeometry.HOVER_SCALE, MapGeometry.HOVER_SCALE);
+        }
+        graphics.setFill(route.color() == null ? neutralColor : trackColors.get(route.color()));
+        graphics.fillRect(-width / 2, -height / 2, width, height);
+
+        //Stroke of width 1 outside of the track (3 if the route is planned), dashed for the underground routes
+        double strokeWidth = planned ? MapGeometry.PLANNED_STROKE_WIDTH : 1;
+        if (planned) {
+            graphics.setStroke(PLANNED_COLOR);
+        } else {
+            graphics.setStroke(route.color() == Color.BLACK ? javafx.scene.paint.Color.GREY : javafx.scene.paint.Color.DIMGRAY);
+        }
+        graphics.setLineWidth(strokeWidth);
+        if (route.level() == Route.Level.UNDERGROUND) {
+            graphics.setLineDashes(8, 4);
+            graphics.setLineDashOffset(4);
+            graphics.setLineCap(StrokeLineCap.BUTT);
+        }
+        graphics.strokeRect(-width / 2 - strokeWidth / 2, -height / 2 - strokeWidth / 2,
+                width + strokeWidth, height + strokeWidth);
+        graphics.restore();
+    }
+
+    private void paintCar(PlayerId owner) {
+        final double width = MapGeometry.CELL_WIDTH;
+        final double height = MapGeometry.CELL_HEIGHT;
+
+        graphics.setFill(carColors.get(owner));
+        graphics.fillRect(-width / 2, -height / 2, width, height);
+        graphics.setStroke(javafx.scene.paint.Color.DIMGREY);
+        graphics.setLineWidth(2);
+        graphics.strokeRect(-width / 2, -height / 2, width, height);
+
+        graphics.setFill(javafx.scene.paint.Color.WHITE);
+        graphics.setLineWidth(1);
+        for (double wheelX : new double[]{-WHEEL_CENTER_POSITION, WHEEL_CENTER_POSITION}) {
+            graphics.fillOval(wheelX - WHEEL_RADIUS, -WHEEL_RADIUS, 2 * WHEEL_RADIUS, 2 * WHEEL_RADIUS);
+            graphics.strokeOval(wheelX - WHEEL_RADIUS, -WHEEL_RADIUS, 2 * WHEEL_RADIUS, 2 * WHEEL_RADIUS);
+        }
+    }
+}
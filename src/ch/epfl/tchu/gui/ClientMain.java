@@ -1,10 +1,13 @@
 package ch.epfl.tchu.gui;
 
+import ch.epfl.tchu.net.JmxProtocolMetrics;
 import ch.epfl.tchu.net.RemotePlayerClient;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * Main program of a tCHu client
@@ -15,11 +18,12 @@ import java.util.List;
 public class ClientMain extends Application {
 
     /**
-     * Launches the application with the given args
+     * Launches the application with the given args, the resources being loaded while JavaFX starts
      *
      * @param args : args to pass to the launch method
      */
     public static void main(String[] args) {
+        ResourcePreloader.start();
         launch(args);
     }
 
@@ -27,11 +31,27 @@ public class ClientMain extends Application {
     /**
      * Starts the client with a new Graphical Player Adapter, a default name and a default PORT.
      * If a name or PORT is specified then uses these for the remote player client creation.
+     * The metrics of the protocol are visible in any JMX console, and the steps of the startup (up to the first frame
+     * of the game) are printed.
+     * If the system property tchu.replay gives a record of a game (see GameRecorder), the client plays it back instead
+     * of joining a game.
+     * The decisions of the player are waited for at most the time given by the system property tchu.decisionTimeout
+     * (see GraphicalPlayerAdapter): a player taking longer leaves the game, which the server tells the other players.
+     * Once the game is over, or the connection lost, the decisions the player still makes are ignored.
      *
      * @param primaryStage : unused parameter
      */
     @Override
     public void start(Stage primaryStage) {
+        StartupMetrics.reached(StartupMetrics.JAVAFX_STARTED);
+        ResourcePreloader.startWithImages();
+
+        String replay = System.getProperty(ReplayViewer.PROPERTY);
+        if (replay != null) {
+            ReplayViewer.open(Paths.get(replay));
+            return;
+        }
+
         List<String> parameters = getParameters().getRaw();
 
         String name = "localhost";
@@ -43,8 +63,19 @@ public class ClientMain extends Application {
             case 1:
                 name = parameters.get(0);
         }
-        RemotePlayerClient remotePlayerClient = new RemotePlayerClient(new GraphicalPlayerAdapter(), name, port);
+        GraphicalPlayerAdapter adapter = GraphicalPlayerAdapter.fromSystemProperty();
+        RemotePlayerClient remotePlayerClient = new RemotePlayerClient(adapter, name, port,
+                RemotePlayerClient.DEFAULT_RESUME_TIMEOUT_MILLIS, new JmxProtocolMetrics().register("client"));
 
-        new Thread(remotePlayerClient::run).start();
+        new Thread(() -> {
+            try {
+                remotePlayerClient.run();
+            } catch (CancellationException tooLong) {
+                //The player took too long to decide: the connection is closed, so that the server ends the game
+            } finally {
+                adapter.cancel();
+                adapter.endGame();
+            }
+        }).start();
     }
 }
@@ -0,0 +1,115 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.game.PlayerState;
+import ch.epfl.tchu.game.PublicGameState;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Bridge coalescing the states and the messages sent by the thread of the game before they are applied on the JavaFX
+ * thread. The updates are applied in the order they were published, except that of several states published one after
+ * the other, only the last one is applied: the others are skipped. A message is thus always shown along with the state
+ * it was published after. A single drain is pending on the executor at any time, applying the waiting updates.
+ *
+ * The thread of the game never blocks: the updates are held in a lock-free queue.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class CoalescedUpdates {
+    private final Executor executor;
+    private final BiConsumer<PublicGameState, PlayerState> stateConsumer;
+    private final Consumer<String> messageConsumer;
+
+    //The states (State) and the messages (String), in the order they were published
+    private final Queue<Object> updates = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainPending = new AtomicBoolean();
+    private final AtomicInteger skippedStates = new AtomicInteger();
+
+    /**
+     * Constructs a bridge applying the updates with the given consumers, on the given executor
+     *
+     * @param executor        : the executor of the thread the updates are applied on (Platform::runLater)
+     * @param stateConsumer   : the consumer of the states
+     * @param messageConsumer : the consumer of the messages
+     */
+    CoalescedUpdates(Executor executor, BiConsumer<PublicGameState, PlayerState> stateConsumer,
+                     Consumer<String> messageConsumer) {
+        this.executor = Objects.requireNonNull(executor);
+        this.stateConsumer = Objects.requireNonNull(stateConsumer);
+        this.messageConsumer = Objects.requireNonNull(messageConsumer);
+    }
+
+    /**
+     * Publishes a new state, replacing the state waiting to be applied if nothing was published after it
+     *
+     * @param publicGameState : the public game state
+     * @param playerState     : the state of the player
+     */
+    void publishState(PublicGameState publicGameState, PlayerState playerState) {
+        updates.add(new State(publicGameState, playerState));
+        scheduleDrain();
+    }
+
+    /**
+     * Publishes a new message, applied after the ones published before it
+     *
+     * @param message : the message
+     */
+    void publishMessage(String message) {
+        updates.add(Objects.requireNonNull(message));
+        scheduleDrain();
+    }
+
+    /**
+     * Getter for the number of states skipped, a newer state being published right after them
+     *
+     * @return the number of skipped states
+     */
+    int skippedStates() {
+        return skippedStates.get();
+    }
+
+    private void scheduleDrain() {
+        if (drainPending.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        //Cleared first, so that what is published from now on either is seen below or schedules another drain
+        drainPending.set(false);
+
+        Object update = updates.poll();
+        while (update != null) {
+            Object next = updates.poll();
+            if (update instanceof State) {
+                if (next instanceof State) {
+                    skippedStates.incrementAndGet();
+                } else {
+                    State state = (State) update;
+                    stateConsumer.accept(state.publicGameState, state.playerState);
+                }
+            } else {
+                messageConsumer.accept((String) update);
+            }
+            update = next;
+        }
+    }
+
+    private static final class State {
+        private final PublicGameState publicGameState;
+        private final PlayerState playerState;
+
+        private State(PublicGameState publicGameState, PlayerState playerState) {
+            this.publicGameState = publicGameState;
+            this.playerState = playerState;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.Card;
+import ch.epfl.tchu.game.Route;
+import ch.epfl.tchu.game.Ticket;
+
+import java.util.Objects;
+
+/**
+ * Decision taken by the player in the graphical interface, handed over to the thread of the game through a
+ * DecisionChannel. The kinds of decisions are the nested classes, and only them: the constructor is private.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+abstract class Decision {
+    private final long madeAtNanos = System.nanoTime();
+
+    private Decision() {
+    }
+
+    /**
+     * Getter for the time the decision was taken at, in the time base of System.nanoTime()
+     *
+     * @return the time the decision was taken at
+     */
+    final long madeAtNanos() {
+        return madeAtNanos;
+    }
+
+    /**
+     * Decision to draw tickets, at the start of a turn
+     */
+    static final class DrawTickets extends Decision {
+    }
+
+    /**
+     * Decision to draw a card, at the start of a turn or for the second card
+     */
+    static final class DrawCard extends Decision {
+        private final int slot;
+
+        /**
+         * @param slot : the slot of the card, -1 for the deck
+         */
+        DrawCard(int slot) {
+            this.slot = slot;
+        }
+
+        int slot() {
+            return slot;
+        }
+    }
+
+    /**
+     * Decision to claim a route, at the start of a turn
+     */
+    static final class ClaimRoute extends Decision {
+        private final Route route;
+        private final SortedBag<Card> initialCards;
+
+        /**
+         * @param route        : the route to claim
+         * @param initialCards : the cards initially used to claim it
+         */
+        ClaimRoute(Route route, SortedBag<Card> initialCards) {
+            this.route = Objects.requireNonNull(route);
+            this.initialCards = Objects.requireNonNull(initialCards);
+        }
+
+        Route route() {
+            return route;
+        }
+
+        SortedBag<Card> initialCards() {
+            return initialCards;
+        }
+    }
+
+    /**
+     * Choice of tickets among the ones offered
+     */
+    static final class ChooseTickets extends Decision {
+        private final SortedBag<Ticket> tickets;
+
+        /**
+         * @param tickets : the chosen tickets
+         */
+        ChooseTickets(SortedBag<Ticket> tickets) {
+            this.tickets = Objects.requireNonNull(tickets);
+        }
+
+        SortedBag<Ticket> tickets() {
+            return tickets;
+        }
+    }
+
+    /**
+     * Choice of the additional cards used to claim a tunnel, empty if the player gives up
+     */
+    static final class ChooseCards extends Decision {
+        private final SortedBag<Card> cards;
+
+        /**
+         * @param cards : the chosen cards
+         */
+        ChooseCards(SortedBag<Card> cards) {
+            this.cards = Objects.requireNonNull(cards);
+        }
+
+        SortedBag<Card> cards() {
+            return cards;
+        }
+    }
+}
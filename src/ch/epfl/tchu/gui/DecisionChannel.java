@@ -0,0 +1,152 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.net.LatencyHistogram;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Channel handing the decisions of the player over from the JavaFX thread to the thread of the game, one at a time.
+ *
+ * The decision is exchanged through an atomic slot: the JavaFX thread never blocks, and the thread of the game parks
+ * until a decision is offered, the channel is cancelled or the decision takes too long. The time between a decision
+ * and its taking by the thread of the game is recorded.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class DecisionChannel {
+    private static final Logger LOGGER = Logger.getLogger(DecisionChannel.class.getName());
+    private final long timeoutNanos;
+    private final AtomicReference<Decision> slot = new AtomicReference<>();
+    private final LatencyHistogram handOffLatencies = new LatencyHistogram();
+
+    private volatile Thread waiter;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Constructs a channel
+     *
+     * @param timeoutMillis : the longest time a decision is waited for before the channel is cancelled, 0 for no limit
+     * @throws IllegalArgumentException if the timeout is negative
+     */
+    DecisionChannel(long timeoutMillis) {
+        Preconditions.checkArgument(timeoutMillis >= 0);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Offers a decision to the thread of the game, without blocking. A decision offered once the channel is cancelled,
+     * or while the previous decision isn't taken yet (as when a button is clicked twice), is ignored.
+     *
+     * @param decision : the decision
+     * @return true if the decision is handed over to the thread of the game
+     */
+    boolean offer(Decision decision) {
+        Objects.requireNonNull(decision);
+        if (cancelled) {
+            return false;
+        }
+        if (!slot.compareAndSet(null, decision)) {
+            LOGGER.fine(() -> decision.getClass().getSimpleName() + " ignored, the previous decision isn't taken yet");
+            return false;
+        }
+        Thread waiting = waiter;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+        return true;
+    }
+
+    /**
+     * Takes the next decision of the given kind, waiting for it if needed
+     *
+     * @param kind : the kind of the decision
+     * @param <D>  : the type of the decision
+     * @return the decision
+     * @throws IllegalStateException if the decision is of another kind
+     * @throws CancellationException if the channel is or gets cancelled, or if the decision takes too long
+     */
+    <D extends Decision> D take(Class<D> kind) {
+        Decision decision = take();
+        if (!kind.isInstance(decision)) {
+            throw new IllegalStateException("expected " + kind.getSimpleName() + ", got "
+                    + decision.getClass().getSimpleName());
+        }
+        return kind.cast(decision);
+    }
+
+    /**
+     * Takes the next decision, waiting for it if needed. Only the thread of the game may take decisions.
+     *
+     * @return the decision
+     * @throws CancellationException if the channel is or gets cancelled, or if the decision takes too long
+     */
+    Decision take() {
+        long deadline = System.nanoTime() + timeoutNanos;
+        //Published before looking at the slot, so that a decision offered from now on unparks this thread
+        waiter = Thread.currentThread();
+        try {
+            while (true) {
+                Decision decision = slot.getAndSet(null);
+                if (decision != null) {
+                    handOffLatencies.record(System.nanoTime() - decision.madeAtNanos());
+                    return decision;
+                }
+                if (cancelled) {
+                    throw new CancellationException("decision channel cancelled");
+                }
+                if (Thread.interrupted()) {
+                    cancel();
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("interrupted while waiting for a decision");
+                }
+                if (timeoutNanos == 0) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        cancel();
+                        throw new CancellationException("no decision within the time limit");
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                }
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * Cancels the channel: the decision being waited for, if any, and all the following ones fail
+     */
+    void cancel() {
+        cancelled = true;
+        Thread waiting = waiter;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+
+    /**
+     * Getter for whether the channel is cancelled
+     *
+     * @return true if the channel is cancelled
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Getter for the latencies between the decisions and their taking by the thread of the game
+     *
+     * @return the histogram of the hand-off latencies
+     */
+    LatencyHistogram handOffLatencies() {
+        return handOffLatencies;
+    }
+}
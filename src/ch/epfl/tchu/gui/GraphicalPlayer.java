@@ -4,19 +4,25 @@ package ch.epfl.tchu.gui;
 import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.*;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.Event;
+import javafx.geometry.Pos;
 import javafx.scene.Node;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ListView;
 import javafx.scene.control.SelectionMode;
 import javafx.scene.control.cell.TextFieldListCell;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
@@ -28,8 +34,13 @@ import javafx.util.StringConverter;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static javafx.application.Platform.isFxApplicationThread;
 
@@ -40,10 +51,23 @@ import static javafx.application.Platform.isFxApplicationThread;
  * @author Anne-Marie Rusu (296098)
  */
 public final class GraphicalPlayer {
+    private static final String MAP_PROPERTY = "tchu.map";
+    private static final String CANVAS_MAP = "canvas";
+    //Size of the image of the map, taken by the map before it is attached
+    private static final double MAP_WIDTH = 1120;
+    private static final double MAP_HEIGHT = 730;
+    //Far more messages than a game has, with a bounded memory however long it lasts
+    static final int MESSAGE_LOG_CAPACITY = 1 << 10;
+    private static final Logger LOGGER = Logger.getLogger(GraphicalPlayer.class.getName());
+    private static final long OVERLAY_REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
     private final PlayerId playerId;
     private final ObservableGameState observableGameState;
-    private final ObservableList<Text> messages = FXCollections.observableArrayList();
+    private final Map<PlayerId, String> playerNames;
+    private final ObservableMessageLog messages = new ObservableMessageLog(MESSAGE_LOG_CAPACITY);
     private final Stage primaryStage;
+    //Null unless the cost of the rendering is measured
+    private final RenderingMetrics renderingMetrics;
 
     private final ObjectProperty<ActionHandlers.DrawTicketsHandler> drawTicketsHP = new SimpleObjectProperty<>(null);
     private final ObjectProperty<ActionHandlers.DrawCardHandler> drawCardsHP = new SimpleObjectProperty<>(null);
@@ -59,8 +83,11 @@ public final class GraphicalPlayer {
         Preconditions.checkArgument(playerNames.size() == PlayerId.COUNT);
 
         this.playerId = Objects.requireNonNull(playerId);
+        this.playerNames = Map.copyOf(playerNames);
         this.observableGameState = new ObservableGameState(playerId);
         this.primaryStage = new Stage();
+        //-Dtchu.metrics=log logs the cost of the rendering at the end of the game, =overlay also displays it meanwhile
+        this.renderingMetrics = RenderingMetrics.loggedBySystemProperty() ? new RenderingMetrics() : null;
         //sets the scene
         setSceneGraph(Objects.requireNonNull(playerNames));
     }
@@ -69,8 +96,10 @@ public final class GraphicalPlayer {
         final char dash = '—';
         final String title = "tCHu";
 
-        Node mapView = MapViewCreator
-                .createMapView(observableGameState, claimRouteHP, this::chooseClaimCards);
+        //The map is built in the background and attached once ready, the rest of the interface being shown meanwhile
+        Pane mapView = new Pane();
+        mapView.setPrefSize(MAP_WIDTH, MAP_HEIGHT);
+        buildMapView(mapView);
 
         Node cardsView = DecksViewCreator
                 .createCardsView(observableGameState, drawTicketsHP, drawCardsHP);
@@ -82,14 +111,86 @@ public final class GraphicalPlayer {
                 .createInfoView(playerId, playerNames, observableGameState, messages);
 
 
+        Node centerView = mapView;
+        Text metricsOverlay = null;
+        if (RenderingMetrics.overlaidBySystemProperty()) {
+            metricsOverlay = new Text();
+            metricsOverlay.setId("rendering-metrics");
+            metricsOverlay.setMouseTransparent(true);
+            StackPane.setAlignment(metricsOverlay, Pos.TOP_LEFT);
+            centerView = new StackPane(mapView, metricsOverlay);
+        }
+
         BorderPane mainPane =
-                new BorderPane(mapView, null, cardsView, handView, infoView);
+                new BorderPane(centerView, null, cardsView, handView, infoView);
 
         Scene scene = new Scene(mainPane);
+        if (renderingMetrics != null) {
+            measurePulses(scene, metricsOverlay);
+        }
 
         primaryStage.setTitle(title + dash + playerNames.get(playerId));
         primaryStage.setScene(scene);
         primaryStage.show();
+
+        //The first pulse following the display of the window renders its first frame
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                StartupMetrics.reached(StartupMetrics.FIRST_FRAME);
+                stop();
+            }
+        }.start();
+    }
+
+    /**
+     * Measures the duration of the pulses of the given scene, that is of its CSS and layout passes, and refreshes the
+     * given overlay (if any) with the last measures at most twice a second
+     *
+     * @param scene          : the scene
+     * @param metricsOverlay : the text displaying the last measures, or null
+     */
+    private void measurePulses(Scene scene, Text metricsOverlay) {
+        long[] pulseStart = new long[1];
+        long[] lastRefresh = new long[1];
+        scene.addPreLayoutPulseListener(() -> pulseStart[0] = System.nanoTime());
+        scene.addPostLayoutPulseListener(() -> {
+            long now = System.nanoTime();
+            renderingMetrics.recordPulse(now - pulseStart[0]);
+            //Changing the text requests another pulse, so it is only changed now and then
+            if (metricsOverlay != null && now - lastRefresh[0] >= OVERLAY_REFRESH_NANOS) {
+                lastRefresh[0] = now;
+                metricsOverlay.setText(renderingMetrics.lastValues());
+            }
+        });
+    }
+
+    /**
+     * Builds the view of the map on a background thread, then binds it to the game and attaches it to the given pane
+     * on the JavaFX thread. The map painted on a canvas is chosen with -Dtchu.map=canvas.
+     * If the map can't be built on the background thread, it is built again on the JavaFX thread, so that the game is
+     * never played without its map: a failure there is reported like any other failure of the JavaFX thread.
+     *
+     * @param mapView : the pane the view of the map is attached to
+     */
+    private void buildMapView(Pane mapView) {
+        boolean canvasMap = CANVAS_MAP.equals(System.getProperty(MAP_PROPERTY));
+        Supplier<Pane> builder = canvasMap ? CanvasMapViewCreator::buildMapView : MapViewCreator::buildMapView;
+
+        CompletableFuture.supplyAsync(builder, ResourcePreloader.background())
+                .whenComplete((map, failure) -> Platform.runLater(() -> {
+                    if (failure != null) {
+                        LOGGER.log(Level.WARNING, "Map built on the JavaFX thread", failure);
+                    }
+                    Pane builtMap = failure == null ? map : builder.get();
+                    if (canvasMap) {
+                        CanvasMapViewCreator.bindMapView(builtMap, observableGameState, claimRouteHP, this::chooseClaimCards);
+                    } else {
+                        MapViewCreator.bindMapView(builtMap, observableGameState, claimRouteHP, this::chooseClaimCards);
+                    }
+                    mapView.getChildren().setAll(builtMap);
+                    StartupMetrics.reached(StartupMetrics.MAP_ATTACHED);
+                }));
     }
 
     /**
@@ -101,11 +202,40 @@ public final class GraphicalPlayer {
     public void setState(PublicGameState publicGameState, PlayerState playerState) {
         assert isFxApplicationThread();
 
-        observableGameState.setState(publicGameState, playerState);
+        if (renderingMetrics == null) {
+            observableGameState.setState(publicGameState, playerState);
+            return;
+        }
+        long start = System.nanoTime();
+        int changedProperties = observableGameState.setState(publicGameState, playerState);
+        renderingMetrics.recordUpdate(System.nanoTime() - start, changedProperties);
+        renderingMetrics.recordNodeCount(nodeCount(primaryStage.getScene().getRoot()));
+    }
+
+    private static int nodeCount(Node node) {
+        int count = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                count += nodeCount(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Ends the game on the javafx thread, logging the percentiles of the cost of the rendering if it was measured
+     */
+    public void endGame() {
+        assert isFxApplicationThread();
+
+        if (renderingMetrics != null) {
+            LOGGER.info(() -> String.format("Rendering of the game of %s:%n%s", playerNames.get(playerId),
+                    renderingMetrics.summary()));
+        }
     }
 
     /**
-     * Adds the given message to the information view of the graphical interface
+     * Adds the given message to the information view of the graphical interface, and to the history of the game
      *
      * @param messageToAdd : the information to be displayed to the playerId
      */
@@ -114,12 +244,7 @@ public final class GraphicalPlayer {
 
         Preconditions.checkArgument(!messageToAdd.isEmpty());
 
-        final int maxToAddMessage = 4;
-
-        if (messages.size() > maxToAddMessage) {
-            messages.remove(0);
-        }
-        messages.add(new Text(messageToAdd));
+        messages.addMessage(messageToAdd, MessageLog.playerOf(messageToAdd.strip(), playerNames));
     }
 
     /**
@@ -2,43 +2,114 @@ package ch.epfl.tchu.gui;
 
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.net.LatencyHistogram;
+import javafx.application.Platform;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 
 import static javafx.application.Platform.runLater;
 
 /**
  * Adapts an instance of type GraphicalPlayer to an instance of type Player
+ *
+ * The decisions of the player are waited for at most the number of milliseconds given by the system property
+ * tchu.decisionTimeout, if it is set (see fromSystemProperty).
+ *
  * @author Victor Jean Canard-Duchene (326913)
  */
 public final class GraphicalPlayerAdapter implements Player {
-    private final BlockingQueue<SortedBag<Ticket>> ticketQueue;
-    private final BlockingQueue<SortedBag<Card>> cardQueue;
-    private final BlockingQueue<Route> routeQueue;
-    private final BlockingQueue<Integer> integerQueue;
-    private final BlockingQueue<TurnKind> turnKindQueue;
-    //
+    /**
+     * Name of the system property giving the longest time (in milliseconds) a decision of the player is waited for
+     */
+    static final String DECISION_TIMEOUT_PROPERTY = "tchu.decisionTimeout";
+
+    //The decisions of the player, handed over from the JavaFX thread to the thread of the game
+    private final DecisionChannel decisions;
+    //The states and the messages, applied on the JavaFX thread at most once per pulse
+    private final CoalescedUpdates updates;
     private GraphicalPlayer graphicalPlayer;
 
+    //Decision taken at the start of the turn, whose details the game asks for afterwards (thread of the game only)
+    private Decision turnDecision;
+
     /**
-     * Constructs the GraphicalPlayerAdapter, to be executed on a different thread than the JavaFx thread
+     * Constructs the GraphicalPlayerAdapter, to be executed on a different thread than the JavaFx thread, waiting for
+     * the decisions of the player without any time limit
      */
     public GraphicalPlayerAdapter() {
-        final int cap = 1;
+        this(0);
+    }
+
+    /**
+     * Constructs the GraphicalPlayerAdapter, to be executed on a different thread than the JavaFx thread
+     *
+     * @param decisionTimeoutMillis : the longest time a decision of the player is waited for, 0 for no limit
+     * @throws IllegalArgumentException if the time limit is negative
+     */
+    public GraphicalPlayerAdapter(long decisionTimeoutMillis) {
+        this.decisions = new DecisionChannel(decisionTimeoutMillis);
+        this.updates = new CoalescedUpdates(Platform::runLater,
+                (publicGameState, playerState) -> graphicalPlayer.setState(publicGameState, playerState),
+                message -> graphicalPlayer.receiveInfo(message));
+    }
+
+    /**
+     * Creates an adapter waiting for the decisions of the player at most the time given by the system property, without
+     * any time limit if it is missing, invalid or not positive
+     *
+     * @return the adapter
+     */
+    public static GraphicalPlayerAdapter fromSystemProperty() {
+        try {
+            return new GraphicalPlayerAdapter(Math.max(Long.getLong(DECISION_TIMEOUT_PROPERTY, 0), 0));
+        } catch (SecurityException denied) {
+            return new GraphicalPlayerAdapter();
+        }
+    }
 
-        this.ticketQueue = new ArrayBlockingQueue<>(cap);
-        this.cardQueue = new ArrayBlockingQueue<>(cap);
-        this.routeQueue = new ArrayBlockingQueue<>(cap);
-        this.turnKindQueue = new ArrayBlockingQueue<>(cap);
-        this.integerQueue = new ArrayBlockingQueue<>(cap);
+    /**
+     * Getter for the number of states replaced by a newer one before the graphical interface could display them
+     *
+     * @return the number of skipped states
+     */
+    public int skippedStates() {
+        return updates.skippedStates();
+    }
+
+    /**
+     * Getter for the latencies between the decisions of the player and their taking by the thread of the game
+     *
+     * @return the histogram of the hand-off latencies, in nanoseconds
+     */
+    public LatencyHistogram decisionLatencies() {
+        return decisions.handOffLatencies();
+    }
+
+    /**
+     * Cancels the decision being waited for, and all the following ones, once the game is over or abandoned: the
+     * methods waiting for a decision throw a CancellationException
+     */
+    public void cancel() {
+        decisions.cancel();
+    }
+
+    /**
+     * Tells the graphical interface that the game is over, once the game has ended or was interrupted
+     */
+    public void endGame() {
+        runLater(() -> {
+            if (graphicalPlayer != null) {
+                graphicalPlayer.endGame();
+            }
+        });
     }
 
     /**
      * The following eleven overridden methods from the interface Player allow the adapter to manage
      * each interaction in the game, by calling the appropriate method from GraphicalPlayer, while running on the JavaFX thread.
+     * The methods waiting for a decision throw a CancellationException if the adapter is cancelled, or if the decision
+     * takes too long.
      */
 
     @Override
@@ -48,38 +119,41 @@ public final class GraphicalPlayerAdapter implements Player {
 
     @Override
     public void receiveInfo(String info) {
-        runLater(() -> graphicalPlayer.receiveInfo(info));
+        updates.publishMessage(info);
     }
 
     @Override
     public void updateState(PublicGameState newState, PlayerState ownState) {
-        runLater(() -> graphicalPlayer.setState(newState, ownState));
+        updates.publishState(newState, ownState);
     }
 
     @Override
     public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
-        runLater(() -> graphicalPlayer.chooseTickets(tickets, ticketQueue::add));
+        runLater(() -> graphicalPlayer.chooseTickets(tickets,
+                chosenTickets -> decisions.offer(new Decision.ChooseTickets(chosenTickets))));
     }
 
     @Override
     public SortedBag<Ticket> chooseInitialTickets() {
-        return withTryAndCatch(ticketQueue);
+        return decisions.take(Decision.ChooseTickets.class).tickets();
     }
 
     @Override
     public TurnKind nextTurn() {
         runLater(() -> graphicalPlayer.startTurn(
-                () -> turnKindQueue.add(TurnKind.DRAW_TICKETS),
-                (slot -> {
-                    integerQueue.add(slot);
-                    turnKindQueue.add(TurnKind.DRAW_CARDS);
-                }),
-                ((route, initialCards) -> {
-                    routeQueue.add(route);
-                    cardQueue.add(initialCards);
-                    turnKindQueue.add(TurnKind.CLAIM_ROUTE);
-                })));
-        return withTryAndCatch(turnKindQueue);
+                () -> decisions.offer(new Decision.DrawTickets()),
+                slot -> decisions.offer(new Decision.DrawCard(slot)),
+                (route, initialCards) -> decisions.offer(new Decision.ClaimRoute(route, initialCards))));
+
+        turnDecision = decisions.take();
+        if (turnDecision instanceof Decision.DrawTickets) {
+            return TurnKind.DRAW_TICKETS;
+        } else if (turnDecision instanceof Decision.DrawCard) {
+            return TurnKind.DRAW_CARDS;
+        } else if (turnDecision instanceof Decision.ClaimRoute) {
+            return TurnKind.CLAIM_ROUTE;
+        }
+        throw new IllegalStateException("not a turn decision: " + turnDecision.getClass().getSimpleName());
     }
 
     @Override
@@ -90,34 +164,37 @@ public final class GraphicalPlayerAdapter implements Player {
 
     @Override
     public int drawSlot() {
-        if (integerQueue.isEmpty()) {
-            runLater(() -> graphicalPlayer.drawCard(integerQueue::add));
+        //The first card of the turn was chosen along with the kind of the turn
+        if (turnDecision instanceof Decision.DrawCard) {
+            int slot = ((Decision.DrawCard) turnDecision).slot();
+            turnDecision = null;
+            return slot;
         }
-        return withTryAndCatch(integerQueue);
+        runLater(() -> graphicalPlayer.drawCard(slot -> decisions.offer(new Decision.DrawCard(slot))));
+        return decisions.take(Decision.DrawCard.class).slot();
     }
 
     @Override
     public Route claimedRoute() {
-
-        return withTryAndCatch(routeQueue);
+        return claimDecision().route();
     }
 
     @Override
     public SortedBag<Card> initialClaimCards() {
-        return withTryAndCatch(cardQueue);
+        return claimDecision().initialCards();
     }
 
     @Override
     public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
-        runLater(() -> graphicalPlayer.chooseAdditionalCards(options, cardQueue::add));
-        return initialClaimCards();
+        runLater(() -> graphicalPlayer.chooseAdditionalCards(options,
+                chosenCards -> decisions.offer(new Decision.ChooseCards(chosenCards))));
+        return decisions.take(Decision.ChooseCards.class).cards();
     }
 
-    private <E> E withTryAndCatch(BlockingQueue<E> e) {
-        try {
-            return e.take();
-        } catch (InterruptedException error) {
-            throw new Error(error);
+    private Decision.ClaimRoute claimDecision() {
+        if (!(turnDecision instanceof Decision.ClaimRoute)) {
+            throw new IllegalStateException("no route claimed this turn");
         }
+        return (Decision.ClaimRoute) turnDecision;
     }
 }
@@ -278,6 +278,15 @@ public final class Info {
         return String.format(StringsFr.WINS, playerName, points, StringsFr.plural(points), loserPoints, StringsFr.plural(loserPoints));
     }
 
+    /**
+     * Gives the message that the player left the game, which is then interrupted
+     *
+     * @return message including the player who left the game
+     */
+    public String leftTheGame() {
+        return String.format(StringsFr.LEFT_THE_GAME, playerName);
+    }
+
     /**
      * Transforms a route into a textual representation
      *
@@ -2,13 +2,24 @@ package ch.epfl.tchu.gui;
 
 import ch.epfl.tchu.game.PlayerId;
 import javafx.beans.binding.Bindings;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.Separator;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.scene.shape.Circle;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,10 +39,11 @@ public class InfoViewCreator {
      * @param playerId    : the player whose graphical interface this is.
      * @param playerNames : the name of each player.
      * @param gameState   : the state of the game to display.
-     * @param infos       : the messages that appear in the bottom-left corner giving information on the sequence of events of the game.
+     * @param infos       : the messages giving information on the sequence of events of the game, the last ones appearing
+     *                    under the stats and all of them in the history in the bottom-left corner.
      * @return a Vertical Box containing the messages and each player's stats.
      */
-    public static VBox createInfoView(PlayerId playerId, Map<PlayerId, String> playerNames, ObservableGameState gameState, ObservableList<Text> infos) {
+    public static VBox createInfoView(PlayerId playerId, Map<PlayerId, String> playerNames, ObservableGameState gameState, ObservableMessageLog infos) {
         final String info = "info.css";
         final String gameInfoString = "game-info";
 
@@ -52,11 +64,96 @@ public class InfoViewCreator {
         gameInfo.setId(gameInfoString);
         infoPane.getChildren().add(gameInfo);
 
-        Bindings.bindContent(gameInfo.getChildren(), infos);
+        setLastMessages(gameInfo, infos);
+
+        VBox history = history(playerNames, infos);
+        VBox.setVgrow(history, Priority.ALWAYS);
+        infoPane.getChildren().add(history);
 
         return infoPane;
     }
 
+    /**
+     * Shows the last messages in the given text flow, through a fixed number of text nodes whose texts are replaced
+     * when a message arrives
+     *
+     * @param gameInfo : the text flow
+     * @param infos    : the messages
+     */
+    private static void setLastMessages(TextFlow gameInfo, ObservableMessageLog infos) {
+        final int lastMessageCount = 5;
+
+        List<Text> texts = new ArrayList<>(lastMessageCount);
+        for (int i = 0; i < lastMessageCount; i++) {
+            texts.add(new Text());
+        }
+        gameInfo.getChildren().setAll(texts);
+
+        Runnable update = () -> {
+            int firstMessage = Math.max(0, infos.size() - lastMessageCount);
+            for (int i = 0; i < lastMessageCount; i++) {
+                int message = firstMessage + i;
+                texts.get(i).setText(message < infos.size() ? infos.get(message).message() : "");
+            }
+        };
+        update.run();
+        infos.addListener((ListChangeListener<MessageLog.Entry>) change -> update.run());
+    }
+
+    /**
+     * Creates the history of the game: all the messages kept by the log, in a list view that only creates the cells of
+     * the visible messages, which can be searched and filtered by player.
+     *
+     * @param playerNames : the name of each player.
+     * @param infos       : the messages
+     * @return a Vertical Box containing the search field, the player filter and the list of the messages.
+     */
+    private static VBox history(Map<PlayerId, String> playerNames, ObservableMessageLog infos) {
+        final String historyString = "history";
+
+        TextField search = new TextField();
+        search.setPromptText(StringsFr.SEARCH_HISTORY);
+        HBox.setHgrow(search, Priority.ALWAYS);
+
+        //The first choice stands for all the players, the following ones for each player
+        ObservableList<String> choices = FXCollections.observableArrayList(StringsFr.ALL_PLAYERS);
+        for (PlayerId playerId : PlayerId.ALL) {
+            choices.add(playerNames.get(playerId));
+        }
+        ChoiceBox<String> player = new ChoiceBox<>(choices);
+        player.getSelectionModel().selectFirst();
+
+        FilteredList<MessageLog.Entry> shownInfos = new FilteredList<>(infos);
+        shownInfos.predicateProperty().bind(Bindings.createObjectBinding(
+                () -> MessageLog.filter(search.getText(), selectedPlayer(player)),
+                search.textProperty(), player.getSelectionModel().selectedIndexProperty()));
+
+        ListView<MessageLog.Entry> messages = new ListView<>(shownInfos);
+        messages.setCellFactory(listView -> new ListCell<>() {
+            @Override
+            protected void updateItem(MessageLog.Entry entry, boolean empty) {
+                super.updateItem(entry, empty);
+                setText(empty || entry == null ? null : entry.message().strip());
+            }
+        });
+        //Follows the last message, unless the player searches the history
+        shownInfos.addListener((ListChangeListener<MessageLog.Entry>) change -> {
+            if (search.getText().isEmpty() && selectedPlayer(player) == null && !shownInfos.isEmpty()) {
+                messages.scrollTo(shownInfos.size() - 1);
+            }
+        });
+        VBox.setVgrow(messages, Priority.ALWAYS);
+
+        VBox history = new VBox(new HBox(search, player), messages);
+        history.setId(historyString);
+        return history;
+    }
+
+    private static PlayerId selectedPlayer(ChoiceBox<String> player) {
+        int choice = player.getSelectionModel().getSelectedIndex();
+        return choice <= 0 ? null : PlayerId.ALL.get(choice - 1);
+    }
+
     /**
      * Creates the view on each player's stats in the top-left corner of the graphical display.
      *
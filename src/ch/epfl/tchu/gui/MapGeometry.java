@@ -0,0 +1,322 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.DenseIndex;
+import ch.epfl.tchu.game.Route;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Position of every cell of the routes of the map, as given by the style sheet of the map, together with a spatial
+ * index of the cells: the map is divided into square buckets, each holding the cells overlapping it, so that finding
+ * the route at a point only tests the few cells of its bucket.
+ *
+ * A cell is a rectangle of CELL_WIDTH by CELL_HEIGHT pixels, translated then rotated around its center, as the
+ * graphical nodes of MapViewCreator are.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class MapGeometry {
+    static final double CELL_WIDTH = 36;
+    static final double CELL_HEIGHT = 12;
+    //Enlargement of a hovered track and width of the stroke of a planned one, as in the style sheet of the map
+    static final double HOVER_SCALE = 1.1;
+    static final double PLANNED_STROKE_WIDTH = 3;
+
+    private static final String MAP_CSS = "/map.css";
+    private static final double BUCKET_SIZE = 40;
+    //Room taken around the bounding box of a cell by a hovered planned track, whatever the rotation of the cell: the
+    //enlargement of the cell (its half diagonal bounds its half sides once rotated), its enlarged stroke (whose two
+    //sides add up to at most sqrt(2) times its width once rotated), and a pixel of antialiasing
+    private static final double DRAWING_MARGIN = (HOVER_SCALE - 1) * Math.hypot(CELL_WIDTH, CELL_HEIGHT) / 2
+            + Math.sqrt(2) * HOVER_SCALE * PLANNED_STROKE_WIDTH + 1;
+    //#BAD_BAL_1_1 { -fx-translate-x: 497; -fx-translate-y: 123; -fx-rotate: 27 }
+    private static final Pattern CELL_RULE = Pattern.compile(
+            "#(\\w+)_(\\d+)\\s*\\{\\s*-fx-translate-x:\\s*(-?[\\d.]+);\\s*-fx-translate-y:\\s*(-?[\\d.]+);"
+                    + "\\s*-fx-rotate:\\s*(-?[\\d.]+)");
+
+    private final DenseIndex<Route> routes;
+    //Cells of all the routes, route after route, cell after cell
+    private final int[] cellRoutes;
+    private final double[] centerXs;
+    private final double[] centerYs;
+    private final double[] cosines;
+    private final double[] sines;
+    //Index of the first cell of each route, and of the end of the cells of the last one
+    private final int[] firstCells;
+
+    private final int bucketColumns;
+    private final int bucketRows;
+    private final int[][] buckets;
+
+    private MapGeometry(DenseIndex<Route> routes, Map<String, double[][]> cellsById) {
+        this.routes = routes;
+        this.firstCells = new int[routes.size() + 1];
+
+        int cellCount = 0;
+        for (int id = 0; id < routes.size(); id++) {
+            firstCells[id] = cellCount;
+            cellCount += routes.valueOf(id).length();
+        }
+        firstCells[routes.size()] = cellCount;
+
+        this.cellRoutes = new int[cellCount];
+        this.centerXs = new double[cellCount];
+        this.centerYs = new double[cellCount];
+        this.cosines = new double[cellCount];
+        this.sines = new double[cellCount];
+
+        double maxX = 0;
+        double maxY = 0;
+        for (int id = 0; id < routes.size(); id++) {
+            Route route = routes.valueOf(id);
+            double[][] cells = cellsById.get(route.id());
+            Preconditions.checkArgument(cells != null);
+
+            for (int i = 0; i < route.length(); i++) {
+                //Missing cell of the style sheet
+                Preconditions.checkArgument(cells[i] != null);
+
+                int cell = firstCells[id] + i;
+                double angle = Math.toRadians(cells[i][2]);
+                cellRoutes[cell] = id;
+                centerXs[cell] = cells[i][0] + CELL_WIDTH / 2;
+                centerYs[cell] = cells[i][1] + CELL_HEIGHT / 2;
+                cosines[cell] = Math.cos(angle);
+                sines[cell] = Math.sin(angle);
+                maxX = Math.max(maxX, centerXs[cell] + CELL_WIDTH);
+                maxY = Math.max(maxY, centerYs[cell] + CELL_WIDTH);
+            }
+        }
+
+        this.bucketColumns = (int) (maxX / BUCKET_SIZE) + 1;
+        this.bucketRows = (int) (maxY / BUCKET_SIZE) + 1;
+        this.buckets = indexCells();
+    }
+
+    /**
+     * Reads the position of the cells of the given routes from the style sheet of the map on the class path
+     *
+     * @param routes : the routes of the map
+     * @return the geometry of the routes
+     * @throws UncheckedIOException     if the style sheet can't be read
+     * @throws IllegalArgumentException if the style sheet lacks the position of a cell
+     */
+    static MapGeometry ofStyleSheet(DenseIndex<Route> routes) {
+        InputStream styleSheet = MapGeometry.class.getResourceAsStream(MAP_CSS);
+        if (styleSheet == null) {
+            throw new UncheckedIOException(new IOException(MAP_CSS + " not found"));
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(styleSheet, UTF_8))) {
+            return read(routes, reader);
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    /**
+     * Reads the position of the cells of the given routes from a style sheet of the map, whose rules position the
+     * cells (#ROUTE_ID_CELL { -fx-translate-x: x; -fx-translate-y: y; -fx-rotate: angle }), each on its own line
+     *
+     * @param routes : the routes of the map
+     * @param reader : the reader of the style sheet
+     * @return the geometry of the routes
+     * @throws IOException              if the style sheet can't be read
+     * @throws IllegalArgumentException if the style sheet lacks the position of a cell
+     */
+    static MapGeometry read(DenseIndex<Route> routes, BufferedReader reader) throws IOException {
+        Map<String, double[][]> cellsById = new HashMap<>();
+        for (Route route : routes.values()) {
+            cellsById.put(route.id(), new double[route.length()][]);
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Matcher matcher = CELL_RULE.matcher(line);
+            if (matcher.lookingAt()) {
+                double[][] cells = cellsById.get(matcher.group(1));
+                int cell = Integer.parseInt(matcher.group(2)) - 1;
+                if (cells != null && cell >= 0 && cell < cells.length) {
+                    cells[cell] = new double[]{Double.parseDouble(matcher.group(3)),
+                            Double.parseDouble(matcher.group(4)), Double.parseDouble(matcher.group(5))};
+                }
+            }
+        }
+        return new MapGeometry(routes, cellsById);
+    }
+
+    /**
+     * Getter for the routes of the map
+     *
+     * @return the index of the routes
+     */
+    DenseIndex<Route> routes() {
+        return routes;
+    }
+
+    /**
+     * Getter for the index of the first cell of a route, its cells being consecutive
+     *
+     * @param routeId : the id of the route
+     * @return the index of its first cell
+     */
+    int firstCell(int routeId) {
+        return firstCells[routeId];
+    }
+
+    /**
+     * Getter for the horizontal position of the center of a cell
+     *
+     * @param cell : the index of the cell
+     * @return the position of its center
+     */
+    double centerX(int cell) {
+        return centerXs[cell];
+    }
+
+    /**
+     * Getter for the vertical position of the center of a cell
+     *
+     * @param cell : the index of the cell
+     * @return the position of its center
+     */
+    double centerY(int cell) {
+        return centerYs[cell];
+    }
+
+    /**
+     * Getter for the rotation of a cell around its center
+     *
+     * @param cell : the index of the cell
+     * @return its angle, in degrees
+     */
+    double angle(int cell) {
+        return Math.toDegrees(Math.atan2(sines[cell], cosines[cell]));
+    }
+
+    /**
+     * Getter for the half width of the bounding box of the area a cell is drawn in
+     *
+     * @param cell : the index of the cell
+     * @return the half width of its bounding box, centered on the cell
+     */
+    double halfWidth(int cell) {
+        return (Math.abs(cosines[cell]) * CELL_WIDTH + Math.abs(sines[cell]) * CELL_HEIGHT) / 2 + DRAWING_MARGIN;
+    }
+
+    /**
+     * Getter for the half height of the bounding box of the area a cell is drawn in
+     *
+     * @param cell : the index of the cell
+     * @return the half height of its bounding box, centered on the cell
+     */
+    double halfHeight(int cell) {
+        return (Math.abs(sines[cell]) * CELL_WIDTH + Math.abs(cosines[cell]) * CELL_HEIGHT) / 2 + DRAWING_MARGIN;
+    }
+
+    /**
+     * Finds the route having a cell at the given point of the map
+     *
+     * @param x : the horizontal position of the point
+     * @param y : the vertical position of the point
+     * @return the id of the route, or -1 if there is none
+     */
+    int routeAt(double x, double y) {
+        if (x < 0 || y < 0 || x >= bucketColumns * BUCKET_SIZE || y >= bucketRows * BUCKET_SIZE) {
+            return -1;
+        }
+        for (int cell : buckets[bucket((int) (x / BUCKET_SIZE), (int) (y / BUCKET_SIZE))]) {
+            if (contains(cell, x, y)) {
+                return cellRoutes[cell];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the routes whose cells may be drawn over the area of the cells of the given routes, including these
+     * routes: the routes to repaint along with the given ones
+     *
+     * @param routeIds : the ids of the routes
+     * @return the ids of the given routes and of their neighbors
+     */
+    BitSet neighbors(BitSet routeIds) {
+        BitSet neighbors = new BitSet(routes.size());
+        for (int id = routeIds.nextSetBit(0); id >= 0; id = routeIds.nextSetBit(id + 1)) {
+            for (int cell = firstCells[id]; cell < firstCells[id + 1]; cell++) {
+                int column = (int) (centerXs[cell] / BUCKET_SIZE);
+                int row = (int) (centerYs[cell] / BUCKET_SIZE);
+                //A drawn cell reaches at most one bucket away from the bucket of its center
+                for (int c = Math.max(0, column - 1); c <= Math.min(bucketColumns - 1, column + 1); c++) {
+                    for (int r = Math.max(0, row - 1); r <= Math.min(bucketRows - 1, row + 1); r++) {
+                        for (int other : buckets[bucket(c, r)]) {
+                            neighbors.set(cellRoutes[other]);
+                        }
+                    }
+                }
+            }
+        }
+        return neighbors;
+    }
+
+    private boolean contains(int cell, double x, double y) {
+        //Rotates the point back around the center of the cell
+        double dx = x - centerXs[cell];
+        double dy = y - centerYs[cell];
+        double alongX = dx * cosines[cell] + dy * sines[cell];
+        double alongY = -dx * sines[cell] + dy * cosines[cell];
+        return Math.abs(alongX) <= CELL_WIDTH / 2 && Math.abs(alongY) <= CELL_HEIGHT / 2;
+    }
+
+    private int bucket(int column, int row) {
+        return row * bucketColumns + column;
+    }
+
+    private int[][] indexCells() {
+        List<List<Integer>> cellsByBucket = new ArrayList<>(bucketColumns * bucketRows);
+        for (int i = 0; i < bucketColumns * bucketRows; i++) {
+            cellsByBucket.add(new ArrayList<>());
+        }
+
+        for (int cell = 0; cell < cellRoutes.length; cell++) {
+            double halfWidth = halfWidth(cell);
+            double halfHeight = halfHeight(cell);
+            int minColumn = Math.max(0, (int) ((centerXs[cell] - halfWidth) / BUCKET_SIZE));
+            int maxColumn = Math.min(bucketColumns - 1, (int) ((centerXs[cell] + halfWidth) / BUCKET_SIZE));
+            int minRow = Math.max(0, (int) ((centerYs[cell] - halfHeight) / BUCKET_SIZE));
+            int maxRow = Math.min(bucketRows - 1, (int) ((centerYs[cell] + halfHeight) / BUCKET_SIZE));
+
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (int row = minRow; row <= maxRow; row++) {
+                    cellsByBucket.get(bucket(column, row)).add(cell);
+                }
+            }
+        }
+
+        int[][] buckets = new int[cellsByBucket.size()][];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = cellsByBucket.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return buckets;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MapGeometry[%d routes, %d cells, %d buckets of up to %d cells]", routes.size(),
+                cellRoutes.length, buckets.length, Arrays.stream(buckets).mapToInt(cells -> cells.length).max().orElse(0));
+    }
+}
@@ -3,11 +3,15 @@ package ch.epfl.tchu.gui;
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.Card;
 import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.PlayerId;
 import ch.epfl.tchu.game.Route;
 import ch.epfl.tchu.gui.ActionHandlers.ChooseCardsHandler;
 import ch.epfl.tchu.gui.ActionHandlers.ClaimRouteHandler;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.Pane;
 import javafx.scene.shape.Circle;
@@ -33,7 +37,20 @@ class MapViewCreator {
      * @return A pane containing the map background and claimed/unclaimed routes
      */
     public static Pane createMapView(ObservableGameState gameState, ObjectProperty<ClaimRouteHandler> claimRouteHP, CardChooser cardChooser) {
+        Pane map = buildMapView();
+        bindMapView(map, gameState, claimRouteHP, cardChooser);
+        return map;
+    }
+
+    /**
+     * Builds the nodes of the map view, without any link to the game: as the pane isn't part of a scene yet, it can be
+     * built on any thread, for instance while the rest of the graphical interface is displayed
+     *
+     * @return A pane containing the map background and the routes, to be bound with bindMapView
+     */
+    static Pane buildMapView() {
         final String mapCss = "map.css";
+        final String routeString = "route";
         Pane map = new Pane();
 
         map.getStylesheets().addAll(mapCss, GuiUtils.COLORS);
@@ -41,29 +58,40 @@ class MapViewCreator {
         ImageView mapBackground = new ImageView();
         map.getChildren().add(mapBackground);
 
-        setAllRoutes(map, gameState, claimRouteHP, cardChooser);
+        //The groups of the routes follow the background, in the order of the routes of the map
+        for (Route route : ChMap.routes()) {
+            Group routeGroup = new Group();
+
+            //Set Id, color and level to a route's group style class
+            routeGroup.setId(route.id());
+            String routeColor = (route.color() == null) ? GuiUtils.NEUTRAL : route.color().name();
+            routeGroup.getStyleClass().addAll(routeString, route.level().name(), routeColor);
+
+            //Adds the route group to the map
+            map.getChildren().add(routeGroup);
+            //
+            setAllBlocksOfARoute(route, routeGroup);
+        }
 
         return map;
     }
 
     /**
-     * Sets the graphics and interactive properties for all the routes in the game, claimed and unclaimed
+     * Sets the interactive properties for all the routes of a map view built by buildMapView, claimed and unclaimed.
+     * Must be called on the JavaFX thread.
      *
      * @param map          : the map pane
      * @param gameState    : observable game state which allows the graphics to change according to the game's actual state
      * @param claimRouteHP : property containing the event handler when a player wants to claim a route
      * @param cardChooser  : an instance of the functional interface CardChooser used to choose some cards
      */
-    private static void setAllRoutes(Pane map, ObservableGameState gameState, ObjectProperty<ClaimRouteHandler> claimRouteHP, CardChooser cardChooser) {
-        final String routeString = "route";
-
-        for (Route route : ChMap.routes()) {
-            Group routeGroup = new Group();
+    static void bindMapView(Pane map, ObservableGameState gameState, ObjectProperty<ClaimRouteHandler> claimRouteHP, CardChooser cardChooser) {
+        final String plannedString = "planned";
+        List<Route> routes = ChMap.routes();
 
-            //Set Id, color and level to a route's group style class
-            routeGroup.setId(route.id());
-            String routeColor = (route.color() == null) ? GuiUtils.NEUTRAL : route.color().name();
-            routeGroup.getStyleClass().addAll(routeString, route.level().name(), routeColor);
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            Node routeGroup = map.getChildren().get(i + 1);
 
             //When a route is clicked on, checks the cards a player could use to claim this route.
             //If he can play multiple sorted bag of cards, asks the player which one he wants to use.
@@ -81,17 +109,37 @@ class MapViewCreator {
                 }
             }));
 
-            //When a route is claimed, adds the Id of the player who claimed it to the routeGroup's style class
-            gameState.getPlayerIdClaimingRoute(route).addListener((property, oldValue, newValue) -> routeGroup.getStyleClass().add(newValue.name()));
+            //When a route is claimed, adds the Id of the player who claimed it to the routeGroup's style class,
+            //including if it was claimed before the map was bound, and removes it if a replay goes back before the claim
+            ReadOnlyObjectProperty<PlayerId> owner = gameState.getPlayerIdClaimingRoute(route);
+            if (owner.get() != null) {
+                routeGroup.getStyleClass().add(owner.get().name());
+            }
+            owner.addListener((property, oldValue, newValue) -> {
+                if (oldValue != null) {
+                    routeGroup.getStyleClass().remove(oldValue.name());
+                }
+                if (newValue != null) {
+                    routeGroup.getStyleClass().add(newValue.name());
+                }
+            });
+
+            //Highlights the route while it is on the cheapest path completing one of the tickets of the player
+            ReadOnlyBooleanProperty planned = gameState.planned(route);
+            if (planned.get()) {
+                routeGroup.getStyleClass().add(plannedString);
+            }
+            planned.addListener((property, oldValue, newValue) -> {
+                if (newValue) {
+                    routeGroup.getStyleClass().add(plannedString);
+                } else {
+                    routeGroup.getStyleClass().remove(plannedString);
+                }
+            });
 
             //If the route isn't claimable or if the handler is null, deactivates the routeGroup
             routeGroup.disableProperty().bind(
                     claimRouteHP.isNull().or(gameState.claimable(route).not()));
-
-            //Adds the route group to the map
-            map.getChildren().add(routeGroup);
-            //
-            setAllBlocksOfARoute(route, routeGroup);
         }
     }
 
@@ -0,0 +1,182 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.PlayerId;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * History of the messages of a game, kept in a ring buffer of fixed capacity: once it is full, each new message
+ * replaces the oldest one, so that the memory it takes doesn't grow however long the game lasts.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class MessageLog {
+    private final Entry[] entries;
+    //Index of the oldest entry, and number of entries
+    private int first = 0;
+    private int size = 0;
+
+    /**
+     * Constructs an empty log
+     *
+     * @param capacity : the number of messages the log keeps
+     * @throws IllegalArgumentException if the capacity isn't positive
+     */
+    MessageLog(int capacity) {
+        Preconditions.checkArgument(capacity > 0);
+        this.entries = new Entry[capacity];
+    }
+
+    /**
+     * Adds a message after the others, replacing the oldest one if the log is full
+     *
+     * @param message : the message
+     * @param player  : the player the message is about, or null if it isn't about a single player
+     * @return the replaced entry, or null if the log wasn't full
+     */
+    Entry add(String message, PlayerId player) {
+        return add(new Entry(message, player));
+    }
+
+    /**
+     * Adds an entry after the others, replacing the oldest one if the log is full
+     *
+     * @param entry : the entry
+     * @return the replaced entry, or null if the log wasn't full
+     */
+    Entry add(Entry entry) {
+        Objects.requireNonNull(entry);
+        if (size < entries.length) {
+            entries[(first + size) % entries.length] = entry;
+            size++;
+            return null;
+        }
+        Entry oldest = entries[first];
+        entries[first] = entry;
+        first = (first + 1) % entries.length;
+        return oldest;
+    }
+
+    /**
+     * Removes the newest entries of the log
+     *
+     * @param count : the number of entries to remove
+     * @throws IllegalArgumentException if the count is negative or greater than the number of entries
+     */
+    void removeLast(int count) {
+        Preconditions.checkArgument(count >= 0 && count <= size);
+        for (int i = 0; i < count; i++) {
+            size--;
+            entries[(first + size) % entries.length] = null;
+        }
+    }
+
+    /**
+     * Getter for an entry of the log
+     *
+     * @param index : the index of the entry, 0 being the oldest one
+     * @return the entry
+     * @throws IndexOutOfBoundsException if the index isn't between 0 (included) and the size (excluded)
+     */
+    Entry get(int index) {
+        Objects.checkIndex(index, size);
+        return entries[(first + index) % entries.length];
+    }
+
+    /**
+     * Getter for the number of messages in the log
+     *
+     * @return the number of messages
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Getter for the number of messages the log keeps
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Finds the player a message is about: the player whose name starts the message, the longest name winning if
+     * several do
+     *
+     * @param message     : the message
+     * @param playerNames : the names of the players
+     * @return the player the message is about, or null if there is none
+     */
+    static PlayerId playerOf(String message, Map<PlayerId, String> playerNames) {
+        PlayerId player = null;
+        int length = 0;
+        for (Map.Entry<PlayerId, String> name : playerNames.entrySet()) {
+            if (name.getValue().length() > length && message.startsWith(name.getValue())) {
+                player = name.getKey();
+                length = name.getValue().length();
+            }
+        }
+        return player;
+    }
+
+    /**
+     * Creates the filter of the entries containing the given text (whatever the case) and about the given player
+     *
+     * @param text   : the text to search, empty to keep all the entries
+     * @param player : the player, or null to keep the entries about any player
+     * @return the filter of the entries
+     */
+    static Predicate<Entry> filter(String text, PlayerId player) {
+        String lowerCaseText = text.toLowerCase(Locale.ROOT);
+        return entry -> (player == null || entry.player() == player)
+                && (lowerCaseText.isEmpty() || entry.message().toLowerCase(Locale.ROOT).contains(lowerCaseText));
+    }
+
+    /**
+     * Entry of the log: a message and the player it is about
+     */
+    static final class Entry {
+        private final String message;
+        private final PlayerId player;
+
+        /**
+         * Constructs an entry
+         *
+         * @param message : the message
+         * @param player  : the player the message is about, or null if it isn't about a single player
+         */
+        Entry(String message, PlayerId player) {
+            this.message = Objects.requireNonNull(message);
+            this.player = player;
+        }
+
+        /**
+         * Getter for the message
+         *
+         * @return the message
+         */
+        String message() {
+            return message;
+        }
+
+        /**
+         * Getter for the player the message is about
+         *
+         * @return the player, or null if the message isn't about a single player
+         */
+        PlayerId player() {
+            return player;
+        }
+
+        @Override
+        public String toString() {
+            return message;
+        }
+    }
+}
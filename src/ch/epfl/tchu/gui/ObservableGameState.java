@@ -8,7 +8,6 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Represents the observable state of a game of tCHu
@@ -17,13 +16,16 @@ import java.util.stream.Collectors;
  * @author Anne-Marie Rusu (296098)
  */
 public final class ObservableGameState {
+    private static final DenseIndex<Route> ROUTES = ChMap.routeIndex();
+
     private final PlayerId playerId;
 
     //Group 1 : PublicGameState
     private final IntegerProperty ticketsPercentageLeft = new SimpleIntegerProperty(0);
     private final IntegerProperty cardsPercentageLeft = new SimpleIntegerProperty(0);
     private final List<ObjectProperty<Card>> faceUpCards = new ArrayList<>();
-    private final Map<Route, ObjectProperty<PlayerId>> allRoutesContainedByWhom = new HashMap<>();
+    //The properties of the routes are indexed by the dense id of their route
+    private final List<ObjectProperty<PlayerId>> allRoutesContainedByWhom = new ArrayList<>(ROUTES.size());
 
     //Group 2 : Both Player's Public Player States
     private final Map<PlayerId, IntegerProperty> ticketCount = new HashMap<>();
@@ -34,7 +36,11 @@ public final class ObservableGameState {
     //Group 3 : Complete Player State of this Player
     private final ObservableList<Ticket> allPlayerTickets = FXCollections.observableArrayList();
     private final Map<Card, IntegerProperty> numberOfEachCard = new HashMap<>();
-    private final Map<Route, BooleanProperty> canPlayerClaimRoute = new HashMap<>();
+    private final List<BooleanProperty> canPlayerClaimRoute = new ArrayList<>(ROUTES.size());
+    private final Map<Route, ReadOnlyBooleanProperty> canPlayerClaimRouteView;
+    //Whether each route is on the cheapest path completing one of the tickets of the player (see RoutePlanner)
+    private final List<BooleanProperty> plannedRoutes = new ArrayList<>(ROUTES.size());
+    private final RoutePlanner routePlanner;
     
     //Other variables for accessing information contained in the ObservableGameState
     private final Set<List<Station>> allPairsOfStationsClaimed = new HashSet<>();
@@ -57,8 +63,11 @@ public final class ObservableGameState {
 
         setNumberOfEachCard();
         createRoutesClaimedOrNot();
+        this.canPlayerClaimRouteView = createCanPlayerClaimRouteView();
+        ROUTES.values().forEach(route -> plannedRoutes.add(new SimpleBooleanProperty(false)));
 
         this.playerId = playerId;
+        this.routePlanner = new RoutePlanner(playerId);
     }
 
     /**
@@ -72,7 +81,7 @@ public final class ObservableGameState {
 
     private void createRoutes() {
 
-        ChMap.routes().forEach(route -> allRoutesContainedByWhom.put(route, new SimpleObjectProperty<>(null)));
+        ROUTES.values().forEach(route -> allRoutesContainedByWhom.add(new SimpleObjectProperty<>(null)));
     }
 
     private void createEmptyMap(Map<PlayerId, IntegerProperty> currentMap) {
@@ -86,87 +95,230 @@ public final class ObservableGameState {
     
     private void createRoutesClaimedOrNot() {
 
-        ChMap.routes().forEach(route -> canPlayerClaimRoute.put(route, new SimpleBooleanProperty(false)));
+        ROUTES.values().forEach(route -> canPlayerClaimRoute.add(new SimpleBooleanProperty(false)));
+    }
+
+    private Map<Route, ReadOnlyBooleanProperty> createCanPlayerClaimRouteView() {
+        Map<Route, ReadOnlyBooleanProperty> view = new LinkedHashMap<>();
+        for (int id = 0; id < ROUTES.size(); id++) {
+            view.put(ROUTES.valueOf(id), canPlayerClaimRoute.get(id));
+        }
+        return Collections.unmodifiableMap(view);
     }
 
 
     /**
      * Sets the state of the observable game state. Uses the auxiliary methods down below to set each of the properties
      * contained in this ObservableGameState to the values contained in the publicGameState and playerState passed as arguments.
+     * The new states are compared to the previous ones, so that only the properties whose value changed are set, and the
+     * parts of the states that didn't change aren't even looked at. The states usually follow each other, but any state
+     * of the same game can be set, earlier ones included (as when a replay seeks back in time).
      *
      * @param publicGameState : the public game state at this point in the game
      * @param playerState : the player state of the player the observable game state belongs to
+     * @return the number of properties whose value changed (the list of tickets counting as a single property)
      */
-    public void setState(PublicGameState publicGameState, PlayerState playerState) {
+    public int setState(PublicGameState publicGameState, PlayerState playerState) {
         Preconditions.checkArgument(publicGameState != null);
         Preconditions.checkArgument(playerState != null);
 
         final int percentageConvert = 100;
+        int changed = 0;
 
-        ticketsPercentageLeft.set((publicGameState.ticketsCount() * percentageConvert / ChMap.tickets().size()));
-        cardsPercentageLeft.set((publicGameState.cardState().deckSize() * percentageConvert / Constants.TOTAL_CARDS_COUNT));
-        setFaceUpCards(publicGameState.cardState().faceUpCards());
-        setRoutesPlayerId(publicGameState);
+        changed += setIfChanged(ticketsPercentageLeft, publicGameState.ticketsCount() * percentageConvert / ChMap.tickets().size());
+        changed += setIfChanged(cardsPercentageLeft, publicGameState.cardState().deckSize() * percentageConvert / Constants.TOTAL_CARDS_COUNT);
+        changed += setFaceUpCards(publicGameState.cardState().faceUpCards());
+        changed += setRoutesPlayerId(publicGameState);
 
-        setEachPlayerCountAttributesCount(publicGameState);
+        changed += setEachPlayerCountAttributesCount(publicGameState);
 
-        setPlayerTickets(playerState);
-        setPlayerCards(playerState);
-        setPlayerCanClaimRouteOrNot(publicGameState, playerState);
+        changed += setPlayerTickets(playerState);
+        changed += setPlayerCards(playerState);
+        changed += setPlayerCanClaimRouteOrNot(publicGameState, playerState);
+        changed += setPlannedRoutes(publicGameState, playerState);
 
         this.publicGameState = publicGameState;
         this.playerState = playerState;
+        return changed;
+    }
+
+    private static int setIfChanged(IntegerProperty property, int value) {
+        if (property.get() == value) {
+            return 0;
+        }
+        property.set(value);
+        return 1;
+    }
+
+    private static int setIfChanged(BooleanProperty property, boolean value) {
+        if (property.get() == value) {
+            return 0;
+        }
+        property.set(value);
+        return 1;
+    }
+
+    private static <T> int setIfChanged(ObjectProperty<T> property, T value) {
+        if (Objects.equals(property.get(), value)) {
+            return 0;
+        }
+        property.set(value);
+        return 1;
     }
+
     //Group 1
-    private void setFaceUpCards(List<Card> newFaceUpCards) {
+    private int setFaceUpCards(List<Card> newFaceUpCards) {
+        int changed = 0;
         for (int slot : Constants.FACE_UP_CARD_SLOTS) {
-            Card newCard = newFaceUpCards.get(slot);
-            faceUpCards.get(slot).set(newCard);
+            changed += setIfChanged(faceUpCards.get(slot), newFaceUpCards.get(slot));
         }
+        return changed;
     }
 
-    private void setRoutesPlayerId(PublicGameState newPublicGameState) {
+    private int setRoutesPlayerId(PublicGameState newPublicGameState) {
+        if (publicGameState != null && lostRoutes(newPublicGameState)) {
+            return resetRoutesPlayerId(newPublicGameState);
+        }
+        int changed = 0;
 
-        ChMap.routes().forEach(route -> PlayerId.ALL.forEach(playerId -> {
-            if (newPublicGameState.playerState(playerId).routes().contains(route)) {
-                allRoutesContainedByWhom.get(route).set(playerId);
+        for (PlayerId owner : PlayerId.ALL) {
+            List<Route> routes = newPublicGameState.playerState(owner).routes();
+            //The routes of a player can only be added to, so they are unchanged if their number is
+            if (publicGameState != null && publicGameState.playerState(owner).routes().size() == routes.size()) {
+                continue;
+            }
+            for (Route route : routes) {
+                int routeChanged = setIfChanged(allRoutesContainedByWhom.get(ROUTES.idOf(route)), owner);
+                if (routeChanged != 0) {
+                    routePlanner.claim(route, owner);
+                }
+                changed += routeChanged;
                 allPairsOfStationsClaimed.add(route.stations());
             }
-        }));
+        }
+        return changed;
     }
-    //Group 2
 
-    private void setEachPlayerCountAttributesCount(PublicGameState publicGameState) {
+    //A player only loses routes when a replay goes back in time (see ReplayViewer)
+    private boolean lostRoutes(PublicGameState newPublicGameState) {
+        for (PlayerId owner : PlayerId.ALL) {
+            if (newPublicGameState.playerState(owner).routes().size() < publicGameState.playerState(owner).routes().size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int resetRoutesPlayerId(PublicGameState newPublicGameState) {
+        PlayerId[] owners = new PlayerId[ROUTES.size()];
+        allPairsOfStationsClaimed.clear();
+        for (PlayerId owner : PlayerId.ALL) {
+            for (Route route : newPublicGameState.playerState(owner).routes()) {
+                owners[ROUTES.idOf(route)] = owner;
+                allPairsOfStationsClaimed.add(route.stations());
+            }
+        }
+        routePlanner.reset(owners);
+        int changed = 0;
+        for (int id = 0; id < ROUTES.size(); id++) {
+            changed += setIfChanged(allRoutesContainedByWhom.get(id), owners[id]);
+        }
+        return changed;
+    }
+    //Group 2
 
-        PlayerId.ALL.forEach(playerId -> {
-            ticketCount.get(playerId).set(publicGameState.playerState(playerId).ticketCount());
-            cardCount.get(playerId).set(publicGameState.playerState(playerId).cardCount());
-            carCount.get(playerId).set(publicGameState.playerState(playerId).carCount());
-            constructionPoints.get(playerId).set(publicGameState.playerState(playerId).claimPoints());
+    private int setEachPlayerCountAttributesCount(PublicGameState publicGameState) {
+        int changed = 0;
 
-        });
+        for (PlayerId id : PlayerId.ALL) {
+            PublicPlayerState publicPlayerState = publicGameState.playerState(id);
+            changed += setIfChanged(ticketCount.get(id), publicPlayerState.ticketCount());
+            changed += setIfChanged(cardCount.get(id), publicPlayerState.cardCount());
+            changed += setIfChanged(carCount.get(id), publicPlayerState.carCount());
+            changed += setIfChanged(constructionPoints.get(id), publicPlayerState.claimPoints());
+        }
+        return changed;
     }
 
     //Group 3
-    private void setPlayerTickets(PlayerState playerState) {
-        allPlayerTickets.addAll(playerState
-                .tickets()
-                .stream()
-                .filter(ticket -> !allPlayerTickets.contains(ticket))
-                .collect(Collectors.toList()));
+    private int setPlayerTickets(PlayerState newPlayerState) {
+        SortedBag<Ticket> tickets = playerState == null ? SortedBag.of() : playerState.tickets();
+        //The tickets of a player can only be added to, so they are unchanged if their number is
+        if (tickets.size() == newPlayerState.ticketCount()) {
+            return 0;
+        }
+        //A player only loses tickets when a replay goes back in time (see ReplayViewer). The same ticket can be held
+        //twice, so the tickets lost or added are counted.
+        if (newPlayerState.ticketCount() < tickets.size()) {
+            Map<Ticket, Integer> lostTickets = new TreeMap<>(tickets.difference(newPlayerState.tickets()).toMap());
+            List<Ticket> keptTickets = new ArrayList<>();
+            for (Ticket ticket : allPlayerTickets) {
+                if (lostTickets.getOrDefault(ticket, 0) > 0) {
+                    lostTickets.merge(ticket, -1, Integer::sum);
+                } else {
+                    keptTickets.add(ticket);
+                }
+            }
+            allPlayerTickets.setAll(keptTickets);
+        } else {
+            allPlayerTickets.addAll(newPlayerState.tickets().difference(tickets).toList());
+        }
+        return 1;
+    }
+
+    private int setPlayerCards(PlayerState newPlayerState) {
+        int changed = 0;
+        for (Card card : Card.ALL) {
+            changed += setIfChanged(numberOfEachCard.get(card), newPlayerState.cards().countOf(card));
+        }
+        return changed;
+    }
+
+    private int setPlayerCanClaimRouteOrNot(PublicGameState newPublicGameState, PlayerState newPlayerState) {
+        //Whether a route can be claimed only depends on the current player, on the cards and cars of the player
+        //and on the routes claimed so far
+        if (publicGameState != null
+                && publicGameState.currentPlayerId() == newPublicGameState.currentPlayerId()
+                && playerState.carCount() == newPlayerState.carCount()
+                && playerState.cards().equals(newPlayerState.cards())
+                && claimedRouteCount(publicGameState) == claimedRouteCount(newPublicGameState)) {
+            return 0;
+        }
+        boolean isCurrentPlayer = newPublicGameState.currentPlayerId() == playerId;
+        int changed = 0;
+
+        for (int id = 0; id < ROUTES.size(); id++) {
+            Route route = ROUTES.valueOf(id);
+            changed += setIfChanged(canPlayerClaimRoute.get(id), isCurrentPlayer
+                    && allRoutesContainedByWhom.get(id).get() == null
+                    && !allPairsOfStationsClaimed.contains(route.stations())
+                    && newPlayerState.canClaimRoute(route));
+        }
+        return changed;
     }
 
-    private void setPlayerCards(PlayerState playerState) {
+    private int setPlannedRoutes(PublicGameState newPublicGameState, PlayerState newPlayerState) {
+        //The planned routes only depend on the routes claimed so far and on the tickets of the player
+        if (publicGameState != null
+                && playerState.ticketCount() == newPlayerState.ticketCount()
+                && claimedRouteCount(publicGameState) == claimedRouteCount(newPublicGameState)) {
+            return 0;
+        }
+        BitSet planned = routePlanner.plan(newPlayerState.tickets().toList());
+        int changed = 0;
 
-        Card.ALL.forEach(card -> numberOfEachCard.get(card).set(playerState.cards().countOf(card)));
+        for (int id = 0; id < ROUTES.size(); id++) {
+            changed += setIfChanged(plannedRoutes.get(id), planned.get(id));
+        }
+        return changed;
     }
 
-    private void setPlayerCanClaimRouteOrNot(PublicGameState publicGameState, PlayerState playerState) {
-        canPlayerClaimRoute.forEach((route, booleanObjectProperty) -> booleanObjectProperty.set(
-                publicGameState.currentPlayerId().equals(playerId)
-                        && playerState.canClaimRoute(route)
-                        && !publicGameState.claimedRoutes().contains(route)
-                        && !allPairsOfStationsClaimed.contains(route.stations())));
+    private static int claimedRouteCount(PublicGameState publicGameState) {
+        int count = 0;
+        for (PlayerId id : PlayerId.ALL) {
+            count += publicGameState.playerState(id).routes().size();
+        }
+        return count;
     }
 
     /**
@@ -204,7 +356,7 @@ public final class ObservableGameState {
      * @return the playerId property of the player who has claimed the given route
      */
     public ReadOnlyObjectProperty<PlayerId> getPlayerIdClaimingRoute(Route route) {
-        return allRoutesContainedByWhom.get(route);
+        return allRoutesContainedByWhom.get(ROUTES.idOf(route));
     }
 
     /**
@@ -262,13 +414,13 @@ public final class ObservableGameState {
     }
 
     /**
-     * Getter for the boolean property corresponding to if the route can be claimed by the player
+     * Getter for the boolean properties corresponding to if the routes can be claimed by the player, for the consumers
+     * needing all of them: a single route is better looked up with claimable(route)
      *
-     * @return a map containing the routes and their boolean properties
+     * @return a read-only view of the routes and their boolean properties, ordered like the routes of the map
      */
     public Map<Route, ReadOnlyBooleanProperty> getCanPlayerClaimRoute() {
-
-        return new HashMap<>(canPlayerClaimRoute);
+        return canPlayerClaimRouteView;
     }
 
     /**
@@ -278,7 +430,18 @@ public final class ObservableGameState {
      * @return a true property if the route can be claimed, a false property otherwise
      */
     public ReadOnlyBooleanProperty claimable(Route route) {
-        return getCanPlayerClaimRoute().get(route);
+        return canPlayerClaimRoute.get(ROUTES.idOf(route));
+    }
+
+    /**
+     * Determines if the given route is planned, i.e. on the cheapest path still available completing one of the
+     * tickets of the player, given the routes they already claimed (see RoutePlanner)
+     *
+     * @param route : the route
+     * @return a true property if the route is planned, a false property otherwise
+     */
+    public ReadOnlyBooleanProperty planned(Route route) {
+        return plannedRoutes.get(ROUTES.idOf(route));
     }
 
     //Methods that call the respective method (with the same name) on the publicGameState or playerState contained in this ObservableGameState
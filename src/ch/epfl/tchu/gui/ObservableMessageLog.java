@@ -0,0 +1,96 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.PlayerId;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Observable list of the entries of a MessageLog, to be displayed in a ListView: it notifies the addition of each
+ * message and the removal of the message it replaces, without copying the log.
+ * Must only be used on the JavaFX thread.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class ObservableMessageLog extends ObservableListBase<MessageLog.Entry> {
+    private final MessageLog log;
+
+    /**
+     * Constructs an empty observable log
+     *
+     * @param capacity : the number of messages the log keeps
+     * @throws IllegalArgumentException if the capacity isn't positive
+     */
+    ObservableMessageLog(int capacity) {
+        this.log = new MessageLog(capacity);
+    }
+
+    /**
+     * Adds a message after the others, replacing the oldest one if the log is full
+     *
+     * @param message : the message
+     * @param player  : the player the message is about, or null if it isn't about a single player
+     */
+    void addMessage(String message, PlayerId player) {
+        beginChange();
+        MessageLog.Entry replaced = log.add(message, player);
+        if (replaced != null) {
+            nextRemove(0, replaced);
+        }
+        nextAdd(log.size() - 1, log.size());
+        endChange();
+    }
+
+    /**
+     * Adds entries after the others, replacing the oldest ones if the log gets full, as a single change
+     *
+     * @param entries : the entries, in order
+     */
+    void addEntries(List<MessageLog.Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        beginChange();
+        for (MessageLog.Entry entry : entries) {
+            MessageLog.Entry replaced = log.add(entry);
+            if (replaced != null) {
+                nextRemove(0, replaced);
+            }
+            nextAdd(log.size() - 1, log.size());
+        }
+        endChange();
+    }
+
+    /**
+     * Removes the newest messages, as a single change
+     *
+     * @param count : the number of messages to remove
+     * @throws IllegalArgumentException if the count is negative or greater than the number of messages
+     */
+    void removeLastMessages(int count) {
+        Preconditions.checkArgument(count >= 0 && count <= log.size());
+        if (count == 0) {
+            return;
+        }
+        List<MessageLog.Entry> removed = new ArrayList<>(count);
+        for (int i = log.size() - count; i < log.size(); i++) {
+            removed.add(log.get(i));
+        }
+        beginChange();
+        log.removeLast(count);
+        nextRemove(log.size(), removed);
+        endChange();
+    }
+
+    @Override
+    public MessageLog.Entry get(int index) {
+        return log.get(index);
+    }
+
+    @Override
+    public int size() {
+        return log.size();
+    }
+}
@@ -0,0 +1,162 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.net.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the rendering of the graphical interface: the duration of the pulses of JavaFX, the time taken to apply each
+ * state of the game, the number of properties each state changes and the number of nodes of the scene. The values are
+ * kept in histograms, so that recording one doesn't allocate anything whatever the length of the game. It is only
+ * used on the JavaFX thread.
+ *
+ * The rendering is only measured if the system property tchu.metrics is log (the percentiles are logged at the end of
+ * the game) or overlay (the last values are also displayed over the game meanwhile).
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class RenderingMetrics {
+    /**
+     * Name of the system property enabling the measure of the rendering
+     */
+    static final String PROPERTY = "tchu.metrics";
+    /**
+     * Value of the system property logging the measures at the end of the game
+     */
+    static final String LOG = "log";
+    /**
+     * Value of the system property logging the measures and displaying them over the game
+     */
+    static final String OVERLAY = "overlay";
+
+    private static final double[] PERCENTILES = {50, 90, 99, 100};
+
+    private final LatencyHistogram pulses = new LatencyHistogram();
+    private final LatencyHistogram updates = new LatencyHistogram();
+    //The histograms only hold numbers: counts are recorded as they are, with the same relative precision
+    private final LatencyHistogram changedProperties = new LatencyHistogram();
+    private final LatencyHistogram nodeCounts = new LatencyHistogram();
+
+    private long lastPulseNanos;
+    private long lastUpdateNanos;
+    private int lastChangedProperties;
+    private int lastNodeCount;
+
+    /**
+     * Determines whether the system property asks for the measures to be logged, which they also are when displayed
+     *
+     * @return true if the system property is log or overlay
+     */
+    static boolean loggedBySystemProperty() {
+        String value = systemProperty();
+        return LOG.equals(value) || OVERLAY.equals(value);
+    }
+
+    /**
+     * Determines whether the system property asks for the measures to be displayed over the game
+     *
+     * @return true if the system property is overlay
+     */
+    static boolean overlaidBySystemProperty() {
+        return OVERLAY.equals(systemProperty());
+    }
+
+    private static String systemProperty() {
+        try {
+            return System.getProperty(PROPERTY);
+        } catch (SecurityException denied) {
+            return null;
+        }
+    }
+
+    /**
+     * Records the duration of a pulse
+     *
+     * @param nanos : the duration of the pulse, in nanoseconds
+     */
+    void recordPulse(long nanos) {
+        pulses.record(nanos);
+        lastPulseNanos = nanos;
+    }
+
+    /**
+     * Records the application of a state of the game to the interface
+     *
+     * @param nanos             : the time taken to apply the state, in nanoseconds
+     * @param changedProperties : the number of properties the state changed
+     */
+    void recordUpdate(long nanos, int changedProperties) {
+        updates.record(nanos);
+        this.changedProperties.record(changedProperties);
+        lastUpdateNanos = nanos;
+        lastChangedProperties = changedProperties;
+    }
+
+    /**
+     * Records the number of nodes of the scene
+     *
+     * @param nodeCount : the number of nodes
+     */
+    void recordNodeCount(int nodeCount) {
+        nodeCounts.record(nodeCount);
+        lastNodeCount = nodeCount;
+    }
+
+    /**
+     * Getter for the number of recorded pulses
+     *
+     * @return the number of pulses
+     */
+    long pulseCount() {
+        return pulses.count();
+    }
+
+    /**
+     * Getter for the number of recorded updates
+     *
+     * @return the number of updates
+     */
+    long updateCount() {
+        return updates.count();
+    }
+
+    /**
+     * Describes the last recorded values, to be displayed over the game
+     *
+     * @return the last values, on one line each
+     */
+    String lastValues() {
+        return String.format("pulse %.2f ms (p99 %.2f ms)%nsetState %.2f ms, %d properties%n%d nodes",
+                millis(lastPulseNanos), millis(pulses.percentile(99)),
+                millis(lastUpdateNanos), lastChangedProperties,
+                lastNodeCount);
+    }
+
+    /**
+     * Describes the percentiles of all the recorded values
+     *
+     * @return the number of values and their percentiles (50th, 90th, 99th and maximum), on one line per kind of value
+     */
+    String summary() {
+        return String.join(String.format("%n"),
+                line("pulses", pulses, true),
+                line("setState", updates, true),
+                line("changed properties per update", changedProperties, false),
+                line("nodes", nodeCounts, false));
+    }
+
+    private static String line(String name, LatencyHistogram histogram, boolean durations) {
+        StringBuilder line = new StringBuilder(name).append(durations ? " (ms, " : " (")
+                .append(histogram.count()).append("):");
+        for (double percentile : PERCENTILES) {
+            long value = histogram.percentile(percentile);
+            line.append(String.format(" p%.0f=", percentile))
+                    .append(durations ? String.format("%.2f", millis(value)) : Long.toString(value));
+        }
+        return line.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
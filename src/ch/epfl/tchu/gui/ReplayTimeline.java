@@ -0,0 +1,154 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.*;
+
+/**
+ * Timeline of a recorded game as seen by one of its players, to be played back by ReplayViewer. The game is played
+ * again once, when the timeline is built, and each of its states is kept: the states of the game being immutable and
+ * sharing what doesn't change between them, every step of the timeline is a snapshot from which the game can be
+ * displayed right away, whatever the step displayed before.
+ *
+ * The step i of the timeline is the i-th state of the game, along with the messages received until the next state.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class ReplayTimeline {
+    private final PlayerId playerId;
+    private final Map<PlayerId, String> playerNames;
+    private final List<PublicGameState> states = new ArrayList<>();
+    private final List<PlayerState> playerStates = new ArrayList<>();
+    //Number of messages received until the end of each step, the first step including the messages preceding it
+    private final List<Integer> messageCounts = new ArrayList<>();
+    private final List<MessageLog.Entry> messages = new ArrayList<>();
+    private final boolean complete;
+
+    /**
+     * Builds the timeline of the given recorded game, as seen by the given player
+     *
+     * @param record   : the recorded game
+     * @param playerId : the player whose view is played back
+     * @throws IllegalArgumentException if the record ends before the first state of the game
+     */
+    ReplayTimeline(GameRecord record, PlayerId playerId) {
+        this.playerId = Objects.requireNonNull(playerId);
+        this.playerNames = record.playerNames();
+        this.complete = record.replay(Map.of(playerId, new TimelineSpectator()));
+        Preconditions.checkArgument(!states.isEmpty());
+
+        //The last step ends with the game
+        messageCounts.add(messages.size());
+    }
+
+    /**
+     * Getter for the player whose view is played back
+     *
+     * @return the id of the player
+     */
+    PlayerId playerId() {
+        return playerId;
+    }
+
+    /**
+     * Getter for the names of the players
+     *
+     * @return the names of the players
+     */
+    Map<PlayerId, String> playerNames() {
+        return playerNames;
+    }
+
+    /**
+     * Getter for the number of steps of the timeline
+     *
+     * @return the number of steps, at least 1
+     */
+    int size() {
+        return states.size();
+    }
+
+    /**
+     * Tells if the timeline goes to the end of the game
+     *
+     * @return true if the game was recorded until its end, false if it was interrupted
+     */
+    boolean complete() {
+        return complete;
+    }
+
+    /**
+     * Getter for the state of the game at a step
+     *
+     * @param step : the step, between 0 (included) and the size (excluded)
+     * @return the public state of the game
+     * @throws IndexOutOfBoundsException if the step is out of the timeline
+     */
+    PublicGameState state(int step) {
+        return states.get(step);
+    }
+
+    /**
+     * Getter for the state of the player at a step
+     *
+     * @param step : the step, between 0 (included) and the size (excluded)
+     * @return the state of the player whose view is played back
+     * @throws IndexOutOfBoundsException if the step is out of the timeline
+     */
+    PlayerState playerState(int step) {
+        return playerStates.get(step);
+    }
+
+    /**
+     * Getter for the number of messages received at a step
+     *
+     * @param step : the step, between 0 (included) and the size (excluded)
+     * @return the number of messages received since the start of the game, until the next step
+     * @throws IndexOutOfBoundsException if the step is out of the timeline
+     */
+    int messageCount(int step) {
+        return messageCounts.get(step);
+    }
+
+    /**
+     * Getter for a range of the messages of the game
+     *
+     * @param from : the index of the first message (included)
+     * @param to   : the index of the last message (excluded)
+     * @return the messages, in the order they were received
+     * @throws IndexOutOfBoundsException if the range isn't within the messages
+     */
+    List<MessageLog.Entry> messages(int from, int to) {
+        return Collections.unmodifiableList(messages.subList(from, to));
+    }
+
+    /**
+     * Receives what the player received during the game
+     */
+    private final class TimelineSpectator implements GameRecord.Spectator {
+        @Override
+        public void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames) {
+        }
+
+        @Override
+        public void receiveInfo(String info) {
+            messages.add(new MessageLog.Entry(info, MessageLog.playerOf(info.strip(), playerNames)));
+        }
+
+        @Override
+        public void updateState(PublicGameState newState, PlayerState ownState) {
+            //A new state ends the previous step, the messages received since the previous state belonging to it
+            if (!states.isEmpty()) {
+                messageCounts.add(messages.size());
+            }
+            states.add(newState);
+            playerStates.add(ownState);
+        }
+
+        @Override
+        public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        }
+    }
+}
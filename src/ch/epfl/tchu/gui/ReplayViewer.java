@@ -0,0 +1,159 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.game.GameRecord;
+import ch.epfl.tchu.game.GameRecorder;
+import ch.epfl.tchu.game.PlayerId;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Slider;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.text.Text;
+import javafx.stage.Stage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static javafx.application.Platform.isFxApplicationThread;
+
+/**
+ * Window playing a recorded game (see GameRecorder) back, as seen by one of its players: the views of the game are the
+ * ones of GraphicalPlayer, with the actions disabled, and a slider seeks to any state of the game.
+ *
+ * Seeking doesn't play the game again: the state of the game is set from the snapshot of the timeline, which only
+ * changes the properties differing from the state displayed before, and only the messages received between the two
+ * states are added to (or removed from) the history.
+ *
+ * The client opens a record instead of joining a game if the system property tchu.replay gives the record.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class ReplayViewer {
+    /**
+     * Name of the system property giving the record to play back
+     */
+    static final String PROPERTY = "tchu.replay";
+
+    private final ReplayTimeline timeline;
+    private final ObservableGameState gameState;
+    private final ObservableMessageLog messages = new ObservableMessageLog(GraphicalPlayer.MESSAGE_LOG_CAPACITY);
+    private final Text stepText = new Text();
+    //Displayed step, and number of messages received until then (the oldest ones possibly dropped from the history)
+    private int displayedStep = -1;
+    private int receivedMessages = 0;
+
+    /**
+     * Constructs the viewer of the given timeline
+     *
+     * @param timeline : the timeline of the recorded game
+     */
+    private ReplayViewer(ReplayTimeline timeline) {
+        this.timeline = timeline;
+        this.gameState = new ObservableGameState(timeline.playerId());
+    }
+
+    /**
+     * Opens the given record in a new window, as seen by the first player
+     *
+     * @param record : the path of the record
+     * @throws UncheckedIOException     if the record can't be read
+     * @throws IllegalArgumentException if the record is malformed, or ends before the first state of the game
+     */
+    static void open(Path record) {
+        assert isFxApplicationThread();
+
+        try (BufferedReader reader = Files.newBufferedReader(record, US_ASCII)) {
+            GameRecord gameRecord = GameRecorder.read(reader);
+            new ReplayViewer(new ReplayTimeline(gameRecord, PlayerId.PLAYER_1)).show();
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    private void show() {
+        final char dash = '—';
+        final String title = "tCHu";
+
+        Node mapView = MapViewCreator
+                .createMapView(gameState, new SimpleObjectProperty<>(null), (options, handler) -> {
+                });
+
+        Node cardsView = DecksViewCreator
+                .createCardsView(gameState, new SimpleObjectProperty<>(null), new SimpleObjectProperty<>(null));
+
+        Node handView = DecksViewCreator
+                .createHandView(gameState);
+
+        Node infoView = InfoViewCreator
+                .createInfoView(timeline.playerId(), timeline.playerNames(), gameState, messages);
+
+        BorderPane mainPane =
+                new BorderPane(mapView, createTimelineView(), cardsView, handView, infoView);
+        //Like the states of a game, the first step is only displayed once the views observe the game
+        seek(0);
+
+        Stage stage = new Stage();
+        stage.setTitle(title + dash + StringsFr.REPLAY + dash + timeline.playerNames().get(timeline.playerId()));
+        stage.setScene(new Scene(mainPane));
+        stage.show();
+    }
+
+    private Node createTimelineView() {
+        final String replayCss = "replay.css";
+
+        Slider slider = new Slider(0, timeline.size() - 1, 0);
+        slider.setBlockIncrement(1);
+        slider.valueProperty().addListener((property, oldValue, newValue) ->
+                seek((int) Math.round(newValue.doubleValue())));
+        HBox.setHgrow(slider, Priority.ALWAYS);
+
+        HBox timelineView = new HBox(slider, stepText);
+        timelineView.setId("replay-timeline");
+        timelineView.getStylesheets().add(replayCss);
+        return timelineView;
+    }
+
+    /**
+     * Displays the given step of the timeline
+     *
+     * @param step : the step
+     */
+    private void seek(int step) {
+        if (step == displayedStep) {
+            return;
+        }
+        gameState.setState(timeline.state(step), timeline.playerState(step));
+        setMessages(timeline.messageCount(step));
+        displayedStep = step;
+
+        stepText.setText(String.format(timeline.complete() ? StringsFr.REPLAY_STEP : StringsFr.REPLAY_INTERRUPTED,
+                step + 1, timeline.size()));
+    }
+
+    /**
+     * Makes the history hold the messages received until the given one, adding or removing the messages received in
+     * between if the history still holds the messages to keep, filling it again otherwise
+     *
+     * @param messageCount : the number of messages received
+     */
+    private void setMessages(int messageCount) {
+        int capacity = GraphicalPlayer.MESSAGE_LOG_CAPACITY;
+        boolean nothingDropped = receivedMessages == messages.size();
+
+        if (messageCount >= receivedMessages) {
+            messages.addEntries(timeline.messages(Math.max(receivedMessages, messageCount - capacity), messageCount));
+        } else if (nothingDropped) {
+            messages.removeLastMessages(receivedMessages - messageCount);
+        } else {
+            messages.removeLastMessages(messages.size());
+            messages.addEntries(timeline.messages(Math.max(0, messageCount - capacity), messageCount));
+        }
+        receivedMessages = messageCount;
+    }
+}
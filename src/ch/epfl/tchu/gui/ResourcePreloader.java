@@ -0,0 +1,97 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.net.Serdes;
+import javafx.scene.image.Image;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the resources of the graphical interface in the background, concurrently with the startup of JavaFX and the
+ * connection to the server: the static tables of the game and of the protocol, the image of the map and the position
+ * of its cells. A resource that is needed before it is loaded is waited for, so that preloading never changes what
+ * is loaded, only when.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class ResourcePreloader {
+    private static final String MAP_IMAGE = "map.png";
+
+    //Daemon threads, not keeping the application alive
+    private static final ExecutorService BACKGROUND = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static CompletableFuture<Void> staticTables;
+    private static CompletableFuture<MapGeometry> mapGeometry;
+    private static CompletableFuture<Image> mapImage;
+
+    private ResourcePreloader() {
+    }
+
+    /**
+     * Starts loading the resources that don't need JavaFX in the background, if they aren't loaded or being loaded
+     * yet: it can be called before JavaFX is started
+     */
+    static synchronized void start() {
+        if (staticTables != null) {
+            return;
+        }
+        staticTables = CompletableFuture.runAsync(ResourcePreloader::initializeStaticTables, BACKGROUND);
+        mapGeometry = CompletableFuture.supplyAsync(() -> MapGeometry.ofStyleSheet(ChMap.routeIndex()), BACKGROUND);
+    }
+
+    /**
+     * Starts loading all the resources in the background, including the images, if they aren't loaded or being loaded
+     * yet: it must be called once JavaFX is started
+     */
+    static synchronized void startWithImages() {
+        start();
+        if (mapImage != null) {
+            return;
+        }
+        mapImage = CompletableFuture.supplyAsync(() -> new Image(MAP_IMAGE), BACKGROUND);
+        CompletableFuture.allOf(staticTables, mapImage, mapGeometry)
+                .thenRun(() -> StartupMetrics.reached(StartupMetrics.RESOURCES_LOADED));
+    }
+
+    /**
+     * Getter for the executor of the background tasks of the startup
+     *
+     * @return the executor, whose threads are daemon threads
+     */
+    static ExecutorService background() {
+        return BACKGROUND;
+    }
+
+    /**
+     * Getter for the image of the map, waiting for it if it is being loaded
+     *
+     * @return the image of the map
+     */
+    static Image mapImage() {
+        startWithImages();
+        return mapImage.join();
+    }
+
+    /**
+     * Getter for the position of the cells of the routes of the map, waiting for it if it is being loaded
+     *
+     * @return the geometry of the map
+     */
+    static MapGeometry mapGeometry() {
+        start();
+        return mapGeometry.join();
+    }
+
+    private static void initializeStaticTables() {
+        //Reading a field initializes its class, and the tickets are only built once needed
+        Objects.requireNonNull(Serdes.PUBLIC_GAME_STATE_SERDE);
+        Objects.requireNonNull(ChMap.tickets());
+    }
+}
@@ -0,0 +1,236 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.*;
+
+import java.util.*;
+
+/**
+ * Planner of the routes completing the tickets of a player: for each ticket, the cheapest routes still available that
+ * link the stations of one of its trips, the routes of the player costing nothing. A route costs its length, i.e. the
+ * number of cars needed to claim it; among paths of the same cost, the one with the fewest routes is preferred.
+ *
+ * The cost of the cheapest path between every pair of stations of the map is computed beforehand (Floyd-Warshall), so
+ * that planning only follows the paths of the tickets, whatever the number of their trips. The table is updated as the
+ * routes are claimed: a route of the player only shortens the paths that can go through it, which takes a single pass
+ * over the pairs of stations, and a route claimed by another player only leads to computing the table again if it was
+ * the cheapest link between its two stations.
+ *
+ * The routes planned for several tickets are the union of the cheapest paths of each ticket, which may cost more than
+ * the cheapest network linking all of them (a Steiner tree, much too costly to compute while the game is displayed).
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class RoutePlanner {
+    private static final DenseIndex<Route> ROUTES = ChMap.routeIndex();
+    private static final int STATION_COUNT = ChMap.stations().size();
+    //The cost of a link counts the cars of its route, then the link itself: as a path has less links than there are
+    //stations, the cost of the links never adds up to the cost of a car
+    private static final int CAR_COST = STATION_COUNT;
+    private static final int LINK_COST = 1;
+    //Large enough not to be a cost, small enough for the sum of three costs not to overflow
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 3;
+
+    private final PlayerId playerId;
+    private final PlayerId[] owners = new PlayerId[ROUTES.size()];
+    //Routes linking each pair of stations directly, indexed by the ids of the stations
+    private final List<List<List<Route>>> routesBetween = new ArrayList<>(STATION_COUNT);
+    //Cost of the cheapest link between two stations, and its route (null if the stations aren't linked)
+    private final int[][] linkCosts = new int[STATION_COUNT][STATION_COUNT];
+    private final Route[][] links = new Route[STATION_COUNT][STATION_COUNT];
+    //Cost of the cheapest path between two stations, and the station following the first one on that path
+    private final int[][] costs = new int[STATION_COUNT][STATION_COUNT];
+    private final int[][] nextStations = new int[STATION_COUNT][STATION_COUNT];
+
+    /**
+     * Creates the planner of the given player, no route being claimed yet
+     *
+     * @param playerId : the id of the player whose tickets are planned
+     */
+    RoutePlanner(PlayerId playerId) {
+        this.playerId = Objects.requireNonNull(playerId);
+
+        for (int from = 0; from < STATION_COUNT; from++) {
+            List<List<Route>> routesFrom = new ArrayList<>(STATION_COUNT);
+            for (int to = 0; to < STATION_COUNT; to++) {
+                routesFrom.add(new ArrayList<>());
+            }
+            routesBetween.add(routesFrom);
+        }
+        for (Route route : ROUTES.values()) {
+            int station1 = route.station1().id();
+            int station2 = route.station2().id();
+            routesBetween.get(station1).get(station2).add(route);
+            routesBetween.get(station2).get(station1).add(route);
+        }
+        computeAllCosts();
+    }
+
+    /**
+     * Takes the claim of a route into account
+     *
+     * @param route : the claimed route
+     * @param owner : the player who claimed it
+     */
+    void claim(Route route, PlayerId owner) {
+        int routeId = ROUTES.idOf(route);
+        if (owners[routeId] == owner) {
+            return;
+        }
+        owners[routeId] = Objects.requireNonNull(owner);
+
+        int station1 = route.station1().id();
+        int station2 = route.station2().id();
+        int previousCost = linkCosts[station1][station2];
+        computeLink(station1, station2);
+
+        if (linkCosts[station1][station2] < previousCost) {
+            shortenPaths(station1, station2);
+        } else if (linkCosts[station1][station2] > previousCost && costs[station1][station2] == previousCost) {
+            //The link was the cheapest path between its stations, so other paths may have gone through it
+            computeAllCosts();
+        }
+    }
+
+    /**
+     * Sets the owners of all the routes at once, as when a replay goes back in time (see ReplayViewer)
+     *
+     * @param routeOwners : the owner of each route (null if it isn't claimed), indexed by the dense id of the route
+     * @throws IllegalArgumentException if there isn't an owner for each route of the map
+     */
+    void reset(PlayerId[] routeOwners) {
+        Preconditions.checkArgument(routeOwners.length == owners.length);
+
+        System.arraycopy(routeOwners, 0, owners, 0, owners.length);
+        computeAllCosts();
+    }
+
+    /**
+     * Plans the routes completing the given tickets: for each ticket which isn't completed yet, the routes of the
+     * cheapest path linking the stations of one of its trips (the trip giving the most points among the cheapest ones)
+     *
+     * @param tickets : the tickets of the player
+     * @return the dense ids of the routes to claim (see ChMap.routeIndex), none of them being claimed yet
+     */
+    BitSet plan(Collection<Ticket> tickets) {
+        BitSet plannedRoutes = new BitSet(ROUTES.size());
+
+        for (Ticket ticket : tickets) {
+            Trip cheapestTrip = null;
+            int cheapestCost = UNREACHABLE;
+            for (Trip trip : ticket.trips()) {
+                int cost = costs[trip.from().id()][trip.to().id()];
+                if (cost < cheapestCost || (cost == cheapestCost && cheapestTrip != null && trip.points() > cheapestTrip.points())) {
+                    cheapestTrip = trip;
+                    cheapestCost = cost;
+                }
+            }
+            //A ticket whose trips are all out of reach can't be completed any more, one costing no car already is
+            if (cheapestTrip != null && cheapestCost >= CAR_COST) {
+                addPath(cheapestTrip.from().id(), cheapestTrip.to().id(), plannedRoutes);
+            }
+        }
+        return plannedRoutes;
+    }
+
+    private void addPath(int from, int to, BitSet plannedRoutes) {
+        for (int station = from; station != to; station = nextStations[station][to]) {
+            int next = nextStations[station][to];
+            if (owners[ROUTES.idOf(links[station][next])] == null) {
+                plannedRoutes.set(ROUTES.idOf(links[station][next]));
+            }
+        }
+    }
+
+    /**
+     * Computes the cheapest link between two stations: a route of the player if there is one, none if another player
+     * claimed a route between them (the other routes between them can't be claimed any more), and the shortest route
+     * otherwise
+     */
+    private void computeLink(int station1, int station2) {
+        Route link = null;
+        int linkCost = UNREACHABLE;
+
+        for (Route route : routesBetween.get(station1).get(station2)) {
+            PlayerId owner = owners[ROUTES.idOf(route)];
+            if (owner == playerId) {
+                link = route;
+                linkCost = LINK_COST;
+                break;
+            }
+            if (owner != null) {
+                link = null;
+                linkCost = UNREACHABLE;
+                break;
+            }
+            if (route.length() * CAR_COST + LINK_COST < linkCost) {
+                link = route;
+                linkCost = route.length() * CAR_COST + LINK_COST;
+            }
+        }
+        links[station1][station2] = link;
+        links[station2][station1] = link;
+        linkCosts[station1][station2] = linkCost;
+        linkCosts[station2][station1] = linkCost;
+    }
+
+    private void computeAllCosts() {
+        for (int from = 0; from < STATION_COUNT; from++) {
+            for (int to = from + 1; to < STATION_COUNT; to++) {
+                computeLink(from, to);
+            }
+            linkCosts[from][from] = 0;
+        }
+        for (int from = 0; from < STATION_COUNT; from++) {
+            for (int to = 0; to < STATION_COUNT; to++) {
+                costs[from][to] = linkCosts[from][to];
+                nextStations[from][to] = to;
+            }
+        }
+        for (int via = 0; via < STATION_COUNT; via++) {
+            for (int from = 0; from < STATION_COUNT; from++) {
+                for (int to = 0; to < STATION_COUNT; to++) {
+                    int cost = costs[from][via] + costs[via][to];
+                    if (cost < costs[from][to]) {
+                        costs[from][to] = cost;
+                        nextStations[from][to] = nextStations[from][via];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Shortens the paths which can go through the link between the given stations, which just became cheaper. The
+     * cheapest paths only going once through the link, they go through it from the cheapest paths to and from its
+     * stations before it became cheaper, which are copied first.
+     */
+    private void shortenPaths(int station1, int station2) {
+        int linkCost = linkCosts[station1][station2];
+        int[] costsTo1 = new int[STATION_COUNT];
+        int[] costsTo2 = new int[STATION_COUNT];
+        int[] nextStationsTo1 = new int[STATION_COUNT];
+        int[] nextStationsTo2 = new int[STATION_COUNT];
+        for (int station = 0; station < STATION_COUNT; station++) {
+            costsTo1[station] = costs[station][station1];
+            costsTo2[station] = costs[station][station2];
+            nextStationsTo1[station] = nextStations[station][station1];
+            nextStationsTo2[station] = nextStations[station][station2];
+        }
+
+        for (int from = 0; from < STATION_COUNT; from++) {
+            for (int to = 0; to < STATION_COUNT; to++) {
+                //The costs are symmetric: the cost from a station of the link to "to" is the cost from "to" to it
+                int costThrough1 = costsTo1[from] + linkCost + costsTo2[to];
+                int costThrough2 = costsTo2[from] + linkCost + costsTo1[to];
+                if (costThrough1 <= costThrough2 && costThrough1 < costs[from][to]) {
+                    costs[from][to] = costThrough1;
+                    nextStations[from][to] = from == station1 ? station2 : nextStationsTo1[from];
+                } else if (costThrough2 < costThrough1 && costThrough2 < costs[from][to]) {
+                    costs[from][to] = costThrough2;
+                    nextStations[from][to] = from == station2 ? station1 : nextStationsTo2[from];
+                }
+            }
+        }
+    }
+}
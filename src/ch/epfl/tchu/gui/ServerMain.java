@@ -5,7 +5,10 @@ import ch.epfl.tchu.game.ChMap;
 import ch.epfl.tchu.game.Game;
 import ch.epfl.tchu.game.Player;
 import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.net.JmxProtocolMetrics;
 import ch.epfl.tchu.net.RemotePlayerProxy;
+import ch.epfl.tchu.net.SessionRegistry;
+import ch.epfl.tchu.net.SpectatorHub;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
@@ -14,6 +17,7 @@ import java.io.UncheckedIOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 import static ch.epfl.tchu.game.PlayerId.*;
 
@@ -30,6 +34,11 @@ public class ServerMain extends Application {
 
     private final int localPlayerNumber = 1;
     private final Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+    private final GraphicalPlayerAdapter localPlayer = GraphicalPlayerAdapter.fromSystemProperty();
+    private final List<RemotePlayerProxy> proxies = new ArrayList<>();
+    private final SpectatorHub spectatorHub = new SpectatorHub();
+    private final SessionRegistry sessionRegistry = new SessionRegistry();
+    private final JmxProtocolMetrics metrics = new JmxProtocolMetrics().register("server");
 
     /**
      * Launches the application with the given args
@@ -37,6 +46,7 @@ public class ServerMain extends Application {
      * @param args : args to pass to the launch method
      */
     public static void main(String[] args) {
+        ResourcePreloader.start();
         launch(args);
     }
 
@@ -46,11 +56,19 @@ public class ServerMain extends Application {
      * There it blocks execution with .accept() until a client connects to the server.
      * Finally, it creates the players, the first being a Graphical Player and the second a proxy for the Second Player, playing on another machine,
      * before launching the game on a new execution thread.
+     * Once the players are connected, a client whose connection was lost can resume its session, and a client
+     * connecting to the server with the message SPECTATE becomes a spectator of the game.
+     * If a client dies (its connection is lost and isn't resumed in time), the game is interrupted: the local player is
+     * told who left, and the connections are closed right away.
+     * The decisions of the local player are waited for at most the time given by the system property
+     * tchu.decisionTimeout (see GraphicalPlayerAdapter): if they take longer, the local player leaves the game, which
+     * is interrupted the same way. Once the game is over, the decisions the local player still makes are ignored.
      *
      * @param primaryStage : unused parameter
      */
     @Override
     public void start(Stage primaryStage) {
+        ResourcePreloader.startWithImages();
         new Thread(() -> {
             try {
                 ServerSocket serverSocket = createSockets();
@@ -59,9 +77,22 @@ public class ServerMain extends Application {
 
                 createPlayers();
 
-                Game.play(players, playerNames, SortedBag.of(ChMap.tickets()), new Random());
-
-                close(serverSocket);
+                sessionRegistry.acceptConnections(serverSocket, spectatorHub::addSpectator);
+
+                try {
+                    Game.play(players, playerNames, SortedBag.of(ChMap.tickets()), new Random());
+                } catch (UncheckedIOException lostConnection) {
+                    if (!informOfDeparture()) {
+                        throw lostConnection;
+                    }
+                } catch (CancellationException tooLong) {
+                    //The local player took too long to decide: closing the connections tells the clients
+                    players.get(PLAYER_1).receiveInfo(new Info(playerNames.get(PLAYER_1)).leftTheGame());
+                } finally {
+                    localPlayer.cancel();
+                    localPlayer.endGame();
+                    close(serverSocket);
+                }
             } catch (IOException ioException) {
                 throw new UncheckedIOException(ioException);
             }
@@ -90,20 +121,44 @@ public class ServerMain extends Application {
     }
 
     private void createPlayers() {
-        players.put(PLAYER_1, new GraphicalPlayerAdapter());
+        players.put(PLAYER_1, spectatorHub.observing(localPlayer));
 
         for (int i = localPlayerNumber; i < COUNT; i++) {
-            players.put(ALL.get(i), new RemotePlayerProxy(sockets.get(i - localPlayerNumber)));
+            RemotePlayerProxy proxy = new RemotePlayerProxy(sockets.get(i - localPlayerNumber),
+                    sessionRegistry, RemotePlayerProxy.DEFAULT_RESUME_TIMEOUT_MILLIS, metrics);
+            proxies.add(proxy);
+            players.put(ALL.get(i), proxy);
         }
     }
 
+    /**
+     * Tells the local players which remote players left the game
+     *
+     * @return true if a remote player left the game, false if the connection of none of them was lost
+     */
+    private boolean informOfDeparture() {
+        boolean departure = false;
+        for (int i = localPlayerNumber; i < COUNT; i++) {
+            if (proxies.get(i - localPlayerNumber).connectionLost()) {
+                String leftTheGame = new Info(playerNames.get(ALL.get(i))).leftTheGame();
+                for (int j = 0; j < localPlayerNumber; j++) {
+                    players.get(ALL.get(j)).receiveInfo(leftTheGame);
+                }
+                departure = true;
+            }
+        }
+        return departure;
+    }
 
     private void close(ServerSocket serverSocket) throws IOException {
+        //Closed first, so that the clients noticing the end of their connection can't try to resume it
+        serverSocket.close();
+        spectatorHub.close();
+        proxies.forEach(RemotePlayerProxy::close);
         for (Socket socket : sockets
         ) {
             socket.close();
         }
-        serverSocket.close();
     }
 
 }
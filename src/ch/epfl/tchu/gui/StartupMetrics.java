@@ -0,0 +1,67 @@
+package ch.epfl.tchu.gui;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Times of the steps of the startup of the graphical interface, measured from the start of the process (as the
+ * headless server measures its readiness). Each step is only recorded the first time it is reached, and logged then if
+ * the system property tchu.metrics asks for the measures to be logged (see RenderingMetrics).
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class StartupMetrics {
+    static final String JAVAFX_STARTED = "JavaFX started";
+    static final String RESOURCES_LOADED = "resources loaded";
+    static final String FIRST_FRAME = "first frame";
+    static final String MAP_ATTACHED = "map attached";
+
+    private static final Logger LOGGER = Logger.getLogger(StartupMetrics.class.getName());
+    private static final Instant PROCESS_START = ProcessHandle.current().info().startInstant().orElse(Instant.now());
+    private static final Map<String, Long> STEPS = new LinkedHashMap<>();
+
+    private StartupMetrics() {
+    }
+
+    /**
+     * Records that the given step is reached now, unless it was already reached
+     *
+     * @param step : the step
+     */
+    static void reached(String step) {
+        long millis = Duration.between(PROCESS_START, Instant.now()).toMillis();
+        synchronized (STEPS) {
+            if (STEPS.putIfAbsent(step, millis) != null) {
+                return;
+            }
+        }
+        if (RenderingMetrics.loggedBySystemProperty()) {
+            LOGGER.info(() -> String.format("Startup: %s %d ms after the start of the process", step, millis));
+        }
+    }
+
+    /**
+     * Getter for the time a step was reached at
+     *
+     * @param step : the step
+     * @return the time between the start of the process and the step, in milliseconds, or -1 if it isn't reached yet
+     */
+    static long millisUntil(String step) {
+        synchronized (STEPS) {
+            return STEPS.getOrDefault(step, -1L);
+        }
+    }
+
+    /**
+     * Getter for the time to the first frame displaying the game
+     *
+     * @return the time between the start of the process and the first frame, in milliseconds, or -1 if the game
+     * isn't displayed yet
+     */
+    static long timeToFirstFrameMillis() {
+        return millisUntil(FIRST_FRAME);
+    }
+}
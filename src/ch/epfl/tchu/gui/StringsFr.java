@@ -59,9 +59,18 @@ public final class StringsFr {
             "\n%s remporte la victoire avec %s point%s, contre %s point%s !\n";
     public static final String DRAW =
             "\n%s sont ex æqo avec %s points !\n";
+    public static final String LEFT_THE_GAME =
+            "\n%s a quitté la partie, elle est interrompue.\n";
     // Statistiques des joueurs
     public static final String PLAYER_STATS =
             " %s :\n– %s billets,\n– %s cartes,\n– %s wagons,\n– %s points.";
+    // Historique de la partie
+    public static final String SEARCH_HISTORY = "Rechercher…";
+    public static final String ALL_PLAYERS = "Tous";
+    // Rediffusion d'une partie
+    public static final String REPLAY = "rediffusion";
+    public static final String REPLAY_STEP = "État %s sur %s";
+    public static final String REPLAY_INTERRUPTED = "État %s sur %s (partie interrompue)";
     // Séparateurs textuels
     public static final String AND_SEPARATOR = " et ";
     public static final String EN_DASH_SEPARATOR = " – ";
@@ -0,0 +1,87 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Fill colors of the style sheet of the colors, by style class: those of the cards and of the tracks (BLACK to WHITE,
+ * and NEUTRAL), and those of the cars of the players (PLAYER_1 and PLAYER_2). A view painting on a canvas takes its
+ * colors from it, so that it looks like the views made of styled nodes.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class StylePalette {
+    private static final String COLORS_CSS = "/colors.css";
+    //.BLACK   .filled { -fx-fill: "#7f7f7f"; }
+    private static final Pattern FILL_RULE = Pattern.compile(
+            "\\.(\\w+)\\s+\\.filled\\s*\\{\\s*-fx-fill:\\s*\"?([#\\w]+)\"?\\s*;");
+
+    private final Map<String, String> fills;
+
+    private StylePalette(Map<String, String> fills) {
+        this.fills = fills;
+    }
+
+    /**
+     * Reads the fill colors from the style sheet of the colors on the class path
+     *
+     * @return the palette of the style sheet
+     * @throws UncheckedIOException if the style sheet can't be read
+     */
+    static StylePalette ofStyleSheet() {
+        InputStream styleSheet = StylePalette.class.getResourceAsStream(COLORS_CSS);
+        if (styleSheet == null) {
+            throw new UncheckedIOException(new IOException(COLORS_CSS + " not found"));
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(styleSheet, UTF_8))) {
+            return read(reader);
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    /**
+     * Reads the fill colors from a style sheet whose rules fill the nodes of a style class
+     * (.CLASS .filled { -fx-fill: color; }), each on its own line
+     *
+     * @param reader : the reader of the style sheet
+     * @return the palette of the style sheet
+     * @throws IOException if the style sheet can't be read
+     */
+    static StylePalette read(BufferedReader reader) throws IOException {
+        Map<String, String> fills = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Matcher matcher = FILL_RULE.matcher(line);
+            if (matcher.lookingAt()) {
+                fills.put(matcher.group(1), matcher.group(2));
+            }
+        }
+        return new StylePalette(Map.copyOf(fills));
+    }
+
+    /**
+     * Getter for the fill color of a style class
+     *
+     * @param styleClass : the style class
+     * @return its color, as written in the style sheet (a name or a hexadecimal value)
+     * @throws IllegalArgumentException if the style sheet doesn't fill the style class
+     */
+    String fill(String styleClass) {
+        String fill = fills.get(styleClass);
+        Preconditions.checkArgument(fill != null);
+
+        return fill;
+    }
+}
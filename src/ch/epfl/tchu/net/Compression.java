@@ -0,0 +1,179 @@
+package ch.epfl.tchu.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compressed stream mode of a connection, negotiated with COMPRESS: both directions are DEFLATE streams, flushed with a
+ * sync flush at message boundaries so that every flushed message can be decompressed as soon as it is received.
+ *
+ * The server offers the compression if the system property tchu.compression is true.
+ *
+ * The native memory of the compressing and decompressing streams is freed when they are closed, which a compressed
+ * connection does when it is closed itself.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class Compression {
+    /**
+     * Name of the system property making the server offer the compression
+     */
+    static final String PROPERTY = "tchu.compression";
+
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private Compression() {
+    }
+
+    /**
+     * Determines whether the system property asks the server to offer the compression
+     *
+     * @return true if the compression must be offered
+     */
+    static boolean offeredBySystemProperty() {
+        try {
+            return Boolean.getBoolean(PROPERTY);
+        } catch (SecurityException denied) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the given connection, compressed in both directions. Closing it closes the given connection, then its
+     * compressed streams.
+     *
+     * @param connection : the plain connection
+     * @return the compressed connection
+     * @throws IOException if the streams of the connection can't be obtained
+     */
+    static Connection compressing(Connection connection) throws IOException {
+        InputStream inputStream = inflating(connection.inputStream());
+        OutputStream outputStream = deflating(connection.outputStream());
+
+        return new Connection() {
+            @Override
+            public InputStream inputStream() {
+                return inputStream;
+            }
+
+            @Override
+            public OutputStream outputStream() {
+                return outputStream;
+            }
+
+            @Override
+            public void setReadTimeout(int timeoutMillis) throws IOException {
+                connection.setReadTimeout(timeoutMillis);
+            }
+
+            @Override
+            public void close() throws IOException {
+                //Closing the plain connection first unblocks a pending read or write, which the streams wait for
+                try {
+                    connection.close();
+                } finally {
+                    try {
+                        inputStream.close();
+                    } finally {
+                        outputStream.close();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the stream compressing the bytes written into it before writing them into the given stream.
+     * Flushing it ends the current DEFLATE block with a sync flush, then flushes the given stream. Closing it frees its
+     * deflater, once the current write is over.
+     *
+     * @param outputStream : the stream receiving the compressed bytes
+     * @return the compressing stream
+     */
+    static OutputStream deflating(OutputStream outputStream) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        return new DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE, true) {
+            private boolean ended;
+
+            @Override
+            public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+                ensureNotEnded();
+                super.write(bytes, offset, length);
+            }
+
+            @Override
+            public synchronized void flush() throws IOException {
+                ensureNotEnded();
+                super.flush();
+            }
+
+            @Override
+            public synchronized void close() throws IOException {
+                if (ended) {
+                    return;
+                }
+                ended = true;
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+
+            private void ensureNotEnded() throws IOException {
+                if (ended) {
+                    throw new IOException("Stream closed");
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the stream decompressing the bytes read from the given stream. Closing it frees its inflater, once the
+     * current read is over.
+     *
+     * @param inputStream : the stream of the compressed bytes
+     * @return the decompressing stream
+     */
+    static InputStream inflating(InputStream inputStream) {
+        Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(inputStream, inflater, BUFFER_SIZE) {
+            private boolean ended;
+
+            /**
+             * Claims that nothing can be read without blocking: otherwise, a reader decoding characters would try to
+             * read beyond the last flushed message, and block until the next one.
+             */
+            @Override
+            public int available() {
+                return 0;
+            }
+
+            @Override
+            public synchronized int read(byte[] bytes, int offset, int length) throws IOException {
+                if (ended) {
+                    throw new IOException("Stream closed");
+                }
+                return super.read(bytes, offset, length);
+            }
+
+            @Override
+            public synchronized void close() throws IOException {
+                if (ended) {
+                    return;
+                }
+                ended = true;
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Objects;
+
+/**
+ * Represents a bidirectional byte stream between a proxy and a client, over which the messages of the protocol travel.
+ * It is usually a socket, but it can also be an in-process loopback (see LoopbackTransport).
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public interface Connection extends Closeable {
+
+    /**
+     * Getter for the stream of the bytes received from the other end
+     *
+     * @return the input stream
+     * @throws IOException if the stream can't be obtained
+     */
+    InputStream inputStream() throws IOException;
+
+    /**
+     * Getter for the stream of the bytes sent to the other end. The bytes written are only guaranteed to be sent once
+     * the stream is flushed.
+     *
+     * @return the output stream
+     * @throws IOException if the stream can't be obtained
+     */
+    OutputStream outputStream() throws IOException;
+
+    /**
+     * Sets the time (in milliseconds) a read waits for data before failing, 0 for no limit. By default, reads wait
+     * without limit whatever the given time.
+     *
+     * @param timeoutMillis : the time a read waits for data
+     * @throws IOException if the timeout can't be set
+     */
+    default void setReadTimeout(int timeoutMillis) throws IOException {
+        Preconditions.checkArgument(timeoutMillis >= 0);
+    }
+
+    /**
+     * Returns the connection over the given socket
+     *
+     * @param socket : the socket
+     * @return the connection over the socket
+     */
+    static Connection of(Socket socket) {
+        Objects.requireNonNull(socket);
+
+        return new Connection() {
+            @Override
+            public InputStream inputStream() throws IOException {
+                return socket.getInputStream();
+            }
+
+            @Override
+            public OutputStream outputStream() throws IOException {
+                return socket.getOutputStream();
+            }
+
+            @Override
+            public void setReadTimeout(int timeoutMillis) throws IOException {
+                socket.setSoTimeout(timeoutMillis);
+            }
+
+            @Override
+            public void close() throws IOException {
+                socket.close();
+            }
+        };
+    }
+
+    /**
+     * Opens the connections of a client, the first one and those resuming its session
+     */
+    @FunctionalInterface
+    interface Connector {
+
+        /**
+         * Opens a new connection to the server
+         *
+         * @return the connection
+         * @throws java.net.ConnectException if nobody accepts connections anymore
+         * @throws IOException               if the connection can't be opened
+         */
+        Connection connect() throws IOException;
+
+        /**
+         * Returns the connector opening sockets to the given host and port
+         *
+         * @param host : the host name
+         * @param port : the port number
+         * @return the connector
+         */
+        static Connector to(String host, int port) {
+            Objects.requireNonNull(host);
+            //Largest number that can be represented by an unsigned 16 bit binary number
+            int maxPortLength = (int) Math.pow(2, 16) - 1;
+            Objects.checkIndex(port, maxPortLength);
+
+            return () -> Connection.of(new Socket(host, port));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ch.epfl.tchu.net;
+
+import java.io.IOException;
+
+/**
+ * Appendable forwarding everything to another one, while counting the characters it forwards
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class CountingAppendable implements Appendable {
+    private final Appendable destination;
+    private long count;
+
+    /**
+     * Creates an appendable counting the characters written into the given destination
+     *
+     * @param destination : where the characters are written
+     */
+    CountingAppendable(Appendable destination) {
+        this.destination = destination;
+    }
+
+    /**
+     * Getter for the number of characters written since the creation of this appendable
+     *
+     * @return the number of characters
+     */
+    long count() {
+        return count;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        count += csq.length();
+        destination.append(csq);
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        count += end - start;
+        destination.append(csq, start, end);
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        count++;
+        destination.append(c);
+        return this;
+    }
+}
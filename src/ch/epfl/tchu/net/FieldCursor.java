@@ -0,0 +1,76 @@
+package ch.epfl.tchu.net;
+
+/**
+ * Cursor moving over the fields of a serialized value, separated by a delimiter.
+ * The fields are deserialized in place, no substring is ever extracted.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class FieldCursor {
+    private final CharSequence text;
+    private final int to;
+    private final String delimiter;
+    private int position;
+
+    /**
+     * Creates a cursor placed on the first field of the given range
+     *
+     * @param text      : the characters containing the fields
+     * @param from      : index of the first character of the range (inclusive)
+     * @param to        : index of the end of the range (exclusive)
+     * @param delimiter : the delimiter separating the fields
+     */
+    FieldCursor(CharSequence text, int from, int to, String delimiter) {
+        this.text = text;
+        this.to = to;
+        this.delimiter = delimiter;
+        this.position = from;
+    }
+
+    /**
+     * Determines if there is still a field after the cursor
+     *
+     * @return true if there is another field, false otherwise
+     */
+    boolean hasNext() {
+        return position <= to;
+    }
+
+    /**
+     * Deserializes the field after the cursor with the given serde, then moves the cursor to the next field
+     *
+     * @param serde : the serde of the field
+     * @param <T>   : the type of the field
+     * @return the deserialized field
+     */
+    <T> T next(Serde<T> serde) {
+        int end = nextEnd();
+        T value = serde.deserialize(text, position, end);
+        position = end + delimiter.length();
+        return value;
+    }
+
+    /**
+     * Determines if the field after the cursor is exactly the given token, and skips it if so
+     *
+     * @param token : the expected token
+     * @return true if the token was skipped, false otherwise (the cursor doesn't move)
+     */
+    boolean skip(String token) {
+        int end = nextEnd();
+        if (end - position != token.length()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (text.charAt(position + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        position = end + delimiter.length();
+        return true;
+    }
+
+    private int nextEnd() {
+        return NetUtils.indexOf(text, delimiter, position, to);
+    }
+}
@@ -0,0 +1,150 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring buffer of frames (arrays of bytes) between a single producer thread and a single consumer thread.
+ * It takes no lock: each side only writes its own index, so that publishing a frame is a store into its slot followed
+ * by the increment of the tail. A side finding the ring full (or empty) spins for a while, then parks until the other
+ * side wakes it up.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class FrameRing {
+    //Spinning only makes sense if the other side can run meanwhile
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 1 << 10 : 0;
+    //Bound of a park, in case the wake up of the other side was missed
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final byte[][] frames;
+    private final int mask;
+
+    //Number of frames taken by the consumer, and published by the producer
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile boolean closed;
+    private volatile Thread parkedProducer;
+    private volatile Thread parkedConsumer;
+
+    /**
+     * Creates an empty ring
+     *
+     * @param capacity : the number of frames the ring holds, a power of two
+     * @throws IllegalArgumentException if the capacity isn't a positive power of two
+     */
+    FrameRing(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1);
+
+        this.frames = new byte[capacity][];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Publishes the given frame, waiting for a free slot if the ring is full. Must only be called by the producer.
+     *
+     * @param frame : the frame, which mustn't be modified afterwards
+     * @throws IOException if the ring is closed, or if the producer is interrupted
+     */
+    void put(byte[] frame) throws IOException {
+        long t = tail.get();
+        int spins = 0;
+        while (t - head.get() == frames.length) {
+            if (closed) {
+                throw new IOException("Ring closed");
+            }
+            spins = await(spins, true, t);
+        }
+        if (closed) {
+            throw new IOException("Ring closed");
+        }
+        frames[(int) t & mask] = frame;
+        tail.set(t + 1);
+        wakeUp(parkedConsumer);
+    }
+
+    /**
+     * Takes the next frame, waiting for one if the ring is empty. Must only be called by the consumer.
+     * The frames published before the ring was closed can still be taken.
+     *
+     * @return the frame, or null if the ring is closed and empty
+     * @throws InterruptedIOException if the consumer is interrupted
+     */
+    byte[] take() throws InterruptedIOException {
+        long h = head.get();
+        int spins = 0;
+        while (h == tail.get()) {
+            if (closed) {
+                //The producer may have published a last frame before closing
+                if (h == tail.get()) {
+                    return null;
+                }
+                break;
+            }
+            spins = await(spins, false, h);
+        }
+        int slot = (int) h & mask;
+        byte[] frame = frames[slot];
+        frames[slot] = null;
+        head.set(h + 1);
+        wakeUp(parkedProducer);
+
+        return frame;
+    }
+
+    /**
+     * Closes the ring: the consumer takes the remaining frames, then null, and the producer can't publish anymore
+     */
+    void close() {
+        closed = true;
+        wakeUp(parkedProducer);
+        wakeUp(parkedConsumer);
+    }
+
+    /**
+     * Waits for the other side: spins first, then parks once registered for a wake up
+     *
+     * @param spins    : the number of spins already done
+     * @param producer : true if the caller is the producer, waiting for a free slot
+     * @param index    : the tail (for the producer) or the head (for the consumer) of the caller
+     * @return the new number of spins
+     */
+    private int await(int spins, boolean producer, long index) throws InterruptedIOException {
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException();
+        }
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+            return spins + 1;
+        }
+        Thread current = Thread.currentThread();
+        if (producer) {
+            parkedProducer = current;
+        } else {
+            parkedConsumer = current;
+        }
+        //Checked again once registered, so that a wake up sent just before is not missed
+        boolean mustWait = producer ? index - head.get() == frames.length : index == tail.get();
+        if (mustWait && !closed) {
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        if (producer) {
+            parkedProducer = null;
+        } else {
+            parkedConsumer = null;
+        }
+        return spins;
+    }
+
+    private static void wakeUp(Thread thread) {
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Metrics of the protocol kept in memory, by message id, and exposed as an MXBean of the platform MBean server.
+ * Recording never allocates nor locks: counters are atomic arrays indexed by the ordinal of the message id.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class JmxProtocolMetrics implements ProtocolMetrics, ProtocolMetricsMXBean {
+    private static final List<MessageId> MESSAGE_IDS = List.of(MessageId.values());
+    private static final long NANOS_PER_MICRO = 1_000;
+
+    private final AtomicLongArray sentMessages = new AtomicLongArray(MESSAGE_IDS.size());
+    private final AtomicLongArray sentBytes = new AtomicLongArray(MESSAGE_IDS.size());
+    private final AtomicLongArray serializationNanos = new AtomicLongArray(MESSAGE_IDS.size());
+    private final AtomicLongArray receivedMessages = new AtomicLongArray(MESSAGE_IDS.size());
+    private final AtomicLongArray receivedBytes = new AtomicLongArray(MESSAGE_IDS.size());
+    private final LatencyHistogram[] latencies = new LatencyHistogram[MESSAGE_IDS.size()];
+
+    /**
+     * Constructs metrics where nothing was recorded yet. They aren't visible through JMX until they are registered.
+     */
+    public JmxProtocolMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server, as ch.epfl.tchu:type=ProtocolMetrics,name=[name]
+     *
+     * @param name : the name distinguishing these metrics from others of the same JVM (for example "server")
+     * @return these metrics
+     * @throws IllegalArgumentException if the name is invalid or already registered
+     */
+    public JmxProtocolMetrics register(String name) {
+        Preconditions.checkArgument(name != null);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName("ch.epfl.tchu:type=ProtocolMetrics,name=" + ObjectName.quote(name)));
+        } catch (JMException jmException) {
+            throw new IllegalArgumentException(jmException);
+        }
+        return this;
+    }
+
+    @Override
+    public void messageSent(MessageId messageId, int bytes, long serializationNanos) {
+        int i = messageId.ordinal();
+        sentMessages.incrementAndGet(i);
+        sentBytes.addAndGet(i, bytes);
+        this.serializationNanos.addAndGet(i, serializationNanos);
+    }
+
+    @Override
+    public void messageReceived(MessageId messageId, int bytes) {
+        int i = messageId.ordinal();
+        receivedMessages.incrementAndGet(i);
+        receivedBytes.addAndGet(i, bytes);
+    }
+
+    @Override
+    public void requestCompleted(MessageId messageId, long latencyNanos) {
+        latencies[messageId.ordinal()].record(latencyNanos);
+    }
+
+    /**
+     * Getter for the histogram of the latencies of the given request
+     *
+     * @param messageId : the id of the request
+     * @return the histogram of its latencies (in nanoseconds)
+     */
+    public LatencyHistogram latencies(MessageId messageId) {
+        return latencies[messageId.ordinal()];
+    }
+
+    @Override
+    public Map<String, Long> getSentMessages() {
+        return byMessageId(sentMessages::get);
+    }
+
+    @Override
+    public Map<String, Long> getSentBytes() {
+        return byMessageId(sentBytes::get);
+    }
+
+    @Override
+    public Map<String, Long> getReceivedMessages() {
+        return byMessageId(receivedMessages::get);
+    }
+
+    @Override
+    public Map<String, Long> getReceivedBytes() {
+        return byMessageId(receivedBytes::get);
+    }
+
+    @Override
+    public Map<String, Long> getSerializationMicros() {
+        return byMessageId(i -> serializationNanos.get(i) / NANOS_PER_MICRO);
+    }
+
+    @Override
+    public Map<String, Long> getMedianLatencyMicros() {
+        return byMessageId(i -> latencies[i].percentile(50) / NANOS_PER_MICRO);
+    }
+
+    @Override
+    public Map<String, Long> getP99LatencyMicros() {
+        return byMessageId(i -> latencies[i].percentile(99) / NANOS_PER_MICRO);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < MESSAGE_IDS.size(); i++) {
+            sentMessages.set(i, 0);
+            sentBytes.set(i, 0);
+            serializationNanos.set(i, 0);
+            receivedMessages.set(i, 0);
+            receivedBytes.set(i, 0);
+            latencies[i].reset();
+        }
+    }
+
+    /**
+     * Builds the map of the given metric, leaving out the message ids for which nothing was recorded
+     */
+    private Map<String, Long> byMessageId(IntToLongFunction metric) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (MessageId messageId : MESSAGE_IDS) {
+            long value = metric.applyAsLong(messageId.ordinal());
+            if (value != 0) {
+                values.put(messageId.name(), value);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,75 @@
+package ch.epfl.tchu.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+
+import static ch.epfl.tchu.net.NetUtils.LINE_RETURN;
+
+/**
+ * Buffered reader of the messages of the protocol, one per line. Unlike a BufferedReader, it never returns the truncated
+ * last line of a connection lost in the middle of a message: a message is only read once its line return is received.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class LineReader {
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    /**
+     * Creates a line reader reading the characters of the given reader
+     *
+     * @param reader : the reader of the characters
+     */
+    LineReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next line, without its line return
+     *
+     * @return the line, or null if the stream ended after the previous line
+     * @throws EOFException if the stream ended in the middle of a line
+     * @throws IOException  if the characters can't be read
+     */
+    String readLine() throws IOException {
+        StringBuilder line = null;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                if (line == null) {
+                    return null;
+                }
+                throw new EOFException();
+            }
+            int start = position;
+            while (position < limit && buffer[position] != LINE_RETURN) {
+                position++;
+            }
+            if (position < limit) {
+                //Line return found
+                String end = new String(buffer, start, position - start);
+                position++;
+                return line == null ? end : line.append(end).toString();
+            }
+            if (line == null) {
+                line = new StringBuilder();
+            }
+            line.append(buffer, start, position - start);
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read == -1) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,231 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process transport between a proxy and a client running in the same JVM, without any socket. Each direction is a
+ * lock-free ring of frames: every flush of an output stream publishes the bytes written since the previous one as a
+ * frame, which the input stream of the other end reads.
+ *
+ * It makes it possible to run whole games over the real protocol in tests, and to measure the cost of the protocol
+ * itself (serialization, parsing, handshakes) apart from the noise of the network.
+ *
+ * A loopback can't be reconnected: once its client connected, the connector refuses any other connection.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class LoopbackTransport {
+    /**
+     * Default number of frames each direction holds
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final End serverSide;
+    private final End clientSide;
+    private final AtomicBoolean clientConnected = new AtomicBoolean();
+
+    /**
+     * Creates a loopback whose directions hold the default number of frames
+     */
+    public LoopbackTransport() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a loopback whose directions hold the given number of frames
+     *
+     * @param capacity : the number of frames each direction holds, a power of two
+     * @throws IllegalArgumentException if the capacity isn't a positive power of two
+     */
+    public LoopbackTransport(int capacity) {
+        FrameRing toClient = new FrameRing(capacity);
+        FrameRing toServer = new FrameRing(capacity);
+
+        this.serverSide = new End(toServer, toClient);
+        this.clientSide = new End(toClient, toServer);
+    }
+
+    /**
+     * Getter for the end of the loopback a proxy uses
+     *
+     * @return the connection of the server side
+     */
+    public Connection serverSide() {
+        return serverSide;
+    }
+
+    /**
+     * Getter for the connector a client uses to obtain the other end of the loopback
+     *
+     * @return the connector giving the connection of the client side once, then throwing a ConnectException
+     */
+    public Connection.Connector clientConnector() {
+        return () -> {
+            if (!clientConnected.compareAndSet(false, true)) {
+                throw new ConnectException("Loopback already connected");
+            }
+            return clientSide;
+        };
+    }
+
+    /**
+     * One end of the loopback, reading from one ring and writing into the other
+     */
+    private static final class End implements Connection {
+        private final FrameRing incoming;
+        private final FrameRing outgoing;
+        private final FrameInputStream inputStream;
+        private final FrameOutputStream outputStream;
+
+        private End(FrameRing incoming, FrameRing outgoing) {
+            this.incoming = incoming;
+            this.outgoing = outgoing;
+            this.inputStream = new FrameInputStream(incoming);
+            this.outputStream = new FrameOutputStream(outgoing);
+        }
+
+        @Override
+        public InputStream inputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public OutputStream outputStream() {
+            return outputStream;
+        }
+
+        /**
+         * Closes both directions, like a socket: the other end reads the end of the stream once it read the frames
+         * already published, and fails to write.
+         */
+        @Override
+        public void close() {
+            outgoing.close();
+            incoming.close();
+        }
+    }
+
+    /**
+     * Input stream reading the frames of a ring one after the other
+     */
+    private static final class FrameInputStream extends InputStream {
+        private final FrameRing ring;
+        private byte[] frame;
+        private int position;
+
+        private FrameInputStream(FrameRing ring) {
+            this.ring = ring;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return frame[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int read = Math.min(length, frame.length - position);
+            System.arraycopy(frame, position, bytes, offset, read);
+            position += read;
+
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return frame == null ? 0 : frame.length - position;
+        }
+
+        @Override
+        public void close() {
+            ring.close();
+        }
+
+        /**
+         * Makes sure the current frame has unread bytes, waiting for the next frame if needed
+         *
+         * @return false if the ring is closed and all its frames were read
+         */
+        private boolean fill() throws IOException {
+            while (frame == null || position == frame.length) {
+                frame = ring.take();
+                position = 0;
+                if (frame == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Output stream gathering the bytes written until a flush, which publishes them as a single frame
+     */
+    private static final class FrameOutputStream extends OutputStream {
+        private static final int INITIAL_SIZE = 1 << 10;
+
+        private final FrameRing ring;
+        private byte[] buffer = new byte[INITIAL_SIZE];
+        private int count;
+
+        private FrameOutputStream(FrameRing ring) {
+            this.ring = ring;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(count + 1);
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            ensureCapacity(count + length);
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                ring.put(Arrays.copyOf(buffer, count));
+                count = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                ring.close();
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            Preconditions.checkArgument(capacity >= 0);
+            if (capacity > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(capacity, 2 * buffer.length));
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ch.epfl.tchu.net;
+
+import java.io.IOException;
+
+/**
+ * Represents an argument of a message: a value along with the serde used to write it
+ *
+ * @param <T> the type of the argument
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class MessageArgument<T> {
+    private final Serde<T> serde;
+    private final T value;
+
+    private MessageArgument(Serde<T> serde, T value) {
+        this.serde = serde;
+        this.value = value;
+    }
+
+    /**
+     * Creates an argument from the given value and its serde
+     *
+     * @param serde : the serde of the value
+     * @param value : the value of the argument
+     * @param <T>   : the type of the argument
+     * @return the argument
+     */
+    static <T> MessageArgument<T> of(Serde<T> serde, T value) {
+        return new MessageArgument<>(serde, value);
+    }
+
+    /**
+     * Writes the serialized value into the destination
+     *
+     * @param destination : where the argument is written
+     * @throws IOException if the destination can't be written to
+     */
+    void writeTo(Appendable destination) throws IOException {
+        serde.serialize(value, destination);
+    }
+}
@@ -2,6 +2,12 @@ package ch.epfl.tchu.net;
 
 /**
  * Types of messages the server can send to the client
+ * (RESUME is also the first message of a client reconnecting to its session, and SPECTATE the first message of a
+ * spectator, which the server never sends).
+ * COMPRESS is the first message of a connection whose server offers to compress the stream; the client answers
+ * COMPRESS 1 to accept it or COMPRESS 0 to refuse it, then the rest of the connection is compressed if it accepted.
+ * HEARTBEAT is sent in both directions on idle connections, and otherwise ignored: it only shows that the peer is alive.
+ * The requests expecting an answer start with a correlation id, which their answer starts with too.
  * @author Victor Jean Canard-Duchene (326913)
  */
 public enum MessageId {
@@ -15,5 +21,11 @@ public enum MessageId {
     DRAW_SLOT,
     ROUTE,
     CARDS,
-    CHOOSE_ADDITIONAL_CARDS
+    CHOOSE_ADDITIONAL_CARDS,
+    //Only sent to spectators
+    UPDATE_PUBLIC_STATE,
+    RESUME,
+    COMPRESS,
+    HEARTBEAT,
+    SPECTATE
 }
@@ -0,0 +1,124 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.Player;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Client playing many seats over a single connection to the server (see Multiplexer): every channel the server opens
+ * is played by its own player, behind its own RemotePlayerClient.
+ *
+ * Each seat is played on its own thread, whose stack is kept small, since the players answer synchronously. The seats
+ * can't resume their session: the connection can only be lost as a whole.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class MultiplexedClient {
+    private static final Logger LOGGER = Logger.getLogger(MultiplexedClient.class.getName());
+    private static final long SEAT_STACK_SIZE = 256 * 1024;
+
+    private final Connection.Connector connector;
+    private final IntFunction<Player> players;
+    private final ProtocolMetrics metrics;
+
+    //Threads of the seats being played
+    private final List<Thread> seats = new ArrayList<>();
+    private final AtomicInteger completedSeats = new AtomicInteger();
+    private final AtomicInteger failedSeats = new AtomicInteger();
+
+    /**
+     * Constructs the client of the given players
+     *
+     * @param connector : the connector opening the connection to the server
+     * @param players   : gives the player of each seat, from its number
+     * @param metrics   : the sink of the metrics of the messages of all the seats
+     */
+    public MultiplexedClient(Connection.Connector connector, IntFunction<Player> players, ProtocolMetrics metrics) {
+        this.connector = Objects.requireNonNull(connector);
+        this.players = Objects.requireNonNull(players);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Connects to the server and plays the seats it opens, until it closes the connection and every seat is over
+     *
+     * @throws UncheckedIOException if the connection can't be opened
+     */
+    public void run() {
+        try (Multiplexer multiplexer = Multiplexer.accepting(connector.connect(), this::play)) {
+            multiplexer.awaitClosed();
+            for (Thread seat : seatsSoFar()) {
+                seat.join();
+            }
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Getter for the number of seats played until the end of their game
+     *
+     * @return the number of completed seats
+     */
+    public int completedSeats() {
+        return completedSeats.get();
+    }
+
+    /**
+     * Getter for the number of seats whose game failed
+     *
+     * @return the number of failed seats
+     */
+    public int failedSeats() {
+        return failedSeats.get();
+    }
+
+    private void play(Connection channel, int seat) {
+        AtomicBoolean connected = new AtomicBoolean();
+        Connection.Connector channelConnector = () -> {
+            if (!connected.compareAndSet(false, true)) {
+                throw new ConnectException("Channel already connected");
+            }
+            return channel;
+        };
+        //The channels only carry lines, they can't be compressed
+        RemotePlayerClient client = new RemotePlayerClient(players.apply(seat), channelConnector, 0, metrics, false);
+
+        Thread thread = new Thread(null, () -> {
+            try {
+                client.run();
+                completedSeats.incrementAndGet();
+            } catch (RuntimeException failure) {
+                failedSeats.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Seat " + seat + " failed", failure);
+            } finally {
+                synchronized (seats) {
+                    seats.remove(Thread.currentThread());
+                }
+            }
+        }, "seat-" + seat, SEAT_STACK_SIZE);
+        thread.setDaemon(true);
+        synchronized (seats) {
+            seats.add(thread);
+        }
+        thread.start();
+    }
+
+    private List<Thread> seatsSoFar() {
+        synchronized (seats) {
+            return new ArrayList<>(seats);
+        }
+    }
+}
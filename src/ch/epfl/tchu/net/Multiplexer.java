@@ -0,0 +1,418 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.*;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Carries many logical connections, the channels, over a single connection, so that a client can play many seats (in
+ * as many games) without opening a connection per seat. Each line of a channel travels in a frame starting with the
+ * number of its seat: "seat line\n". The frame "seat+\n" opens the channel of the seat, and "seat-\n" closes it.
+ *
+ * The side hosting the games (the server) opens the channels, numbered in increasing order; the other side is told
+ * about each new channel. Either side can close a channel. A frame of a closed (or unknown) channel is ignored. A
+ * channel holds at most MAX_QUEUED_LINES received lines that weren't read yet: a channel receiving more is closed, as
+ * the protocol never sends that many lines without waiting for an answer.
+ *
+ * The channels only carry lines: they can't be compressed, the underlying connection has to be compressed instead.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class Multiplexer implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 13;
+    static final int MAX_QUEUED_LINES = 1 << 12;
+    private static final byte[] END_OF_CHANNEL = new byte[0];
+    private static final char OPEN = '+';
+    private static final char CLOSE = '-';
+
+    private final Connection connection;
+    private final OutputStream output;
+    private final ObjIntConsumer<Connection> channelOpened;
+    private final Map<Integer, Channel> channels = new ConcurrentHashMap<>();
+    private final Thread demultiplexer;
+
+    //Greatest seat opened so far
+    private int lastSeat = -1;
+    private volatile boolean closed;
+
+    private Multiplexer(Connection connection, ObjIntConsumer<Connection> channelOpened) throws IOException {
+        this.connection = connection;
+        this.output = new BufferedOutputStream(connection.outputStream(), BUFFER_SIZE);
+        this.channelOpened = channelOpened;
+        this.demultiplexer = new Thread(this::demultiplex, "demultiplexer");
+        this.demultiplexer.setDaemon(true);
+    }
+
+    /**
+     * Returns the multiplexer of the side hosting the games, which opens the channels with openChannel()
+     *
+     * @param connection : the underlying connection
+     * @return the multiplexer
+     * @throws IOException if the streams of the connection can't be obtained
+     */
+    public static Multiplexer opening(Connection connection) throws IOException {
+        return start(new Multiplexer(Objects.requireNonNull(connection), null));
+    }
+
+    /**
+     * Returns the multiplexer of the side playing the seats, which is told about every channel the other side opens.
+     * The given consumer is called by the thread reading the connection: it must hand the channel over to another
+     * thread rather than read it.
+     *
+     * @param connection    : the underlying connection
+     * @param channelOpened : the consumer of the new channels and their seats
+     * @return the multiplexer
+     * @throws IOException if the streams of the connection can't be obtained
+     */
+    public static Multiplexer accepting(Connection connection, ObjIntConsumer<Connection> channelOpened) throws IOException {
+        return start(new Multiplexer(Objects.requireNonNull(connection), Objects.requireNonNull(channelOpened)));
+    }
+
+    private static Multiplexer start(Multiplexer multiplexer) {
+        multiplexer.demultiplexer.start();
+        return multiplexer;
+    }
+
+    /**
+     * Opens the channel of the next seat
+     *
+     * @return the channel
+     * @throws IllegalArgumentException if this multiplexer accepts channels instead of opening them
+     * @throws IOException              if the multiplexer is closed
+     */
+    public synchronized Connection openChannel() throws IOException {
+        Preconditions.checkArgument(channelOpened == null);
+        if (closed) {
+            throw new IOException("Multiplexer closed");
+        }
+        Channel channel = open(++lastSeat);
+        sendControl(channel.seat, OPEN);
+        return channel;
+    }
+
+    /**
+     * Determines whether the underlying connection is closed (by either side)
+     *
+     * @return true if the connection is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Waits until the underlying connection is closed (by either side)
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitClosed() throws InterruptedException {
+        demultiplexer.join();
+    }
+
+    /**
+     * Closes the underlying connection: the channels still open read the end of their stream
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        connection.close();
+    }
+
+    private Channel open(int seat) {
+        Channel channel = new Channel(seat);
+        channels.put(seat, channel);
+        if (closed) {
+            //The connection was closed meanwhile
+            channel.closedByPeer();
+        }
+        return channel;
+    }
+
+    /**
+     * Reads the frames of the underlying connection and hands their lines over to their channels, until the connection
+     * is closed
+     */
+    private void demultiplex() {
+        try {
+            InputStream input = new BufferedInputStream(connection.inputStream(), BUFFER_SIZE);
+            byte[] line = new byte[BUFFER_SIZE];
+
+            while (true) {
+                int seat = 0;
+                int b;
+                while ((b = input.read()) >= '0' && b <= '9') {
+                    seat = 10 * seat + b - '0';
+                }
+                if (b == OPEN || b == CLOSE) {
+                    if (input.read() != NetUtils.LINE_RETURN) {
+                        throw new IOException("Malformed frame");
+                    }
+                    if (b == CLOSE) {
+                        Channel channel = channels.remove(seat);
+                        if (channel != null) {
+                            channel.closedByPeer();
+                        }
+                    } else if (channelOpened != null) {
+                        channelOpened.accept(open(seat), seat);
+                    }
+                    continue;
+                }
+                if (b == -1) {
+                    return;
+                }
+                if (b != ' ') {
+                    throw new IOException("Malformed frame");
+                }
+
+                int length = 0;
+                do {
+                    b = input.read();
+                    if (b == -1) {
+                        return;
+                    }
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, 2 * line.length);
+                    }
+                    line[length++] = (byte) b;
+                } while (b != NetUtils.LINE_RETURN);
+
+                Channel channel = channels.get(seat);
+                if (channel != null && !channel.received(Arrays.copyOf(line, length))) {
+                    channel.close();
+                }
+            }
+        } catch (IOException lost) {
+            //The channels read the end of their stream, as if the connection was closed
+        } finally {
+            closed = true;
+            channels.values().forEach(Channel::closedByPeer);
+            channels.clear();
+        }
+    }
+
+    /**
+     * Writes the given lines, each one in its own frame starting with the given prefix, and flushes them
+     */
+    private void send(byte[] prefix, byte[] lines, int length) throws IOException {
+        synchronized (output) {
+            int start = 0;
+            while (start < length) {
+                int end = start;
+                while (lines[end] != NetUtils.LINE_RETURN) {
+                    end++;
+                }
+                output.write(prefix);
+                output.write(lines, start, end + 1 - start);
+                start = end + 1;
+            }
+            output.flush();
+        }
+    }
+
+    private void sendControl(int seat, char control) throws IOException {
+        synchronized (output) {
+            output.write((seat + String.valueOf(control) + NetUtils.LINE_RETURN).getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+        }
+    }
+
+    /**
+     * Logical connection of a seat: the lines it receives are queued by the demultiplexer, and the lines written into it
+     * are sent when it is flushed
+     */
+    private final class Channel implements Connection {
+        private final int seat;
+        //Start of the frames of the seat: "seat "
+        private final byte[] prefix;
+        //One more place than the lines it can hold, for the end of the channel
+        private final BlockingQueue<byte[]> received = new LinkedBlockingQueue<>(MAX_QUEUED_LINES + 1);
+        private final ChannelInputStream inputStream = new ChannelInputStream();
+        private final ChannelOutputStream outputStream = new ChannelOutputStream();
+
+        private volatile int readTimeoutMillis;
+        private volatile boolean channelClosed;
+
+        private Channel(int seat) {
+            this.seat = seat;
+            this.prefix = (seat + " ").getBytes(StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Queues a received line
+         *
+         * @return false if the channel already holds MAX_QUEUED_LINES unread lines
+         */
+        private boolean received(byte[] line) {
+            return received.remainingCapacity() > 1 && received.offer(line);
+        }
+
+        private void closedByPeer() {
+            channelClosed = true;
+            //Fails only if the end of the channel is already queued
+            received.offer(END_OF_CHANNEL);
+        }
+
+        @Override
+        public InputStream inputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public OutputStream outputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public void setReadTimeout(int timeoutMillis) {
+            Preconditions.checkArgument(timeoutMillis >= 0);
+            readTimeoutMillis = timeoutMillis;
+        }
+
+        /**
+         * Closes the channel, and tells the other side
+         */
+        @Override
+        public void close() throws IOException {
+            if (channelClosed) {
+                return;
+            }
+            closedByPeer();
+            channels.remove(seat);
+            if (!closed) {
+                sendControl(seat, CLOSE);
+            }
+        }
+
+        /**
+         * Input stream reading the received lines one after the other
+         */
+        private final class ChannelInputStream extends InputStream {
+            private byte[] line;
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (!fill()) {
+                    return -1;
+                }
+                return line[position++] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                Objects.checkFromIndexSize(offset, length, bytes.length);
+                if (length == 0) {
+                    return 0;
+                }
+                if (!fill()) {
+                    return -1;
+                }
+                int read = Math.min(length, line.length - position);
+                System.arraycopy(line, position, bytes, offset, read);
+                position += read;
+
+                return read;
+            }
+
+            @Override
+            public int available() {
+                return line == null ? 0 : line.length - position;
+            }
+
+            /**
+             * Makes sure the current line has unread bytes, waiting for the next line if needed
+             *
+             * @return false if the channel is closed and all its lines were read
+             */
+            private boolean fill() throws IOException {
+                while (line == null || position == line.length) {
+                    if (line == END_OF_CHANNEL) {
+                        return false;
+                    }
+                    line = take();
+                    position = 0;
+                }
+                return true;
+            }
+
+            private byte[] take() throws IOException {
+                try {
+                    int timeout = readTimeoutMillis;
+                    if (timeout == 0) {
+                        return received.take();
+                    }
+                    byte[] next = received.poll(timeout, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        throw new SocketTimeoutException("Read timed out");
+                    }
+                    return next;
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+
+        /**
+         * Output stream gathering the lines written until a flush, which sends them
+         */
+        private final class ChannelOutputStream extends OutputStream {
+            private byte[] buffer = new byte[BUFFER_SIZE];
+            private int count;
+
+            @Override
+            public void write(int b) {
+                ensureCapacity(count + 1);
+                buffer[count++] = (byte) b;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                Objects.checkFromIndexSize(offset, length, bytes.length);
+                ensureCapacity(count + length);
+                System.arraycopy(bytes, offset, buffer, count, length);
+                count += length;
+            }
+
+            /**
+             * Sends the complete lines written so far; an incomplete line waits for its end
+             */
+            @Override
+            public void flush() throws IOException {
+                int complete = count;
+                while (complete > 0 && buffer[complete - 1] != NetUtils.LINE_RETURN) {
+                    complete--;
+                }
+                if (complete > 0) {
+                    if (channelClosed || closed) {
+                        throw new IOException("Channel closed");
+                    }
+                    send(prefix, buffer, complete);
+                    System.arraycopy(buffer, complete, buffer, 0, count - complete);
+                    count -= complete;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                Channel.this.close();
+            }
+
+            private void ensureCapacity(int capacity) {
+                Preconditions.checkArgument(capacity >= 0);
+                if (capacity > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.max(capacity, 2 * buffer.length));
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package ch.epfl.tchu.net;
 
-import java.util.Arrays;
-import java.util.Iterator;
+import ch.epfl.tchu.Preconditions;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Class for all utilities common to multiple classes in the net package.
@@ -11,19 +15,161 @@ class NetUtils {
     private NetUtils(){}
 
     /**
-     * The number of times the pattern is applied in the split method.
-     * -1 to be applied as many times as possible
+     * Character separating the message id and the arguments of a message
+     */
+    static final String SPACE = " ";
+
+    /**
+     * Character ending every message
+     */
+    static final char LINE_RETURN = '\n';
+
+    /**
+     * Default time (in milliseconds) after which an idle connection sends a heartbeat
+     */
+    static final long HEARTBEAT_INTERVAL_MILLIS = 5_000;
+
+    /**
+     * Number of heartbeat intervals without receiving anything after which the peer is considered dead
      */
-    static final int PATTERN_LIMIT = -1;
+    static final int MISSED_HEARTBEATS = 3;
 
     /**
-     * Creates an iterator from a given string that will be split up
-     * @param next : the string to be split
-     * @param patternDelimiter : the pattern the split will be based on
-     * @return an iterator of type String
+     * Computes the read timeout detecting a dead peer which sends heartbeats at the given interval
+     * @param heartbeatIntervalMillis : the interval (in milliseconds) of the heartbeats, 0 if there are none
+     * @return the read timeout (in milliseconds), 0 for no timeout
      */
-    static Iterator<String> getStringIterator(String next, String patternDelimiter) {
-        String[] playerNamesSerialized = next.split(patternDelimiter, PATTERN_LIMIT);
-        return Arrays.stream(playerNamesSerialized).iterator();
+    static int deadPeerTimeoutMillis(long heartbeatIntervalMillis) {
+        return (int) Math.min(MISSED_HEARTBEATS * heartbeatIntervalMillis, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Writes a whole message: its id followed by its arguments, each preceded by a space, and a line return
+     * @param destination : where the message is written
+     * @param messageId : the id of the message
+     * @param arguments : the arguments of the message
+     * @throws IOException if the destination can't be written to
+     */
+    static void writeMessage(Appendable destination, MessageId messageId, MessageArgument<?>... arguments) throws IOException {
+        destination.append(messageId.name());
+        for (MessageArgument<?> argument : arguments) {
+            destination.append(SPACE);
+            argument.writeTo(destination);
+        }
+        destination.append(LINE_RETURN);
+    }
+
+    /**
+     * Writes a whole answer: the correlation id of the request it answers followed by its content, and a line return
+     * @param destination : where the answer is written
+     * @param correlationId : the correlation id of the answered request
+     * @param content : the content of the answer
+     * @throws IOException if the destination can't be written to
+     */
+    static void writeAnswer(Appendable destination, int correlationId, MessageArgument<?>... content) throws IOException {
+        appendInt(destination, correlationId);
+        for (MessageArgument<?> argument : content) {
+            destination.append(SPACE);
+            argument.writeTo(destination);
+        }
+        destination.append(LINE_RETURN);
+    }
+
+    /**
+     * Reads a line one byte at a time, so that nothing after it is consumed from the stream
+     * @param inputStream : the stream the line is read from
+     * @param maxLength : the maximal length of the line
+     * @return the line, without its line return
+     * @throws EOFException if the stream ends before the line return
+     * @throws IllegalArgumentException if the line is longer than the maximal length
+     * @throws IOException if the stream can't be read
+     */
+    static String readPlainLine(InputStream inputStream, int maxLength) throws IOException {
+        StringBuilder line = new StringBuilder();
+
+        int read;
+        while ((read = inputStream.read()) != LINE_RETURN) {
+            if (read == -1) {
+                throw new EOFException();
+            }
+            Preconditions.checkArgument(line.length() < maxLength);
+            line.append((char) read);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Finds the first occurrence of the delimiter in the given range of characters
+     * @param text : the characters to search
+     * @param delimiter : the delimiter to find
+     * @param from : index where the search starts (inclusive)
+     * @param to : index where the search ends (exclusive)
+     * @return the index of the delimiter, or to if the range doesn't contain it
+     */
+    static int indexOf(CharSequence text, String delimiter, int from, int to) {
+        int last = to - delimiter.length();
+        for (int i = from; i <= last; i++) {
+            if (regionMatches(text, i, delimiter)) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static boolean regionMatches(CharSequence text, int index, String delimiter) {
+        for (int j = 0; j < delimiter.length(); j++) {
+            if (text.charAt(index + j) != delimiter.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the decimal representation of an integer without building a string
+     * @param destination : where the digits are written
+     * @param value : the integer to write
+     * @throws IOException if the destination can't be written to
+     */
+    static void appendInt(Appendable destination, int value) throws IOException {
+        if (value < 0) {
+            destination.append('-');
+        }
+        long magnitude = Math.abs((long) value);
+        long divisor = 1;
+        while (divisor * 10 <= magnitude) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            destination.append((char) ('0' + magnitude / divisor % 10));
+        }
+    }
+
+    /**
+     * Creates an appendable writing each character as one US-ASCII byte into the given buffer
+     * @param buffer : the buffer to write into
+     * @return an appendable view of the buffer
+     */
+    static Appendable asciiAppendable(ByteBuffer buffer) {
+        return new Appendable() {
+            @Override
+            public Appendable append(CharSequence csq) {
+                return append(csq, 0, csq.length());
+            }
+
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) {
+                for (int i = start; i < end; i++) {
+                    buffer.put((byte) csq.charAt(i));
+                }
+                return this;
+            }
+
+            @Override
+            public Appendable append(char c) {
+                buffer.put((byte) c);
+                return this;
+            }
+        };
     }
 }
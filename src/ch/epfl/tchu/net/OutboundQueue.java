@@ -0,0 +1,204 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound queue of the messages of a connection, drained by its own writer thread. The writer thread writes all the
+ * pending messages at once, and only flushes them when one of them awaits an answer, or once the oldest unflushed one
+ * lingered for a while: the notifications preceding a request leave in the same segment as the request.
+ *
+ * The messages are enqueued as their id and arguments, and serialized by the writer thread straight into the writer, which
+ * also records their metrics and traces them. They are written in the order they were enqueued. When nothing was written
+ * for a heartbeat interval, the writer thread sends a HEARTBEAT so that the client knows the server is alive.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class OutboundQueue {
+    /**
+     * Default time (in milliseconds) a message not awaiting an answer can wait before being flushed
+     */
+    static final long DEFAULT_LINGER_MILLIS = 2;
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 1_000;
+    private static final Message HEARTBEAT = new Message(MessageId.HEARTBEAT, new MessageArgument<?>[0]);
+
+    private final CountingAppendable output;
+    private final Writer writer;
+    private final long lingerNanos;
+    private final long heartbeatNanos;
+    private final ProtocolMetrics metrics;
+    private final SampledTrace trace;
+    private final Deque<Message> messages = new ArrayDeque<>();
+    private final Thread writerThread;
+
+    private boolean flushRequested;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Creates the queue of the given writer and starts its writer thread
+     *
+     * @param writer                  : the (buffered) writer of the connection, only used by the writer thread from now on
+     * @param lingerMillis            : the time (in milliseconds) a message not awaiting an answer can wait before being flushed
+     * @param heartbeatIntervalMillis : the time (in milliseconds) without writing anything after which a heartbeat is
+     *                                sent, 0 for no heartbeats
+     */
+    OutboundQueue(Writer writer, long lingerMillis, long heartbeatIntervalMillis) {
+        this(writer, lingerMillis, heartbeatIntervalMillis, ProtocolMetrics.NONE, new SampledTrace(0, System.out));
+    }
+
+    /**
+     * Creates the queue of the given writer, recording the metrics of the messages it writes, and starts its writer thread
+     *
+     * @param writer                  : the (buffered) writer of the connection, only used by the writer thread from now on
+     * @param lingerMillis            : the time (in milliseconds) a message not awaiting an answer can wait before being flushed
+     * @param heartbeatIntervalMillis : the time (in milliseconds) without writing anything after which a heartbeat is
+     *                                sent, 0 for no heartbeats
+     * @param metrics                 : the sink of the metrics of the written messages
+     * @param trace                   : the trace of the written messages
+     */
+    OutboundQueue(Writer writer, long lingerMillis, long heartbeatIntervalMillis, ProtocolMetrics metrics,
+                  SampledTrace trace) {
+        Preconditions.checkArgument(lingerMillis >= 0 && heartbeatIntervalMillis >= 0);
+
+        this.writer = writer;
+        this.output = new CountingAppendable(writer);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis);
+        this.metrics = metrics;
+        this.trace = trace;
+        this.writerThread = new Thread(this::writeMessages, "outbound-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Adds a message at the end of the queue
+     *
+     * @param messageId : the id of the message
+     * @param arguments : the arguments of the message, which mustn't be modified afterwards
+     * @param flush     : true if the message awaits an answer, so that it must be flushed right away
+     * @throws IOException if writing a previous message failed, or if the queue is closed
+     */
+    synchronized void enqueue(MessageId messageId, MessageArgument<?>[] arguments, boolean flush) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IOException("Queue closed");
+        }
+        messages.addLast(new Message(messageId, arguments));
+        flushRequested |= flush;
+        notifyAll();
+    }
+
+    /**
+     * Closes the queue: the writer thread writes and flushes the pending messages, then stops. Waits for it for a while.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeMessages() {
+        boolean unflushed = false;
+        long flushDeadline = 0;
+        long lastFlush = System.nanoTime();
+
+        try {
+            while (true) {
+                List<Message> batch;
+                boolean flush;
+
+                synchronized (this) {
+                    while (messages.isEmpty() && !closed && !(unflushed && System.nanoTime() - flushDeadline >= 0)) {
+                        if (unflushed) {
+                            TimeUnit.NANOSECONDS.timedWait(this, flushDeadline - System.nanoTime());
+                        } else if (heartbeatNanos == 0) {
+                            wait();
+                        } else if (System.nanoTime() - lastFlush < heartbeatNanos) {
+                            TimeUnit.NANOSECONDS.timedWait(this, lastFlush + heartbeatNanos - System.nanoTime());
+                        } else {
+                            messages.addLast(HEARTBEAT);
+                            flushRequested = true;
+                        }
+                    }
+                    if (messages.isEmpty() && closed && !unflushed) {
+                        return;
+                    }
+                    batch = new ArrayList<>(messages);
+                    messages.clear();
+                    flush = flushRequested || closed;
+                    flushRequested = false;
+                }
+
+                for (Message message : batch) {
+                    write(message);
+                }
+                if (!unflushed && !batch.isEmpty()) {
+                    unflushed = true;
+                    flushDeadline = System.nanoTime() + lingerNanos;
+                }
+                if (flush || System.nanoTime() - flushDeadline >= 0) {
+                    writer.flush();
+                    unflushed = false;
+                    lastFlush = System.nanoTime();
+                }
+            }
+        } catch (IOException ioException) {
+            fail(ioException);
+        } catch (InterruptedException interruptedException) {
+            fail(new InterruptedIOException());
+        }
+    }
+
+    private void write(Message message) throws IOException {
+        long start = System.nanoTime();
+        long written = output.count();
+        NetUtils.writeMessage(output, message.messageId, message.arguments);
+        if (message == HEARTBEAT) {
+            return;
+        }
+        metrics.messageSent(message.messageId, (int) (output.count() - written), System.nanoTime() - start);
+
+        if (trace.sample()) {
+            StringBuilder line = new StringBuilder();
+            NetUtils.writeMessage(line, message.messageId, message.arguments);
+            trace.print("->", line);
+        }
+    }
+
+    private synchronized void fail(IOException ioException) {
+        failure = ioException;
+        messages.clear();
+    }
+
+    /**
+     * A message waiting in the queue: its id and its arguments, serialized once it is written
+     */
+    private static final class Message {
+        private final MessageId messageId;
+        private final MessageArgument<?>[] arguments;
+
+        private Message(MessageId messageId, MessageArgument<?>[] arguments) {
+            this.messageId = messageId;
+            this.arguments = arguments;
+        }
+    }
+}
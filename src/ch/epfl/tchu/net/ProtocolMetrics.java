@@ -0,0 +1,53 @@
+package ch.epfl.tchu.net;
+
+/**
+ * Sink of the metrics of the protocol, fed by the proxies and the clients. All methods do nothing by default,
+ * so that an implementation only redefines what it records. Implementations must be thread safe, a single sink
+ * being usually shared by all the proxies of a server.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public interface ProtocolMetrics {
+    /**
+     * Sink ignoring all metrics
+     */
+    ProtocolMetrics NONE = new ProtocolMetrics() {
+    };
+
+    /**
+     * Records the establishment of a connection (or of a reconnection) by a client
+     *
+     * @param setupNanos : the time (in nanoseconds) it took to connect
+     */
+    default void connectionEstablished(long setupNanos) {
+    }
+
+    /**
+     * Records a message that was written on the connection
+     *
+     * @param messageId          : the id of the message (for an answer, the id of the answered request)
+     * @param bytes              : the number of bytes of the message, line return included
+     * @param serializationNanos : the time (in nanoseconds) spent serializing the message
+     */
+    default void messageSent(MessageId messageId, int bytes, long serializationNanos) {
+    }
+
+    /**
+     * Records a message that was read on the connection
+     *
+     * @param messageId : the id of the message (for an answer, the id of the answered request)
+     * @param bytes     : the number of bytes of the message, line return included
+     */
+    default void messageReceived(MessageId messageId, int bytes) {
+    }
+
+    /**
+     * Records the latency of a request: on a proxy, the time between the sending of the request and the reception of
+     * its answer; on a client, the time the client took to answer it once received
+     *
+     * @param messageId    : the id of the request
+     * @param latencyNanos : the latency (in nanoseconds)
+     */
+    default void requestCompleted(MessageId messageId, long latencyNanos) {
+    }
+}
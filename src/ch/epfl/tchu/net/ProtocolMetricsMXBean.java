@@ -0,0 +1,51 @@
+package ch.epfl.tchu.net;
+
+import java.util.Map;
+
+/**
+ * Management interface of the metrics of the protocol, as seen in a JMX console. Every map associates the name of a
+ * message id to the corresponding value.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public interface ProtocolMetricsMXBean {
+    /**
+     * @return the number of messages sent, by message id
+     */
+    Map<String, Long> getSentMessages();
+
+    /**
+     * @return the number of bytes sent, by message id
+     */
+    Map<String, Long> getSentBytes();
+
+    /**
+     * @return the number of messages received, by message id
+     */
+    Map<String, Long> getReceivedMessages();
+
+    /**
+     * @return the number of bytes received, by message id
+     */
+    Map<String, Long> getReceivedBytes();
+
+    /**
+     * @return the total time (in microseconds) spent serializing messages, by message id
+     */
+    Map<String, Long> getSerializationMicros();
+
+    /**
+     * @return the median latency (in microseconds) of the requests, by message id
+     */
+    Map<String, Long> getMedianLatencyMicros();
+
+    /**
+     * @return the 99th percentile of the latency (in microseconds) of the requests, by message id
+     */
+    Map<String, Long> getP99LatencyMicros();
+
+    /**
+     * Resets all the metrics
+     */
+    void reset();
+}
@@ -1,29 +1,66 @@
 package ch.epfl.tchu.net;
 
+import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.*;
 
 import java.io.*;
-import java.net.Socket;
+import java.net.ConnectException;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
+import static ch.epfl.tchu.net.NetUtils.SPACE;
 import static ch.epfl.tchu.net.Serdes.*;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Represents a remote player client
  *
+ * If the server gave it a session token, the client reconnects when its connection is lost and resumes the game
+ * where it stopped.
+ *
+ * Unless constructed otherwise, it accepts to compress the connection if the server offers it.
+ *
+ * While its player thinks, the client sends heartbeats so that the server knows it is alive; if the server stays silent
+ * for several heartbeat intervals, the connection is considered lost.
+ *
  * @author Anne-Marie Rusu (296098)
  */
 
 public class RemotePlayerClient {
-    private final Player player;
-    private final String name;
-    private final int port;
+    /**
+     * Default time (in milliseconds) the client keeps trying to reconnect before giving up
+     */
+    public static final long DEFAULT_RESUME_TIMEOUT_MILLIS = 30_000;
 
-    private final String spacePattern = Pattern.quote(" ");
-    private final String commaPattern = Pattern.quote(",");
+    private static final long RECONNECTION_DELAY_MILLIS = 500;
+
+    private final Player player;
+    private final Connection.Connector connector;
+    private final long resumeTimeoutMillis;
+    private final boolean acceptCompression;
+    private final ProtocolMetrics metrics;
+    private final SampledTrace trace = SampledTrace.fromSystemProperty();
+
+    private String sessionToken;
+    private int messagesRead;
+    private int sentAnswers;
+    private int lastCorrelationId;
+    private MessageArgument<?>[] lastAnswer;
+
+    //Request being answered, and the time it was received at
+    private MessageId request;
+    private long requestReceivedAt;
+
+    //Guards the writer, shared by the answers and the heartbeats
+    private final Object writeLock = new Object();
+    private volatile boolean heartbeating;
+    private volatile long lastWrite;
+
+    private Connection connection;
+    private LineReader lineReader;
+    private BufferedWriter bufferedWriter;
+    private CountingAppendable output;
 
     /**
      * Constructor for the Client of a Player (who is not necessarily playing on the same machine)
@@ -33,125 +70,434 @@ public class RemotePlayerClient {
      * @param port   : the port number
      */
     public RemotePlayerClient(Player player, String name, int port) {
-        //Largest number that can be represented by an unsigned 16 bit binary number
-        int maxPortLength = (int) Math.pow(2, 16) - 1;
+        this(player, name, port, DEFAULT_RESUME_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructor for the Client of a Player (who is not necessarily playing on the same machine)
+     *
+     * @param player              : the player to take their turn
+     * @param name                : the host name
+     * @param port                : the port number
+     * @param resumeTimeoutMillis : the time (in milliseconds) the client keeps trying to reconnect after losing its connection
+     */
+    public RemotePlayerClient(Player player, String name, int port, long resumeTimeoutMillis) {
+        this(player, name, port, resumeTimeoutMillis, ProtocolMetrics.NONE);
+    }
+
+    /**
+     * Constructor for the Client of a Player (who is not necessarily playing on the same machine),
+     * recording the metrics of its messages
+     *
+     * @param player              : the player to take their turn
+     * @param name                : the host name
+     * @param port                : the port number
+     * @param resumeTimeoutMillis : the time (in milliseconds) the client keeps trying to reconnect after losing its connection
+     * @param metrics             : the sink of the metrics of the messages
+     */
+    public RemotePlayerClient(Player player, String name, int port, long resumeTimeoutMillis, ProtocolMetrics metrics) {
+        this(player, Connection.Connector.to(name, port), resumeTimeoutMillis, metrics);
+    }
+
+    /**
+     * Constructor for the Client of a Player reaching the server through the given connector, which can give one end
+     * of an in-process loopback
+     *
+     * @param player              : the player to take their turn
+     * @param connector           : the connector opening the connections to the server
+     * @param resumeTimeoutMillis : the time (in milliseconds) the client keeps trying to reconnect after losing its connection
+     * @param metrics             : the sink of the metrics of the messages
+     */
+    public RemotePlayerClient(Player player, Connection.Connector connector, long resumeTimeoutMillis, ProtocolMetrics metrics) {
+        this(player, connector, resumeTimeoutMillis, metrics, true);
+    }
 
+    /**
+     * Constructor for the Client of a Player reaching the server through the given connector, which can give one end
+     * of an in-process loopback, and choosing whether it accepts to compress the connection if the server offers it
+     *
+     * @param player              : the player to take their turn
+     * @param connector           : the connector opening the connections to the server
+     * @param resumeTimeoutMillis : the time (in milliseconds) the client keeps trying to reconnect after losing its connection
+     * @param metrics             : the sink of the metrics of the messages
+     * @param acceptCompression   : true if the client accepts to compress the connection
+     */
+    public RemotePlayerClient(Player player, Connection.Connector connector, long resumeTimeoutMillis, ProtocolMetrics metrics,
+                              boolean acceptCompression) {
         this.player = player;
-        this.name = Objects.requireNonNull(name);
-        this.port = Objects.checkIndex(port, maxPortLength);
+        this.connector = Objects.requireNonNull(connector);
+        this.resumeTimeoutMillis = resumeTimeoutMillis;
+        this.acceptCompression = acceptCompression;
+        this.metrics = Objects.requireNonNull(metrics);
     }
 
     /**
      * Method that runs until the end of the game.
-     * It tries to connect to the socket and then until it reads an empty line,
+     * It tries to connect to the server and then until it reads an empty line,
      * it keeps intercepting the messages and then running the appropriate player methods.
      * If these player methods return a value, the run() method will then serialize that value
-     * and send it back onto the Socket (it will write it with the buffered writer).
+     * and send it back onto the connection (it will write it with the buffered writer).
+     * If the connection is lost during a resumable session, it reconnects and carries on.
      */
     public void run() {
-        try (final Socket socket = new Socket(name, port);
-             final BufferedReader bufferedReader =
-                     new BufferedReader(
-                             new InputStreamReader(socket.getInputStream(),
-                                     US_ASCII));
-             final BufferedWriter bufferedWriter =
-                     new BufferedWriter(
-                             new OutputStreamWriter(socket.getOutputStream(),
-                                     US_ASCII))) {
-            String readLine;
+        Thread heartbeats = new Thread(this::sendHeartbeats, "client-heartbeats");
+        heartbeats.setDaemon(true);
+        try {
+            connect();
+            lastWrite = System.nanoTime();
+            heartbeats.start();
+
+            boolean gameOver = false;
+            while (!gameOver) {
+                try {
+                    readMessages();
+                    gameOver = true;
+                } catch (EOFException endOfStream) {
+                    //The server closes the connection at the end of the game, but a lost connection can look the same
+                    gameOver = !resume(endOfStream);
+                } catch (IOException ioException) {
+                    if (!resume(ioException)) {
+                        throw ioException;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            heartbeats.interrupt();
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Sends a heartbeat whenever nothing was written for a heartbeat interval, until interrupted.
+     * No heartbeat is sent before the server sent its first message, so that it never precedes the answer to COMPRESS
+     * or the RESUME of a reconnection.
+     */
+    private void sendHeartbeats() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(NetUtils.HEARTBEAT_INTERVAL_MILLIS);
+        try {
+            while (true) {
+                long idle = System.nanoTime() - lastWrite;
+                if (idle < intervalNanos) {
+                    TimeUnit.NANOSECONDS.sleep(intervalNanos - idle);
+                    continue;
+                }
+                synchronized (writeLock) {
+                    if (heartbeating) {
+                        try {
+                            NetUtils.writeMessage(bufferedWriter, MessageId.HEARTBEAT);
+                            bufferedWriter.flush();
+                        } catch (IOException lost) {
+                            //The reading thread notices it too, and reconnects
+                        }
+                    }
+                    lastWrite = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException gameOver) {
+            //The game is over
+        }
+    }
+
+    /**
+     * Reads and handles the messages of the server until the server closes the connection
+     *
+     * @throws EOFException if the server closed the connection of a resumable session
+     * @throws IOException  if the connection is lost
+     */
+    private void readMessages() throws IOException {
+        String readLine;
+
+        while ((readLine = readLine()) != null) {
+            messagesRead++;
+            FieldCursor arguments = new FieldCursor(readLine, 0, readLine.length(), SPACE);
+
+            MessageId messageId = messageId(arguments);
+            metrics.messageReceived(messageId, readLine.length() + 1);
+            if (trace.sample()) {
+                trace.print("<-", readLine);
+            }
+            request = messageId;
+            requestReceivedAt = System.nanoTime();
+
+            switch (messageId) {
+                case INIT_PLAYERS:
+                    PlayerId ownId = arguments.next(PLAYER_ID_SERDE);
 
-            while ((readLine = bufferedReader.readLine()) != null) {
-                Iterator<String> arguments = NetUtils.getStringIterator(readLine, spacePattern);
+                    Iterator<String> nameIterator = arguments.next(LIST_STRING_SERDE).iterator();
 
-                switch (MessageId.valueOf(arguments.next())) {
-                    case INIT_PLAYERS:
-                        PlayerId ownId = PLAYER_ID_SERDE.deserialize(arguments.next());
+                    Map<PlayerId, String> playerNames = new HashMap<>();
 
-                        Iterator<String> nameIterator = NetUtils.getStringIterator(arguments.next(), commaPattern);
+                    PlayerId.ALL.forEach(playerId -> playerNames.put(playerId, nameIterator.next()));
 
-                        Map<PlayerId, String> playerNames = new HashMap<>();
+                    if (arguments.hasNext()) {
+                        sessionToken = arguments.next(STRING_SERDE);
+                    }
 
-                        PlayerId.ALL.forEach(playerId -> playerNames.put(playerId, STRING_SERDE.deserialize(nameIterator.next())));
+                    player.initPlayers(ownId, playerNames);
+                    break;
 
-                        player.initPlayers(ownId, playerNames);
-                        break;
+                case RECEIVE_INFO:
+                    String info = arguments.next(STRING_SERDE);
 
-                    case RECEIVE_INFO:
-                        String info = STRING_SERDE.deserialize(arguments.next());
+                    player.receiveInfo(info);
+                    break;
 
-                        player.receiveInfo(info);
-                        break;
+                case UPDATE_STATE:
+                    PublicGameState newState = arguments.next(PUBLIC_GAME_STATE_SERDE);
+                    PlayerState ownState = arguments.next(PLAYER_STATE_SERDE);
 
-                    case UPDATE_STATE:
-                        PublicGameState newState = PUBLIC_GAME_STATE_SERDE.deserialize(arguments.next());
-                        PlayerState ownState = PLAYER_STATE_SERDE.deserialize(arguments.next());
+                    player.updateState(newState, ownState);
+                    break;
 
-                        player.updateState(newState, ownState);
-                        break;
+                case SET_INITIAL_TICKETS:
+                    SortedBag<Ticket> tickets = arguments.next(SORTED_BAG_TICKET_SERDE);
 
-                    case SET_INITIAL_TICKETS:
-                        SortedBag<Ticket> tickets = SORTED_BAG_TICKET_SERDE.deserialize(arguments.next());
+                    player.setInitialTicketChoice(tickets);
+                    break;
 
-                        player.setInitialTicketChoice(tickets);
-                        break;
+                case CHOOSE_INITIAL_TICKETS:
+                    int initialTicketsRequest = arguments.next(INTEGER_SERDE);
+                    SortedBag<Ticket> chosen = player.chooseInitialTickets();
 
-                    case CHOOSE_INITIAL_TICKETS:
-                        SortedBag<Ticket> chosen = player.chooseInitialTickets();
-                        writeAndFlush(bufferedWriter, SORTED_BAG_TICKET_SERDE.serialize(chosen));
-                        break;
+                    answer(initialTicketsRequest, MessageArgument.of(SORTED_BAG_TICKET_SERDE, chosen));
+                    break;
 
-                    case NEXT_TURN:
-                        Player.TurnKind turn = player.nextTurn();
+                case NEXT_TURN:
+                    int turnRequest = arguments.next(INTEGER_SERDE);
+                    Player.TurnKind turn = player.nextTurn();
 
-                        writeAndFlush(bufferedWriter, TURN_KIND_SERDE.serialize(turn));
-                        break;
+                    if (turn == Player.TurnKind.CLAIM_ROUTE) {
+                        //The route and the cards are sent right away, sparing the server two round trips
+                        answer(turnRequest,
+                                MessageArgument.of(TURN_KIND_SERDE, turn),
+                                MessageArgument.of(ROUTE_SERDE, player.claimedRoute()),
+                                MessageArgument.of(SORTED_BAG_CARD_SERDE, player.initialClaimCards()));
+                    } else {
+                        answer(turnRequest, MessageArgument.of(TURN_KIND_SERDE, turn));
+                    }
+                    break;
 
-                    case CHOOSE_TICKETS:
-                        SortedBag<Ticket> ticketOptions = SORTED_BAG_TICKET_SERDE.deserialize(arguments.next());
-                        String chosenTickets = SORTED_BAG_TICKET_SERDE.serialize(player.chooseTickets(ticketOptions));
+                case CHOOSE_TICKETS:
+                    int ticketsRequest = arguments.next(INTEGER_SERDE);
+                    SortedBag<Ticket> ticketOptions = arguments.next(SORTED_BAG_TICKET_SERDE);
 
-                        writeAndFlush(bufferedWriter, chosenTickets);
-                        break;
+                    answer(ticketsRequest, MessageArgument.of(SORTED_BAG_TICKET_SERDE, player.chooseTickets(ticketOptions)));
+                    break;
 
 
-                    case DRAW_SLOT:
-                        int drawSlot = player.drawSlot();
+                case DRAW_SLOT:
+                    int drawSlotRequest = arguments.next(INTEGER_SERDE);
+                    int drawSlot = player.drawSlot();
 
-                        writeAndFlush(bufferedWriter, INTEGER_SERDE.serialize(drawSlot));
-                        break;
+                    answer(drawSlotRequest, MessageArgument.of(INTEGER_SERDE, drawSlot));
+                    break;
 
-                    case ROUTE:
-                        Route claimedRoute = player.claimedRoute();
+                case ROUTE:
+                    int routeRequest = arguments.next(INTEGER_SERDE);
+                    Route claimedRoute = player.claimedRoute();
 
-                        writeAndFlush(bufferedWriter, ROUTE_SERDE.serialize(claimedRoute));
-                        break;
+                    answer(routeRequest, MessageArgument.of(ROUTE_SERDE, claimedRoute));
+                    break;
 
-                    case CARDS:
-                        SortedBag<Card> initialClaimCards = player.initialClaimCards();
+                case CARDS:
+                    int cardsRequest = arguments.next(INTEGER_SERDE);
+                    SortedBag<Card> initialClaimCards = player.initialClaimCards();
 
-                        writeAndFlush(bufferedWriter, SORTED_BAG_CARD_SERDE.serialize(initialClaimCards));
-                        break;
+                    answer(cardsRequest, MessageArgument.of(SORTED_BAG_CARD_SERDE, initialClaimCards));
+                    break;
 
-                    case CHOOSE_ADDITIONAL_CARDS:
-                        List<SortedBag<Card>> cardOptions = LIST_SORTED_BAG_CARD_SERDE.deserialize(arguments.next());
-                        SortedBag<Card> additionalCards = player.chooseAdditionalCards(cardOptions);
+                case CHOOSE_ADDITIONAL_CARDS:
+                    int additionalCardsRequest = arguments.next(INTEGER_SERDE);
+                    List<SortedBag<Card>> cardOptions = arguments.next(LIST_SORTED_BAG_CARD_SERDE);
+                    SortedBag<Card> additionalCards = player.chooseAdditionalCards(cardOptions);
 
-                        writeAndFlush(bufferedWriter, SORTED_BAG_CARD_SERDE.serialize(additionalCards));
-                        break;
-                    default:
-                        throw new Error();
+                    answer(additionalCardsRequest, MessageArgument.of(SORTED_BAG_CARD_SERDE, additionalCards));
+                    break;
+                default:
+                    throw new Error();
+            }
+        }
+        if (sessionToken != null) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Reconnects to the server and resumes the session: the server tells how many answers it received, so that the last
+     * answer is sent again if it was lost, then it resends the last state and the messages the client missed.
+     *
+     * @param cause : the exception revealing the loss of the connection
+     * @return true if the session was resumed, false if it can't be (no session, server gone or session over)
+     */
+    private boolean resume(IOException cause) {
+        closeQuietly();
+        if (sessionToken == null) {
+            return false;
+        }
+        long deadline = System.currentTimeMillis() + resumeTimeoutMillis;
+
+        while (true) {
+            try {
+                connect();
+                connection.setReadTimeout((int) Math.min(resumeTimeoutMillis, Integer.MAX_VALUE));
+
+                synchronized (writeLock) {
+                    NetUtils.writeMessage(bufferedWriter, MessageId.RESUME,
+                            MessageArgument.of(STRING_SERDE, sessionToken),
+                            MessageArgument.of(INTEGER_SERDE, messagesRead));
+                    bufferedWriter.flush();
+                }
+
+                String resumed = readLine();
+                if (resumed == null) {
+                    throw new EOFException();
+                }
+                FieldCursor arguments = new FieldCursor(resumed, 0, resumed.length(), SPACE);
+                Preconditions.checkArgument(messageId(arguments) == MessageId.RESUME);
+                if (!arguments.hasNext()) {
+                    //The server doesn't know the session (anymore)
+                    closeQuietly();
+                    return false;
+                }
+
+                int receivedAnswers = arguments.next(INTEGER_SERDE);
+                if (receivedAnswers < sentAnswers) {
+                    writeAndFlush(lastCorrelationId, lastAnswer);
+                }
+                connection.setReadTimeout(NetUtils.deadPeerTimeoutMillis(NetUtils.HEARTBEAT_INTERVAL_MILLIS));
+                return true;
+            } catch (ConnectException serverGone) {
+                return false;
+            } catch (IOException ioException) {
+                closeQuietly();
+                cause.addSuppressed(ioException);
+                if (System.currentTimeMillis() >= deadline || !sleep(RECONNECTION_DELAY_MILLIS)) {
+                    return false;
                 }
             }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
         }
     }
 
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void connect() throws IOException {
+        long start = System.nanoTime();
+        Connection connection = connector.connect();
+        metrics.connectionEstablished(System.nanoTime() - start);
+
+        this.connection = connection;
+        //The server sends heartbeats while the other player thinks: only a dead one can stay silent that long
+        connection.setReadTimeout(NetUtils.deadPeerTimeoutMillis(NetUtils.HEARTBEAT_INTERVAL_MILLIS));
+        useStreams(connection.inputStream(), connection.outputStream());
+    }
+
+    private void useStreams(InputStream inputStream, OutputStream outputStream) {
+        this.lineReader = new LineReader(
+                new InputStreamReader(inputStream,
+                        US_ASCII));
+        synchronized (writeLock) {
+            this.bufferedWriter = new BufferedWriter(
+                    new OutputStreamWriter(outputStream,
+                            US_ASCII));
+            this.output = new CountingAppendable(bufferedWriter);
+        }
+    }
+
+    /**
+     * Reads the next message of the server, answering first the offer of compression that may start the connection,
+     * and skipping the heartbeats
+     *
+     * @return the message, or null if the server closed the connection
+     * @throws IOException if the connection is lost
+     */
+    private String readLine() throws IOException {
+        String line = lineReader.readLine();
+        if (line != null && line.startsWith(MessageId.COMPRESS.name())) {
+            FieldCursor offer = new FieldCursor(line, 0, line.length(), SPACE);
+            Preconditions.checkArgument(offer.skip(MessageId.COMPRESS.name()) && !offer.hasNext());
+
+            synchronized (writeLock) {
+                NetUtils.writeMessage(bufferedWriter, MessageId.COMPRESS,
+                        MessageArgument.of(INTEGER_SERDE, acceptCompression ? 1 : 0));
+                bufferedWriter.flush();
+            }
+            if (acceptCompression) {
+                //The server sends nothing after its offer before reading the answer: nothing compressed was read yet
+                connection = Compression.compressing(connection);
+                useStreams(connection.inputStream(), connection.outputStream());
+            }
+            line = lineReader.readLine();
+        }
+        while (line != null && line.equals(MessageId.HEARTBEAT.name())) {
+            line = lineReader.readLine();
+        }
+        heartbeating = line != null;
+        return line;
+    }
 
-    private void writeAndFlush(BufferedWriter bufferedWriter, String serialized) throws IOException {
-        final char lineReturn = '\n';
+    private void closeQuietly() {
+        heartbeating = false;
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (IOException ignored) {
+            //The connection is lost anyway
+        }
+    }
 
-        bufferedWriter.write(serialized + lineReturn);
-        bufferedWriter.flush();
+    /**
+     * Reads the id of the message at the start of the line, without extracting it from the line
+     *
+     * @param arguments : the cursor placed at the start of the line
+     * @return the id of the message
+     */
+    private static MessageId messageId(FieldCursor arguments) {
+        for (MessageId messageId : MessageId.values()) {
+            if (arguments.skip(messageId.name())) {
+                return messageId;
+            }
+        }
+        throw new IllegalArgumentException();
+    }
+
+    /**
+     * Sends an answer to the server, starting with the correlation id of the request it answers.
+     * It is kept until the next answer, in case it gets lost with the connection.
+     */
+    private void answer(int correlationId, MessageArgument<?>... answer) throws IOException {
+        lastCorrelationId = correlationId;
+        lastAnswer = answer;
+        sentAnswers++;
+        writeAndFlush(correlationId, answer);
+        metrics.requestCompleted(request, System.nanoTime() - requestReceivedAt);
+    }
+
+    private void writeAndFlush(int correlationId, MessageArgument<?>... answer) throws IOException {
+        synchronized (writeLock) {
+            long start = System.nanoTime();
+            long written = output.count();
+            NetUtils.writeAnswer(output, correlationId, answer);
+            metrics.messageSent(request, (int) (output.count() - written), System.nanoTime() - start);
+
+            if (trace.sample()) {
+                StringBuilder line = new StringBuilder();
+                NetUtils.writeAnswer(line, correlationId, answer);
+                trace.print("->", line);
+            }
+            bufferedWriter.flush();
+            lastWrite = System.nanoTime();
+        }
     }
 }
@@ -6,40 +6,258 @@ import ch.epfl.tchu.game.*;
 
 import java.io.*;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import static ch.epfl.tchu.net.NetUtils.SPACE;
 import static ch.epfl.tchu.net.Serdes.*;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 
 /**
  * Represents a remote player proxy and plays the role of a Player
  *
+ * A proxy constructed with a session registry survives the loss of its connection: it then waits for the client to
+ * reconnect with the session token it received with INIT_PLAYERS, resynchronizes it with the last state of the game and
+ * resends the messages the client hadn't received yet, before the game continues.
+ *
+ * Every request starts with a correlation id that its answer repeats. The answer to a NEXT_TURN of kind CLAIM_ROUTE also
+ * carries the claimed route and the initial cards, so that a claim costs a single round trip.
+ *
+ * The messages are written by the writer thread of the connection: those that don't await an answer are flushed along
+ * with the next request, or after a short linger.
+ *
+ * A proxy can offer its client to compress the connection (see Compression), before any other message of the connection.
+ *
+ * If the system property tchu.capture gives a directory, the proxy records its traffic into a new file of this directory
+ * (see TrafficCapture), and doesn't offer the compression.
+ *
  * @author Victor Canard-Duchêne (326913)
  */
 public class RemotePlayerProxy implements Player {
-    private final BufferedWriter bufferedWriter;
-    private final BufferedReader bufferedReader;
+    /**
+     * Default time (in milliseconds) the proxy waits for its client to reconnect before giving up
+     */
+    public static final long DEFAULT_RESUME_TIMEOUT_MILLIS = 30_000;
+
+    private static final int MAX_COMPRESS_ANSWER_LENGTH = 16;
+
+    private final SessionRegistry sessionRegistry;
+    private final ProtocolMetrics metrics;
+    private final SampledTrace trace = SampledTrace.fromSystemProperty();
+    private final TrafficCapture capture = TrafficCapture.fromSystemProperty();
+    private final String sessionToken;
+    private final long resumeTimeoutMillis;
+    private final boolean offerCompression;
+    private final long heartbeatIntervalMillis;
+    private volatile boolean connectionLost;
+    private final BlockingQueue<Resumption> resumptions = new LinkedBlockingQueue<>();
+
+    //Messages sent since the last answer of the client, which acknowledges all of them
+    private final List<SentMessage> unacknowledgedMessages = new ArrayList<>();
+    private SentMessage lastState;
+    private int sentMessages;
+    private int receivedAnswers;
+
+    //Sent by the client along with a CLAIM_ROUTE turn, until the game asks for them
+    private Route claimedRoute;
+    private SortedBag<Card> initialClaimCards;
+
+    private Connection connection;
+    private OutboundQueue outboundQueue;
+    private LineReader lineReader;
 
     /**
-     * Constructs the proxy using the given socket
+     * Constructs the proxy using the given socket. The game ends if the connection is lost.
      *
      * @param socket : the socket the proxy will use to communicate with the client
      */
     public RemotePlayerProxy(Socket socket) {
-        Preconditions.checkArgument(socket != null);
-        try {
-            this.bufferedWriter = new BufferedWriter(
-                    new OutputStreamWriter(socket.getOutputStream(),
-                            US_ASCII));
-            this.bufferedReader = new BufferedReader(
-                    new InputStreamReader(socket.getInputStream(),
-                            US_ASCII));
+        this(socket, null, 0);
+    }
+
+    /**
+     * Constructs a proxy that can be resumed through the given registry if its connection is lost
+     *
+     * @param socket              : the socket the proxy will use to communicate with the client
+     * @param sessionRegistry     : the registry the client's reconnections go through
+     * @param resumeTimeoutMillis : the time (in milliseconds) the proxy waits for its client to reconnect
+     */
+    public RemotePlayerProxy(Socket socket, SessionRegistry sessionRegistry, long resumeTimeoutMillis) {
+        this(socket, sessionRegistry, resumeTimeoutMillis, ProtocolMetrics.NONE);
+    }
+
+    /**
+     * Constructs a proxy that can be resumed through the given registry if its connection is lost, and which records
+     * the metrics of its messages
+     *
+     * @param socket              : the socket the proxy will use to communicate with the client
+     * @param sessionRegistry     : the registry the client's reconnections go through, null if the proxy can't be resumed
+     * @param resumeTimeoutMillis : the time (in milliseconds) the proxy waits for its client to reconnect
+     * @param metrics             : the sink of the metrics of the messages
+     */
+    public RemotePlayerProxy(Socket socket, SessionRegistry sessionRegistry, long resumeTimeoutMillis, ProtocolMetrics metrics) {
+        this(Connection.of(socket), sessionRegistry, resumeTimeoutMillis, metrics, Compression.offeredBySystemProperty(),
+                NetUtils.HEARTBEAT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Constructs a proxy that can't be resumed, sending heartbeats at the given interval and considering its client dead
+     * when it doesn't hear from it for a few intervals
+     *
+     * @param socket                  : the socket the proxy will use to communicate with the client
+     * @param heartbeatIntervalMillis : the interval (in milliseconds) of the heartbeats, 0 for no heartbeats
+     */
+    RemotePlayerProxy(Socket socket, long heartbeatIntervalMillis) {
+        this(Connection.of(socket), null, 0, ProtocolMetrics.NONE, false, heartbeatIntervalMillis);
+    }
+
+    /**
+     * Constructs a proxy communicating with its client over the given connection, which can be an in-process loopback.
+     * The game ends if the connection is lost.
+     *
+     * @param connection : the connection the proxy will use to communicate with the client
+     * @param metrics    : the sink of the metrics of the messages
+     */
+    public RemotePlayerProxy(Connection connection, ProtocolMetrics metrics) {
+        this(connection, metrics, Compression.offeredBySystemProperty());
+    }
+
+    /**
+     * Constructs a proxy communicating with its client over the given connection, and offering to compress it.
+     * The game ends if the connection is lost.
+     *
+     * @param connection       : the connection the proxy will use to communicate with the client
+     * @param metrics          : the sink of the metrics of the messages
+     * @param offerCompression : true if the proxy offers the client to compress the connection
+     */
+    public RemotePlayerProxy(Connection connection, ProtocolMetrics metrics, boolean offerCompression) {
+        this(connection, null, 0, metrics, offerCompression, NetUtils.HEARTBEAT_INTERVAL_MILLIS);
+    }
 
+    private RemotePlayerProxy(Connection connection, SessionRegistry sessionRegistry, long resumeTimeoutMillis,
+                              ProtocolMetrics metrics, boolean offerCompression, long heartbeatIntervalMillis) {
+        Preconditions.checkArgument(connection != null && metrics != null);
+        Preconditions.checkArgument(resumeTimeoutMillis >= 0 && heartbeatIntervalMillis >= 0);
+
+        this.sessionRegistry = sessionRegistry;
+        this.metrics = metrics;
+        this.resumeTimeoutMillis = resumeTimeoutMillis;
+        //A compressed connection can't be captured
+        this.offerCompression = offerCompression && capture == null;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        this.sessionToken = UUID.randomUUID().toString();
+        try {
+            connect(connection);
         } catch (IOException ioException) {
             throw new UncheckedIOException(ioException);
         }
+        if (sessionRegistry != null) {
+            sessionRegistry.register(this);
+        }
+    }
+
+    /**
+     * Getter for the token identifying the session of this proxy
+     *
+     * @return the session token
+     */
+    public String sessionToken() {
+        return sessionToken;
+    }
+
+    /**
+     * Determines whether the proxy lost its client for good (it didn't reconnect in time, or its session can't be
+     * resumed): the proxy then fails, which ends the game, and its connection is closed.
+     *
+     * @return true if the connection of the proxy is lost
+     */
+    public boolean connectionLost() {
+        return connectionLost;
+    }
+
+    /**
+     * Hands a new connection of the client to the proxy, which will use it as soon as it notices the loss of the old one
+     *
+     * @param connection   : the new connection of the client
+     * @param messagesRead : the number of messages the client has received
+     */
+    void resume(Connection connection, int messagesRead) {
+        resumptions.add(new Resumption(connection, messagesRead));
+    }
+
+    /**
+     * Ends the session once the game is over: its client can't resume it anymore and the current connection is closed,
+     * once the last messages are flushed
+     */
+    public void close() {
+        if (sessionRegistry != null) {
+            sessionRegistry.unregister(this);
+        }
+        outboundQueue.close();
+        closeQuietly(connection);
+        if (capture != null) {
+            closeQuietly(capture);
+        }
+    }
+
+    private void connect(Connection connection) throws IOException {
+        if (capture != null) {
+            connection = capture.recording(connection);
+        }
+        this.connection = connection;
+        //A live client sends heartbeats while its player thinks: only a dead one can stay silent that long
+        connection.setReadTimeout(NetUtils.deadPeerTimeoutMillis(heartbeatIntervalMillis));
+        InputStream inputStream = connection.inputStream();
+        OutputStream outputStream = connection.outputStream();
+
+        if (offerCompression && compressionAccepted(inputStream, outputStream)) {
+            connection = Compression.compressing(connection);
+            this.connection = connection;
+            inputStream = connection.inputStream();
+            outputStream = connection.outputStream();
+        }
+        this.outboundQueue = new OutboundQueue(
+                new BufferedWriter(
+                        new OutputStreamWriter(outputStream,
+                                US_ASCII)),
+                OutboundQueue.DEFAULT_LINGER_MILLIS,
+                heartbeatIntervalMillis,
+                metrics,
+                trace);
+        this.lineReader = new LineReader(
+                new InputStreamReader(inputStream,
+                        US_ASCII));
+    }
+
+    /**
+     * Offers the client to compress the connection, before any other message
+     *
+     * @param inputStream  : the plain input stream of the connection
+     * @param outputStream : the plain output stream of the connection
+     * @return true if the client accepted
+     * @throws IOException if the connection is lost, or if the answer of the client is malformed
+     */
+    private static boolean compressionAccepted(InputStream inputStream, OutputStream outputStream) throws IOException {
+        Writer writer = new OutputStreamWriter(outputStream, US_ASCII);
+        NetUtils.writeMessage(writer, MessageId.COMPRESS);
+        writer.flush();
+
+        //A malformed answer fails like a lost connection, which is what the callers of the handshake handle
+        try {
+            String answer = NetUtils.readPlainLine(inputStream, MAX_COMPRESS_ANSWER_LENGTH);
+            FieldCursor fields = new FieldCursor(answer, 0, answer.length(), SPACE);
+            Preconditions.checkArgument(fields.skip(MessageId.COMPRESS.name()));
+
+            return fields.next(INTEGER_SERDE) == 1;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException malformedAnswer) {
+            throw new IOException("Malformed answer to " + MessageId.COMPRESS, malformedAnswer);
+        }
     }
 
     /**
@@ -51,118 +269,292 @@ public class RemotePlayerProxy implements Player {
 
     @Override
     public void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames) {
-        String ownId = PLAYER_ID_SERDE.serialize(ownID);
-
-        String namesOfPlayers = LIST_STRING_SERDE.serialize(PlayerId.ALL.stream()
+        List<String> namesOfPlayers = PlayerId.ALL.stream()
                 .map(playerNames::get)
-                .collect(Collectors.toList()));
-
-        sendMessage(MessageId.INIT_PLAYERS, ownId, namesOfPlayers);
+                .collect(Collectors.toList());
+
+        if (sessionRegistry == null) {
+            sendMessage(MessageId.INIT_PLAYERS,
+                    MessageArgument.of(PLAYER_ID_SERDE, ownID),
+                    MessageArgument.of(LIST_STRING_SERDE, namesOfPlayers));
+        } else {
+            sendMessage(MessageId.INIT_PLAYERS,
+                    MessageArgument.of(PLAYER_ID_SERDE, ownID),
+                    MessageArgument.of(LIST_STRING_SERDE, namesOfPlayers),
+                    MessageArgument.of(STRING_SERDE, sessionToken));
+        }
 
     }
 
     @Override
     public void receiveInfo(String info) {
-        sendMessage(MessageId.RECEIVE_INFO, STRING_SERDE.serialize(info));
+        sendMessage(MessageId.RECEIVE_INFO, MessageArgument.of(STRING_SERDE, info));
     }
 
     @Override
     public void updateState(PublicGameState newState, PlayerState ownState) {
-        String gameStateString = PUBLIC_GAME_STATE_SERDE.serialize(newState);
-        String playerStateString = PLAYER_STATE_SERDE.serialize(ownState);
-
-        sendMessage(MessageId.UPDATE_STATE, gameStateString, playerStateString);
+        sendMessage(MessageId.UPDATE_STATE,
+                MessageArgument.of(PUBLIC_GAME_STATE_SERDE, newState),
+                MessageArgument.of(PLAYER_STATE_SERDE, ownState));
     }
 
     @Override
     public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
-        String initialTickets = SORTED_BAG_TICKET_SERDE.serialize(tickets);
-
-        sendMessage(MessageId.SET_INITIAL_TICKETS, initialTickets);
+        sendMessage(MessageId.SET_INITIAL_TICKETS, MessageArgument.of(SORTED_BAG_TICKET_SERDE, tickets));
     }
 
     @Override
     public SortedBag<Ticket> chooseInitialTickets() {
-        sendMessage(MessageId.CHOOSE_INITIAL_TICKETS);
-
-        return SORTED_BAG_TICKET_SERDE.deserialize(receiveMessage());
+        return sendRequest(MessageId.CHOOSE_INITIAL_TICKETS).next(SORTED_BAG_TICKET_SERDE);
     }
 
     @Override
     public TurnKind nextTurn() {
-        sendMessage(MessageId.NEXT_TURN);
+        FieldCursor answer = sendRequest(MessageId.NEXT_TURN);
+        TurnKind turn = answer.next(TURN_KIND_SERDE);
 
-        return TURN_KIND_SERDE.deserialize(receiveMessage());
+        if (turn == TurnKind.CLAIM_ROUTE && answer.hasNext()) {
+            //The client sent the claimed route and the initial cards along with its turn
+            claimedRoute = answer.next(ROUTE_SERDE);
+            initialClaimCards = answer.next(SORTED_BAG_CARD_SERDE);
+        }
+        return turn;
     }
 
     @Override
     public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
-        String ticketOptions = SORTED_BAG_TICKET_SERDE.serialize(options);
-
-        sendMessage(MessageId.CHOOSE_TICKETS, ticketOptions);
-
-        return SORTED_BAG_TICKET_SERDE.deserialize(receiveMessage());
+        return sendRequest(MessageId.CHOOSE_TICKETS, MessageArgument.of(SORTED_BAG_TICKET_SERDE, options))
+                .next(SORTED_BAG_TICKET_SERDE);
     }
 
     @Override
     public int drawSlot() {
-        sendMessage(MessageId.DRAW_SLOT);
-
-        return INTEGER_SERDE.deserialize(receiveMessage());
+        return sendRequest(MessageId.DRAW_SLOT).next(INTEGER_SERDE);
     }
 
     @Override
     public Route claimedRoute() {
-        sendMessage(MessageId.ROUTE);
-        return ROUTE_SERDE.deserialize(receiveMessage());
+        if (claimedRoute == null) {
+            return sendRequest(MessageId.ROUTE).next(ROUTE_SERDE);
+        }
+        Route route = claimedRoute;
+        claimedRoute = null;
+        return route;
     }
 
     @Override
     public SortedBag<Card> initialClaimCards() {
-        sendMessage(MessageId.CARDS);
-
-        return SORTED_BAG_CARD_SERDE.deserialize(receiveMessage());
+        if (initialClaimCards == null) {
+            return sendRequest(MessageId.CARDS).next(SORTED_BAG_CARD_SERDE);
+        }
+        SortedBag<Card> cards = initialClaimCards;
+        initialClaimCards = null;
+        return cards;
     }
 
     @Override
     public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
-        String optionsString = LIST_SORTED_BAG_CARD_SERDE.serialize(options);
-        sendMessage(MessageId.CHOOSE_ADDITIONAL_CARDS, optionsString);
+        return sendRequest(MessageId.CHOOSE_ADDITIONAL_CARDS, MessageArgument.of(LIST_SORTED_BAG_CARD_SERDE, options))
+                .next(SORTED_BAG_CARD_SERDE);
+    }
 
-        return SORTED_BAG_CARD_SERDE.deserialize(receiveMessage());
+    /**
+     * Sends a request to the client and waits for its answer. The request carries its correlation id, the number of
+     * answers received before it, which the answer starts with.
+     *
+     * @param messageId : the id of the request
+     * @param arguments : the arguments of the request, after the correlation id
+     * @return the cursor placed on the content of the answer, after its correlation id
+     */
+    private FieldCursor sendRequest(MessageId messageId, MessageArgument<?>... arguments) {
+        MessageArgument<?>[] allArguments = new MessageArgument<?>[arguments.length + 1];
+        allArguments[0] = MessageArgument.of(INTEGER_SERDE, receivedAnswers);
+        System.arraycopy(arguments, 0, allArguments, 1, arguments.length);
+
+        long start = System.nanoTime();
+        send(messageId, true, allArguments);
+        FieldCursor answer = receiveAnswer(messageId);
+        metrics.requestCompleted(messageId, System.nanoTime() - start);
+
+        return answer;
     }
 
     /**
-     * Sends a message to the client
+     * Sends a message which doesn't await any answer to the client. It is flushed along with the next request, or after
+     * a short linger.
      *
      * @param messageId                 : the id corresponding to the type of action taking place as described in the MessageId enum
      * @param allParametersOfTheMessage : the parameters corresponding to the arguments of the method used for the specified action
      */
-    private void sendMessage(MessageId messageId, String... allParametersOfTheMessage) {
-        try {
-            String space = " ";
-            char lineReturn = '\n';
-            String message = messageId.name() + space + String.join(space, allParametersOfTheMessage) + lineReturn;
+    private void sendMessage(MessageId messageId, MessageArgument<?>... allParametersOfTheMessage) {
+        send(messageId, false, allParametersOfTheMessage);
+    }
 
-            System.out.println(message);
-            bufferedWriter.write(message);
-            bufferedWriter.flush();
+    /**
+     * Hands a message to the outbound queue of the connection, whose writer thread serializes it
+     *
+     * @param messageId                 : the id of the message
+     * @param awaitsAnswer              : true if the message is a request, which must be flushed right away
+     * @param allParametersOfTheMessage : the arguments of the message
+     */
+    private void send(MessageId messageId, boolean awaitsAnswer, MessageArgument<?>[] allParametersOfTheMessage) {
+        SentMessage message = new SentMessage(messageId, allParametersOfTheMessage);
+        if (sessionRegistry != null) {
+            unacknowledgedMessages.add(message);
+            if (messageId == MessageId.UPDATE_STATE) {
+                lastState = message;
+            }
+        }
+        try {
+            write(message, awaitsAnswer);
 
         } catch (IOException ioException) {
-            throw new UncheckedIOException(ioException);
+            //The message is still unacknowledged, so it is resent once the client is back
+            resume(ioException);
+        }
+    }
+
+    /**
+     * Receives the answer to the last request. Answers to older requests, which a resumed client may send twice, are ignored.
+     *
+     * @param request : the id of the last request
+     * @return the cursor placed on the content of the answer, after its correlation id
+     */
+    private FieldCursor receiveAnswer(MessageId request) {
+        while (true) {
+            try {
+                String answer = lineReader.readLine();
+                if (answer == null) {
+                    throw new EOFException();
+                }
+                if (answer.equals(MessageId.HEARTBEAT.name())) {
+                    continue;
+                }
+                metrics.messageReceived(request, answer.length() + 1);
+                if (trace.sample()) {
+                    trace.print("<-", answer);
+                }
+                FieldCursor fields = new FieldCursor(answer, 0, answer.length(), SPACE);
+                int correlationId = fields.next(INTEGER_SERDE);
+                if (correlationId < receivedAnswers) {
+                    continue;
+                }
+                Preconditions.checkArgument(correlationId == receivedAnswers);
+
+                //An answer acknowledges every message sent before it
+                receivedAnswers++;
+                unacknowledgedMessages.clear();
+
+                return fields;
+            } catch (IOException ioException) {
+                resume(ioException);
+            }
         }
     }
 
+    private void write(SentMessage message, boolean flush) throws IOException {
+        message.sequenceNumber = sentMessages++;
+        outboundQueue.enqueue(message.messageId, message.arguments, flush);
+    }
+
     /**
-     * Receives a message from the client
+     * Waits for the client to reconnect after the loss of the connection, then resynchronizes it: sends again, in order,
+     * the unacknowledged messages the client didn't receive (the pending request among them), skipping the outdated states.
      *
-     * @return the message String
+     * @param cause : the exception revealing the loss of the connection
+     * @throws UncheckedIOException if the proxy can't be resumed, or if the client didn't reconnect in time
      */
-    private String receiveMessage() {
+    private void resume(IOException cause) {
+        //The connection is useless now, its socket is freed right away
+        closeQuietly(connection);
+        outboundQueue.close();
+
+        if (sessionRegistry == null) {
+            throw lost(cause);
+        }
+        Resumption resumption;
         try {
-            return bufferedReader.readLine();
+            resumption = resumptions.poll(resumeTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw lost(cause);
+        }
+        if (resumption == null) {
+            throw lost(cause);
+        }
+
+        try {
+            connect(resumption.connection);
+
+            //The client compares this count with the answers it sent, to know if its last answer was lost
+            outboundQueue.enqueue(MessageId.RESUME,
+                    new MessageArgument<?>[]{MessageArgument.of(INTEGER_SERDE, receivedAnswers)}, true);
+
+            List<SentMessage> missedMessages = new ArrayList<>();
+            for (SentMessage message : unacknowledgedMessages) {
+                //The states older than the last one are outdated, only the last one is worth sending again
+                boolean outdated = message.messageId == MessageId.UPDATE_STATE && message != lastState;
+                if (message.sequenceNumber >= resumption.messagesRead && !outdated) {
+                    missedMessages.add(message);
+                }
+            }
+            //The messages sent on the lost connection after those the client read never reached it: numbering restarts from there
+            sentMessages = resumption.messagesRead;
+            for (SentMessage message : missedMessages) {
+                write(message, true);
+            }
         } catch (IOException ioException) {
-            throw new UncheckedIOException(ioException);
+            resume(ioException);
+        }
+    }
+
+    /**
+     * Gives up the client: its session ends, so that a late reconnection is refused
+     *
+     * @param cause : the exception revealing the loss of the connection
+     * @return the exception to throw, which ends the game
+     */
+    private UncheckedIOException lost(IOException cause) {
+        connectionLost = true;
+        if (sessionRegistry != null) {
+            sessionRegistry.unregister(this);
+        }
+        return new UncheckedIOException(cause);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            //The connection is already lost, or the capture incomplete
+        }
+    }
+
+    /**
+     * A message sent to the client, kept until the client acknowledges it
+     */
+    private static final class SentMessage {
+        private final MessageId messageId;
+        private final MessageArgument<?>[] arguments;
+        //Number of messages sent before the last sending of this one
+        private int sequenceNumber;
+
+        private SentMessage(MessageId messageId, MessageArgument<?>[] arguments) {
+            this.messageId = messageId;
+            this.arguments = arguments;
+        }
+    }
+
+    /**
+     * A new connection of the client, along with the progress the client reports
+     */
+    private static final class Resumption {
+        private final Connection connection;
+        private final int messagesRead;
+
+        private Resumption(Connection connection, int messagesRead) {
+            this.connection = connection;
+            this.messagesRead = messagesRead;
         }
     }
 }
@@ -0,0 +1,78 @@
+package ch.epfl.tchu.net;
+
+import java.io.PrintStream;
+
+import static ch.epfl.tchu.net.NetUtils.LINE_RETURN;
+import static ch.epfl.tchu.net.NetUtils.SPACE;
+
+/**
+ * Opt-in trace of the messages of the protocol, printing one message out of every n. It is disabled unless the system
+ * property tchu.trace gives the sampling period (1 to trace every message), so that nothing is printed by default.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+final class SampledTrace {
+    /**
+     * Name of the system property enabling the trace
+     */
+    static final String PROPERTY = "tchu.trace";
+
+    private static final SampledTrace DISABLED = new SampledTrace(0, System.out);
+
+    private final int samplingPeriod;
+    private final PrintStream output;
+    private int messages;
+
+    /**
+     * Creates a trace
+     *
+     * @param samplingPeriod : one message out of samplingPeriod is traced, none if it is 0
+     * @param output         : where the traced messages are printed
+     */
+    SampledTrace(int samplingPeriod, PrintStream output) {
+        this.samplingPeriod = Math.max(samplingPeriod, 0);
+        this.output = output;
+    }
+
+    /**
+     * Creates the trace configured by the system property, disabled if it is missing or invalid
+     *
+     * @return the configured trace
+     */
+    static SampledTrace fromSystemProperty() {
+        try {
+            int samplingPeriod = Integer.getInteger(PROPERTY, 0);
+            return samplingPeriod > 0 ? new SampledTrace(samplingPeriod, System.out) : DISABLED;
+        } catch (SecurityException denied) {
+            return DISABLED;
+        }
+    }
+
+    /**
+     * Determines whether the next message is traced. Must be called once per message, possibly from several threads
+     * (a proxy writes its messages on the thread of its outbound queue).
+     *
+     * @return true if the next message must be traced
+     */
+    synchronized boolean sample() {
+        if (samplingPeriod == 0) {
+            return false;
+        }
+        messages = (messages + 1) % samplingPeriod;
+        return messages == 0;
+    }
+
+    /**
+     * Prints a sampled message
+     *
+     * @param direction : the direction of the message ("->" when it is written, "<-" when it is read)
+     * @param message   : the message, with or without its line return
+     */
+    void print(String direction, CharSequence message) {
+        int length = message.length();
+        if (length > 0 && message.charAt(length - 1) == LINE_RETURN) {
+            length--;
+        }
+        output.println(direction + SPACE + message.subSequence(0, length));
+    }
+}
@@ -2,14 +2,14 @@ package ch.epfl.tchu.net;
 
 import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.DenseIndex;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-
-import static ch.epfl.tchu.net.NetUtils.PATTERN_LIMIT;
 
 /**
  * Represents an object capable of serializing and deserializing values of a given type
@@ -43,6 +43,46 @@ public interface Serde<T> {
         };
     }
 
+    /**
+     * Static generic method that creates a serde writing its values directly into a destination and reading them directly
+     * from a range of characters, without building any intermediate string.
+     *
+     * @param serializer   : writes an object of type T into a destination
+     * @param deserializer : reads an object of type T from a range of characters
+     * @param <T>          : the type contained in the Serde
+     * @return a new streaming Serde of objects of generic type T
+     */
+    static <T> Serde<T> streaming(Serializer<T> serializer, Deserializer<T> deserializer) {
+        return new Serde<>() {
+            @Override
+            public String serialize(T objectToSerialize) {
+                StringBuilder destination = new StringBuilder();
+                try {
+                    serializer.serialize(objectToSerialize, destination);
+                } catch (IOException ioException) {
+                    //A StringBuilder never throws
+                    throw new UncheckedIOException(ioException);
+                }
+                return destination.toString();
+            }
+
+            @Override
+            public void serialize(T objectToSerialize, Appendable destination) throws IOException {
+                serializer.serialize(objectToSerialize, destination);
+            }
+
+            @Override
+            public T deserialize(String stringToDeserialize) {
+                return deserializer.deserialize(stringToDeserialize, 0, stringToDeserialize.length());
+            }
+
+            @Override
+            public T deserialize(CharSequence text, int from, int to) {
+                return deserializer.deserialize(text, from, to);
+            }
+        };
+    }
+
     /**
      * Generic static method that creates a serde capable of serializing and deserializing a value of generic type T; which belongs to a
      * list of objects of type T from an enumerated type.
@@ -54,13 +94,36 @@ public interface Serde<T> {
     static <T> Serde<T> oneOf(List<T> listOfValuesOfEnumType) {
         Preconditions.checkArgument(listOfValuesOfEnumType != null);
 
-        Function<T, String> serializingFunction = (t) -> (t == null) ? emptyString : String.valueOf(listOfValuesOfEnumType.indexOf(t));
+        return indexed(DenseIndex.of(listOfValuesOfEnumType));
+
+
+    }
+
+    /**
+     * Generic static method that creates a serde of the values of a fixed universe, each value being written as its dense id.
+     * Finding the id of a value costs a single hash lookup, and the token of every id is rendered once when the serde is created.
+     *
+     * @param index : the dense index of the universe of values
+     * @param <T>   : the type contained in the Serde
+     * @return a new Serde capable of serializing and deserializing a value T of the given universe
+     */
+    static <T> Serde<T> indexed(DenseIndex<T> index) {
+        Preconditions.checkArgument(index != null);
 
-        Function<String, T> deserializingFunction = (string) -> (string.equals(emptyString)) ? null : listOfValuesOfEnumType.get(Integer.parseInt(string));
+        String[] tokens = new String[index.size()];
+        for (int id = 0; id < tokens.length; id++) {
+            tokens[id] = Integer.toString(id);
+        }
 
-        return of(serializingFunction, deserializingFunction);
+        Serializer<T> serializer = (t, destination) -> {
+            if (t != null) {
+                destination.append(tokens[index.idOf(t)]);
+            }
+        };
 
+        Deserializer<T> deserializer = (text, from, to) -> (from == to) ? null : index.valueOf(Integer.parseInt(text, from, to, 10));
 
+        return streaming(serializer, deserializer);
     }
 
     /**
@@ -72,18 +135,21 @@ public interface Serde<T> {
      * @return a Serde of a list of a specified type
      */
     static <T> Serde<List<T>> listOf(Serde<T> usedSerde, String delimiter) {
-        Function<List<T>, String> serializingFunction = (list) -> (list.isEmpty()) ? emptyString :
-                list
-                        .stream()
-                        .map(usedSerde::serialize)
-                        .collect(Collectors.joining(delimiter));
+        Serializer<List<T>> serializer = (list, destination) -> serializeAll(list, usedSerde, delimiter, destination);
 
-        Function<String, List<T>> deserializingFunction = (string) -> (string.equals(emptyString)) ? List.of() :
-                Arrays.stream(string.split(Pattern.quote(delimiter), PATTERN_LIMIT))
-                        .map(usedSerde::deserialize)
-                        .collect(Collectors.toList());
+        Deserializer<List<T>> deserializer = (text, from, to) -> {
+            List<T> list = new ArrayList<>();
+            if (from == to) {
+                return list;
+            }
+            FieldCursor fields = new FieldCursor(text, from, to, delimiter);
+            while (fields.hasNext()) {
+                list.add(fields.next(usedSerde));
+            }
+            return list;
+        };
 
-        return of(serializingFunction, deserializingFunction);
+        return streaming(serializer, deserializer);
 
 
     }
@@ -97,16 +163,45 @@ public interface Serde<T> {
      * @return a Serde of a sorted bag of a specified type
      */
     static <T extends Comparable<T>> Serde<SortedBag<T>> bagOf(Serde<T> usedSerde, String delimiter) {
-        Serde<List<T>> listSerde = listOf(usedSerde, delimiter);
+        Serializer<SortedBag<T>> serializer = (sortedBag, destination) -> serializeAll(sortedBag, usedSerde, delimiter, destination);
 
-        Function<SortedBag<T>, String> serializingFunction = (sortedBag) -> listSerde.serialize(sortedBag.toList());
-        Function<String, SortedBag<T>> deserializingFunction = (string) -> SortedBag.of(listSerde.deserialize(string));
+        Deserializer<SortedBag<T>> deserializer = (text, from, to) -> {
+            SortedBag.Builder<T> builder = new SortedBag.Builder<>();
+            if (from == to) {
+                return builder.build();
+            }
+            FieldCursor fields = new FieldCursor(text, from, to, delimiter);
+            while (fields.hasNext()) {
+                builder.add(fields.next(usedSerde));
+            }
+            return builder.build();
+        };
 
-        return of(serializingFunction, deserializingFunction);
+        return streaming(serializer, deserializer);
 
 
     }
 
+    /**
+     * Writes all the given values into the destination, separated by the delimiter
+     *
+     * @param values      : the values to serialize
+     * @param usedSerde   : the serde of a single value
+     * @param delimiter   : the delimiter separating the values
+     * @param destination : where the values are written
+     * @throws IOException if the destination can't be written to
+     */
+    private static <T> void serializeAll(Iterable<T> values, Serde<T> usedSerde, String delimiter, Appendable destination) throws IOException {
+        boolean first = true;
+        for (T value : values) {
+            if (!first) {
+                destination.append(delimiter);
+            }
+            usedSerde.serialize(value, destination);
+            first = false;
+        }
+    }
+
     /**
      * Abstract method to force each serde of type T to redefine the serializing method, ie how it turns an object of type T into a String.
      *
@@ -115,6 +210,34 @@ public interface Serde<T> {
      */
     String serialize(T objectToSerialize);
 
+    /**
+     * Writes the serialized form of the given object directly into the destination (for example the writer of a socket).
+     * Streaming serdes don't build any intermediate string.
+     *
+     * @param objectToSerialize : object of generic type to serialize
+     * @param destination       : where the serialized object is written
+     * @throws IOException if the destination can't be written to
+     */
+    default void serialize(T objectToSerialize, Appendable destination) throws IOException {
+        destination.append(serialize(objectToSerialize));
+    }
+
+    /**
+     * Writes the serialized form of the given object directly into the given buffer, one US-ASCII byte per character.
+     *
+     * @param objectToSerialize : object of generic type to serialize
+     * @param destination       : the buffer the serialized object is written into, starting at its position
+     * @throws java.nio.BufferOverflowException if the buffer doesn't have enough space left
+     */
+    default void serialize(T objectToSerialize, ByteBuffer destination) {
+        try {
+            serialize(objectToSerialize, NetUtils.asciiAppendable(destination));
+        } catch (IOException ioException) {
+            //A ByteBuffer never throws an IOException
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
     /**
      * Abstract method to force each serde of type T to redefine the deserializing method, ie how it turns an string (that was converted using
      * the above serializing method) into its corresponding object of type T
@@ -124,4 +247,36 @@ public interface Serde<T> {
      */
     T deserialize(String stringToDeserialize);
 
+    /**
+     * Deserializes the object contained in the given range of characters. Streaming serdes read the characters in place,
+     * without extracting any substring.
+     *
+     * @param text : the characters containing the serialized object
+     * @param from : index of the first character of the serialized object (inclusive)
+     * @param to   : index of the end of the serialized object (exclusive)
+     * @return the object that was serialized into the given range
+     */
+    default T deserialize(CharSequence text, int from, int to) {
+        return deserialize(text.subSequence(from, to).toString());
+    }
+
+    /**
+     * Writes an object of type T into a destination
+     *
+     * @param <T> the type of the written object
+     */
+    @FunctionalInterface
+    interface Serializer<T> {
+        void serialize(T objectToSerialize, Appendable destination) throws IOException;
+    }
+
+    /**
+     * Reads an object of type T from a range of characters
+     *
+     * @param <T> the type of the read object
+     */
+    @FunctionalInterface
+    interface Deserializer<T> {
+        T deserialize(CharSequence text, int from, int to);
+    }
 }
@@ -6,14 +6,9 @@ import ch.epfl.tchu.game.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
-import java.util.Iterator;
 import java.util.List;
-import java.util.StringJoiner;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import static ch.epfl.tchu.net.NetUtils.getStringIterator;
-
 /**
  * Represents all the Serdes used in the game
  *
@@ -28,24 +23,32 @@ public class Serdes {
     private static final String COMMA = ",";
     private static final String COLON = ":";
 
-    private static final String SEMI_COLON_PATTERN = Pattern.quote(";");
-    private static final String COLON_PATTERN = Pattern.quote(":");
     private static final Charset UTF_8 = StandardCharsets.UTF_8;
 
     /**
      * Serde of an integer
      */
-    public static final Serde<Integer> INTEGER_SERDE = Serde.of(integer -> Integer.toString(integer), Integer::parseInt);
+    public static final Serde<Integer> INTEGER_SERDE = Serde.streaming(
+            (integer, destination) -> NetUtils.appendInt(destination, integer),
+            (text, from, to) -> Integer.parseInt(text, from, to, 10));
 
     /**
      * Serde of a string
      */
-    public static final Serde<String> STRING_SERDE = Serde.of(
-            string -> Base64.getEncoder().encodeToString(string.getBytes(UTF_8)),
+    public static final Serde<String> STRING_SERDE = Serde.streaming(
+            (string, destination) -> {
+                for (byte encoded : Base64.getEncoder().encode(string.getBytes(UTF_8))) {
+                    destination.append((char) encoded);
+                }
+            },
 
-            serializedString -> new String(
-                    Base64.getDecoder().decode(serializedString),
-                    UTF_8)
+            (text, from, to) -> {
+                byte[] encoded = new byte[to - from];
+                for (int i = 0; i < encoded.length; i++) {
+                    encoded[i] = (byte) text.charAt(from + i);
+                }
+                return new String(Base64.getDecoder().decode(encoded), UTF_8);
+            }
     );
     /**
      * Serde of a player id
@@ -63,11 +66,11 @@ public class Serdes {
     /**
      * Serde of a route
      */
-    public static final Serde<Route> ROUTE_SERDE = Serde.oneOf(ChMap.routes());
+    public static final Serde<Route> ROUTE_SERDE = Serde.indexed(ChMap.routeIndex());
     /**
      * Serde of a ticket
      */
-    public static final Serde<Ticket> TICKET_SERDE = Serde.oneOf(ChMap.tickets());
+    public static final Serde<Ticket> TICKET_SERDE = Serde.indexed(ChMap.ticketIndex());
 
     //-------------------------------------------
 
@@ -100,89 +103,94 @@ public class Serdes {
     /**
      * Serde of a public card state
      */
-    public static final Serde<PublicCardState> PUBLIC_CARD_STATE_SERDE = Serde.of(
+    public static final Serde<PublicCardState> PUBLIC_CARD_STATE_SERDE = Serde.streaming(
 
-            (publicCardState) -> new StringJoiner(SEMI_COLON)
-                    .add(LIST_CARD_SERDE.serialize(publicCardState.faceUpCards()))
-                    .add(INTEGER_SERDE.serialize(publicCardState.deckSize()))
-                    .add(INTEGER_SERDE.serialize(publicCardState.discardsSize()))
-                    .toString(),
+            (publicCardState, destination) -> {
+                LIST_CARD_SERDE.serialize(publicCardState.faceUpCards(), destination);
+                destination.append(SEMI_COLON);
+                INTEGER_SERDE.serialize(publicCardState.deckSize(), destination);
+                destination.append(SEMI_COLON);
+                INTEGER_SERDE.serialize(publicCardState.discardsSize(), destination);
+            },
 
-            (string) -> {
-                Iterator<String> arguments = getStringIterator(string, SEMI_COLON_PATTERN);
+            (text, from, to) -> {
+                FieldCursor arguments = new FieldCursor(text, from, to, SEMI_COLON);
 
                 return new PublicCardState(
-                        LIST_CARD_SERDE.deserialize(arguments.next()),
-                        INTEGER_SERDE.deserialize(arguments.next()),
-                        INTEGER_SERDE.deserialize(arguments.next()));
+                        arguments.next(LIST_CARD_SERDE),
+                        arguments.next(INTEGER_SERDE),
+                        arguments.next(INTEGER_SERDE));
             });
 
 
     /**
      * Serde of a public player state
      */
-    public static final Serde<PublicPlayerState> PUBLIC_PLAYER_STATE_SERDE = Serde.of(
-            (publicPlayerState) -> new StringJoiner(SEMI_COLON)
-                    .add(INTEGER_SERDE.serialize(publicPlayerState.ticketCount()))
-                    .add(INTEGER_SERDE.serialize(publicPlayerState.cardCount()))
-                    .add(LIST_ROUTE_SERDE.serialize(publicPlayerState.routes()))
-                    .toString(),
+    public static final Serde<PublicPlayerState> PUBLIC_PLAYER_STATE_SERDE = Serde.streaming(
+            (publicPlayerState, destination) -> {
+                INTEGER_SERDE.serialize(publicPlayerState.ticketCount(), destination);
+                destination.append(SEMI_COLON);
+                INTEGER_SERDE.serialize(publicPlayerState.cardCount(), destination);
+                destination.append(SEMI_COLON);
+                LIST_ROUTE_SERDE.serialize(publicPlayerState.routes(), destination);
+            },
 
-            (string) -> {
-                Iterator<String> arguments = getStringIterator(string, SEMI_COLON_PATTERN);
+            (text, from, to) -> {
+                FieldCursor arguments = new FieldCursor(text, from, to, SEMI_COLON);
 
                 return new PublicPlayerState(
-                        INTEGER_SERDE.deserialize(arguments.next()),
-                        INTEGER_SERDE.deserialize(arguments.next()),
-                        LIST_ROUTE_SERDE.deserialize(arguments.next()));
+                        arguments.next(INTEGER_SERDE),
+                        arguments.next(INTEGER_SERDE),
+                        arguments.next(LIST_ROUTE_SERDE));
             }
     );
     /**
      * Serde of a player state
      */
-    public static final Serde<PlayerState> PLAYER_STATE_SERDE = Serde.of(
+    public static final Serde<PlayerState> PLAYER_STATE_SERDE = Serde.streaming(
 
-            (playerState) -> new StringJoiner(SEMI_COLON)
-                    .add(SORTED_BAG_TICKET_SERDE.serialize(playerState.tickets()))
-                    .add(SORTED_BAG_CARD_SERDE.serialize((playerState.cards())))
-                    .add(LIST_ROUTE_SERDE.serialize(playerState.routes()))
-                    .toString(),
+            (playerState, destination) -> {
+                SORTED_BAG_TICKET_SERDE.serialize(playerState.tickets(), destination);
+                destination.append(SEMI_COLON);
+                SORTED_BAG_CARD_SERDE.serialize(playerState.cards(), destination);
+                destination.append(SEMI_COLON);
+                LIST_ROUTE_SERDE.serialize(playerState.routes(), destination);
+            },
 
-            (string) -> {
-                Iterator<String> arguments = getStringIterator(string, SEMI_COLON_PATTERN);
+            (text, from, to) -> {
+                FieldCursor arguments = new FieldCursor(text, from, to, SEMI_COLON);
 
                 return new PlayerState(
-                        SORTED_BAG_TICKET_SERDE.deserialize(arguments.next()),
-                        SORTED_BAG_CARD_SERDE.deserialize(arguments.next()),
-                        LIST_ROUTE_SERDE.deserialize(arguments.next()));
+                        arguments.next(SORTED_BAG_TICKET_SERDE),
+                        arguments.next(SORTED_BAG_CARD_SERDE),
+                        arguments.next(LIST_ROUTE_SERDE));
             });
     /**
      * Serde of a public game state
      */
-    public static final Serde<PublicGameState> PUBLIC_GAME_STATE_SERDE = Serde.of(
-            (publicGameState) -> {
-                String allPublicPlayerStates = PlayerId.ALL
-                        .stream()
-                        .map(playerId -> PUBLIC_PLAYER_STATE_SERDE.serialize(publicGameState.playerState(playerId)))
-                        .collect(Collectors.joining(COLON));
-
-                return new StringJoiner(COLON)
-                        .add(INTEGER_SERDE.serialize(publicGameState.ticketsCount()))
-                        .add(PUBLIC_CARD_STATE_SERDE.serialize(publicGameState.cardState()))
-                        .add(PLAYER_ID_SERDE.serialize(publicGameState.currentPlayerId()))
-                        .add(allPublicPlayerStates)
-                        .add(PLAYER_ID_SERDE.serialize(publicGameState.lastPlayer()))
-                        .toString();
+    public static final Serde<PublicGameState> PUBLIC_GAME_STATE_SERDE = Serde.streaming(
+            (publicGameState, destination) -> {
+                INTEGER_SERDE.serialize(publicGameState.ticketsCount(), destination);
+                destination.append(COLON);
+                PUBLIC_CARD_STATE_SERDE.serialize(publicGameState.cardState(), destination);
+                destination.append(COLON);
+                PLAYER_ID_SERDE.serialize(publicGameState.currentPlayerId(), destination);
+                for (PlayerId playerId : PlayerId.ALL) {
+                    destination.append(COLON);
+                    PUBLIC_PLAYER_STATE_SERDE.serialize(publicGameState.playerState(playerId), destination);
+                }
+                destination.append(COLON);
+                PLAYER_ID_SERDE.serialize(publicGameState.lastPlayer(), destination);
             },
-            (serializedString) -> {
-                Iterator<String> arguments = getStringIterator(serializedString, COLON_PATTERN);
+            (text, from, to) -> {
+                FieldCursor arguments = new FieldCursor(text, from, to, COLON);
 
                 return new PublicGameState(
-                        INTEGER_SERDE.deserialize(arguments.next()),
-                        PUBLIC_CARD_STATE_SERDE.deserialize(arguments.next()),
-                        PLAYER_ID_SERDE.deserialize(arguments.next()),
-                        PlayerId.ALL.stream().collect(Collectors.toMap(playerId -> playerId, playerId -> PUBLIC_PLAYER_STATE_SERDE.deserialize(arguments.next()))),
-                        PLAYER_ID_SERDE.deserialize(arguments.next()));
+                        arguments.next(INTEGER_SERDE),
+                        arguments.next(PUBLIC_CARD_STATE_SERDE),
+                        arguments.next(PLAYER_ID_SERDE),
+                        PlayerId.ALL.stream().collect(Collectors.toMap(playerId -> playerId, playerId -> arguments.next(PUBLIC_PLAYER_STATE_SERDE))),
+                        arguments.next(PLAYER_ID_SERDE));
             }
     );
 }
@@ -0,0 +1,130 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static ch.epfl.tchu.net.NetUtils.SPACE;
+import static ch.epfl.tchu.net.Serdes.*;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Registry of the sessions of the resumable proxies of a server. It hands the reconnections of clients,
+ * which start with the message RESUME followed by their session token and the number of messages they received,
+ * to the corresponding proxy. A client trying to resume an unknown (or ended) session receives a RESUME without any argument.
+ * The spectators announce themselves with the message SPECTATE, so that every connection is routed as soon as its
+ * first line arrives.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class SessionRegistry {
+    /**
+     * Time (in milliseconds) a new connection has to announce itself, before being closed
+     */
+    private static final int FIRST_LINE_TIMEOUT_MILLIS = 2_000;
+    private static final int MAX_FIRST_LINE_LENGTH = 256;
+
+    private final Map<String, RemotePlayerProxy> proxies = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the session of the given proxy
+     *
+     * @param proxy : a resumable proxy
+     */
+    void register(RemotePlayerProxy proxy) {
+        proxies.put(proxy.sessionToken(), proxy);
+    }
+
+    /**
+     * Forgets the session of the given proxy, typically once its game is over. Its client can't resume it anymore.
+     *
+     * @param proxy : a resumable proxy
+     */
+    public void unregister(RemotePlayerProxy proxy) {
+        proxies.remove(proxy.sessionToken(), proxy);
+    }
+
+    /**
+     * Accepts connections on the given server socket on a new daemon thread, until the server socket is closed.
+     * The reconnections of clients are handed to their proxy, and the connections of spectators to the given consumer.
+     * The connections starting with any other line, or not announcing themselves in time, are closed.
+     *
+     * @param serverSocket : the server socket the clients connect to
+     * @param spectators   : what to do with the connections of the spectators, once their SPECTATE is read
+     */
+    public void acceptConnections(ServerSocket serverSocket, Consumer<Socket> spectators) {
+        Preconditions.checkArgument(serverSocket != null && spectators != null);
+
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket socket = serverSocket.accept();
+                    Thread handshake = new Thread(() -> dispatch(socket, spectators), "session-handshake");
+                    handshake.setDaemon(true);
+                    handshake.start();
+                }
+            } catch (SocketException closed) {
+                //The server socket was closed, nobody can connect anymore
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+        }, "session-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Hands the given connection to the proxy whose session it resumes, or to the consumer if it is a spectator
+     */
+    private void dispatch(Socket socket, Consumer<Socket> spectators) {
+        try {
+            String firstLine = readFirstLine(socket);
+            FieldCursor arguments = new FieldCursor(firstLine, 0, firstLine.length(), SPACE);
+
+            if (arguments.skip(MessageId.SPECTATE.name())) {
+                spectators.accept(socket);
+                return;
+            }
+            Preconditions.checkArgument(arguments.skip(MessageId.RESUME.name()));
+            RemotePlayerProxy proxy = proxies.get(arguments.next(STRING_SERDE));
+            int messagesRead = arguments.next(INTEGER_SERDE);
+            if (proxy == null) {
+                //A RESUME without any argument tells the client its session is over
+                Writer writer = new OutputStreamWriter(socket.getOutputStream(), US_ASCII);
+                NetUtils.writeMessage(writer, MessageId.RESUME);
+                writer.flush();
+                socket.close();
+            } else {
+                proxy.resume(Connection.of(socket), messagesRead);
+            }
+        } catch (IOException | RuntimeException invalidHandshake) {
+            //Including a connection that didn't announce itself in time
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                //Nothing more can be done with this connection
+            }
+        }
+    }
+
+    /**
+     * Reads the first line sent on the socket, one byte at a time so that nothing after it is consumed
+     */
+    private static String readFirstLine(Socket socket) throws IOException {
+        socket.setSoTimeout(FIRST_LINE_TIMEOUT_MILLIS);
+        try {
+            return NetUtils.readPlainLine(socket.getInputStream(), MAX_FIRST_LINE_LENGTH);
+        } finally {
+            socket.setSoTimeout(0);
+        }
+    }
+}
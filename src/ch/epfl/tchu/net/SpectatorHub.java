@@ -0,0 +1,366 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ch.epfl.tchu.net.Serdes.PUBLIC_GAME_STATE_SERDE;
+import static ch.epfl.tchu.net.Serdes.STRING_SERDE;
+
+/**
+ * Broadcasts the public messages of a running game (RECEIVE_INFO and UPDATE_PUBLIC_STATE) to read-only spectators.
+ * Each message is serialized once into an immutable array of bytes shared by all spectators. Every spectator has its own
+ * bounded queue drained by its own writer thread, so that a slow spectator never delays the game: when its queue is full
+ * the oldest message is dropped, and a new state always replaces the states still waiting to be written.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class SpectatorHub {
+    /**
+     * Default number of messages waiting to be written to a single spectator
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private static final int INITIAL_BUFFER_CAPACITY = 1 << 10;
+
+    private final int queueCapacity;
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    //Only used by the game thread
+    private ByteBuffer serializationBuffer = ByteBuffer.allocate(INITIAL_BUFFER_CAPACITY);
+    //Guards the last state, so that a new spectator gets either it or every state broadcast after it
+    private final Object stateLock = new Object();
+    private Frame lastState;
+
+    /**
+     * Constructs a hub without any spectator, whose spectators have queues of the default capacity
+     */
+    public SpectatorHub() {
+        this(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a hub without any spectator
+     *
+     * @param queueCapacity : the maximum number of messages waiting to be written to a single spectator
+     * @throws IllegalArgumentException if the capacity isn't strictly positive
+     */
+    public SpectatorHub(int queueCapacity) {
+        Preconditions.checkArgument(queueCapacity > 0);
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Wraps the given player so that every public message it receives is also broadcast to the spectators.
+     * As the game sends each information to every player, observing a single player is enough.
+     *
+     * @param player : the observed player
+     * @return a player behaving exactly like the given one, while feeding the spectators
+     */
+    public Player observing(Player player) {
+        Preconditions.checkArgument(player != null);
+        return new ObservedPlayer(player);
+    }
+
+    /**
+     * Accepts spectators on the given server socket on a new daemon thread, until the server socket is closed
+     *
+     * @param serverSocket : the server socket the spectators connect to
+     */
+    public void acceptSpectators(ServerSocket serverSocket) {
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    addSpectator(serverSocket.accept());
+                }
+            } catch (SocketException closed) {
+                //The server socket was closed, no more spectators can join
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+        }, "spectator-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Adds a spectator connected with the given socket. It immediately receives the last state of the game, if any.
+     *
+     * @param socket : the socket of the spectator
+     */
+    public void addSpectator(Socket socket) {
+        Preconditions.checkArgument(socket != null);
+        try {
+            Spectator spectator = new Spectator(socket);
+            synchronized (stateLock) {
+                if (lastState != null) {
+                    spectator.enqueue(lastState);
+                }
+                spectators.add(spectator);
+            }
+            spectator.start();
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    /**
+     * Getter for the number of connected spectators
+     *
+     * @return the number of spectators
+     */
+    public int spectatorCount() {
+        return spectators.size();
+    }
+
+    /**
+     * Getter for the total number of messages that were dropped or skipped because a spectator was too slow
+     *
+     * @return the number of dropped messages
+     */
+    public long droppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * Broadcasts an information to all the spectators
+     *
+     * @param info : the information
+     */
+    public void broadcastInfo(String info) {
+        if (spectators.isEmpty()) {
+            return;
+        }
+        broadcast(frame(false, MessageId.RECEIVE_INFO, MessageArgument.of(STRING_SERDE, info)));
+    }
+
+    /**
+     * Broadcasts the public part of a new state of the game to all the spectators
+     *
+     * @param newState : the new state of the game
+     */
+    public void broadcastState(PublicGameState newState) {
+        Frame state = frame(true, MessageId.UPDATE_PUBLIC_STATE, MessageArgument.of(PUBLIC_GAME_STATE_SERDE, newState));
+        synchronized (stateLock) {
+            lastState = state;
+            broadcast(state);
+        }
+    }
+
+    /**
+     * Closes the connections of all the spectators
+     */
+    public void close() {
+        spectators.forEach(Spectator::close);
+        spectators.clear();
+    }
+
+    private void broadcast(Frame frame) {
+        for (Spectator spectator : spectators) {
+            spectator.enqueue(frame);
+        }
+    }
+
+    /**
+     * Serializes a message once, into an immutable buffer
+     */
+    private Frame frame(boolean isState, MessageId messageId, MessageArgument<?>... arguments) {
+        while (true) {
+            serializationBuffer.clear();
+            try {
+                NetUtils.writeMessage(NetUtils.asciiAppendable(serializationBuffer), messageId, arguments);
+                break;
+            } catch (BufferOverflowException overflow) {
+                serializationBuffer = ByteBuffer.allocate(serializationBuffer.capacity() * 2);
+            } catch (IOException ioException) {
+                //A ByteBuffer never throws an IOException
+                throw new UncheckedIOException(ioException);
+            }
+        }
+        serializationBuffer.flip();
+
+        byte[] bytes = new byte[serializationBuffer.remaining()];
+        serializationBuffer.get(bytes);
+        return new Frame(isState, bytes);
+    }
+
+    /**
+     * Message serialized once and shared by all spectators. Its bytes are never modified once built.
+     */
+    private static final class Frame {
+        private final boolean isState;
+        private final byte[] bytes;
+
+        private Frame(boolean isState, byte[] bytes) {
+            this.isState = isState;
+            this.bytes = bytes;
+        }
+
+        private void writeTo(OutputStream outputStream) throws IOException {
+            outputStream.write(bytes);
+        }
+    }
+
+    /**
+     * A connected spectator, with its bounded queue and its writer thread
+     */
+    private final class Spectator {
+        private final Socket socket;
+        private final OutputStream outputStream;
+        private final Deque<Frame> queue = new ArrayDeque<>();
+        private final Thread writer;
+        private boolean closed;
+
+        private Spectator(Socket socket) throws IOException {
+            this.socket = socket;
+            this.outputStream = new BufferedOutputStream(socket.getOutputStream());
+            this.writer = new Thread(this::writeFrames, "spectator-writer");
+            this.writer.setDaemon(true);
+        }
+
+        private void start() {
+            writer.start();
+        }
+
+        private synchronized void enqueue(Frame frame) {
+            if (closed) {
+                return;
+            }
+            if (frame.isState && queue.removeIf(queued -> queued.isState)) {
+                //Skips to the latest state
+                droppedMessages.incrementAndGet();
+            }
+            if (queue.size() == queueCapacity) {
+                queue.removeFirst();
+                droppedMessages.incrementAndGet();
+            }
+            queue.addLast(frame);
+            notifyAll();
+        }
+
+        private synchronized Frame take() throws InterruptedException {
+            while (queue.isEmpty() && !closed) {
+                wait();
+            }
+            return closed ? null : queue.removeFirst();
+        }
+
+        private synchronized boolean hasPendingFrames() {
+            return !queue.isEmpty();
+        }
+
+        private void writeFrames() {
+            try {
+                Frame frame;
+                while ((frame = take()) != null) {
+                    frame.writeTo(outputStream);
+                    if (!hasPendingFrames()) {
+                        outputStream.flush();
+                    }
+                }
+            } catch (IOException | InterruptedException disconnected) {
+                //The spectator left (or is too broken to be fed): it is simply forgotten
+                spectators.remove(this);
+                close();
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+                notifyAll();
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                //Nothing more can be done with this spectator
+            }
+        }
+    }
+
+    /**
+     * Player forwarding every call to the observed player, and the public messages to the spectators
+     */
+    private final class ObservedPlayer implements Player {
+        private final Player player;
+
+        private ObservedPlayer(Player player) {
+            this.player = player;
+        }
+
+        @Override
+        public void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames) {
+            player.initPlayers(ownID, playerNames);
+        }
+
+        @Override
+        public void receiveInfo(String info) {
+            broadcastInfo(info);
+            player.receiveInfo(info);
+        }
+
+        @Override
+        public void updateState(PublicGameState newState, PlayerState ownState) {
+            broadcastState(newState);
+            player.updateState(newState, ownState);
+        }
+
+        @Override
+        public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+            player.setInitialTicketChoice(tickets);
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseInitialTickets() {
+            return player.chooseInitialTickets();
+        }
+
+        @Override
+        public TurnKind nextTurn() {
+            return player.nextTurn();
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+            return player.chooseTickets(options);
+        }
+
+        @Override
+        public int drawSlot() {
+            return player.drawSlot();
+        }
+
+        @Override
+        public Route claimedRoute() {
+            return player.claimedRoute();
+        }
+
+        @Override
+        public SortedBag<Card> initialClaimCards() {
+            return player.initialClaimCards();
+        }
+
+        @Override
+        public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+            return player.chooseAdditionalCards(options);
+        }
+    }
+}
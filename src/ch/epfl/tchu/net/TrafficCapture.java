@@ -0,0 +1,255 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Capture of the messages exchanged over the connections of a proxy, so that they can be replayed later (see
+ * TrafficReplay). Every message is recorded on its own line, with the time it was sent or received at:
+ * "nanos S message" for a message sent by the server, "nanos C message" for a message sent by the client, where nanos
+ * is the time elapsed since the creation of the capture.
+ *
+ * The capture records the bytes of the connection: a compressed connection can't be captured, which is why a proxy
+ * capturing its traffic doesn't offer the compression.
+ *
+ * The proxies capture their traffic if the system property tchu.capture gives the directory of the captures.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class TrafficCapture implements Closeable {
+    /**
+     * Name of the system property giving the directory of the captures
+     */
+    static final String PROPERTY = "tchu.capture";
+
+    private static final AtomicInteger CAPTURES = new AtomicInteger();
+    private static final char SERVER = 'S';
+    private static final char CLIENT = 'C';
+
+    private final Writer destination;
+    private final long start = System.nanoTime();
+
+    /**
+     * Creates a capture recording the messages into the given writer
+     *
+     * @param destination : where the messages are recorded, closed with the capture
+     */
+    public TrafficCapture(Writer destination) {
+        this.destination = Objects.requireNonNull(destination);
+    }
+
+    /**
+     * Creates a capture into a new file of the directory given by the system property, if it is set
+     *
+     * @return the capture, or null if the system property isn't set or if the file can't be created
+     */
+    static TrafficCapture fromSystemProperty() {
+        try {
+            String directory = System.getProperty(PROPERTY);
+            if (directory == null) {
+                return null;
+            }
+            Path file = Paths.get(directory).resolve(String.format("capture-%d-%d.txt",
+                    ProcessHandle.current().pid(), CAPTURES.getAndIncrement()));
+            return new TrafficCapture(Files.newBufferedWriter(file, US_ASCII));
+        } catch (SecurityException | IOException unavailable) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the given connection of the server, recording the messages it carries into this capture
+     *
+     * @param connection : the connection of the server
+     * @return the recording connection
+     */
+    public Connection recording(Connection connection) {
+        Objects.requireNonNull(connection);
+
+        return new Connection() {
+            @Override
+            public InputStream inputStream() throws IOException {
+                return new FilterInputStream(connection.inputStream()) {
+                    private final LineTap tap = new LineTap(CLIENT);
+
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        if (b != -1) {
+                            tap.bytes(new byte[]{(byte) b}, 0, 1);
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] bytes, int offset, int length) throws IOException {
+                        int read = super.read(bytes, offset, length);
+                        if (read > 0) {
+                            tap.bytes(bytes, offset, read);
+                        }
+                        return read;
+                    }
+                };
+            }
+
+            @Override
+            public OutputStream outputStream() throws IOException {
+                return new FilterOutputStream(connection.outputStream()) {
+                    private final LineTap tap = new LineTap(SERVER);
+
+                    @Override
+                    public void write(int b) throws IOException {
+                        tap.bytes(new byte[]{(byte) b}, 0, 1);
+                        out.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] bytes, int offset, int length) throws IOException {
+                        tap.bytes(bytes, offset, length);
+                        out.write(bytes, offset, length);
+                    }
+                };
+            }
+
+            @Override
+            public void setReadTimeout(int timeoutMillis) throws IOException {
+                connection.setReadTimeout(timeoutMillis);
+            }
+
+            @Override
+            public void close() throws IOException {
+                connection.close();
+            }
+        };
+    }
+
+    /**
+     * Ends the capture, writing the messages not written yet
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        destination.close();
+    }
+
+    /**
+     * Reads the frames of a capture
+     *
+     * @param capture : the reader of the capture
+     * @return the frames, in the order they were recorded
+     * @throws IOException              if the capture can't be read
+     * @throws IllegalArgumentException if the capture is malformed
+     */
+    public static List<Frame> read(BufferedReader capture) throws IOException {
+        List<Frame> frames = new ArrayList<>();
+        String line;
+
+        while ((line = capture.readLine()) != null) {
+            int space = line.indexOf(' ');
+            Preconditions.checkArgument(space > 0 && line.length() > space + 2 && line.charAt(space + 2) == ' ');
+            char side = line.charAt(space + 1);
+            Preconditions.checkArgument(side == SERVER || side == CLIENT);
+
+            frames.add(new Frame(Long.parseLong(line.substring(0, space)), side == SERVER, line.substring(space + 3)));
+        }
+        return Collections.unmodifiableList(frames);
+    }
+
+    private synchronized void record(char side, CharSequence message) {
+        try {
+            destination.append(Long.toString(System.nanoTime() - start))
+                    .append(' ')
+                    .append(side)
+                    .append(' ')
+                    .append(message)
+                    .append(NetUtils.LINE_RETURN);
+        } catch (IOException ioException) {
+            //The capture is incomplete, but the game goes on
+        }
+    }
+
+    /**
+     * Gathers the bytes going in one direction into messages, and records each message once its line return went by
+     */
+    private final class LineTap {
+        private final char side;
+        private final StringBuilder message = new StringBuilder();
+
+        private LineTap(char side) {
+            this.side = side;
+        }
+
+        private void bytes(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                char c = (char) (bytes[i] & 0xFF);
+                if (c == NetUtils.LINE_RETURN) {
+                    record(side, message);
+                    message.setLength(0);
+                } else {
+                    message.append(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Message of a capture
+     */
+    public static final class Frame {
+        private final long offsetNanos;
+        private final boolean fromServer;
+        private final String message;
+
+        /**
+         * Constructs a frame
+         *
+         * @param offsetNanos : the time (in nanoseconds) elapsed between the start of the capture and the message
+         * @param fromServer  : true if the server sent the message, false if the client did
+         * @param message     : the message, without its line return
+         */
+        public Frame(long offsetNanos, boolean fromServer, String message) {
+            Preconditions.checkArgument(offsetNanos >= 0);
+
+            this.offsetNanos = offsetNanos;
+            this.fromServer = fromServer;
+            this.message = Objects.requireNonNull(message);
+        }
+
+        /**
+         * Getter for the time elapsed between the start of the capture and the message
+         *
+         * @return the offset (in nanoseconds)
+         */
+        public long offsetNanos() {
+            return offsetNanos;
+        }
+
+        /**
+         * Getter for the side that sent the message
+         *
+         * @return true if the server sent the message, false if the client did
+         */
+        public boolean fromServer() {
+            return fromServer;
+        }
+
+        /**
+         * Getter for the message
+         *
+         * @return the message, without its line return
+         */
+        public String message() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.*;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Replays one side of a capture (see TrafficCapture) against the other side: it sends the messages the replayed side
+ * sent, and where the capture has a message of the other side, reads the message actually sent instead and compares it
+ * to the captured one. Replaying the server side feeds a real client, replaying the client side feeds a real server.
+ *
+ * The messages are sent either as fast as possible, or at the pace they were captured at. The captured heartbeats, which
+ * only depend on the pace of the capture, are neither sent nor expected: instead, a paced replay sends its own
+ * heartbeats while it waits for the next message, so that the other side doesn't consider it dead during the long
+ * pauses of the capture.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class TrafficReplay {
+    private static final String HEARTBEAT = MessageId.HEARTBEAT.name();
+
+    private final List<TrafficCapture.Frame> frames;
+    private final boolean paced;
+    private final long heartbeatIntervalMillis;
+
+    /**
+     * Constructs the replay of the given frames
+     *
+     * @param frames : the frames of a capture
+     * @param paced  : true to send the messages at their captured pace, false to send them as fast as possible
+     */
+    public TrafficReplay(List<TrafficCapture.Frame> frames, boolean paced) {
+        this(frames, paced, NetUtils.HEARTBEAT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Constructs the replay of the given frames, sending heartbeats at the given interval while a paced replay waits
+     *
+     * @param frames                  : the frames of a capture
+     * @param paced                   : true to send the messages at their captured pace, false to send them as fast as
+     *                                possible
+     * @param heartbeatIntervalMillis : the interval (in milliseconds) of the heartbeats, 0 for no heartbeats
+     * @throws IllegalArgumentException if the interval is negative
+     */
+    TrafficReplay(List<TrafficCapture.Frame> frames, boolean paced, long heartbeatIntervalMillis) {
+        Preconditions.checkArgument(heartbeatIntervalMillis >= 0);
+
+        this.frames = List.copyOf(Objects.requireNonNull(frames));
+        this.paced = paced;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+
+    /**
+     * Plays the server side of the capture over the given connection to a client, then closes it
+     *
+     * @param connection : the connection to the client
+     * @return the number of messages of the client differing from the capture
+     * @throws EOFException if the client closed the connection before the end of the capture
+     * @throws IOException  if the connection is lost
+     */
+    public int replayServerSide(Connection connection) throws IOException {
+        return replay(connection, true);
+    }
+
+    /**
+     * Plays the client side of the capture over the given connection to a server, then closes it. The server must
+     * behave as during the capture (the same game, seeded the same way) for its messages to match.
+     *
+     * @param connection : the connection to the server
+     * @return the number of messages of the server differing from the capture
+     * @throws EOFException if the server closed the connection before the end of the capture
+     * @throws IOException  if the connection is lost
+     */
+    public int replayClientSide(Connection connection) throws IOException {
+        return replay(connection, false);
+    }
+
+    private int replay(Connection connection, boolean serverSide) throws IOException {
+        try (connection) {
+            LineReader reader = new LineReader(
+                    new InputStreamReader(connection.inputStream(),
+                            US_ASCII));
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(connection.outputStream(),
+                            US_ASCII));
+
+            long start = System.nanoTime();
+            long firstOffset = frames.isEmpty() ? 0 : frames.get(0).offsetNanos();
+            int mismatches = 0;
+
+            for (TrafficCapture.Frame frame : frames) {
+                if (frame.message().equals(HEARTBEAT)) {
+                    continue;
+                }
+                if (frame.fromServer() == serverSide) {
+                    if (paced) {
+                        writer.flush();
+                        waitUntil(start + frame.offsetNanos() - firstOffset, writer);
+                    }
+                    writer.write(frame.message());
+                    writer.write(NetUtils.LINE_RETURN);
+                } else {
+                    //The other side only sends a message once it received the previous ones
+                    writer.flush();
+                    String message = reader.readLine();
+                    while (HEARTBEAT.equals(message)) {
+                        message = reader.readLine();
+                    }
+                    if (message == null) {
+                        throw new EOFException();
+                    }
+                    if (!message.equals(frame.message())) {
+                        mismatches++;
+                    }
+                }
+            }
+            writer.flush();
+            return mismatches;
+        }
+    }
+
+    /**
+     * Waits until the given time, sending a heartbeat each time the interval of the heartbeats elapses: the last message
+     * having just been sent, the other side never goes longer than an interval without hearing from the replay
+     */
+    private void waitUntil(long nanoTime, Writer writer) throws IOException {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis);
+
+        while (intervalNanos > 0 && nanoTime - System.nanoTime() > intervalNanos) {
+            sleep(intervalNanos);
+            NetUtils.writeMessage(writer, MessageId.HEARTBEAT);
+            writer.flush();
+        }
+        sleep(nanoTime - System.nanoTime());
+    }
+
+    private static void sleep(long delayNanos) throws InterruptedIOException {
+        try {
+            if (delayNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+}
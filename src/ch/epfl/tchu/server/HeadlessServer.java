@@ -0,0 +1,389 @@
+package ch.epfl.tchu.server;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.net.Connection;
+import ch.epfl.tchu.net.Multiplexer;
+import ch.epfl.tchu.net.ProtocolMetrics;
+import ch.epfl.tchu.net.RemotePlayerProxy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Main program of a tCHu server without any graphical interface: it hosts games between remote players and bots only,
+ * so that it neither needs a display nor starts JavaFX.
+ *
+ * The remote players connect to the port of the players, one connection per seat, or to the port of the multiplexed
+ * connections, which give as many seats as needed over a single connection (see Multiplexer). The seats are filled in
+ * the order the players connect, and the bots take the last seats of every game. A multiplexed connection only takes
+ * one seat of a game: its next seat goes to the next game, so that its players never play against each other.
+ *
+ * The sessions of its players can't be resumed: a player losing its connection ends its game.
+ *
+ * @author Victor Canard-Duchêne (326913)
+ */
+public final class HeadlessServer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(HeadlessServer.class.getName());
+    //Same default port as the graphical server
+    private static final int DEFAULT_PORT = 5108;
+    private static final int ACCEPT_BACKLOG = 1_000;
+    private static final Map<PlayerId, String> DEFAULT_NAMES = Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles");
+    private static final String USAGE = "Usage: HeadlessServer [--port port] [--multiplex-port port] [--games count] "
+            + "[--bots count] [--seed seed] [--names name,name] [--compression]";
+
+    private final ServerSocket players;
+    private final ServerSocket multiplexed;
+    private final int games;
+    private final int bots;
+    private final long seed;
+    private final Map<PlayerId, String> playerNames;
+    private final boolean offerCompression;
+
+    //Seats waiting for a game, handed over one at a time
+    private final SynchronousQueue<Seat> seats = new SynchronousQueue<>();
+    private final List<Multiplexer> multiplexers = new ArrayList<>();
+    private final AtomicInteger playedGames = new AtomicInteger();
+    private final AtomicInteger failedGames = new AtomicInteger();
+
+    /**
+     * Constructs a server accepting its players on the given server sockets
+     *
+     * @param players          : the server socket of the players connecting once per seat
+     * @param multiplexed      : the server socket of the multiplexed connections, or null if there is none
+     * @param games            : the number of games to host, 0 for no limit
+     * @param bots             : the number of bots of every game, lower than the number of players
+     * @param seed             : the seed of the games (and their bots), game i uses seed + i
+     * @param playerNames      : the names of the players
+     * @param offerCompression : true to offer the compression to the players connecting once per seat
+     * @throws IllegalArgumentException if the number of games or of bots is invalid
+     */
+    public HeadlessServer(ServerSocket players, ServerSocket multiplexed, int games, int bots, long seed,
+                          Map<PlayerId, String> playerNames, boolean offerCompression) {
+        Preconditions.checkArgument(players != null && games >= 0);
+        Preconditions.checkArgument(bots >= 0 && bots < PlayerId.COUNT);
+        Preconditions.checkArgument(playerNames.keySet().containsAll(PlayerId.ALL));
+
+        this.players = players;
+        this.multiplexed = multiplexed;
+        this.games = games;
+        this.bots = bots;
+        this.seed = seed;
+        this.playerNames = Map.copyOf(playerNames);
+        this.offerCompression = offerCompression;
+    }
+
+    /**
+     * Runs the server: [--port port] [--multiplex-port port] [--games count] [--bots count] [--seed seed]
+     * [--names name,name] [--compression], by default on port 5108 without multiplexed connections, hosting games
+     * between remote players until it is stopped
+     *
+     * @param args : the options
+     * @throws IOException          if a server socket can't be opened
+     * @throws InterruptedException if interrupted while waiting for the players
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = DEFAULT_PORT;
+        int multiplexPort = -1;
+        int games = 0;
+        int bots = 0;
+        long seed = new Random().nextLong();
+        Map<PlayerId, String> playerNames = DEFAULT_NAMES;
+        boolean compression = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--multiplex-port":
+                        multiplexPort = Integer.parseInt(args[++i]);
+                        break;
+                    case "--games":
+                        games = Integer.parseInt(args[++i]);
+                        break;
+                    case "--bots":
+                        bots = Integer.parseInt(args[++i]);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--names":
+                        playerNames = names(args[++i]);
+                        break;
+                    case "--compression":
+                        compression = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+            Preconditions.checkArgument(games >= 0 && bots >= 0 && bots < PlayerId.COUNT);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException invalidOptions) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        ServerSocket players = new ServerSocket(port, ACCEPT_BACKLOG);
+        ServerSocket multiplexed = multiplexPort < 0 ? null : new ServerSocket(multiplexPort, ACCEPT_BACKLOG);
+        try (HeadlessServer server = new HeadlessServer(players, multiplexed, games, bots, seed, playerNames, compression)) {
+            Instant processStart = ProcessHandle.current().info().startInstant().orElse(Instant.now());
+            System.out.printf("Listening on port %d%s with seed %d, ready %d ms after the start of the process%n",
+                    players.getLocalPort(),
+                    multiplexed == null ? "" : " (multiplexed connections on port " + multiplexed.getLocalPort() + ")",
+                    seed, Duration.between(processStart, Instant.now()).toMillis());
+
+            server.run();
+            System.out.printf("%d games played, %d failed%n", server.playedGames(), server.failedGames());
+        }
+    }
+
+    private static Map<PlayerId, String> names(String names) {
+        String[] split = names.split(",");
+        Preconditions.checkArgument(split.length == PlayerId.COUNT);
+
+        Map<PlayerId, String> playerNames = new EnumMap<>(PlayerId.class);
+        for (PlayerId playerId : PlayerId.ALL) {
+            playerNames.put(playerId, split[playerId.ordinal()]);
+        }
+        return playerNames;
+    }
+
+    /**
+     * Accepts the players and hosts their games, until the given number of games are over (or forever if there is no
+     * limit)
+     *
+     * @throws InterruptedException if interrupted while waiting for the players
+     */
+    public void run() throws InterruptedException {
+        startDaemon(this::acceptPlayers, "player-acceptor");
+        if (multiplexed != null) {
+            startDaemon(this::acceptMultiplexedConnections, "multiplex-acceptor");
+        }
+
+        List<Thread> gameThreads = new ArrayList<>();
+        for (int game = 0; games == 0 || game < games; game++) {
+            List<Seat> gameSeats = new ArrayList<>();
+            for (int i = bots; i < PlayerId.COUNT; i++) {
+                gameSeats.add(takeOpenSeat());
+            }
+            gameSeats.forEach(Seat::seated);
+            long gameSeed = seed + game;
+            Thread gameThread = new Thread(() -> play(gameSeats, gameSeed), "game-" + game);
+            gameThread.start();
+            gameThreads.add(gameThread);
+            gameThreads.removeIf(thread -> !thread.isAlive());
+        }
+        for (Thread gameThread : gameThreads) {
+            gameThread.join();
+        }
+    }
+
+    /**
+     * Getter for the number of games played until their end
+     *
+     * @return the number of played games
+     */
+    public int playedGames() {
+        return playedGames.get();
+    }
+
+    /**
+     * Getter for the number of games ended by the failure of a player
+     *
+     * @return the number of failed games
+     */
+    public int failedGames() {
+        return failedGames.get();
+    }
+
+    /**
+     * Stops accepting players, and closes the multiplexed connections
+     */
+    @Override
+    public void close() throws IOException {
+        players.close();
+        if (multiplexed != null) {
+            multiplexed.close();
+        }
+        synchronized (multiplexers) {
+            for (Multiplexer multiplexer : multiplexers) {
+                multiplexer.close();
+            }
+        }
+    }
+
+    /**
+     * Takes the next seat waiting for a game and opens its connection. The seats which can't be opened anymore (those
+     * of a multiplexed connection closed since it offered them) are discarded, so that they don't end the game of a
+     * player whose connection is fine.
+     */
+    private Seat takeOpenSeat() throws InterruptedException {
+        while (true) {
+            Seat seat = seats.take();
+            try {
+                return seat.open();
+            } catch (IOException failure) {
+                seat.seated();
+                LOGGER.log(Level.WARNING, "Seat discarded", failure);
+            }
+        }
+    }
+
+    private void play(List<Seat> gameSeats, long gameSeed) {
+        Map<PlayerId, Player> gamePlayers = new EnumMap<>(PlayerId.class);
+        List<Connection> connections = new ArrayList<>();
+        List<RemotePlayerProxy> proxies = new ArrayList<>();
+        try {
+            for (int i = 0; i < PlayerId.COUNT; i++) {
+                PlayerId playerId = PlayerId.ALL.get(i);
+                if (i < gameSeats.size()) {
+                    Seat seat = gameSeats.get(i);
+                    Connection connection = seat.connector.connect();
+                    connections.add(connection);
+                    RemotePlayerProxy proxy = new RemotePlayerProxy(connection, ProtocolMetrics.NONE,
+                            offerCompression && !seat.multiplexed);
+                    proxies.add(proxy);
+                    gamePlayers.put(playerId, proxy);
+                } else {
+                    gamePlayers.put(playerId, BotPlayer.random(gameSeed + i));
+                }
+            }
+            Game.play(gamePlayers, playerNames, SortedBag.of(ChMap.tickets()), new Random(gameSeed));
+            playedGames.incrementAndGet();
+        } catch (IOException | RuntimeException failure) {
+            failedGames.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Game " + Thread.currentThread().getName() + " failed", failure);
+        } finally {
+            proxies.forEach(RemotePlayerProxy::close);
+            connections.subList(proxies.size(), connections.size()).forEach(HeadlessServer::closeQuietly);
+        }
+    }
+
+    private void acceptPlayers() {
+        try {
+            while (true) {
+                Socket socket = players.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = Connection.of(socket);
+                seats.put(new Seat(() -> connection, false, new CountDownLatch(1)));
+            }
+        } catch (SocketException closed) {
+            //The server socket was closed, nobody can connect anymore
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptMultiplexedConnections() {
+        try {
+            while (true) {
+                Socket socket = multiplexed.accept();
+                socket.setTcpNoDelay(true);
+                Multiplexer multiplexer = Multiplexer.opening(Connection.of(socket));
+                synchronized (multiplexers) {
+                    multiplexers.add(multiplexer);
+                }
+                startDaemon(() -> offerSeats(multiplexer), "multiplexed-seats");
+            }
+        } catch (SocketException closed) {
+            //The server socket was closed, nobody can connect anymore
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    /**
+     * Offers the seats of a multiplexed connection, one after the other, until the connection is closed. The channel
+     * of a seat is only opened once the seat is taken for a game (see takeOpenSeat), and the next seat is only offered
+     * once all the seats of this game are taken, so that the connection never takes two seats of the same game.
+     */
+    private void offerSeats(Multiplexer multiplexer) {
+        try {
+            while (!multiplexer.isClosed()) {
+                Seat seat = new Seat(multiplexer::openChannel, true, new CountDownLatch(1));
+                seats.put(seat);
+                seat.awaitSeated();
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void startDaemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (IOException ignored) {
+            //The connection is lost anyway
+        }
+    }
+
+    /**
+     * Seat of a remote player waiting for a game, over its own connection or a channel of a multiplexed connection
+     */
+    private static final class Seat {
+        private final Connection.Connector connector;
+        private final boolean multiplexed;
+        //Counted down once all the seats of the game of this one are taken, or once this one is discarded
+        private final CountDownLatch seated;
+
+        private Seat(Connection.Connector connector, boolean multiplexed, CountDownLatch seated) {
+            this.connector = connector;
+            this.multiplexed = multiplexed;
+            this.seated = seated;
+        }
+
+        /**
+         * Opens the connection of the seat
+         *
+         * @return the same seat, whose connection is open
+         * @throws IOException if the connection can't be opened
+         */
+        private Seat open() throws IOException {
+            Connection connection = connector.connect();
+            return new Seat(() -> connection, multiplexed, seated);
+        }
+
+        /**
+         * Signals that all the seats of the game of this seat are taken, or that this seat is discarded
+         */
+        private void seated() {
+            seated.countDown();
+        }
+
+        /**
+         * Waits until all the seats of the game of this seat are taken, or until this seat is discarded
+         *
+         * @throws InterruptedException if interrupted while waiting
+         */
+        private void awaitSeated() throws InterruptedException {
+            seated.await();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ch.epfl.tchu;
+
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.net.Serdes;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Player recording what it is told and the routes it claims, and making the decisions of the given player. Without
+ * a player to make the decisions, it can only watch a game, as a spectator of a replay does.
+ */
+public final class RecordingPlayer implements Player, GameRecord.Spectator {
+    private final Player player;
+    private final List<Supplier<String>> told = new ArrayList<>();
+    private final List<String> infos = new ArrayList<>();
+    private final List<PublicGameState> publicStates = new ArrayList<>();
+    private final List<PlayerState> playerStates = new ArrayList<>();
+    private final List<Route> claimedRoutes = new ArrayList<>();
+
+    /**
+     * Creates a player making the decisions of the given player
+     *
+     * @param player : the player making the decisions, null if the recording player only watches
+     */
+    public RecordingPlayer(Player player) {
+        this.player = player;
+    }
+
+    /**
+     * Everything the player was told, in order, the states and the tickets being serialized
+     *
+     * @return what the player was told
+     */
+    public List<String> seen() {
+        return told.stream().map(Supplier::get).collect(Collectors.toList());
+    }
+
+    public List<String> infos() {
+        return infos;
+    }
+
+    public List<PublicGameState> publicStates() {
+        return publicStates;
+    }
+
+    public List<PlayerState> playerStates() {
+        return playerStates;
+    }
+
+    /**
+     * The routes the player tried to claim, in order
+     *
+     * @return the routes
+     */
+    public List<Route> claimedRoutes() {
+        return claimedRoutes;
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames) {
+        String names = ownID + " " + new TreeMap<>(playerNames);
+        told.add(() -> names);
+        if (player != null) {
+            player.initPlayers(ownID, playerNames);
+        }
+    }
+
+    @Override
+    public void receiveInfo(String info) {
+        told.add(() -> info);
+        infos.add(info);
+        if (player != null) {
+            player.receiveInfo(info);
+        }
+    }
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        told.add(() -> Serdes.PUBLIC_GAME_STATE_SERDE.serialize(newState) + " "
+                + Serdes.PLAYER_STATE_SERDE.serialize(ownState));
+        publicStates.add(newState);
+        playerStates.add(ownState);
+        if (player != null) {
+            player.updateState(newState, ownState);
+        }
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        told.add(() -> Serdes.SORTED_BAG_TICKET_SERDE.serialize(tickets));
+        if (player != null) {
+            player.setInitialTicketChoice(tickets);
+        }
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        return player.chooseInitialTickets();
+    }
+
+    @Override
+    public TurnKind nextTurn() {
+        return player.nextTurn();
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        return player.chooseTickets(options);
+    }
+
+    @Override
+    public int drawSlot() {
+        return player.drawSlot();
+    }
+
+    @Override
+    public Route claimedRoute() {
+        Route route = player.claimedRoute();
+        claimedRoutes.add(route);
+        return route;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return player.initialClaimCards();
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        return player.chooseAdditionalCards(options);
+    }
+}
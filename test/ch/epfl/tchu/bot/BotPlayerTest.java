@@ -0,0 +1,42 @@
+package ch.epfl.tchu.bot;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BotPlayerTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+
+    @Test
+    void randomBotsPlayWholeGames() {
+        for (int seed = 0; seed < 50; seed++) {
+            Map<PlayerId, Player> players = Map.of(PLAYER_1, BotPlayer.random(seed), PLAYER_2, BotPlayer.random(-seed));
+            assertDoesNotThrow(() -> Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(0)));
+        }
+    }
+
+    @Test
+    void scriptedBotsPlayAWholeGame() {
+        Map<PlayerId, Player> players = Map.of(PLAYER_1, BotPlayer.scripted(), PLAYER_2, BotPlayer.scripted());
+        assertDoesNotThrow(() -> Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(0)));
+    }
+
+    @Test
+    void scriptedBotKeepsTheFewestTickets() {
+        BotPlayer bot = BotPlayer.scripted();
+        SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets().subList(0, Constants.INITIAL_TICKETS_COUNT));
+        bot.setInitialTicketChoice(tickets);
+
+        SortedBag<Ticket> chosen = bot.chooseInitialTickets();
+        assertEquals(Constants.INITIAL_TICKETS_COUNT - Constants.DISCARDABLE_TICKETS_COUNT, chosen.size());
+        assertTrue(tickets.contains(chosen));
+        assertEquals(1, bot.chooseTickets(SortedBag.of(ChMap.tickets().subList(0, Constants.IN_GAME_TICKETS_COUNT))).size());
+    }
+}
@@ -0,0 +1,198 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.RecordingPlayer;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncPlayerTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+    private static final int GAMES = 100;
+
+    @Test
+    void asyncGamesOnTwoThreadsPlayLikeSynchronousGames() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<CompletableFuture<Void>> asyncGames = new ArrayList<>();
+            List<List<String>> asyncInfos = new ArrayList<>();
+
+            //All the games are in progress at the same time, on two threads
+            for (int seed = 0; seed < GAMES; seed++) {
+                RecordingPlayer first = new RecordingPlayer(BotPlayer.random(seed));
+                RecordingPlayer second = new RecordingPlayer(BotPlayer.random(-seed));
+                Map<PlayerId, AsyncPlayer> players = Map.of(
+                        PLAYER_1, new DeferredPlayer(AsyncPlayer.of(first), executor),
+                        PLAYER_2, new DeferredPlayer(AsyncPlayer.of(second), executor));
+
+                asyncGames.add(Game.playAsync(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(seed)));
+                asyncInfos.add(first.infos());
+            }
+            CompletableFuture.allOf(asyncGames.toArray(new CompletableFuture<?>[0])).get(60, TimeUnit.SECONDS);
+
+            for (int seed = 0; seed < GAMES; seed++) {
+                RecordingPlayer first = new RecordingPlayer(BotPlayer.random(seed));
+                Map<PlayerId, Player> players = Map.of(PLAYER_1, first, PLAYER_2, BotPlayer.random(-seed));
+                Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(seed));
+
+                assertEquals(first.infos(), asyncInfos.get(seed));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void routesClaimedDuringTheLastTurnCountInTheFinalState() {
+        int lastTurnClaims = 0;
+        for (int seed = 0; seed < GAMES; seed++) {
+            RecordingPlayer first = new RecordingPlayer(BotPlayer.random(seed));
+            RecordingPlayer second = new RecordingPlayer(BotPlayer.random(-seed));
+            Game.play(Map.of(PLAYER_1, first, PLAYER_2, second), NAMES, SortedBag.of(ChMap.tickets()), new Random(seed));
+
+            for (RecordingPlayer player : List.of(first, second)) {
+                //The final state, on which the points are computed, follows the state of the start of the last turn
+                List<PlayerState> states = player.playerStates();
+                PlayerState finalState = states.get(states.size() - 1);
+                for (Route route : player.claimedRoutes()) {
+                    //A claim of an overground route can't fail
+                    if (route.level() == Route.Level.OVERGROUND) {
+                        assertTrue(finalState.routes().contains(route));
+                    }
+                }
+                if (finalState.routes().size() > states.get(states.size() - 2).routes().size()) {
+                    lastTurnClaims++;
+                }
+            }
+        }
+        assertTrue(lastTurnClaims > 0);
+    }
+
+    @Test
+    void asyncGameFailsWithItsPlayer() {
+        AsyncPlayer failing = new DeferredPlayer(AsyncPlayer.of(BotPlayer.random(0)), Runnable::run) {
+            @Override
+            public CompletableFuture<Player.TurnKind> nextTurn() {
+                return CompletableFuture.failedFuture(new IllegalStateException());
+            }
+        };
+        Map<PlayerId, AsyncPlayer> players = Map.of(PLAYER_1, failing, PLAYER_2, failing);
+
+        CompletableFuture<Void> game = Game.playAsync(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(0));
+        ExecutionException failure = assertThrows(ExecutionException.class, game::get);
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    void blockingPlayerWaitsForDecisionsAndRethrowsFailures() {
+        CompletableFuture<Integer> slot = new CompletableFuture<>();
+        AsyncPlayer async = new DeferredPlayer(AsyncPlayer.of(BotPlayer.random(0)), Runnable::run) {
+            @Override
+            public CompletableFuture<Integer> drawSlot() {
+                return slot;
+            }
+
+            @Override
+            public CompletableFuture<Route> claimedRoute() {
+                return CompletableFuture.failedFuture(new IllegalStateException());
+            }
+        };
+        Player player = AsyncPlayer.blocking(async);
+
+        CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS).execute(() -> slot.complete(3));
+        assertEquals(3, player.drawSlot());
+        assertThrows(IllegalStateException.class, player::claimedRoute);
+    }
+
+    @Test
+    void synchronousGameRethrowsFailuresOfPlayers() {
+        Player failing = AsyncPlayer.blocking(new DeferredPlayer(AsyncPlayer.of(BotPlayer.random(0)), Runnable::run) {
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseInitialTickets() {
+                return CompletableFuture.failedFuture(new IllegalStateException());
+            }
+        });
+        Map<PlayerId, Player> players = Map.of(PLAYER_1, failing, PLAYER_2, failing);
+
+        assertThrows(IllegalStateException.class,
+                () -> Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(0)));
+    }
+
+    /**
+     * Asynchronous player whose decisions are completed later, by the given executor
+     */
+    private static class DeferredPlayer implements AsyncPlayer {
+        private final AsyncPlayer player;
+        private final Executor executor;
+
+        private DeferredPlayer(AsyncPlayer player, Executor executor) {
+            this.player = player;
+            this.executor = executor;
+        }
+
+        private <T> CompletableFuture<T> later(CompletableFuture<T> decision) {
+            return decision.thenApplyAsync(value -> value, executor);
+        }
+
+        @Override
+        public void initPlayers(PlayerId ownID, Map<PlayerId, String> playerNames) {
+            player.initPlayers(ownID, playerNames);
+        }
+
+        @Override
+        public void receiveInfo(String info) {
+            player.receiveInfo(info);
+        }
+
+        @Override
+        public void updateState(PublicGameState newState, PlayerState ownState) {
+            player.updateState(newState, ownState);
+        }
+
+        @Override
+        public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+            player.setInitialTicketChoice(tickets);
+        }
+
+        @Override
+        public CompletableFuture<SortedBag<Ticket>> chooseInitialTickets() {
+            return later(player.chooseInitialTickets());
+        }
+
+        @Override
+        public CompletableFuture<Player.TurnKind> nextTurn() {
+            return later(player.nextTurn());
+        }
+
+        @Override
+        public CompletableFuture<SortedBag<Ticket>> chooseTickets(SortedBag<Ticket> options) {
+            return later(player.chooseTickets(options));
+        }
+
+        @Override
+        public CompletableFuture<Integer> drawSlot() {
+            return later(player.drawSlot());
+        }
+
+        @Override
+        public CompletableFuture<Route> claimedRoute() {
+            return later(player.claimedRoute());
+        }
+
+        @Override
+        public CompletableFuture<SortedBag<Card>> initialClaimCards() {
+            return later(player.initialClaimCards());
+        }
+
+        @Override
+        public CompletableFuture<SortedBag<Card>> chooseAdditionalCards(List<SortedBag<Card>> options) {
+            return later(player.chooseAdditionalCards(options));
+        }
+    }
+}
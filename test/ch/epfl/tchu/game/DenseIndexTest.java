@@ -0,0 +1,43 @@
+package ch.epfl.tchu.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DenseIndexTest {
+    @Test
+    void denseIndexIdsAreListIndices() {
+        DenseIndex<Route> index = ChMap.routeIndex();
+
+        assertEquals(ChMap.routes().size(), index.size());
+        for (Route route : ChMap.routes()) {
+            int id = index.idOf(route);
+            assertEquals(ChMap.routes().indexOf(route), id);
+            assertSame(route, index.valueOf(id));
+        }
+    }
+
+    @Test
+    void denseIndexKeepsFirstIdOfRepeatedValue() {
+        DenseIndex<Ticket> index = ChMap.ticketIndex();
+
+        assertEquals(40, index.idOf(ChMap.tickets().get(41)));
+        assertEquals(ChMap.tickets(), index.values());
+    }
+
+    @Test
+    void denseIndexFailsOnEqualButNotIdenticalValue() {
+        DenseIndex<String> index = DenseIndex.of(List.of("a", "b", "c"));
+
+        assertThrows(IllegalArgumentException.class, () -> index.idOf(new String("b")));
+    }
+
+    @Test
+    void denseIndexFailsOnUnknownValue() {
+        DenseIndex<Card> index = DenseIndex.of(Card.CARS);
+
+        assertThrows(IllegalArgumentException.class, () -> index.idOf(Card.LOCOMOTIVE));
+    }
+}
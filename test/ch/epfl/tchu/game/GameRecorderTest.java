@@ -0,0 +1,113 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.RecordingPlayer;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.*;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRecorderTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+
+    @Test
+    void replayedGamesAreTheRecordedOnes() throws IOException {
+        for (int seed = 0; seed < 20; seed++) {
+            RecordingPlayer first = new RecordingPlayer(BotPlayer.random(seed));
+            RecordingPlayer second = new RecordingPlayer(BotPlayer.random(-seed));
+            StringWriter record = new StringWriter();
+            //The players are asked to decide in the order of the map, which the record must keep
+            Map<PlayerId, Player> players = new LinkedHashMap<>();
+            if (seed % 2 == 0) {
+                players.put(PLAYER_1, first);
+                players.put(PLAYER_2, second);
+            } else {
+                players.put(PLAYER_2, second);
+                players.put(PLAYER_1, first);
+            }
+            Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(seed), new GameRecorder(record));
+
+            GameRecord gameRecord = GameRecorder.read(new BufferedReader(new StringReader(record.toString())));
+            RecordingPlayer firstSpectator = new RecordingPlayer(null);
+            RecordingPlayer secondSpectator = new RecordingPlayer(null);
+
+            assertEquals(NAMES, gameRecord.playerNames());
+            assertTrue(gameRecord.replay(Map.of(PLAYER_1, firstSpectator, PLAYER_2, secondSpectator)));
+            assertEquals(first.seen(), firstSpectator.seen());
+            assertEquals(second.seen(), secondSpectator.seen());
+        }
+    }
+
+    @Test
+    void recordedGamesPlayLikeUnrecordedOnes() {
+        RecordingPlayer recorded = new RecordingPlayer(BotPlayer.random(7));
+        Game.play(Map.of(PLAYER_1, recorded, PLAYER_2, BotPlayer.random(-7)), NAMES, SortedBag.of(ChMap.tickets()),
+                new Random(7), new GameRecorder(new StringWriter()));
+        RecordingPlayer unrecorded = new RecordingPlayer(BotPlayer.random(7));
+        Game.play(Map.of(PLAYER_1, unrecorded, PLAYER_2, BotPlayer.random(-7)), NAMES, SortedBag.of(ChMap.tickets()),
+                new Random(7), null);
+
+        assertEquals(unrecorded.seen(), recorded.seen());
+    }
+
+    @Test
+    void truncatedRecordsAreReplayedUntilTheirEnd() throws IOException {
+        StringWriter record = new StringWriter();
+        Game.play(Map.of(PLAYER_1, BotPlayer.random(1), PLAYER_2, BotPlayer.random(2)), NAMES,
+                SortedBag.of(ChMap.tickets()), new Random(1), new GameRecorder(record));
+        String[] lines = record.toString().split("\n");
+        String half = String.join("\n", Arrays.copyOf(lines, lines.length / 2));
+
+        RecordingPlayer spectator = new RecordingPlayer(null);
+        GameRecord gameRecord = GameRecorder.read(new BufferedReader(new StringReader(half)));
+        assertFalse(gameRecord.replay(Map.of(PLAYER_1, spectator)));
+        assertFalse(spectator.seen().isEmpty());
+    }
+
+    @Test
+    void recordsCutInTheMiddleOfALineAreReplayedUntilTheirLastWholeLine() throws IOException {
+        StringWriter record = new StringWriter();
+        Game.play(Map.of(PLAYER_1, BotPlayer.random(3), PLAYER_2, BotPlayer.random(4)), NAMES,
+                SortedBag.of(ChMap.tickets()), new Random(3), new GameRecorder(record));
+        String wholeRecord = record.toString();
+
+        int lineStart = wholeRecord.indexOf('\n', wholeRecord.length() / 2) + 1;
+        for (int line = 0; line < 30; line++) {
+            int lineEnd = wholeRecord.indexOf('\n', lineStart) + 1;
+            String wholeLines = wholeRecord.substring(0, lineStart);
+            //Cut in the middle of the line, then within its key, then as if its key were unknown
+            for (String cutRecord : List.of(wholeRecord.substring(0, (lineStart + lineEnd) / 2),
+                    wholeRecord.substring(0, lineStart + 3), wholeLines + "PLAY 3\n")) {
+                RecordingPlayer expected = new RecordingPlayer(null);
+                RecordingPlayer spectator = new RecordingPlayer(null);
+
+                assertFalse(GameRecorder.read(reader(wholeLines)).replay(Map.of(PLAYER_1, expected)));
+                assertFalse(GameRecorder.read(reader(cutRecord)).replay(Map.of(PLAYER_1, spectator)));
+                assertEquals(expected.seen(), spectator.seen());
+            }
+            lineStart = lineEnd;
+        }
+    }
+
+    @Test
+    void malformedRecordsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> GameRecorder.read(new BufferedReader(new StringReader("TICKETS 1,2"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> GameRecorder.read(new BufferedReader(new StringReader("NAMES QWRh,Q2hhcmxlcw==\nPLAYERS PLAYER_1\nTICKETS 1"))));
+        assertThrows(IllegalArgumentException.class, () -> GameRecorder.read(new BufferedReader(
+                new StringReader("NAMES QWRh,Q2hhcmxlcw==\nPLAYERS PLAYER_1,PLAYER_2\nTICKETS 1\nPLAYER_3 0\nRANDOM 1\n"))));
+    }
+
+    private static BufferedReader reader(String record) {
+        return new BufferedReader(new StringReader(record));
+    }
+}
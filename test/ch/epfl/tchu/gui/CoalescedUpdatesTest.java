@@ -0,0 +1,82 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.Card;
+import ch.epfl.tchu.game.PlayerState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescedUpdatesTest {
+    private static PlayerState playerState(int cardCount) {
+        return new PlayerState(SortedBag.of(), SortedBag.of(cardCount, Card.BLUE), List.of());
+    }
+
+    @Test
+    void burstOfUpdatesIsAppliedByASingleDrain() {
+        List<Runnable> pending = new ArrayList<>();
+        List<String> applied = new ArrayList<>();
+        CoalescedUpdates updates = new CoalescedUpdates(pending::add,
+                (publicGameState, playerState) -> applied.add("state " + playerState.cardCount()), applied::add);
+
+        updates.publishState(null, playerState(1));
+        updates.publishState(null, playerState(2));
+        updates.publishMessage("a");
+        updates.publishState(null, playerState(3));
+        updates.publishMessage("b");
+        updates.publishMessage("c");
+        updates.publishState(null, playerState(4));
+        updates.publishState(null, playerState(5));
+
+        assertEquals(1, pending.size());
+        pending.get(0).run();
+        assertEquals(List.of("state 2", "a", "state 3", "b", "c", "state 5"), applied);
+        assertEquals(2, updates.skippedStates());
+    }
+
+    @Test
+    void updatesPublishedAfterADrainScheduleAnotherOne() {
+        List<Runnable> pending = new ArrayList<>();
+        List<String> messages = new ArrayList<>();
+        CoalescedUpdates updates = new CoalescedUpdates(pending::add, (publicGameState, playerState) -> {}, messages::add);
+
+        updates.publishMessage("a");
+        pending.get(0).run();
+        updates.publishState(null, playerState(1));
+        updates.publishMessage("b");
+
+        assertEquals(2, pending.size());
+        pending.get(1).run();
+        assertEquals(List.of("a", "b"), messages);
+        assertEquals(0, updates.skippedStates());
+    }
+
+    @Test
+    void messagesPublishedConcurrentlyKeepTheirOrder() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<String> messages = new ArrayList<>();
+        List<PlayerState> states = new ArrayList<>();
+        CoalescedUpdates updates = new CoalescedUpdates(executor, (publicGameState, playerState) -> states.add(playerState), messages::add);
+
+        int count = 10_000;
+        for (int i = 0; i < count; i++) {
+            updates.publishMessage(Integer.toString(i));
+            updates.publishState(null, playerState(i));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(count, messages.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.toString(i), messages.get(i));
+        }
+        assertEquals(count - 1, states.get(states.size() - 1).cardCount());
+        assertEquals(count, states.size() + updates.skippedStates());
+    }
+}
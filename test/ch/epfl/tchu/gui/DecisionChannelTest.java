@@ -0,0 +1,96 @@
+package ch.epfl.tchu.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionChannelTest {
+    @Test
+    void offeredDecisionIsTaken() {
+        DecisionChannel channel = new DecisionChannel(0);
+
+        channel.offer(new Decision.DrawCard(3));
+        assertEquals(3, channel.take(Decision.DrawCard.class).slot());
+        assertEquals(1, channel.handOffLatencies().count());
+    }
+
+    @Test
+    void takeWaitsForTheDecision() throws Exception {
+        DecisionChannel channel = new DecisionChannel(0);
+        CompletableFuture<Decision> taken = CompletableFuture.supplyAsync(channel::take);
+
+        Thread.sleep(50);
+        assertFalse(taken.isDone());
+        channel.offer(new Decision.DrawTickets());
+        assertTrue(taken.get(5, TimeUnit.SECONDS) instanceof Decision.DrawTickets);
+    }
+
+    @Test
+    void manyDecisionsAreHandedOverInOrder() throws Exception {
+        DecisionChannel channel = new DecisionChannel(0);
+        int count = 10_000;
+        CompletableFuture<Void> taker = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, channel.take(Decision.DrawCard.class).slot());
+            }
+        });
+
+        for (int i = 0; i < count; i++) {
+            //Like the player, only decides once the previous decision was taken
+            while (!channel.offer(new Decision.DrawCard(i))) {
+                Thread.onSpinWait();
+            }
+        }
+        taker.get(10, TimeUnit.SECONDS);
+        assertEquals(count, channel.handOffLatencies().count());
+    }
+
+    @Test
+    void offerIsIgnoredIfThePreviousDecisionIsntTaken() {
+        DecisionChannel channel = new DecisionChannel(0);
+
+        assertTrue(channel.offer(new Decision.DrawCard(1)));
+        assertFalse(channel.offer(new Decision.DrawCard(2)));
+        assertEquals(1, channel.take(Decision.DrawCard.class).slot());
+        assertTrue(channel.offer(new Decision.DrawCard(3)));
+        assertEquals(3, channel.take(Decision.DrawCard.class).slot());
+    }
+
+    @Test
+    void takeFailsForAnotherKindOfDecision() {
+        DecisionChannel channel = new DecisionChannel(0);
+
+        channel.offer(new Decision.DrawTickets());
+        assertThrows(IllegalStateException.class, () -> channel.take(Decision.DrawCard.class));
+    }
+
+    @Test
+    void cancelUnblocksTheWaitingThread() throws Exception {
+        DecisionChannel channel = new DecisionChannel(0);
+        CompletableFuture<Decision> taken = CompletableFuture.supplyAsync(channel::take);
+
+        Thread.sleep(50);
+        channel.cancel();
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> taken.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof CancellationException);
+
+        //Later decisions are ignored, and later takes fail
+        channel.offer(new Decision.DrawTickets());
+        assertThrows(CancellationException.class, channel::take);
+    }
+
+    @Test
+    void takeFailsAfterTheTimeout() {
+        DecisionChannel channel = new DecisionChannel(50);
+
+        long start = System.nanoTime();
+        assertThrows(CancellationException.class, channel::take);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(channel.isCancelled());
+    }
+}
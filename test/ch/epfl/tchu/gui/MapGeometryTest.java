@@ -0,0 +1,118 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.DenseIndex;
+import ch.epfl.tchu.game.Route;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapGeometryTest {
+    private static MapGeometry chGeometry() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get("resources", "map.css"), UTF_8)) {
+            return MapGeometry.read(ChMap.routeIndex(), reader);
+        }
+    }
+
+    @Test
+    void routeAtFindsTheRouteOfEveryCell() throws IOException {
+        MapGeometry geometry = chGeometry();
+        DenseIndex<Route> routes = ChMap.routeIndex();
+
+        for (int id = 0; id < routes.size(); id++) {
+            assertEquals(geometry.firstCell(id) + routes.valueOf(id).length(), geometry.firstCell(id + 1));
+            for (int cell = geometry.firstCell(id); cell < geometry.firstCell(id + 1); cell++) {
+                assertEquals(id, geometry.routeAt(geometry.centerX(cell), geometry.centerY(cell)));
+            }
+        }
+    }
+
+    @Test
+    void routeAtTakesTheRotationIntoAccount() throws IOException {
+        Route route = ChMap.routes().get(0);
+        String styleSheet = "#" + route.id() + "_1 { -fx-translate-x: 100; -fx-translate-y: 100; -fx-rotate: 90 }\n";
+        MapGeometry geometry = MapGeometry.read(DenseIndex.of(List.of(route)),
+                new BufferedReader(new StringReader(styleSheet + otherCells(route))));
+
+        //The cell is centered on (118, 106), 12 pixels wide and 36 pixels high once rotated
+        assertEquals(0, geometry.routeAt(118, 106 + 17));
+        assertEquals(0, geometry.routeAt(118 + 5, 106));
+        assertEquals(-1, geometry.routeAt(118 + 17, 106));
+        assertEquals(-1, geometry.routeAt(1_000, 1_000));
+        assertEquals(-1, geometry.routeAt(-1, 0));
+    }
+
+    @Test
+    void neighborsIncludeTheGivenRoutesAndOverlappingOnes() throws IOException {
+        MapGeometry geometry = chGeometry();
+        int routeCount = ChMap.routeIndex().size();
+
+        BitSet allNeighbors = new BitSet();
+        for (int id = 0; id < routeCount; id++) {
+            BitSet route = new BitSet();
+            route.set(id);
+            BitSet neighbors = geometry.neighbors(route);
+            assertTrue(neighbors.get(id));
+            allNeighbors.or(neighbors);
+            //A route only has a few neighbors
+            assertTrue(neighbors.cardinality() < routeCount / 4);
+        }
+        assertEquals(routeCount, allNeighbors.cardinality());
+    }
+
+    @Test
+    void boundingBoxesHoldHoveredPlannedTracksInEveryRotation() throws IOException {
+        Route route = ChMap.routes().get(0);
+        for (int angle = 0; angle < 180; angle += 15) {
+            String styleSheet = "#" + route.id() + "_1 { -fx-translate-x: 100; -fx-translate-y: 100; -fx-rotate: "
+                    + angle + " }\n";
+            MapGeometry geometry = MapGeometry.read(DenseIndex.of(List.of(route)),
+                    new BufferedReader(new StringReader(styleSheet + otherCells(route))));
+
+            //Half sides of the enlarged track, its stroke included
+            double halfWidth = MapGeometry.HOVER_SCALE * (MapGeometry.CELL_WIDTH / 2 + MapGeometry.PLANNED_STROKE_WIDTH);
+            double halfHeight = MapGeometry.HOVER_SCALE * (MapGeometry.CELL_HEIGHT / 2 + MapGeometry.PLANNED_STROKE_WIDTH);
+            double cos = Math.abs(Math.cos(Math.toRadians(angle)));
+            double sin = Math.abs(Math.sin(Math.toRadians(angle)));
+            assertTrue(cos * halfWidth + sin * halfHeight + 1 <= geometry.halfWidth(0));
+            assertTrue(sin * halfWidth + cos * halfHeight + 1 <= geometry.halfHeight(0));
+        }
+    }
+
+    @Test
+    void hoverScaleAndPlannedStrokeAreThoseOfTheStyleSheet() throws IOException {
+        String styleSheet = Files.readString(Paths.get("resources", "map.css"), UTF_8).replaceAll("\\s+", " ");
+
+        assertTrue(styleSheet.contains(".planned .track { -fx-stroke: orangered; -fx-stroke-width: "
+                + (int) MapGeometry.PLANNED_STROKE_WIDTH + "; }"));
+        assertTrue(styleSheet.contains(".route:hover .track { -fx-scale-x: " + MapGeometry.HOVER_SCALE
+                + "; -fx-scale-y: " + MapGeometry.HOVER_SCALE + "; }"));
+    }
+
+    @Test
+    void readFailsIfACellIsMissing() {
+        Route route = ChMap.routes().stream().filter(r -> r.length() > 1).findFirst().orElseThrow();
+        String styleSheet = "#" + route.id() + "_1 { -fx-translate-x: 100; -fx-translate-y: 100; -fx-rotate: 0 }\n";
+
+        assertThrows(IllegalArgumentException.class, () -> MapGeometry.read(DenseIndex.of(List.of(route)),
+                new BufferedReader(new StringReader(styleSheet))));
+    }
+
+    private static String otherCells(Route route) {
+        StringBuilder cells = new StringBuilder();
+        for (int cell = 2; cell <= route.length(); cell++) {
+            cells.append("#").append(route.id()).append("_").append(cell)
+                    .append(" { -fx-translate-x: 500; -fx-translate-y: 500; -fx-rotate: 0 }\n");
+        }
+        return cells.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.game.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageLogTest {
+    @Test
+    void messagesAreKeptInOrderUntilTheLogIsFull() {
+        MessageLog log = new MessageLog(3);
+
+        assertNull(log.add("a", PLAYER_1));
+        assertNull(log.add("b", null));
+        assertEquals(2, log.size());
+        assertEquals("a", log.get(0).message());
+        assertEquals(PLAYER_1, log.get(0).player());
+        assertEquals("b", log.get(1).message());
+        assertNull(log.get(1).player());
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(2));
+    }
+
+    @Test
+    void newMessagesReplaceTheOldestOnes() {
+        MessageLog log = new MessageLog(3);
+
+        for (int i = 0; i < 3; i++) {
+            log.add(Integer.toString(i), null);
+        }
+        for (int i = 3; i < 1_000; i++) {
+            assertEquals(Integer.toString(i - 3), log.add(Integer.toString(i), null).message());
+            assertEquals(3, log.size());
+            assertEquals(Integer.toString(i - 2), log.get(0).message());
+            assertEquals(Integer.toString(i), log.get(2).message());
+        }
+        assertEquals(3, log.capacity());
+    }
+
+    @Test
+    void removeLastRemovesTheNewestMessages() {
+        MessageLog log = new MessageLog(3);
+        for (int i = 0; i < 5; i++) {
+            log.add(Integer.toString(i), null);
+        }
+
+        log.removeLast(2);
+        assertEquals(1, log.size());
+        assertEquals("2", log.get(0).message());
+        assertNull(log.add(new MessageLog.Entry("5", PLAYER_2)));
+        assertEquals("5", log.get(1).message());
+        assertEquals(PLAYER_2, log.get(1).player());
+        assertThrows(IllegalArgumentException.class, () -> log.removeLast(3));
+        assertThrows(IllegalArgumentException.class, () -> log.removeLast(-1));
+    }
+
+    @Test
+    void playerOfFindsThePlayerStartingTheMessage() {
+        Map<PlayerId, String> names = Map.of(PLAYER_1, "Ada", PLAYER_2, "Adam");
+
+        assertEquals(PLAYER_1, MessageLog.playerOf("Ada a tire 2 cartes.", names));
+        assertEquals(PLAYER_2, MessageLog.playerOf("Adam a tire 2 cartes.", names));
+        assertNull(MessageLog.playerOf("Le dernier tour commence.", names));
+    }
+
+    @Test
+    void filterKeepsTheMatchingEntries() {
+        MessageLog log = new MessageLog(4);
+        log.add("Ada a pris la route Lausanne - Berne.", PLAYER_1);
+        log.add("Charles a tire 3 billets.", PLAYER_2);
+        log.add("Ada a tire 3 billets.", PLAYER_1);
+
+        Predicate<MessageLog.Entry> billetsOfAda = MessageLog.filter("BILLETS", PLAYER_1);
+        assertFalse(billetsOfAda.test(log.get(0)));
+        assertFalse(billetsOfAda.test(log.get(1)));
+        assertTrue(billetsOfAda.test(log.get(2)));
+
+        Predicate<MessageLog.Entry> all = MessageLog.filter("", null);
+        for (int i = 0; i < log.size(); i++) {
+            assertTrue(all.test(log.get(i)));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.RecordingPlayer;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import ch.epfl.tchu.game.*;
+import javafx.beans.property.ReadOnlyProperty;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObservableGameStateTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+    private static final DenseIndex<Route> ROUTES = ChMap.routeIndex();
+
+    @Test
+    void changeCountIsTheNumberOfPropertiesThatFired() {
+        for (int seed = 0; seed < 3; seed++) {
+            RecordingPlayer collector = playGame(seed);
+            ObservableGameState gameState = new ObservableGameState(PLAYER_1);
+            ChangeCounter counter = new ChangeCounter(gameState);
+            PlannerMirror planner = new PlannerMirror();
+
+            for (int i = 0; i < collector.publicStates().size(); i++) {
+                counter.reset();
+                int changed = gameState.setState(collector.publicStates().get(i), collector.playerStates().get(i));
+
+                assertEquals(counter.changes(), changed);
+                assertSameValues(collector.publicStates().get(i), collector.playerStates().get(i), gameState, planner);
+            }
+        }
+    }
+
+    @Test
+    void settingTheSameStateAgainChangesNothing() {
+        RecordingPlayer collector = playGame(4);
+        ObservableGameState gameState = new ObservableGameState(PLAYER_1);
+        ChangeCounter counter = new ChangeCounter(gameState);
+
+        for (int i = 0; i < collector.publicStates().size(); i++) {
+            gameState.setState(collector.publicStates().get(i), collector.playerStates().get(i));
+            counter.reset();
+
+            assertEquals(0, gameState.setState(collector.publicStates().get(i), collector.playerStates().get(i)));
+            assertEquals(0, counter.changes());
+        }
+    }
+
+    @Test
+    void statesSetInAnyOrderGiveTheSameValuesAsAFreshState() {
+        RecordingPlayer collector = playGame(5);
+        Random random = new Random(5);
+        ObservableGameState gameState = new ObservableGameState(PLAYER_1);
+        ChangeCounter counter = new ChangeCounter(gameState);
+        PlannerMirror planner = new PlannerMirror();
+
+        //Seeks back and forth, as a replay does
+        for (int seek = 0; seek < 100; seek++) {
+            int i = random.nextInt(collector.publicStates().size());
+            counter.reset();
+            int changed = gameState.setState(collector.publicStates().get(i), collector.playerStates().get(i));
+
+            assertEquals(counter.changes(), changed);
+            assertSameValues(collector.publicStates().get(i), collector.playerStates().get(i), gameState, planner);
+        }
+    }
+
+    /**
+     * Checks that the properties of the given observable state hold the values a new observable state computes from
+     * scratch for the given states, the tickets of the player being compared regardless of their order. The cheapest
+     * paths completing a ticket aren't unique, so the planned routes are compared with the routes planned by a planner
+     * taking the same claims into account.
+     */
+    private static void assertSameValues(PublicGameState publicGameState, PlayerState playerState,
+                                         ObservableGameState gameState, PlannerMirror planner) {
+        ObservableGameState fresh = new ObservableGameState(PLAYER_1);
+        fresh.setState(publicGameState, playerState);
+
+        List<ReadOnlyProperty<?>> expected = properties(fresh);
+        List<ReadOnlyProperty<?>> actual = properties(gameState);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+        }
+        List<Ticket> expectedTickets = new ArrayList<>(fresh.getAllPlayerTickets());
+        List<Ticket> actualTickets = new ArrayList<>(gameState.getAllPlayerTickets());
+        Collections.sort(expectedTickets);
+        Collections.sort(actualTickets);
+        assertEquals(expectedTickets, actualTickets);
+
+        BitSet planned = planner.plan(publicGameState, playerState);
+        for (Route route : ChMap.routes()) {
+            assertEquals(planned.get(ROUTES.idOf(route)), gameState.planned(route).get());
+        }
+    }
+
+    private static List<ReadOnlyProperty<?>> properties(ObservableGameState gameState) {
+        List<ReadOnlyProperty<?>> properties = new ArrayList<>();
+        properties.add(gameState.ticketsPercentageLeftProperty());
+        properties.add(gameState.cardsPercentageLeftProperty());
+        for (int slot : Constants.FACE_UP_CARD_SLOTS) {
+            properties.add(gameState.getFaceUpCard(slot));
+        }
+        for (Route route : ChMap.routes()) {
+            properties.add(gameState.getPlayerIdClaimingRoute(route));
+            properties.add(gameState.claimable(route));
+        }
+        for (PlayerId id : PlayerId.ALL) {
+            properties.add(gameState.getTicketCount(id));
+            properties.add(gameState.getCardCount(id));
+            properties.add(gameState.getCarCount(id));
+            properties.add(gameState.getConstructionPoints(id));
+        }
+        for (Card card : Card.ALL) {
+            properties.add(gameState.getNumberOfCard(card));
+        }
+        return properties;
+    }
+
+    private static RecordingPlayer playGame(int seed) {
+        RecordingPlayer collector = new RecordingPlayer(BotPlayer.random(seed));
+        Game.play(Map.of(PLAYER_1, collector, PLAYER_2, BotPlayer.random(-seed)), NAMES, SortedBag.of(ChMap.tickets()),
+                new Random(seed));
+        return collector;
+    }
+
+    /**
+     * Counter of the properties of an observable state that fire, the list of the tickets counting as one property
+     */
+    private static final class ChangeCounter {
+        //Kept, as the view of the list of the tickets only holds its listeners while it is reachable
+        private final ObservableList<Ticket> tickets;
+        private int changes = 0;
+
+        private ChangeCounter(ObservableGameState gameState) {
+            properties(gameState).forEach(property -> property.addListener((p, oldValue, newValue) -> changes++));
+            ChMap.routes().forEach(route -> gameState.planned(route).addListener((p, oldValue, newValue) -> changes++));
+            tickets = gameState.getAllPlayerTickets();
+            tickets.addListener((ListChangeListener<Ticket>) change -> changes++);
+        }
+
+        private int changes() {
+            return changes;
+        }
+
+        private void reset() {
+            changes = 0;
+        }
+    }
+
+    /**
+     * Planner following the claims of the states as an observable state does: it takes the new claims into account in
+     * the order of the players and of their routes, and is reset when routes were lost (as when a replay seeks back)
+     */
+    private static final class PlannerMirror {
+        private final RoutePlanner planner = new RoutePlanner(PLAYER_1);
+        private final PlayerId[] owners = new PlayerId[ROUTES.size()];
+
+        private BitSet plan(PublicGameState publicGameState, PlayerState playerState) {
+            PlayerId[] newOwners = new PlayerId[ROUTES.size()];
+            for (PlayerId owner : PlayerId.ALL) {
+                publicGameState.playerState(owner).routes().forEach(route -> newOwners[ROUTES.idOf(route)] = owner);
+            }
+            boolean lostRoutes = false;
+            for (int id = 0; id < owners.length; id++) {
+                lostRoutes |= owners[id] != null && newOwners[id] == null;
+            }
+
+            if (lostRoutes) {
+                planner.reset(newOwners);
+            } else {
+                for (PlayerId owner : PlayerId.ALL) {
+                    publicGameState.playerState(owner).routes().forEach(route -> planner.claim(route, owner));
+                }
+            }
+            System.arraycopy(newOwners, 0, owners, 0, owners.length);
+            return planner.plan(playerState.tickets().toList());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ch.epfl.tchu.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderingMetricsTest {
+    @Test
+    void onlyTheLogAndOverlayValuesOfThePropertyEnableTheMeasures() {
+        String previous = System.getProperty(RenderingMetrics.PROPERTY);
+        try {
+            System.clearProperty(RenderingMetrics.PROPERTY);
+            assertFalse(RenderingMetrics.loggedBySystemProperty());
+            System.setProperty(RenderingMetrics.PROPERTY, "off");
+            assertFalse(RenderingMetrics.loggedBySystemProperty());
+            assertFalse(RenderingMetrics.overlaidBySystemProperty());
+
+            System.setProperty(RenderingMetrics.PROPERTY, RenderingMetrics.LOG);
+            assertTrue(RenderingMetrics.loggedBySystemProperty());
+            assertFalse(RenderingMetrics.overlaidBySystemProperty());
+            System.setProperty(RenderingMetrics.PROPERTY, RenderingMetrics.OVERLAY);
+            assertTrue(RenderingMetrics.loggedBySystemProperty());
+            assertTrue(RenderingMetrics.overlaidBySystemProperty());
+        } finally {
+            if (previous == null) {
+                System.clearProperty(RenderingMetrics.PROPERTY);
+            } else {
+                System.setProperty(RenderingMetrics.PROPERTY, previous);
+            }
+        }
+    }
+
+    @Test
+    void recordedValuesAreCounted() {
+        RenderingMetrics metrics = new RenderingMetrics();
+        for (int i = 0; i < 10; i++) {
+            metrics.recordPulse(TimeUnit.MILLISECONDS.toNanos(2));
+        }
+        metrics.recordUpdate(TimeUnit.MILLISECONDS.toNanos(1), 4);
+
+        assertEquals(10, metrics.pulseCount());
+        assertEquals(1, metrics.updateCount());
+    }
+
+    @Test
+    void lastValuesDescribeTheLastMeasures() {
+        RenderingMetrics metrics = new RenderingMetrics();
+        metrics.recordPulse(TimeUnit.MILLISECONDS.toNanos(40));
+        metrics.recordPulse(TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.recordUpdate(TimeUnit.MICROSECONDS.toNanos(1_500), 5);
+        metrics.recordNodeCount(1_320);
+
+        String lastValues = metrics.lastValues();
+        assertTrue(lastValues.contains(String.format("pulse %.2f ms", 3.0)), lastValues);
+        assertTrue(lastValues.contains(String.format("setState %.2f ms, 5 properties", 1.5)), lastValues);
+        assertTrue(lastValues.contains("1320 nodes"), lastValues);
+    }
+
+    @Test
+    void summaryHasOneLineOfPercentilesPerKindOfValue() {
+        RenderingMetrics metrics = new RenderingMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordPulse(TimeUnit.MILLISECONDS.toNanos(1));
+            metrics.recordUpdate(TimeUnit.MILLISECONDS.toNanos(1), i % 8);
+            metrics.recordNodeCount(7);
+        }
+
+        String[] lines = metrics.summary().split(System.lineSeparator());
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("pulses (ms, 100):"), lines[0]);
+        assertTrue(lines[1].startsWith("setState (ms, 100):"), lines[1]);
+        assertTrue(lines[2].endsWith("p100=7"), lines[2]);
+        assertTrue(lines[3].contains("p50=7"), lines[3]);
+    }
+}
@@ -0,0 +1,81 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTimelineTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+
+    private static String record(int seed) {
+        StringWriter record = new StringWriter();
+        Game.play(Map.of(PLAYER_1, BotPlayer.random(seed), PLAYER_2, BotPlayer.random(-seed)), NAMES,
+                SortedBag.of(ChMap.tickets()), new Random(seed), new GameRecorder(record));
+        return record.toString();
+    }
+
+    private static ReplayTimeline timelineOf(String record, PlayerId playerId) throws IOException {
+        return new ReplayTimeline(GameRecorder.read(new BufferedReader(new StringReader(record))), playerId);
+    }
+
+    @Test
+    void timelineHoldsEveryStateOfTheGame() throws IOException {
+        ReplayTimeline timeline = timelineOf(record(3), PLAYER_2);
+
+        assertTrue(timeline.complete());
+        assertEquals(PLAYER_2, timeline.playerId());
+        assertEquals(NAMES, timeline.playerNames());
+        assertTrue(timeline.size() > 10);
+        assertEquals(0, timeline.state(0).claimedRoutes().size());
+        assertTrue(timeline.state(timeline.size() - 1).claimedRoutes().size() > 0);
+        assertEquals(timeline.state(timeline.size() - 1).playerState(PLAYER_2).cardCount(),
+                timeline.playerState(timeline.size() - 1).cards().size());
+        assertThrows(IndexOutOfBoundsException.class, () -> timeline.state(timeline.size()));
+    }
+
+    @Test
+    void messagesAreSpreadOverTheSteps() throws IOException {
+        ReplayTimeline timeline = timelineOf(record(4), PLAYER_1);
+
+        assertTrue(timeline.messageCount(0) > 0);
+        for (int step = 1; step < timeline.size(); step++) {
+            assertTrue(timeline.messageCount(step) >= timeline.messageCount(step - 1));
+        }
+        int messageCount = timeline.messageCount(timeline.size() - 1);
+        MessageLog.Entry last = timeline.messages(messageCount - 1, messageCount).get(0);
+        assertTrue(last.message().contains("Ada") || last.message().contains("Charles"), last.message());
+        assertThrows(IndexOutOfBoundsException.class, () -> timeline.messages(0, messageCount + 1));
+    }
+
+    @Test
+    void interruptedGamesAreReplayedUntilTheirInterruption() throws IOException {
+        String[] lines = record(5).split("\n");
+        String half = String.join("\n", Arrays.copyOf(lines, lines.length / 2));
+
+        ReplayTimeline timeline = timelineOf(half, PLAYER_1);
+        assertFalse(timeline.complete());
+        assertTrue(timeline.size() > 1);
+        assertTrue(timeline.size() < timelineOf(record(5), PLAYER_1).size());
+    }
+
+    @Test
+    void recordsEndingBeforeTheFirstStateAreRejected() {
+        String[] lines = record(6).split("\n");
+        String start = String.join("\n", Arrays.copyOf(lines, 3));
+
+        assertThrows(IllegalArgumentException.class, () -> timelineOf(start, PLAYER_1));
+    }
+}
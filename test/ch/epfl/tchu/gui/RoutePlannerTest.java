@@ -0,0 +1,191 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutePlannerTest {
+    private static final DenseIndex<Route> ROUTES = ChMap.routeIndex();
+    private static final int STATION_COUNT = ChMap.stations().size();
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    @Test
+    void plannedRoutesAreTheCheapestCompletingTheTickets() {
+        RoutePlanner planner = new RoutePlanner(PLAYER_1);
+
+        assertPlansAreTheCheapest(planner, PLAYER_1, new PlayerId[ROUTES.size()]);
+    }
+
+    @Test
+    void plansStayTheCheapestAsRoutesAreClaimed() {
+        for (int seed = 0; seed < 5; seed++) {
+            Random random = new Random(seed);
+            RoutePlanner planner = new RoutePlanner(PLAYER_1);
+            PlayerId[] owners = new PlayerId[ROUTES.size()];
+
+            for (int claim = 0; claim < 40; claim++) {
+                List<Route> claimable = claimableRoutes(owners);
+                Route route = claimable.get(random.nextInt(claimable.size()));
+                PlayerId owner = claim % 2 == 0 ? PLAYER_1 : PLAYER_2;
+
+                owners[ROUTES.idOf(route)] = owner;
+                planner.claim(route, owner);
+                assertPlansAreTheCheapest(planner, PLAYER_1, owners);
+            }
+        }
+    }
+
+    @Test
+    void plansGoBackInTimeWithTheRoutes() {
+        Random random = new Random(2021);
+        RoutePlanner planner = new RoutePlanner(PLAYER_2);
+        PlayerId[] owners = new PlayerId[ROUTES.size()];
+        List<PlayerId[]> history = new ArrayList<>();
+
+        for (int claim = 0; claim < 30; claim++) {
+            List<Route> claimable = claimableRoutes(owners);
+            Route route = claimable.get(random.nextInt(claimable.size()));
+            owners[ROUTES.idOf(route)] = claim % 3 == 0 ? PLAYER_1 : PLAYER_2;
+            planner.claim(route, owners[ROUTES.idOf(route)]);
+            history.add(owners.clone());
+        }
+        PlayerId[] earlier = history.get(10);
+        planner.reset(earlier);
+
+        assertPlansAreTheCheapest(planner, PLAYER_2, earlier);
+    }
+
+    @Test
+    void completedTicketsAreNotPlanned() {
+        RoutePlanner planner = new RoutePlanner(PLAYER_1);
+        for (Ticket ticket : ChMap.tickets()) {
+            BitSet planned = planner.plan(List.of(ticket));
+            if (!planned.isEmpty()) {
+                RoutePlanner completedPlanner = new RoutePlanner(PLAYER_1);
+                planned.stream().forEach(id -> completedPlanner.claim(ROUTES.valueOf(id), PLAYER_1));
+
+                assertTrue(completedPlanner.plan(List.of(ticket)).isEmpty(), ticket.text());
+            }
+        }
+    }
+
+    @Test
+    void ticketsOutOfReachAreNotPlanned() {
+        RoutePlanner planner = new RoutePlanner(PLAYER_1);
+        Station lugano = ChMap.stations().get(17);
+        Station locarno = ChMap.stations().get(15);
+        Station bellinzone = ChMap.stations().get(2);
+        //Every route leaving Lugano, the other player claiming them
+        for (Route route : ChMap.routes()) {
+            if (route.stations().contains(lugano)) {
+                planner.claim(route, PLAYER_2);
+            }
+        }
+
+        assertTrue(planner.plan(List.of(new Ticket(lugano, locarno, 5))).isEmpty());
+        assertFalse(planner.plan(List.of(new Ticket(bellinzone, locarno, 5))).isEmpty());
+    }
+
+    private static List<Route> claimableRoutes(PlayerId[] owners) {
+        Set<List<Station>> claimedPairs = new HashSet<>();
+        for (int id = 0; id < owners.length; id++) {
+            if (owners[id] != null) {
+                claimedPairs.add(ROUTES.valueOf(id).stations());
+            }
+        }
+        List<Route> claimable = new ArrayList<>();
+        for (Route route : ChMap.routes()) {
+            if (!claimedPairs.contains(route.stations())) {
+                claimable.add(route);
+            }
+        }
+        return claimable;
+    }
+
+    /**
+     * Checks that the routes planned for each ticket aren't claimed, link the stations of one of its trips (along with
+     * the routes of the player) and cost the fewest cars possible, as found by Dijkstra's algorithm
+     */
+    private static void assertPlansAreTheCheapest(RoutePlanner planner, PlayerId playerId, PlayerId[] owners) {
+        for (Ticket ticket : ChMap.tickets()) {
+            BitSet planned = planner.plan(List.of(ticket));
+
+            StationPartition.Builder builder = new StationPartition.Builder(STATION_COUNT);
+            int carCount = 0;
+            for (int id = planned.nextSetBit(0); id >= 0; id = planned.nextSetBit(id + 1)) {
+                Route route = ROUTES.valueOf(id);
+                assertTrue(owners[id] == null, ticket.text());
+                builder.connect(route.station1(), route.station2());
+                carCount += route.length();
+            }
+            for (int id = 0; id < owners.length; id++) {
+                if (owners[id] == playerId) {
+                    builder.connect(ROUTES.valueOf(id).station1(), ROUTES.valueOf(id).station2());
+                }
+            }
+            StationPartition partition = builder.build();
+
+            int cheapest = UNREACHABLE;
+            boolean linked = false;
+            for (Trip trip : ticket.trips()) {
+                cheapest = Math.min(cheapest, cheapestCarCount(trip.from(), trip.to(), playerId, owners));
+                linked |= partition.connected(trip.from(), trip.to());
+            }
+
+            if (cheapest == UNREACHABLE || cheapest == 0) {
+                assertTrue(planned.isEmpty(), ticket.text());
+            } else {
+                assertTrue(linked, ticket.text());
+                assertEquals(cheapest, carCount, ticket.text());
+            }
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm, the routes of the player costing nothing and the stations linked by a route of the other
+     * player not being linked any more
+     */
+    private static int cheapestCarCount(Station from, Station to, PlayerId playerId, PlayerId[] owners) {
+        Set<List<Station>> blockedPairs = new HashSet<>();
+        for (int id = 0; id < owners.length; id++) {
+            if (owners[id] != null && owners[id] != playerId) {
+                blockedPairs.add(ROUTES.valueOf(id).stations());
+            }
+        }
+        int[] carCounts = new int[STATION_COUNT];
+        Arrays.fill(carCounts, UNREACHABLE);
+        boolean[] done = new boolean[STATION_COUNT];
+        carCounts[from.id()] = 0;
+
+        for (int step = 0; step < STATION_COUNT; step++) {
+            int station = -1;
+            for (int candidate = 0; candidate < STATION_COUNT; candidate++) {
+                if (!done[candidate] && carCounts[candidate] != UNREACHABLE
+                        && (station < 0 || carCounts[candidate] < carCounts[station])) {
+                    station = candidate;
+                }
+            }
+            if (station < 0) {
+                break;
+            }
+            done[station] = true;
+
+            for (int id = 0; id < owners.length; id++) {
+                Route route = ROUTES.valueOf(id);
+                boolean owned = owners[id] == playerId;
+                if (!route.stations().contains(ChMap.stations().get(station))
+                        || (!owned && (owners[id] != null || blockedPairs.contains(route.stations())))) {
+                    continue;
+                }
+                int other = route.stationOpposite(ChMap.stations().get(station)).id();
+                carCounts[other] = Math.min(carCounts[other], carCounts[station] + (owned ? 0 : route.length()));
+            }
+        }
+        return carCounts[to.id()];
+    }
+}
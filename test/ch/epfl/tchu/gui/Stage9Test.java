@@ -7,13 +7,10 @@ import ch.epfl.tchu.game.*;
 import javafx.application.Application;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.layout.BorderPane;
-import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
 import java.util.ArrayList;
@@ -83,9 +80,9 @@ public final class Stage9Test extends Application {
 
         Map<PlayerId, String> playerNames =
                 Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
-        ObservableList<Text> infos = FXCollections.observableArrayList(
-                new Text("Première information.\n"),
-                new Text("\nSeconde information.\n"));
+        ObservableMessageLog infos = new ObservableMessageLog(16);
+        infos.addMessage("Première information.\n", null);
+        infos.addMessage("\nSeconde information.\n", null);
         Node infoView = InfoViewCreator
                 .createInfoView(PLAYER_1, playerNames, gameState, infos);
 
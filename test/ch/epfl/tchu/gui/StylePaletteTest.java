@@ -0,0 +1,42 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.game.Color;
+import ch.epfl.tchu.game.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StylePaletteTest {
+    @Test
+    void paletteOfTheStyleSheetFillsEveryColorAndEveryPlayer() throws IOException {
+        StylePalette palette;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get("resources", "colors.css"), UTF_8)) {
+            palette = StylePalette.read(reader);
+        }
+
+        for (Color color : Color.ALL) {
+            assertTrue(palette.fill(color.name()).startsWith("#"));
+        }
+        assertEquals("#d3d3d3", palette.fill("NEUTRAL"));
+        for (PlayerId playerId : PlayerId.ALL) {
+            assertFalse(palette.fill(playerId.name()).isEmpty());
+        }
+    }
+
+    @Test
+    void readKeepsQuotedAndNamedColors() throws IOException {
+        StylePalette palette = StylePalette.read(new BufferedReader(new StringReader(
+                ".RED .filled { -fx-fill: \"#e9787d\"; }\n.PLAYER_1 .filled { -fx-fill: lightblue; }\n.card { }\n")));
+
+        assertEquals("#e9787d", palette.fill("RED"));
+        assertEquals("lightblue", palette.fill("PLAYER_1"));
+        assertThrows(IllegalArgumentException.class, () -> palette.fill("card"));
+    }
+}
@@ -0,0 +1,114 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+
+/**
+ * Compares the plain and the compressed protocol: plays games between two bots behind proxies and clients linked by
+ * loopbacks, and reports the bytes sent per game and the CPU time per message. Usage: CompressionBenchmark [games]
+ */
+public final class CompressionBenchmark {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        com.sun.management.OperatingSystemMXBean system =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        //Warm up, then measure
+        for (int round = 0; round < 2; round++) {
+            for (boolean compressed : new boolean[]{false, true}) {
+                AtomicLong serverBytes = new AtomicLong();
+                AtomicLong clientBytes = new AtomicLong();
+                JmxProtocolMetrics metrics = new JmxProtocolMetrics();
+
+                long cpu = system.getProcessCpuTime();
+                for (int i = 0; i < games; i++) {
+                    playOverLoopback(i, compressed, metrics, serverBytes, clientBytes);
+                }
+                cpu = system.getProcessCpuTime() - cpu;
+
+                if (round == 1) {
+                    long messages = metrics.getSentMessages().values().stream().mapToLong(Long::longValue).sum();
+                    System.out.printf("%-10s server->client %8d B/game, client->server %6d B/game, %.2f us CPU/message%n",
+                            compressed ? "compressed" : "plain",
+                            serverBytes.get() / games, clientBytes.get() / games, cpu / 1e3 / messages);
+                }
+            }
+        }
+    }
+
+    private static void playOverLoopback(int seed, boolean compressed, ProtocolMetrics metrics,
+                                         AtomicLong serverBytes, AtomicLong clientBytes) throws InterruptedException {
+        LoopbackTransport first = new LoopbackTransport();
+        LoopbackTransport second = new LoopbackTransport();
+        Thread firstClient = startClient(BotPlayer.random(seed), first, clientBytes);
+        Thread secondClient = startClient(BotPlayer.random(-seed), second, clientBytes);
+
+        RemotePlayerProxy firstProxy = new RemotePlayerProxy(counting(first.serverSide(), serverBytes), metrics, compressed);
+        RemotePlayerProxy secondProxy = new RemotePlayerProxy(counting(second.serverSide(), serverBytes), metrics, compressed);
+        Map<PlayerId, Player> players = Map.of(PLAYER_1, firstProxy, PLAYER_2, secondProxy);
+        Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(seed));
+        firstProxy.close();
+        secondProxy.close();
+
+        firstClient.join();
+        secondClient.join();
+    }
+
+    private static Thread startClient(Player player, LoopbackTransport loopback, AtomicLong sentBytes) {
+        Connection.Connector connector = loopback.clientConnector();
+        RemotePlayerClient client = new RemotePlayerClient(player, () -> counting(connector.connect(), sentBytes),
+                0, ProtocolMetrics.NONE);
+        Thread thread = new Thread(client::run);
+        thread.start();
+        return thread;
+    }
+
+    private static Connection counting(Connection connection, AtomicLong sentBytes) {
+        return new Connection() {
+            @Override
+            public InputStream inputStream() throws IOException {
+                return connection.inputStream();
+            }
+
+            @Override
+            public OutputStream outputStream() throws IOException {
+                return new FilterOutputStream(connection.outputStream()) {
+                    @Override
+                    public void write(int b) throws IOException {
+                        sentBytes.incrementAndGet();
+                        out.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] bytes, int offset, int length) throws IOException {
+                        sentBytes.addAndGet(length);
+                        out.write(bytes, offset, length);
+                    }
+                };
+            }
+
+            @Override
+            public void close() throws IOException {
+                connection.close();
+            }
+        };
+    }
+}
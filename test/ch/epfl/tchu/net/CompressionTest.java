@@ -0,0 +1,165 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+
+    @Test
+    void compressedGameSendsFarFewerBytes() throws Exception {
+        long plainBytes = bytesSentByServer(false, true);
+        long compressedBytes = bytesSentByServer(true, true);
+
+        assertTrue(compressedBytes < plainBytes / 2, compressedBytes + " vs " + plainBytes);
+    }
+
+    @Test
+    void refusedCompressionKeepsThePlainProtocol() throws Exception {
+        long plainBytes = bytesSentByServer(false, true);
+        long refusedBytes = bytesSentByServer(true, false);
+
+        //Only the offer was added
+        assertEquals(plainBytes + "COMPRESS\n".length(), refusedBytes);
+    }
+
+    @Test
+    void compressedStreamsRoundTripFlushedMessages() throws IOException {
+        PipedInputStream pipe = new PipedInputStream(1 << 16);
+        OutputStream deflating = Compression.deflating(new PipedOutputStream(pipe));
+        BufferedReader inflating = new BufferedReader(new InputStreamReader(Compression.inflating(pipe)));
+
+        for (int i = 0; i < 100; i++) {
+            deflating.write(("RECEIVE_INFO " + i + "\n").getBytes());
+            deflating.flush();
+            //The flushed message can be read without waiting for the next one
+            assertEquals("RECEIVE_INFO " + i, inflating.readLine());
+        }
+    }
+
+    @Test
+    void closedCompressedConnectionClosesItsPlainConnectionAndItsStreams() throws IOException {
+        ByteArrayInputStream plainInput = new ByteArrayInputStream(new byte[0]);
+        ByteArrayOutputStream plainOutput = new ByteArrayOutputStream();
+        boolean[] closed = {false};
+        Connection compressed = Compression.compressing(new Connection() {
+            @Override
+            public InputStream inputStream() {
+                return plainInput;
+            }
+
+            @Override
+            public OutputStream outputStream() {
+                return plainOutput;
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        });
+        compressed.outputStream().write("RECEIVE_INFO 0\n".getBytes(US_ASCII));
+        compressed.outputStream().flush();
+        compressed.close();
+
+        assertTrue(closed[0]);
+        assertThrows(IOException.class, () -> compressed.outputStream().write(0));
+        assertThrows(IOException.class, () -> compressed.inputStream().read());
+        //Closing again does nothing
+        compressed.close();
+    }
+
+    @Test
+    void malformedAnswerToTheOfferFailsLikeALostConnection() {
+        for (String answer : new String[]{"COMPRESS yes\n", "NEXT_TURN 1\n", "COMPRESS\n"}) {
+            ByteArrayInputStream input = new ByteArrayInputStream(answer.getBytes(US_ASCII));
+            Connection connection = new Connection() {
+                @Override
+                public InputStream inputStream() {
+                    return input;
+                }
+
+                @Override
+                public OutputStream outputStream() {
+                    return new ByteArrayOutputStream();
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+
+            UncheckedIOException failure = assertThrows(UncheckedIOException.class,
+                    () -> new RemotePlayerProxy(connection, ProtocolMetrics.NONE, true));
+            assertTrue(failure.getCause().getMessage().contains("COMPRESS"), answer);
+        }
+    }
+
+    /**
+     * Plays a whole game between two bots, one of them behind a proxy, and counts the bytes sent by the proxy
+     */
+    private static long bytesSentByServer(boolean offerCompression, boolean acceptCompression) throws Exception {
+        LoopbackTransport loopback = new LoopbackTransport();
+        RemotePlayerClient client = new RemotePlayerClient(BotPlayer.random(2), loopback.clientConnector(),
+                0, ProtocolMetrics.NONE, acceptCompression);
+        CompletableFuture<Void> clientRun = CompletableFuture.runAsync(client::run);
+
+        AtomicLong sentBytes = new AtomicLong();
+        RemotePlayerProxy proxy = new RemotePlayerProxy(counting(loopback.serverSide(), sentBytes),
+                ProtocolMetrics.NONE, offerCompression);
+        Map<PlayerId, Player> players = Map.of(PLAYER_1, BotPlayer.random(1), PLAYER_2, proxy);
+        Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(0));
+        proxy.close();
+
+        clientRun.get(5, TimeUnit.SECONDS);
+        return sentBytes.get();
+    }
+
+    private static Connection counting(Connection connection, AtomicLong sentBytes) {
+        return new Connection() {
+            @Override
+            public InputStream inputStream() throws IOException {
+                return connection.inputStream();
+            }
+
+            @Override
+            public OutputStream outputStream() throws IOException {
+                return new FilterOutputStream(connection.outputStream()) {
+                    @Override
+                    public void write(int b) throws IOException {
+                        sentBytes.incrementAndGet();
+                        out.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] bytes, int offset, int length) throws IOException {
+                        sentBytes.addAndGet(length);
+                        out.write(bytes, offset, length);
+                    }
+                };
+            }
+
+            @Override
+            public void close() throws IOException {
+                connection.close();
+            }
+        };
+    }
+}
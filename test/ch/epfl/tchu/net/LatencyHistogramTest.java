@@ -0,0 +1,57 @@
+package ch.epfl.tchu.net;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    @Test
+    void emptyHistogramHasZeroPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(50));
+    }
+
+    @Test
+    void percentilesAreWithinOneEighth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1_000_000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        assertEquals(1_000_000, histogram.count());
+        for (double percentile : new double[]{1, 50, 90, 99, 100}) {
+            long exact = (long) (percentile * 10_000);
+            long estimate = histogram.percentile(percentile);
+            assertTrue(estimate >= exact, "percentile " + percentile);
+            assertTrue(estimate <= exact * 1.125, "percentile " + percentile);
+        }
+    }
+
+    @Test
+    void smallAndHugeLatenciesAreRecorded() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(3);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.percentile(0));
+        assertEquals(3, histogram.percentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.percentile(100));
+    }
+
+    @Test
+    void resetForgetsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+    }
+
+    @Test
+    void percentileFailsOutsideOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram().percentile(101));
+    }
+}
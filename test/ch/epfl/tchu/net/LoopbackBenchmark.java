@@ -0,0 +1,77 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+
+import java.util.Map;
+import java.util.Random;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+
+/**
+ * Measures the cost of the protocol apart from the network: plays games between two bots, first directly, then with
+ * both of them behind a proxy and a client linked by a loopback. Usage: LoopbackBenchmark [games]
+ */
+public final class LoopbackBenchmark {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        //Warm up, then measure
+        for (int round = 0; round < 2; round++) {
+            long direct = System.nanoTime();
+            for (int i = 0; i < games; i++) {
+                Game.play(Map.of(PLAYER_1, BotPlayer.random(i), PLAYER_2, BotPlayer.random(-i)),
+                        NAMES, SortedBag.of(ChMap.tickets()), new Random(i));
+            }
+            direct = System.nanoTime() - direct;
+
+            JmxProtocolMetrics metrics = new JmxProtocolMetrics();
+            long loopback = System.nanoTime();
+            for (int i = 0; i < games; i++) {
+                playOverLoopback(i, metrics);
+            }
+            loopback = System.nanoTime() - loopback;
+
+            if (round == 1) {
+                long messages = metrics.getSentMessages().values().stream().mapToLong(Long::longValue).sum();
+                System.out.printf("direct:   %.1f us/game%n", direct / 1e3 / games);
+                System.out.printf("loopback: %.1f us/game, %d messages, %.2f us/message of protocol overhead%n",
+                        loopback / 1e3 / games, messages, (loopback - direct) / 1e3 / messages);
+                LatencyHistogram turns = metrics.latencies(MessageId.NEXT_TURN);
+                System.out.printf("NEXT_TURN round trip: p50 %d ns, p99 %d ns%n",
+                        turns.percentile(50), turns.percentile(99));
+            }
+        }
+    }
+
+    private static void playOverLoopback(int seed, ProtocolMetrics metrics) throws InterruptedException {
+        LoopbackTransport first = new LoopbackTransport();
+        LoopbackTransport second = new LoopbackTransport();
+        Thread firstClient = startClient(BotPlayer.random(seed), first);
+        Thread secondClient = startClient(BotPlayer.random(-seed), second);
+
+        RemotePlayerProxy firstProxy = new RemotePlayerProxy(first.serverSide(), metrics);
+        RemotePlayerProxy secondProxy = new RemotePlayerProxy(second.serverSide(), metrics);
+        Map<PlayerId, Player> players = Map.of(PLAYER_1, firstProxy, PLAYER_2, secondProxy);
+        Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(seed));
+        firstProxy.close();
+        secondProxy.close();
+
+        firstClient.join();
+        secondClient.join();
+    }
+
+    private static Thread startClient(Player player, LoopbackTransport loopback) {
+        RemotePlayerClient client = new RemotePlayerClient(player, loopback.clientConnector(), 0, ProtocolMetrics.NONE);
+        Thread thread = new Thread(client::run);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,88 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoopbackTransportTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+
+    @Test
+    void flushedBytesReachTheOtherEndInOrder() throws Exception {
+        LoopbackTransport loopback = new LoopbackTransport(1);
+        Connection client = loopback.clientConnector().connect();
+        OutputStream output = loopback.serverSide().outputStream();
+
+        //The ring holds a single frame, so the writer waits for the reader
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    output.write(i % 100);
+                    output.flush();
+                }
+                loopback.serverSide().close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        InputStream input = client.inputStream();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 100, input.read());
+        }
+        assertEquals(-1, input.read());
+        writer.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void closedEndRefusesWrites() throws IOException {
+        LoopbackTransport loopback = new LoopbackTransport();
+        loopback.clientConnector().connect().close();
+
+        OutputStream output = loopback.serverSide().outputStream();
+        output.write(1);
+        assertThrows(IOException.class, output::flush);
+    }
+
+    @Test
+    void loopbackCanOnlyBeConnectedOnce() throws IOException {
+        LoopbackTransport loopback = new LoopbackTransport();
+        Connection.Connector connector = loopback.clientConnector();
+        connector.connect();
+
+        assertThrows(ConnectException.class, connector::connect);
+    }
+
+    @Test
+    void wholeGameCanBePlayedOverTheLoopback() throws Exception {
+        LoopbackTransport loopback = new LoopbackTransport();
+        RemotePlayerClient client = new RemotePlayerClient(BotPlayer.random(2), loopback.clientConnector(),
+                0, ProtocolMetrics.NONE);
+        CompletableFuture<Void> clientRun = CompletableFuture.runAsync(client::run);
+
+        JmxProtocolMetrics metrics = new JmxProtocolMetrics();
+        RemotePlayerProxy proxy = new RemotePlayerProxy(loopback.serverSide(), metrics);
+        Map<PlayerId, Player> players = Map.of(PLAYER_1, BotPlayer.random(1), PLAYER_2, proxy);
+        Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(0));
+        proxy.close();
+
+        clientRun.get(5, TimeUnit.SECONDS);
+        assertEquals(Long.valueOf(1), metrics.getSentMessages().get(MessageId.INIT_PLAYERS.name()));
+        assertTrue(metrics.latencies(MessageId.NEXT_TURN).count() > 0);
+    }
+}
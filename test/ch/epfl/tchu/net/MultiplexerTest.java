@@ -0,0 +1,139 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiplexerTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+
+    @Test
+    void channelsCarryTheirOwnLines() throws Exception {
+        LoopbackTransport loopback = new LoopbackTransport();
+        BlockingQueue<Connection> accepted = new LinkedBlockingQueue<>();
+        List<Integer> seats = new ArrayList<>();
+
+        Multiplexer server = Multiplexer.opening(loopback.serverSide());
+        Multiplexer client = Multiplexer.accepting(loopback.clientConnector().connect(), (channel, seat) -> {
+            seats.add(seat);
+            accepted.add(channel);
+        });
+        Connection first = server.openChannel();
+        Connection second = server.openChannel();
+
+        write(second, "NEXT_TURN 0\n");
+        write(first, "RECEIVE_INFO a\nRECEIVE_INFO b\n");
+        //The channels are announced in the order they were opened
+        Connection firstOnClient = accepted.poll(5, TimeUnit.SECONDS);
+        Connection secondOnClient = accepted.poll(5, TimeUnit.SECONDS);
+        assertEquals(List.of(0, 1), seats);
+
+        BufferedReader secondReader = reader(secondOnClient);
+        BufferedReader firstReader = reader(firstOnClient);
+        assertEquals("NEXT_TURN 0", secondReader.readLine());
+        assertEquals("RECEIVE_INFO a", firstReader.readLine());
+        assertEquals("RECEIVE_INFO b", firstReader.readLine());
+
+        write(secondOnClient, "0 1\n");
+        assertEquals("0 1", reader(second).readLine());
+
+        first.close();
+        assertNull(firstReader.readLine());
+
+        server.close();
+        assertNull(secondReader.readLine());
+        client.awaitClosed();
+    }
+
+    @Test
+    void channelReceivingTooManyLinesIsClosed() throws Exception {
+        LoopbackTransport loopback = new LoopbackTransport();
+        BlockingQueue<Connection> accepted = new LinkedBlockingQueue<>();
+
+        Multiplexer server = Multiplexer.opening(loopback.serverSide());
+        Multiplexer client = Multiplexer.accepting(loopback.clientConnector().connect(),
+                (channel, seat) -> accepted.add(channel));
+        Connection flooded = server.openChannel();
+        Connection other = server.openChannel();
+
+        write(flooded, "RECEIVE_INFO a\n".repeat(Multiplexer.MAX_QUEUED_LINES + 1));
+        write(other, "NEXT_TURN 0\n");
+        BufferedReader floodedReader = reader(accepted.poll(5, TimeUnit.SECONDS));
+        BufferedReader otherReader = reader(accepted.poll(5, TimeUnit.SECONDS));
+
+        //The other channel is still open, and the lines queued before the flood can still be read
+        assertEquals("NEXT_TURN 0", otherReader.readLine());
+        for (int i = 0; i < Multiplexer.MAX_QUEUED_LINES; i++) {
+            assertEquals("RECEIVE_INFO a", floodedReader.readLine());
+        }
+        assertNull(floodedReader.readLine());
+        //The server is told that the channel was closed
+        assertNull(reader(flooded).readLine());
+
+        server.close();
+        client.awaitClosed();
+    }
+
+    @Test
+    void gamesArePlayedOverASingleConnection() throws Exception {
+        int games = 10;
+        LoopbackTransport loopback = new LoopbackTransport();
+        MultiplexedClient client = new MultiplexedClient(loopback.clientConnector(), BotPlayer::random, ProtocolMetrics.NONE);
+        Thread clientThread = new Thread(client::run);
+        clientThread.start();
+
+        Multiplexer server = Multiplexer.opening(loopback.serverSide());
+        List<Thread> gameThreads = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            RemotePlayerProxy first = new RemotePlayerProxy(server.openChannel(), ProtocolMetrics.NONE, false);
+            RemotePlayerProxy second = new RemotePlayerProxy(server.openChannel(), ProtocolMetrics.NONE, false);
+            Map<PlayerId, Player> players = Map.of(PLAYER_1, first, PLAYER_2, second);
+            long seed = i;
+
+            Thread game = new Thread(() -> {
+                Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(seed));
+                first.close();
+                second.close();
+            });
+            game.start();
+            gameThreads.add(game);
+        }
+        for (Thread game : gameThreads) {
+            game.join(60_000);
+        }
+        server.close();
+        clientThread.join(5_000);
+
+        assertFalse(clientThread.isAlive());
+        assertEquals(2 * games, client.completedSeats());
+        assertEquals(0, client.failedSeats());
+    }
+
+    private static void write(Connection connection, String lines) throws IOException {
+        OutputStream outputStream = connection.outputStream();
+        outputStream.write(lines.getBytes(US_ASCII));
+        outputStream.flush();
+    }
+
+    private static BufferedReader reader(Connection connection) throws IOException {
+        return new BufferedReader(new InputStreamReader(connection.inputStream(), US_ASCII));
+    }
+}
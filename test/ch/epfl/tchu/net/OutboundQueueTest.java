@@ -0,0 +1,145 @@
+package ch.epfl.tchu.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ch.epfl.tchu.net.Serdes.INTEGER_SERDE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundQueueTest {
+    @Test
+    void notificationsAreFlushedWithTheNextRequest() throws Exception {
+        FlushRecorder recorder = new FlushRecorder();
+        OutboundQueue queue = new OutboundQueue(recorder, 60_000, 0);
+
+        queue.enqueue(MessageId.RECEIVE_INFO, arguments(1), false);
+        queue.enqueue(MessageId.UPDATE_STATE, arguments(2), false);
+        queue.enqueue(MessageId.NEXT_TURN, arguments(0), true);
+
+        assertEquals(List.of("RECEIVE_INFO 1\nUPDATE_STATE 2\nNEXT_TURN 0\n"), recorder.awaitFlushes(1));
+    }
+
+    @Test
+    void notificationsAreFlushedAfterTheLinger() throws Exception {
+        FlushRecorder recorder = new FlushRecorder();
+        OutboundQueue queue = new OutboundQueue(recorder, 5, 0);
+
+        queue.enqueue(MessageId.RECEIVE_INFO, arguments(1), false);
+        assertEquals(List.of("RECEIVE_INFO 1\n"), recorder.awaitFlushes(1));
+    }
+
+    @Test
+    void closeFlushesThePendingMessages() throws Exception {
+        FlushRecorder recorder = new FlushRecorder();
+        OutboundQueue queue = new OutboundQueue(recorder, 60_000, 0);
+
+        queue.enqueue(MessageId.RECEIVE_INFO, arguments(1), false);
+        queue.close();
+        assertEquals(List.of("RECEIVE_INFO 1\n"), recorder.awaitFlushes(1));
+        assertThrows(IOException.class, () -> queue.enqueue(MessageId.RECEIVE_INFO, arguments(2), false));
+    }
+
+    @Test
+    void idleQueueSendsHeartbeats() throws Exception {
+        FlushRecorder recorder = new FlushRecorder();
+        OutboundQueue queue = new OutboundQueue(recorder, 60_000, 5);
+
+        assertEquals(List.of("HEARTBEAT\n", "HEARTBEAT\n"), recorder.awaitFlushes(2).subList(0, 2));
+        queue.close();
+    }
+
+    @Test
+    void writtenMessagesAreMeasuredButNotHeartbeats() throws Exception {
+        FlushRecorder recorder = new FlushRecorder();
+        Map<MessageId, Integer> sentBytes = new ConcurrentHashMap<>();
+        ProtocolMetrics metrics = new ProtocolMetrics() {
+            @Override
+            public void messageSent(MessageId messageId, int bytes, long serializationNanos) {
+                sentBytes.merge(messageId, bytes, Integer::sum);
+            }
+        };
+        OutboundQueue queue = new OutboundQueue(recorder, 60_000, 5, metrics, new SampledTrace(0, System.out));
+
+        queue.enqueue(MessageId.NEXT_TURN, arguments(12), true);
+        recorder.awaitFlushes(2);
+        queue.close();
+
+        assertEquals(Map.of(MessageId.NEXT_TURN, "NEXT_TURN 12\n".length()), sentBytes);
+    }
+
+    @Test
+    void failureOfTheWriterIsReportedToTheNextMessage() throws Exception {
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+            }
+
+            @Override
+            public void flush() throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        OutboundQueue queue = new OutboundQueue(failing, 0, 0);
+        queue.enqueue(MessageId.NEXT_TURN, arguments(0), true);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        IOException failure = null;
+        while (failure == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+            try {
+                queue.enqueue(MessageId.RECEIVE_INFO, arguments(1), false);
+            } catch (IOException ioException) {
+                failure = ioException;
+            }
+        }
+        assertNotNull(failure);
+        assertEquals("Broken pipe", failure.getMessage());
+    }
+
+    private static MessageArgument<?>[] arguments(int value) {
+        return new MessageArgument<?>[]{MessageArgument.of(INTEGER_SERDE, value)};
+    }
+
+    /**
+     * Writer recording the characters of each flush
+     */
+    private static final class FlushRecorder extends Writer {
+        private final StringBuilder pending = new StringBuilder();
+        private final List<String> flushes = new ArrayList<>();
+
+        @Override
+        public synchronized void write(char[] chars, int offset, int length) {
+            pending.append(chars, offset, length);
+        }
+
+        @Override
+        public synchronized void flush() {
+            flushes.add(pending.toString());
+            pending.setLength(0);
+            notifyAll();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private synchronized List<String> awaitFlushes(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (flushes.size() < count && System.currentTimeMillis() < deadline) {
+                wait(10);
+            }
+            return new ArrayList<>(flushes);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.Card;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.Route;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.tchu.game.Card.BLUE;
+import static ch.epfl.tchu.game.Card.LOCOMOTIVE;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemotePlayerProxyTest {
+    @Test
+    void claimTurnCostsASingleRoundTrip() throws Exception {
+        Route route = ChMap.routes().get(5);
+        SortedBag<Card> cards = SortedBag.of(1, BLUE, 1, LOCOMOTIVE);
+
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+            RemotePlayerProxy proxy = new RemotePlayerProxy(serverSocket.accept());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), US_ASCII));
+            Writer writer = new OutputStreamWriter(client.getOutputStream(), US_ASCII);
+
+            CompletableFuture<Player.TurnKind> turn = CompletableFuture.supplyAsync(proxy::nextTurn);
+            assertEquals("NEXT_TURN 0", reader.readLine());
+
+            writer.write("0 2 " + Serdes.ROUTE_SERDE.serialize(route) + " " + Serdes.SORTED_BAG_CARD_SERDE.serialize(cards) + "\n");
+            writer.flush();
+
+            assertEquals(Player.TurnKind.CLAIM_ROUTE, turn.get(5, TimeUnit.SECONDS));
+            assertSame(route, proxy.claimedRoute());
+            assertEquals(cards, proxy.initialClaimCards());
+
+            //No ROUTE nor CARDS request was sent: the next message is the next request
+            CompletableFuture<Integer> slot = CompletableFuture.supplyAsync(proxy::drawSlot);
+            assertEquals("DRAW_SLOT 1", reader.readLine());
+            writer.write("1 -1\n");
+            writer.flush();
+            assertEquals(-1, slot.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void answersToOlderRequestsAreIgnored() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+            RemotePlayerProxy proxy = new RemotePlayerProxy(serverSocket.accept());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), US_ASCII));
+            Writer writer = new OutputStreamWriter(client.getOutputStream(), US_ASCII);
+
+            CompletableFuture<Integer> first = CompletableFuture.supplyAsync(proxy::drawSlot);
+            assertEquals("DRAW_SLOT 0", reader.readLine());
+            writer.write("0 2\n");
+            writer.flush();
+            assertEquals(2, first.get(5, TimeUnit.SECONDS));
+
+            CompletableFuture<Integer> second = CompletableFuture.supplyAsync(proxy::drawSlot);
+            assertEquals("DRAW_SLOT 1", reader.readLine());
+            writer.write("0 2\n1 4\n");
+            writer.flush();
+            assertEquals(4, second.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void proxyRecordsMetricsOfRequests() throws Exception {
+        JmxProtocolMetrics metrics = new JmxProtocolMetrics();
+
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+            RemotePlayerProxy proxy = new RemotePlayerProxy(serverSocket.accept(), null, 0, metrics);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), US_ASCII));
+            Writer writer = new OutputStreamWriter(client.getOutputStream(), US_ASCII);
+
+            CompletableFuture<Integer> slot = CompletableFuture.supplyAsync(proxy::drawSlot);
+            assertEquals("DRAW_SLOT 0", reader.readLine());
+            writer.write("0 3\n");
+            writer.flush();
+            assertEquals(3, slot.get(5, TimeUnit.SECONDS));
+
+            assertEquals(Map.of("DRAW_SLOT", 1L), metrics.getSentMessages());
+            assertEquals(Map.of("DRAW_SLOT", 12L), metrics.getSentBytes());
+            assertEquals(Map.of("DRAW_SLOT", 4L), metrics.getReceivedBytes());
+            assertEquals(1, metrics.latencies(MessageId.DRAW_SLOT).count());
+
+            metrics.reset();
+            assertTrue(metrics.getSentMessages().isEmpty());
+        }
+    }
+
+    @Test
+    void silentClientIsConsideredDeadPromptly() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+            RemotePlayerProxy proxy = new RemotePlayerProxy(serverSocket.accept(), 20);
+
+            CompletableFuture<Integer> slot = CompletableFuture.supplyAsync(proxy::drawSlot);
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> slot.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof UncheckedIOException);
+            assertTrue(proxy.connectionLost());
+
+            //The connection of the silent client is closed once it is considered dead
+            client.setSoTimeout(5_000);
+            InputStream input = client.getInputStream();
+            while (input.read() >= 0) {
+                //The requests and heartbeats sent before the client was considered dead
+            }
+        }
+    }
+
+    @Test
+    void clientSendingHeartbeatsIsWaitedFor() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+            RemotePlayerProxy proxy = new RemotePlayerProxy(serverSocket.accept(), 20);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), US_ASCII));
+            Writer writer = new OutputStreamWriter(client.getOutputStream(), US_ASCII);
+
+            CompletableFuture<Integer> slot = CompletableFuture.supplyAsync(proxy::drawSlot);
+            String request;
+            do {
+                request = reader.readLine();
+            } while (request.equals("HEARTBEAT"));
+            assertEquals("DRAW_SLOT 0", request);
+
+            //The player thinks for several dead peer timeouts
+            for (int i = 0; i < 20; i++) {
+                writer.write("HEARTBEAT\n");
+                writer.flush();
+                Thread.sleep(10);
+            }
+            writer.write("0 3\n");
+            writer.flush();
+
+            assertEquals(3, slot.get(5, TimeUnit.SECONDS));
+            assertFalse(proxy.connectionLost());
+        }
+    }
+}
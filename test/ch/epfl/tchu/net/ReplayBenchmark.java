@@ -0,0 +1,43 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.bot.BotPlayer;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Replays the server side of a capture to a client played by a bot, over a loopback and as fast as possible, and
+ * reports the time the client takes per message. The same capture can be replayed before and after a change of the
+ * protocol or of its parser. Usage: ReplayBenchmark capture [rounds]
+ */
+public final class ReplayBenchmark {
+    public static void main(String[] args) throws Exception {
+        List<TrafficCapture.Frame> frames = TrafficCapture.read(Files.newBufferedReader(Paths.get(args[0]), US_ASCII));
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        TrafficReplay replay = new TrafficReplay(frames, false);
+
+        //Warm up, then measure
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            int mismatches = 0;
+            for (int i = 0; i < rounds; i++) {
+                LoopbackTransport loopback = new LoopbackTransport();
+                RemotePlayerClient client = new RemotePlayerClient(BotPlayer.scripted(), loopback.clientConnector(), 0,
+                        ProtocolMetrics.NONE);
+                Thread clientThread = new Thread(client::run);
+                clientThread.start();
+                mismatches += replay.replayServerSide(loopback.serverSide());
+                clientThread.join();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (round == 1) {
+                System.out.printf("%d frames x %d rounds: %.2f us/frame, %d mismatched answers%n",
+                        frames.size(), rounds, elapsed / 1e3 / frames.size() / rounds, mismatches);
+            }
+        }
+    }
+}
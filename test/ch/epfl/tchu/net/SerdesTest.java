@@ -4,7 +4,9 @@ import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.*;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -13,6 +15,7 @@ import java.util.Map;
 import static ch.epfl.tchu.game.Card.*;
 import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
 import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.junit.jupiter.api.Assertions.*;
 
 class SerdesTest {
@@ -353,4 +356,36 @@ class SerdesTest {
         assertEquals(original.routes(), deserialized.routes());
 }
 
-}
\ No newline at end of file
+    @Test
+    void streamingSerializeWritesSameAsString() throws IOException {
+        SortedBag<Card> cards = SortedBag.of(List.of(RED, WHITE, BLUE, BLACK, RED));
+        StringBuilder destination = new StringBuilder("CARDS ");
+
+        Serdes.SORTED_BAG_CARD_SERDE.serialize(cards, destination);
+
+        assertEquals("CARDS 0,2,6,6,7", destination.toString());
+    }
+
+    @Test
+    void streamingSerializeWorksIntoByteBuffer() {
+        PlayerState original = new PlayerState(SortedBag.of(ChMap.tickets().get(0)), SortedBag.of(2, RED), List.of(ChMap.routes().get(3)));
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        Serdes.PLAYER_STATE_SERDE.serialize(original, buffer);
+
+        assertEquals(Serdes.PLAYER_STATE_SERDE.serialize(original), new String(buffer.array(), 0, buffer.position(), US_ASCII));
+    }
+
+    @Test
+    void deserializeWorksOnRangeOfLine() {
+        String line = "CHOOSE_ADDITIONAL_CARDS 0,2,6,6,7;0,6,7,8,8 trailing";
+        int from = line.indexOf(' ') + 1;
+        int to = line.lastIndexOf(' ');
+
+        List<SortedBag<Card>> deserialized = Serdes.LIST_SORTED_BAG_CARD_SERDE.deserialize(line, from, to);
+
+        assertEquals(List.of(SortedBag.of(List.of(RED, WHITE, BLUE, BLACK, RED)), SortedBag.of(List.of(RED, WHITE, LOCOMOTIVE, BLACK, LOCOMOTIVE))), deserialized);
+        assertEquals(-1, Serdes.INTEGER_SERDE.deserialize("x-1x", 1, 3));
+        assertEquals("Charles", Serdes.STRING_SERDE.deserialize(" Q2hhcmxlcw== ", 1, 13));
+    }
+}
@@ -0,0 +1,117 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRegistryTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+
+    @Test
+    void proxyResendsMissedMessagesToResumingClient() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Socket lostClient = new Socket("localhost", serverSocket.getLocalPort());
+            RemotePlayerProxy proxy = new RemotePlayerProxy(serverSocket.accept(), registry, 5_000);
+            registry.acceptConnections(serverSocket, spectator -> { });
+
+            proxy.initPlayers(PLAYER_2, NAMES);
+            String[] init = reader(lostClient).readLine().split(" ");
+            assertEquals(4, init.length);
+            String token = init[3];
+
+            CompletableFuture<Integer> slot = CompletableFuture.supplyAsync(() -> {
+                proxy.receiveInfo("missed");
+                return proxy.drawSlot();
+            });
+            lostClient.close();
+
+            try (Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+                BufferedReader reader = reader(client);
+                Writer writer = new OutputStreamWriter(client.getOutputStream(), US_ASCII);
+                writer.write("RESUME " + token + " 1\n");
+                writer.flush();
+
+                assertEquals("RESUME 0", reader.readLine());
+                assertEquals("RECEIVE_INFO " + Serdes.STRING_SERDE.serialize("missed"), reader.readLine());
+                assertEquals("DRAW_SLOT 0", reader.readLine());
+
+                writer.write("0 3\n");
+                writer.flush();
+                assertEquals(3, slot.get(5, TimeUnit.SECONDS));
+            }
+            proxy.close();
+        }
+    }
+
+    @Test
+    void unknownSessionIsRefused() throws IOException {
+        SessionRegistry registry = new SessionRegistry();
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            registry.acceptConnections(serverSocket, spectator -> { });
+
+            try (Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+                Writer writer = new OutputStreamWriter(client.getOutputStream(), US_ASCII);
+                writer.write("RESUME " + Serdes.STRING_SERDE.serialize("unknown") + " 0\n");
+                writer.flush();
+
+                BufferedReader reader = reader(client);
+                assertEquals("RESUME", reader.readLine());
+                assertNull(reader.readLine());
+            }
+        }
+    }
+
+    @Test
+    void spectatorsAreHandedOverAsSoonAsTheyAnnounceThemselves() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        CompletableFuture<Socket> spectator = new CompletableFuture<>();
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            registry.acceptConnections(serverSocket, spectator::complete);
+
+            try (Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+                Writer writer = new OutputStreamWriter(client.getOutputStream(), US_ASCII);
+                writer.write("SPECTATE\n");
+                writer.flush();
+
+                //Well before the time a silent connection has to announce itself
+                spectator.get(1, TimeUnit.SECONDS).close();
+            }
+        }
+    }
+
+    @Test
+    void silentConnectionsAreClosed() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        CompletableFuture<Socket> spectator = new CompletableFuture<>();
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            registry.acceptConnections(serverSocket, spectator::complete);
+
+            try (Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+                client.setSoTimeout(5_000);
+
+                assertEquals(-1, client.getInputStream().read());
+                assertFalse(spectator.isDone());
+            }
+        }
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), US_ASCII));
+    }
+}
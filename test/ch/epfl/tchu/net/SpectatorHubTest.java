@@ -0,0 +1,66 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+
+import static ch.epfl.tchu.game.Card.*;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorHubTest {
+    private static final PublicGameState GAME_STATE = new PublicGameState(
+            10,
+            new PublicCardState(List.of(RED, WHITE, BLUE, BLACK, RED), 20, 0),
+            PLAYER_1,
+            Map.of(PLAYER_1, new PublicPlayerState(3, 4, List.of(ChMap.routes().get(2))),
+                    PLAYER_2, new PublicPlayerState(2, 5, List.of())),
+            null);
+
+    @Test
+    void spectatorReceivesInfosAndPublicStates() throws IOException {
+        SpectatorHub hub = new SpectatorHub();
+
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+            hub.addSpectator(serverSocket.accept());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), US_ASCII));
+
+            hub.broadcastInfo("Charles");
+            hub.broadcastState(GAME_STATE);
+
+            assertEquals("RECEIVE_INFO Q2hhcmxlcw==", reader.readLine());
+            assertEquals("UPDATE_PUBLIC_STATE " + Serdes.PUBLIC_GAME_STATE_SERDE.serialize(GAME_STATE), reader.readLine());
+        } finally {
+            hub.close();
+        }
+    }
+
+    @Test
+    void lateSpectatorReceivesLastState() throws IOException {
+        SpectatorHub hub = new SpectatorHub();
+
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+            hub.broadcastInfo("lost");
+            hub.broadcastState(GAME_STATE);
+
+            hub.addSpectator(serverSocket.accept());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), US_ASCII));
+
+            assertEquals(1, hub.spectatorCount());
+            assertEquals("UPDATE_PUBLIC_STATE " + Serdes.PUBLIC_GAME_STATE_SERDE.serialize(GAME_STATE), reader.readLine());
+        } finally {
+            hub.close();
+        }
+    }
+}
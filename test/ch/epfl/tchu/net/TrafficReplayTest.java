@@ -0,0 +1,159 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.bot.BotPlayer;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficReplayTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+    private static final int SEED = 2021;
+
+    @Test
+    void captureRecordsBothSidesInOrder() throws Exception {
+        List<TrafficCapture.Frame> frames = playCapturedGame().get(0);
+
+        assertTrue(frames.get(0).fromServer());
+        assertTrue(frames.get(0).message().startsWith("INIT_PLAYERS"));
+        assertTrue(frames.stream().anyMatch(frame -> !frame.fromServer()));
+        for (int i = 1; i < frames.size(); i++) {
+            assertTrue(frames.get(i - 1).offsetNanos() <= frames.get(i).offsetNanos());
+        }
+    }
+
+    @Test
+    void replayOfTheServerSideFeedsAClientIdentically() throws Exception {
+        List<TrafficCapture.Frame> frames = playCapturedGame().get(0);
+
+        LoopbackTransport loopback = new LoopbackTransport();
+        RemotePlayerClient client = new RemotePlayerClient(BotPlayer.random(SEED), loopback.clientConnector(), 0,
+                ProtocolMetrics.NONE);
+        CompletableFuture<Void> clientRun = CompletableFuture.runAsync(client::run);
+
+        assertEquals(0, new TrafficReplay(frames, false).replayServerSide(loopback.serverSide()));
+        clientRun.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void replayOfTheClientSidesFeedsAServerIdentically() throws Exception {
+        List<List<TrafficCapture.Frame>> captures = playCapturedGame();
+
+        LoopbackTransport first = new LoopbackTransport();
+        LoopbackTransport second = new LoopbackTransport();
+        CompletableFuture<Integer> firstReplay = replayClientSide(captures.get(0), first);
+        CompletableFuture<Integer> secondReplay = replayClientSide(captures.get(1), second);
+
+        RemotePlayerProxy firstProxy = new RemotePlayerProxy(first.serverSide(), ProtocolMetrics.NONE, false);
+        RemotePlayerProxy secondProxy = new RemotePlayerProxy(second.serverSide(), ProtocolMetrics.NONE, false);
+        Map<PlayerId, Player> players = Map.of(PLAYER_1, firstProxy, PLAYER_2, secondProxy);
+        Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(SEED));
+        firstProxy.close();
+        secondProxy.close();
+
+        assertEquals(0, firstReplay.get(5, TimeUnit.SECONDS));
+        assertEquals(0, secondReplay.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void pacedReplaySendsHeartbeatsDuringLongPauses() throws Exception {
+        long heartbeatIntervalMillis = 50;
+        long pauseNanos = TimeUnit.MILLISECONDS.toNanos(20 * heartbeatIntervalMillis);
+        List<TrafficCapture.Frame> frames = List.of(
+                new TrafficCapture.Frame(0, true, "NEXT_TURN"),
+                new TrafficCapture.Frame(1, true, "HEARTBEAT"),
+                new TrafficCapture.Frame(pauseNanos, true, "DRAW_SLOT"));
+
+        LoopbackTransport loopback = new LoopbackTransport();
+        Connection client = loopback.clientConnector().connect();
+        CompletableFuture<List<Long>> arrivals = CompletableFuture.supplyAsync(() -> {
+            List<Long> arrivalNanos = new ArrayList<>();
+            List<String> messages = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(client.inputStream(), US_ASCII))) {
+                String message;
+                while ((message = reader.readLine()) != null) {
+                    arrivalNanos.add(System.nanoTime());
+                    messages.add(message);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            assertEquals(List.of("NEXT_TURN", "DRAW_SLOT"),
+                    messages.stream().filter(message -> !message.equals("HEARTBEAT")).collect(Collectors.toList()));
+            return arrivalNanos;
+        });
+
+        assertEquals(0, new TrafficReplay(frames, true, heartbeatIntervalMillis).replayServerSide(loopback.serverSide()));
+        List<Long> arrivalNanos = arrivals.get(5, TimeUnit.SECONDS);
+
+        //The client never goes long enough without a message to consider the replay dead
+        long deadPeerNanos = TimeUnit.MILLISECONDS.toNanos(NetUtils.deadPeerTimeoutMillis(heartbeatIntervalMillis));
+        assertTrue(arrivalNanos.size() > 2);
+        for (int i = 1; i < arrivalNanos.size(); i++) {
+            assertTrue(arrivalNanos.get(i) - arrivalNanos.get(i - 1) < deadPeerNanos);
+        }
+    }
+
+    private static CompletableFuture<Integer> replayClientSide(List<TrafficCapture.Frame> frames, LoopbackTransport loopback) {
+        TrafficReplay replay = new TrafficReplay(frames, false);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return replay.replayClientSide(loopback.clientConnector().connect());
+            } catch (Exception exception) {
+                throw new AssertionError(exception);
+            }
+        });
+    }
+
+    /**
+     * Plays a game between two bots behind proxies capturing their traffic
+     *
+     * @return the frames captured by the proxy of each player
+     */
+    private static List<List<TrafficCapture.Frame>> playCapturedGame() throws Exception {
+        StringWriter firstCapture = new StringWriter();
+        StringWriter secondCapture = new StringWriter();
+        LoopbackTransport first = new LoopbackTransport();
+        LoopbackTransport second = new LoopbackTransport();
+        CompletableFuture<Void> firstClient = runClient(BotPlayer.random(SEED), first);
+        CompletableFuture<Void> secondClient = runClient(BotPlayer.random(-SEED), second);
+
+        try (TrafficCapture firstTraffic = new TrafficCapture(firstCapture);
+             TrafficCapture secondTraffic = new TrafficCapture(secondCapture)) {
+            RemotePlayerProxy firstProxy = new RemotePlayerProxy(firstTraffic.recording(first.serverSide()),
+                    ProtocolMetrics.NONE, false);
+            RemotePlayerProxy secondProxy = new RemotePlayerProxy(secondTraffic.recording(second.serverSide()),
+                    ProtocolMetrics.NONE, false);
+            Map<PlayerId, Player> players = Map.of(PLAYER_1, firstProxy, PLAYER_2, secondProxy);
+            Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), new Random(SEED));
+            firstProxy.close();
+            secondProxy.close();
+            firstClient.get(5, TimeUnit.SECONDS);
+            secondClient.get(5, TimeUnit.SECONDS);
+        }
+
+        return List.of(TrafficCapture.read(new BufferedReader(new StringReader(firstCapture.toString()))),
+                TrafficCapture.read(new BufferedReader(new StringReader(secondCapture.toString()))));
+    }
+
+    private static CompletableFuture<Void> runClient(Player player, LoopbackTransport loopback) {
+        RemotePlayerClient client = new RemotePlayerClient(player, loopback.clientConnector(), 0, ProtocolMetrics.NONE);
+        return CompletableFuture.runAsync(client::run);
+    }
+}
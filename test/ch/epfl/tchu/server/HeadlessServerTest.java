@@ -0,0 +1,83 @@
+package ch.epfl.tchu.server;
+
+import ch.epfl.tchu.bot.BotPlayer;
+import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.net.Connection;
+import ch.epfl.tchu.net.MultiplexedClient;
+import ch.epfl.tchu.net.ProtocolMetrics;
+import ch.epfl.tchu.net.RemotePlayerClient;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadlessServerTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
+
+    @Test
+    void remotePlayersPlayAgainstBots() throws Exception {
+        ServerSocket players = new ServerSocket(0);
+        try (HeadlessServer server = new HeadlessServer(players, null, 2, 1, 0, NAMES, true)) {
+            CompletableFuture<Void> run = runAsync(server);
+            for (int i = 0; i < 2; i++) {
+                new RemotePlayerClient(BotPlayer.random(i), "localhost", players.getLocalPort()).run();
+            }
+            run.get(30, TimeUnit.SECONDS);
+
+            assertEquals(2, server.playedGames());
+            assertEquals(0, server.failedGames());
+        }
+    }
+
+    @Test
+    void multiplexedConnectionsTakeOneSeatOfEveryGame() throws Exception {
+        ServerSocket players = new ServerSocket(0);
+        ServerSocket multiplexed = new ServerSocket(0);
+        List<MultiplexedClient> clients = new ArrayList<>();
+        for (int i = 0; i < PlayerId.COUNT; i++) {
+            clients.add(new MultiplexedClient(Connection.Connector.to("localhost", multiplexed.getLocalPort()),
+                    BotPlayer::random, ProtocolMetrics.NONE));
+        }
+
+        HeadlessServer server = new HeadlessServer(players, multiplexed, 3, 0, 0, NAMES, false);
+        List<CompletableFuture<Void>> clientRuns = new ArrayList<>();
+        try {
+            CompletableFuture<Void> run = runAsync(server);
+            for (MultiplexedClient client : clients) {
+                clientRuns.add(CompletableFuture.runAsync(client::run));
+            }
+            run.get(60, TimeUnit.SECONDS);
+        } finally {
+            //Closing the server closes the multiplexed connections, which ends the clients
+            server.close();
+        }
+        for (CompletableFuture<Void> clientRun : clientRuns) {
+            clientRun.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(3, server.playedGames());
+        assertEquals(0, server.failedGames());
+        //Every game has a seat of each connection
+        for (MultiplexedClient client : clients) {
+            assertEquals(3, client.completedSeats());
+        }
+    }
+
+    private static CompletableFuture<Void> runAsync(HeadlessServer server) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                server.run();
+            } catch (InterruptedException interrupted) {
+                throw new AssertionError(interrupted);
+            }
+        });
+    }
+}